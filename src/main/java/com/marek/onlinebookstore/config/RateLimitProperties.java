@@ -0,0 +1,19 @@
+package com.marek.onlinebookstore.config;
+
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// rate-limit.policies.<name>.* limits the requests matching paths, per user or client IP.
+// A caller may send capacity requests at once and gets refill-per-second more every second.
+@ConfigurationProperties("rate-limit")
+public record RateLimitProperties(
+        boolean enabled,
+        @DefaultValue("100000")
+        int maxKeys,
+        Map<String, Policy> policies
+) {
+    public record Policy(List<String> paths, int capacity, double refillPerSecond) {
+    }
+}
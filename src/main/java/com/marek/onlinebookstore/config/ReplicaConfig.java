@@ -0,0 +1,62 @@
+package com.marek.onlinebookstore.config;
+
+import com.marek.onlinebookstore.repository.replica.Replica;
+import com.marek.onlinebookstore.repository.replica.ReplicaPool;
+import com.marek.onlinebookstore.repository.replica.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+// Wraps the application's DataSource, whether it is the plain one or the shard router, so
+// that @Transactional(readOnly = true) work runs on the replicas under replicas.sources
+@Configuration
+@ConditionalOnProperty("replicas.enabled")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaConfig {
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    @Bean
+    public static BeanPostProcessor replicaRoutingPostProcessor(
+            ObjectProvider<ReplicaPool> replicaPool) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (DATA_SOURCE_BEAN.equals(beanName) && bean instanceof DataSource primary) {
+                    return new LazyConnectionDataSourceProxy(
+                            new ReplicaRoutingDataSource(primary, replicaPool.getObject()));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public ReplicaPool replicaPool(ReplicaProperties properties,
+                                  DataSourceProperties dataSourceProperties) {
+        if (properties.sources() == null || properties.sources().isEmpty()) {
+            throw new IllegalStateException(
+                    "replicas.enabled is set but no replicas.sources are configured");
+        }
+        List<Replica> replicas = properties.sources().entrySet().stream()
+                .map(source -> new Replica(source.getKey(), DataSourceBuilder.create()
+                        .type(HikariDataSource.class)
+                        .driverClassName(dataSourceProperties.getDriverClassName())
+                        .url(source.getValue().url())
+                        .username(source.getValue().username())
+                        .password(source.getValue().password())
+                        .build()))
+                .toList();
+        ReplicaPool replicaPool = new ReplicaPool(replicas, properties.maxLag());
+        replicaPool.check();
+        return replicaPool;
+    }
+}
@@ -0,0 +1,17 @@
+package com.marek.onlinebookstore.config;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties("replicas")
+public record ReplicaProperties(
+        boolean enabled,
+        @DefaultValue("5s")
+        Duration maxLag,
+        Map<String, Source> sources
+) {
+    public record Source(String url, String username, String password) {
+    }
+}
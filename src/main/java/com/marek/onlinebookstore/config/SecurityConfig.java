@@ -1,9 +1,18 @@
 package com.marek.onlinebookstore.config;
 
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
+import com.marek.onlinebookstore.security.CalibratedPasswordEncoder;
+import com.marek.onlinebookstore.security.ratelimit.RateLimitFilter;
 import com.marek.onlinebookstore.security.token.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
+import java.time.Duration;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -11,22 +20,31 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.DispatcherTypeRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
 
 @Configuration
 @EnableMethodSecurity
+@EnableConfigurationProperties(RateLimitProperties.class)
 @RequiredArgsConstructor
 public class SecurityConfig {
 
     private final UserDetailsService userDetailsService;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
 
+    // A cost of 0 picks the highest cost that hashes within the target latency on this machine
     @Bean
-    public PasswordEncoder getPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder getPasswordEncoder(
+            @Value("${security.password.bcrypt-strength:0}") int strength,
+            @Value("${security.password.target-latency:250ms}") Duration targetLatency) {
+        return strength > 0
+                ? new CalibratedPasswordEncoder(strength)
+                : CalibratedPasswordEncoder.calibrated(targetLatency);
     }
 
     @Bean
@@ -36,19 +54,36 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(
                         auth -> auth
+                                // Only the streaming responses are dispatched again once
+                                // they finish, after the first dispatch was authorized
+                                .requestMatchers(new AndRequestMatcher(
+                                        new DispatcherTypeRequestMatcher(DispatcherType.ASYNC),
+                                        new OrRequestMatcher(
+                                                antMatcher(HttpMethod.GET, "/books/export"),
+                                                antMatcher(HttpMethod.GET, "/orders/stream"))))
+                                .permitAll()
+                                .requestMatchers("/auth/logout", "/auth/logout-all")
+                                .authenticated()
                                 .requestMatchers(
                                         "/auth/**",
                                         "/error",
                                         "/swagger-ui/**",
-                                        "/v3/api-docs/**"
+                                        "/v3/api-docs/**",
+                                        "/actuator/health"
                                 )
                                 .permitAll()
+                                .requestMatchers("/actuator/**")
+                                .hasRole("ADMIN")
                                 .anyRequest().authenticated()
                 )
                 .addFilterBefore(
                         jwtAuthenticationFilter,
                         UsernamePasswordAuthenticationFilter.class
                 )
+                .addFilterAfter(
+                        rateLimitFilter,
+                        JwtAuthenticationFilter.class
+                )
                 .userDetailsService(userDetailsService)
                 .build();
     }
@@ -0,0 +1,126 @@
+package com.marek.onlinebookstore.config;
+
+import com.marek.onlinebookstore.model.IdSequences;
+import com.marek.onlinebookstore.repository.shard.ShardContext;
+import com.marek.onlinebookstore.repository.shard.ShardDirectory;
+import com.marek.onlinebookstore.repository.shard.ShardExecutor;
+import com.marek.onlinebookstore.repository.shard.ShardRebalancer;
+import com.marek.onlinebookstore.repository.shard.ShardRing;
+import com.marek.onlinebookstore.repository.shard.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.sql.DataSource;
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Orders, order items, carts and cart items live on the shard of their user. Every shard gets
+// the full schema; users, roles, books and stock reservations are written on the main
+// datasource, the first three have to be replicated to the other shards outside of the
+// application.
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+    private static final List<String> USER_SEQUENCES =
+            List.of("orders", "order_items", "shopping_carts", "cart_items");
+    private static final String RAISE_SEQUENCE = "UPDATE " + IdSequences.TABLE
+            + " SET " + IdSequences.VALUE_COLUMN + " = GREATEST(" + IdSequences.VALUE_COLUMN
+            + ", ?) WHERE " + IdSequences.NAME_COLUMN + " = ?";
+
+    @Bean
+    public ShardDirectory shardDirectory(ShardingProperties properties) {
+        Set<String> shards = new LinkedHashSet<>();
+        shards.add(ShardContext.MAIN);
+        if (properties.enabled() && properties.shards() != null) {
+            shards.addAll(properties.shards().keySet());
+        }
+        List<String> ring = properties.enabled()
+                ? List.of(properties.ring()) : List.of(ShardContext.MAIN);
+        return new ShardDirectory(shards, new ShardRing(ring, properties.virtualNodes()));
+    }
+
+    @Bean
+    public ShardExecutor shardExecutor(ShardDirectory shardDirectory) {
+        return new ShardExecutor(shardDirectory);
+    }
+
+    @Configuration
+    @ConditionalOnProperty("sharding.enabled")
+    static class Routing {
+
+        // The main datasource is migrated by Spring Boot, the other shards are migrated here
+        @Bean
+        public Map<String, DataSource> shardDataSources(DataSourceProperties dataSourceProperties,
+                                                        ShardingProperties properties,
+                                                        LiquibaseProperties liquibaseProperties,
+                                                        ResourceLoader resourceLoader,
+                                                        @Value("${orders.async.enabled:false}")
+                                                        boolean asyncOrders) throws Exception {
+            if (asyncOrders) {
+                throw new IllegalStateException(
+                        "orders.async.enabled is not supported together with sharding");
+            }
+            Map<String, DataSource> dataSources = new HashMap<>();
+            dataSources.put(ShardContext.MAIN, dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class).build());
+            for (Map.Entry<String, ShardingProperties.Shard> shard
+                    : properties.shards().entrySet()) {
+                DataSource dataSource = DataSourceBuilder.create()
+                        .type(HikariDataSource.class)
+                        .driverClassName(dataSourceProperties.getDriverClassName())
+                        .url(shard.getValue().url())
+                        .username(shard.getValue().username())
+                        .password(shard.getValue().password())
+                        .build();
+                migrate(dataSource, shard.getValue(), liquibaseProperties, resourceLoader);
+                dataSources.put(shard.getKey(), dataSource);
+            }
+            return dataSources;
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(
+                @Qualifier("shardDataSources") Map<String, DataSource> shardDataSources) {
+            ShardRoutingDataSource routing = new ShardRoutingDataSource();
+            routing.setTargetDataSources(new HashMap<>(shardDataSources));
+            routing.setDefaultTargetDataSource(shardDataSources.get(ShardContext.MAIN));
+            return routing;
+        }
+
+        @Bean
+        public ShardRebalancer shardRebalancer(ShardDirectory shardDirectory,
+                @Qualifier("shardDataSources") Map<String, DataSource> shardDataSources) {
+            return new ShardRebalancer(shardDirectory, shardDataSources);
+        }
+
+        // Ids handed out on a shard start at its id-base, so rows keep their ids when their
+        // user is moved to another shard
+        private static void migrate(DataSource dataSource, ShardingProperties.Shard shard,
+                                    LiquibaseProperties liquibaseProperties,
+                                    ResourceLoader resourceLoader) throws Exception {
+            SpringLiquibase liquibase = new SpringLiquibase();
+            liquibase.setDataSource(dataSource);
+            liquibase.setChangeLog(liquibaseProperties.getChangeLog());
+            liquibase.setResourceLoader(resourceLoader);
+            liquibase.afterPropertiesSet();
+            new JdbcTemplate(dataSource).batchUpdate(RAISE_SEQUENCE, USER_SEQUENCES.stream()
+                    .map(sequence -> new Object[] {shard.idBase(), sequence})
+                    .toList());
+        }
+    }
+}
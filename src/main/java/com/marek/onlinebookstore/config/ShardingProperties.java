@@ -0,0 +1,20 @@
+package com.marek.onlinebookstore.config;
+
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// sharding.shards.<name>.* adds a datasource next to the main one, sharding.ring lists the
+// shards that currently own users
+@ConfigurationProperties("sharding")
+public record ShardingProperties(
+        boolean enabled,
+        @DefaultValue("160")
+        int virtualNodes,
+        @DefaultValue("main")
+        String[] ring,
+        Map<String, Shard> shards
+) {
+    public record Shard(String url, String username, String password, long idBase) {
+    }
+}
@@ -1,17 +1,25 @@
 package com.marek.onlinebookstore.controller;
 
+import com.marek.onlinebookstore.dto.user.login.RefreshTokenRequestDto;
 import com.marek.onlinebookstore.dto.user.login.UserLoginRequestDto;
 import com.marek.onlinebookstore.dto.user.login.UserLoginResponseDto;
 import com.marek.onlinebookstore.dto.user.register.UserRegistrationRequestDto;
 import com.marek.onlinebookstore.dto.user.register.UserRegistrationResponseDto;
 import com.marek.onlinebookstore.exception.RegistrationException;
+import com.marek.onlinebookstore.security.AuthenticatedUser;
+import com.marek.onlinebookstore.security.token.JwtUtil;
 import com.marek.onlinebookstore.service.user.AuthenticationService;
 import com.marek.onlinebookstore.service.user.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -32,5 +40,24 @@ public class AuthenticationController {
             @RequestBody UserLoginRequestDto loginRequestDto) {
         return authenticationService.authenticate(loginRequestDto);
     }
+
+    @PostMapping("/refresh")
+    public UserLoginResponseDto refresh(@RequestBody @Valid RefreshTokenRequestDto requestDto) {
+        return authenticationService.refresh(requestDto.refreshToken());
+    }
+
+    @PostMapping("/logout")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        authenticationService.logout(JwtUtil.extractToken(authorization));
+    }
+
+    @PostMapping("/logout-all")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void logoutAll(Authentication authentication,
+                          @RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        authenticationService.logoutAll(user.id(), JwtUtil.extractToken(authorization));
+    }
 }
 
@@ -2,16 +2,31 @@ package com.marek.onlinebookstore.controller;
 
 import com.marek.onlinebookstore.dto.book.BookDto;
 import com.marek.onlinebookstore.dto.book.BookDtoWithoutCategoryIds;
+import com.marek.onlinebookstore.dto.book.BookFacetsDto;
+import com.marek.onlinebookstore.dto.book.BookImportStatusDto;
 import com.marek.onlinebookstore.dto.book.BookSearchParametersDto;
+import com.marek.onlinebookstore.dto.book.BookSearchResultDto;
+import com.marek.onlinebookstore.dto.book.BookStockDto;
+import com.marek.onlinebookstore.dto.book.BookStockRequestDto;
+import com.marek.onlinebookstore.dto.book.BookSuggestionDto;
 import com.marek.onlinebookstore.dto.book.CreateBookRequestDto;
+import com.marek.onlinebookstore.exception.EntityNotFoundException;
+import com.marek.onlinebookstore.service.book.BookExportService;
+import com.marek.onlinebookstore.service.book.BookImportService;
 import com.marek.onlinebookstore.service.book.BookService;
+import com.marek.onlinebookstore.service.book.exporter.BookExportFormat;
+import com.marek.onlinebookstore.service.inventory.InventoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -21,15 +36,22 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Tag(name = "Book management", description = "Endpoints for managing books")
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/books")
 public class BookController {
+    private static final String DID_YOU_MEAN_HEADER = "X-Did-You-Mean";
+
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final BookExportService bookExportService;
+    private final InventoryService inventoryService;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_USER')")
@@ -39,6 +61,17 @@ public class BookController {
         return ResponseEntity.ok(books);
     }
 
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_USER')")
+    @Operation(summary = "Get all books by cursor",
+            description = "get books after your cursor, the next cursor is returned "
+                    + "in the X-Next-Cursor header")
+    public ResponseEntity<List<BookDto>> getAll(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return WindowResponse.of(bookService.findAll(cursor, WindowResponse.size(size)));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_USER')")
     @Operation(summary = "Get a book by id", description = "get book with your id")
@@ -74,13 +107,122 @@ public class BookController {
         }
     }
 
+    @GetMapping("/{id}/stock")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_USER')")
+    @Operation(summary = "Get book stock",
+            description = "get units available, held in carts and sold but not yet "
+                    + "reconciled; available is null when stock is not tracked")
+    public ResponseEntity<BookStockDto> getStock(@PathVariable Long id) {
+        return ResponseEntity.ok(inventoryService.getStock(id));
+    }
+
+    @PutMapping("/{id}/stock")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "Set book stock",
+            description = "set units available for sale, starts tracking stock of the book")
+    public ResponseEntity<BookStockDto> setStock(
+            @PathVariable Long id,
+            @RequestBody @Valid BookStockRequestDto requestDto) {
+        try {
+            return ResponseEntity.ok(inventoryService.setStock(id, requestDto.available()));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+    }
+
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_USER')")
-    @Operation(summary = "Search Books", description = "search book with your parameters")
+    @Operation(summary = "Search Books",
+            description = "search book with your parameters or ranked full-text query q, "
+                    + "fuzzy=true tolerates typos in q, title and author; a spelling "
+                    + "suggestion is returned in the X-Did-You-Mean header")
     public ResponseEntity<List<BookDto>> searchBooks(
             BookSearchParametersDto searchParameters, Pageable pageable) {
-        List<BookDto> books = bookService.searchBooks(searchParameters, pageable);
-        return ResponseEntity.ok(books);
+        BookSearchResultDto result = bookService.searchBooks(searchParameters, pageable);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.didYouMean() != null) {
+            response.header(DID_YOU_MEAN_HEADER, result.didYouMean());
+        }
+        return response.body(result.books());
+    }
+
+    @GetMapping(value = "/search", params = "cursor")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_USER')")
+    @Operation(summary = "Search Books by cursor",
+            description = "search books after your cursor, the next cursor is returned "
+                    + "in the X-Next-Cursor header")
+    public ResponseEntity<List<BookDto>> searchBooks(
+            BookSearchParametersDto searchParameters,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return WindowResponse.of(bookService.searchBooks(searchParameters, cursor,
+                WindowResponse.size(size)));
+    }
+
+    @GetMapping("/facets")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_USER')")
+    @Operation(summary = "Get book facets",
+            description = "get category, author and price band counts for your filters")
+    public ResponseEntity<BookFacetsDto> getFacets(BookSearchParametersDto searchParameters) {
+        return ResponseEntity.ok(bookService.getFacets(searchParameters));
+    }
+
+    @GetMapping("/suggest")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_USER')")
+    @Operation(summary = "Suggest books",
+            description = "get title, author and ISBN completions for your prefix")
+    public ResponseEntity<List<BookSuggestionDto>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookService.suggest(q, limit));
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "Import books",
+            description = "create or update books by ISBN from a streamed CSV or NDJSON body, "
+                    + "the final status is returned once the body is imported and progress "
+                    + "is available under GET /books/import while it runs")
+    public ResponseEntity<BookImportStatusDto> importBooks(HttpServletRequest request)
+            throws IOException {
+        return ResponseEntity.ok(bookImportService.importBooks(request.getInputStream(),
+                request.getContentType()));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_USER')")
+    @Operation(summary = "Export books",
+            description = "stream the whole catalog as ndjson or csv in one response")
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        BookExportFormat exportFormat = BookExportFormat.fromExtension(format).orElse(null);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"books." + exportFormat.getExtension() + "\"")
+                .body(output -> bookExportService.export(exportFormat, output));
+    }
+
+    @GetMapping("/import")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "Get import jobs", description = "get status of recent book imports")
+    public ResponseEntity<List<BookImportStatusDto>> getImportJobs() {
+        return ResponseEntity.ok(bookImportService.getJobs());
+    }
+
+    @GetMapping("/import/{jobId}")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "Get import status",
+            description = "get progress, rows per second and row errors of your import")
+    public ResponseEntity<BookImportStatusDto> getImportStatus(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(bookImportService.getStatus(jobId));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
     }
 
     @ResponseStatus(HttpStatus.NO_CONTENT)
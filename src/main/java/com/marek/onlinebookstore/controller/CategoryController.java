@@ -12,6 +12,7 @@ import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,6 +21,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -49,6 +51,17 @@ public class CategoryController {
         return categoryService.findAll(pageable);
     }
 
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_USER')")
+    @Operation(summary = "Get all categories by cursor",
+            description = "get categories after your cursor, the next cursor is returned "
+                    + "in the X-Next-Cursor header")
+    public ResponseEntity<List<CategoryDto>> getAll(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return WindowResponse.of(categoryService.findAll(cursor, WindowResponse.size(size)));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_USER')")
     @Operation(summary = "Get a category by id",
@@ -84,4 +97,17 @@ public class CategoryController {
         return bookService.findByCategoryId(id, pageable);
     }
 
+    @GetMapping(value = "/{id}/books", params = "cursor")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_USER')")
+    @Operation(summary = "Get books by category id and cursor",
+            description = "get books with your category id after your cursor, the next "
+                    + "cursor is returned in the X-Next-Cursor header")
+    public ResponseEntity<List<BookDtoWithoutCategoryIds>> getBooksByCategoryId(
+            @PathVariable Long id,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return WindowResponse.of(bookService.findByCategoryId(id, cursor,
+                WindowResponse.size(size)));
+    }
+
 }
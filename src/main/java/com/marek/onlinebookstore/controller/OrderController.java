@@ -1,15 +1,26 @@
 package com.marek.onlinebookstore.controller;
 
+import com.marek.onlinebookstore.dto.order.BulkOrderStatusRequestDto;
+import com.marek.onlinebookstore.dto.order.BulkOrderStatusResultDto;
 import com.marek.onlinebookstore.dto.order.OrderDto;
 import com.marek.onlinebookstore.dto.order.OrderItemDto;
+import com.marek.onlinebookstore.dto.order.OrderRequestStatusDto;
 import com.marek.onlinebookstore.dto.order.PlacingOrderRequestDto;
-import com.marek.onlinebookstore.model.User;
+import com.marek.onlinebookstore.exception.EntityNotFoundException;
+import com.marek.onlinebookstore.security.AuthenticatedUser;
+import com.marek.onlinebookstore.service.order.OrderEventHub;
+import com.marek.onlinebookstore.service.order.OrderRequestService;
 import com.marek.onlinebookstore.service.order.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
+import java.net.URI;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,20 +29,51 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/orders")
 public class OrderController {
     private final OrderService orderService;
+    private final OrderRequestService orderRequestService;
+    private final OrderEventHub orderEventHub;
+
+    @Value("${orders.async.enabled:false}")
+    private boolean asyncOrders;
 
     @PostMapping
     @PreAuthorize("hasRole('ROLE_USER')")
     @Operation(summary = "Make Order",
-            description = "make order for user with your shipping address")
-    public OrderDto makeOrder(@RequestBody @Valid PlacingOrderRequestDto requestDto) {
-        return orderService.makeOrder(requestDto);
+            description = "make order from your shopping cart with your shipping address; "
+                    + "in async mode the order is queued and 202 is returned with the "
+                    + "request status location")
+    public ResponseEntity<?> makeOrder(Authentication authentication,
+                                       @RequestBody @Valid PlacingOrderRequestDto requestDto) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        if (asyncOrders) {
+            OrderRequestStatusDto request = orderRequestService.enqueue(user.id(), requestDto);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/orders/requests/" + request.id()))
+                    .body(request);
+        }
+        return ResponseEntity.ok(orderService.makeOrder(user.id(), requestDto));
+    }
+
+    @GetMapping("/requests/{id}")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @Operation(summary = "get order request status",
+            description = "get progress of your queued order, orderId is set once it is placed")
+    public ResponseEntity<OrderRequestStatusDto> getOrderRequest(Authentication authentication,
+                                                                 @PathVariable String id) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        try {
+            return ResponseEntity.ok(orderRequestService.getStatus(user.id(), id));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
     }
 
     @GetMapping
@@ -39,8 +81,32 @@ public class OrderController {
     @Operation(summary = "get order history",
             description = "get your all orders")
     public List<OrderDto> getOrderHistory(Authentication authentication, Pageable pageable) {
-        User user = (User) authentication.getPrincipal();
-        return orderService.getHistory(user, pageable);
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return orderService.getHistory(user.id(), pageable);
+    }
+
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @Operation(summary = "get order history by cursor",
+            description = "get your orders newest first after your cursor, the next cursor "
+                    + "is returned in the X-Next-Cursor header")
+    public ResponseEntity<List<OrderDto>> getOrderHistory(
+            Authentication authentication,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return WindowResponse.of(orderService.getHistory(user.id(), cursor,
+                WindowResponse.size(size)));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @Operation(summary = "stream order status changes",
+            description = "server-sent events with your placed orders and status changes, "
+                    + "the event name is ORDER_PLACED or ORDER_STATUS_CHANGED")
+    public SseEmitter streamOrders(Authentication authentication) {
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        return orderEventHub.subscribe(user.id());
     }
 
     @GetMapping("/{orderId}/items")
@@ -65,4 +131,13 @@ public class OrderController {
     public OrderDto updateOrderStatus(@PathVariable Long id) {
         return orderService.updateStatus(id);
     }
+
+    @PatchMapping("/status")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "update many order statuses",
+            description = "move the given or matching orders to their next status")
+    public BulkOrderStatusResultDto updateOrderStatuses(
+            @RequestBody @Valid BulkOrderStatusRequestDto requestDto) {
+        return orderService.updateStatuses(requestDto);
+    }
 }
@@ -0,0 +1,34 @@
+package com.marek.onlinebookstore.controller;
+
+import com.marek.onlinebookstore.dto.shard.ShardRebalanceRequestDto;
+import com.marek.onlinebookstore.dto.shard.ShardRebalanceResultDto;
+import com.marek.onlinebookstore.service.shard.ShardService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name = "Shard management",
+        description = "Endpoints for moving users between order shards")
+@ConditionalOnProperty("sharding.enabled")
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/shards")
+public class ShardController {
+    private final ShardService shardService;
+
+    @PostMapping("/rebalance")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "Rebalance shards",
+            description = "move users onto a new ring of shards while serving requests")
+    public ShardRebalanceResultDto rebalance(@RequestBody @Valid
+                                             ShardRebalanceRequestDto requestDto) {
+        return shardService.rebalance(requestDto);
+    }
+}
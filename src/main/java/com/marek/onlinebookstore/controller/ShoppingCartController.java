@@ -4,7 +4,7 @@ import com.marek.onlinebookstore.dto.cart.CartItemDto;
 import com.marek.onlinebookstore.dto.cart.CartItemRequestDto;
 import com.marek.onlinebookstore.dto.cart.CartItemUpdatedDto;
 import com.marek.onlinebookstore.dto.cart.ShoppingCartDto;
-import com.marek.onlinebookstore.model.User;
+import com.marek.onlinebookstore.security.AuthenticatedUser;
 import com.marek.onlinebookstore.service.cart.ShoppingCartService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -36,8 +36,8 @@ public class ShoppingCartController {
     @Operation(summary = "Get user Cart",
             description = "get a cart your user")
     public ShoppingCartDto getUserCart(Authentication authentication) {
-        User principal = (User) authentication.getPrincipal();
-        return shoppingCartService.findUserCart(principal);
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        return shoppingCartService.findUserCart(principal.id());
     }
 
     @PostMapping
@@ -46,8 +46,8 @@ public class ShoppingCartController {
             description = "create new item and add to user cart")
     public ShoppingCartDto addItemToUserCart(Authentication authentication,
                                              @RequestBody @Valid CartItemRequestDto requestDto) {
-        User principal = (User) authentication.getPrincipal();
-        return shoppingCartService.addItem(principal, requestDto);
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        return shoppingCartService.addItem(principal.id(), requestDto);
     }
 
     @ResponseStatus(HttpStatus.OK)
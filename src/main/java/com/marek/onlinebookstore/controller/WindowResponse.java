@@ -0,0 +1,27 @@
+package com.marek.onlinebookstore.controller;
+
+import com.marek.onlinebookstore.repository.KeysetCursor;
+import java.util.List;
+import org.springframework.data.domain.Window;
+import org.springframework.http.ResponseEntity;
+
+final class WindowResponse {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int MAX_SIZE = 100;
+
+    private WindowResponse() {
+    }
+
+    static int size(int requestedSize) {
+        return Math.max(1, Math.min(requestedSize, MAX_SIZE));
+    }
+
+    static <T> ResponseEntity<List<T>> of(Window<T> window) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        String nextCursor = KeysetCursor.nextCursor(window);
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(window.getContent());
+    }
+}
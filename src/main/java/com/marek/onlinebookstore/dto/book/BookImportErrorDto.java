@@ -0,0 +1,7 @@
+package com.marek.onlinebookstore.dto.book;
+
+public record BookImportErrorDto(
+        long row,
+        String message
+) {
+}
@@ -0,0 +1,17 @@
+package com.marek.onlinebookstore.dto.book;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record BookImportStatusDto(
+        String id,
+        String status,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        long rowsRead,
+        long rowsWritten,
+        long rowsFailed,
+        double rowsPerSecond,
+        List<BookImportErrorDto> errors
+) {
+}
@@ -1,8 +1,12 @@
 package com.marek.onlinebookstore.dto.book;
 
 public record BookSearchParametersDto(
+        String q,
         String[] title,
         String[] author,
-        String[] isbn
+        String[] isbn,
+        Long[] categoryId,
+        String[] priceBand,
+        boolean fuzzy
 ) {
 }
@@ -0,0 +1,9 @@
+package com.marek.onlinebookstore.dto.book;
+
+import java.util.List;
+
+public record BookSearchResultDto(
+        List<BookDto> books,
+        String didYouMean
+) {
+}
@@ -0,0 +1,9 @@
+package com.marek.onlinebookstore.dto.book;
+
+public record BookStockDto(
+        Long bookId,
+        Integer available,
+        int held,
+        int sold
+) {
+}
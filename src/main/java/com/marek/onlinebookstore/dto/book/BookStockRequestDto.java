@@ -0,0 +1,11 @@
+package com.marek.onlinebookstore.dto.book;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record BookStockRequestDto(
+        @NotNull
+        @Min(0)
+        Integer available
+) {
+}
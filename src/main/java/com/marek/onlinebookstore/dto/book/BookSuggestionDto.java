@@ -0,0 +1,8 @@
+package com.marek.onlinebookstore.dto.book;
+
+public record BookSuggestionDto(
+        String text,
+        String type,
+        Long bookId
+) {
+}
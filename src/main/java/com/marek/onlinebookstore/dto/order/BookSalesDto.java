@@ -0,0 +1,7 @@
+package com.marek.onlinebookstore.dto.order;
+
+public record BookSalesDto(
+        Long bookId,
+        Long quantity
+) {
+}
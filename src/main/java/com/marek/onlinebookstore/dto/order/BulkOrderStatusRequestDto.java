@@ -0,0 +1,25 @@
+package com.marek.onlinebookstore.dto.order;
+
+import com.marek.onlinebookstore.model.Status;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record BulkOrderStatusRequestDto(
+        @Size(max = 10_000)
+        List<Long> ids,
+        Status status,
+        LocalDateTime orderedFrom,
+        LocalDateTime orderedTo,
+        @Positive
+        @Max(100_000)
+        Integer limit
+) {
+    @AssertTrue(message = "either ids or a status filter is required")
+    public boolean isSelective() {
+        return ids != null && !ids.isEmpty() || status != null;
+    }
+}
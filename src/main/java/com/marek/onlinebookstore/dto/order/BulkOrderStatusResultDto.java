@@ -0,0 +1,10 @@
+package com.marek.onlinebookstore.dto.order;
+
+import java.util.List;
+
+public record BulkOrderStatusResultDto(
+        int transitioned,
+        int skipped,
+        List<OrderTransitionDto> orders
+) {
+}
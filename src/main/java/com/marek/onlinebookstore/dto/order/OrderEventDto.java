@@ -0,0 +1,15 @@
+package com.marek.onlinebookstore.dto.order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+public record OrderEventDto(
+        Long orderId,
+        Long userId,
+        String status,
+        BigDecimal total,
+        LocalDateTime orderDate,
+        Set<OrderItemDto> orderItems
+) {
+}
@@ -9,6 +9,6 @@ public record OrderItemDto(
         @Positive
         Long bookId,
         @PositiveOrZero
-        int quantity) {
+        int quantity,
+        String bookTitle) {
 }
-
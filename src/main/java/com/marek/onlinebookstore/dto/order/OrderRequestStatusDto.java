@@ -0,0 +1,14 @@
+package com.marek.onlinebookstore.dto.order;
+
+import java.time.LocalDateTime;
+
+public record OrderRequestStatusDto(
+        String id,
+        String status,
+        Long queuedAhead,
+        Long orderId,
+        String error,
+        LocalDateTime createdAt,
+        LocalDateTime processedAt
+) {
+}
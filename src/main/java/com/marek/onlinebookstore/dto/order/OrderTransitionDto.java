@@ -0,0 +1,15 @@
+package com.marek.onlinebookstore.dto.order;
+
+public record OrderTransitionDto(
+        Long orderId,
+        Outcome outcome,
+        String fromStatus,
+        String toStatus
+) {
+    public enum Outcome {
+        TRANSITIONED,
+        ALREADY_COMPLETED,
+        NOT_MATCHED,
+        NOT_FOUND
+    }
+}
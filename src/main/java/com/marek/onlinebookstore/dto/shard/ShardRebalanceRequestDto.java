@@ -0,0 +1,10 @@
+package com.marek.onlinebookstore.dto.shard;
+
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+public record ShardRebalanceRequestDto(
+        @NotEmpty
+        List<String> ring
+) {
+}
@@ -0,0 +1,6 @@
+package com.marek.onlinebookstore.dto.shard;
+
+import java.util.Set;
+
+public record ShardRebalanceResultDto(int movedUsers, Set<String> ring) {
+}
@@ -0,0 +1,6 @@
+package com.marek.onlinebookstore.dto.user.login;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenRequestDto(@NotBlank String refreshToken) {
+}
@@ -1,4 +1,4 @@
 package com.marek.onlinebookstore.dto.user.login;
 
-public record UserLoginResponseDto(String token) {
+public record UserLoginResponseDto(String token, String refreshToken) {
 }
@@ -0,0 +1,7 @@
+package com.marek.onlinebookstore.exception;
+
+public class EmptyShoppingCartException extends RuntimeException {
+    public EmptyShoppingCartException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.marek.onlinebookstore.exception;
+
+public class IndexNotReadyException extends RuntimeException {
+    public IndexNotReadyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.marek.onlinebookstore.exception;
+
+public class LoginRejectedException extends RuntimeException {
+    public LoginRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.marek.onlinebookstore.exception;
+
+public class OutOfStockException extends RuntimeException {
+    public OutOfStockException(String message) {
+        super(message);
+    }
+}
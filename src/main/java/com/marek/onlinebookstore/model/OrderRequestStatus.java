@@ -0,0 +1,7 @@
+package com.marek.onlinebookstore.model;
+
+public enum OrderRequestStatus {
+    QUEUED,
+    COMPLETED,
+    FAILED
+}
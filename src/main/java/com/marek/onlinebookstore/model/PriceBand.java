@@ -0,0 +1,36 @@
+package com.marek.onlinebookstore.model;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Optional;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum PriceBand {
+    UNDER_10("0-10", null, BigDecimal.valueOf(10)),
+    FROM_10_TO_20("10-20", BigDecimal.valueOf(10), BigDecimal.valueOf(20)),
+    FROM_20_TO_50("20-50", BigDecimal.valueOf(20), BigDecimal.valueOf(50)),
+    FROM_50_TO_100("50-100", BigDecimal.valueOf(50), BigDecimal.valueOf(100)),
+    FROM_100("100+", BigDecimal.valueOf(100), null);
+
+    private final String label;
+    private final BigDecimal min;
+    private final BigDecimal max;
+
+    public static PriceBand of(BigDecimal price) {
+        for (PriceBand band : values()) {
+            if (band.max == null || price.compareTo(band.max) < 0) {
+                return band;
+            }
+        }
+        return FROM_100;
+    }
+
+    public static Optional<PriceBand> fromLabel(String label) {
+        return Arrays.stream(values())
+                .filter(band -> band.label.equals(label))
+                .findFirst();
+    }
+}
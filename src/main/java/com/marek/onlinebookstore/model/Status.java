@@ -3,5 +3,14 @@ package com.marek.onlinebookstore.model;
 public enum Status {
     ORDER_PENDING,
     BOOK_DELIVERED,
-    ORDER_COMPLETED
+    ORDER_COMPLETED;
+
+    // The status an order moves to on its next transition, null once it is completed
+    public Status next() {
+        return switch (this) {
+            case ORDER_PENDING -> BOOK_DELIVERED;
+            case BOOK_DELIVERED -> ORDER_COMPLETED;
+            case ORDER_COMPLETED -> null;
+        };
+    }
 }
@@ -0,0 +1,28 @@
+package com.marek.onlinebookstore.repository;
+
+import com.marek.onlinebookstore.exception.DataProcessingException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@RequiredArgsConstructor
+@Repository
+public class IdSequenceRepository {
+    private static final String RESERVE = "UPDATE id_sequences"
+            + " SET next_val = LAST_INSERT_ID(next_val + ?) WHERE sequence_name = ?";
+    private static final String LAST_RESERVED = "SELECT LAST_INSERT_ID()";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Returns the first of count consecutive ids, shared with the JPA table generators.
+    // Runs in its own transaction so the sequence row is not locked until the caller commits.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long reserve(String sequenceName, int count) {
+        if (jdbcTemplate.update(RESERVE, count, sequenceName) != 1) {
+            throw new DataProcessingException("Unknown id sequence: " + sequenceName);
+        }
+        return jdbcTemplate.queryForObject(LAST_RESERVED, Long.class) - count;
+    }
+}
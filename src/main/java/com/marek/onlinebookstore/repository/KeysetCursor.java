@@ -0,0 +1,100 @@
+package com.marek.onlinebookstore.repository;
+
+import com.marek.onlinebookstore.exception.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+public final class KeysetCursor {
+    private static final String VERSION = "1";
+    private static final String ENTRY_SEPARATOR = "|";
+    private static final String PART_SEPARATOR = "~";
+    private static final String LONG = "L";
+    private static final String DATE_TIME = "T";
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(KeysetScrollPosition position) {
+        StringBuilder cursor = new StringBuilder(VERSION);
+        for (Map.Entry<String, ?> key : position.getKeys().entrySet()) {
+            cursor.append(ENTRY_SEPARATOR)
+                    .append(key.getKey())
+                    .append(PART_SEPARATOR)
+                    .append(typeOf(key.getValue()))
+                    .append(PART_SEPARATOR)
+                    .append(key.getValue());
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String nextCursor(Window<?> window) {
+        if (!window.hasNext() || window.isEmpty()) {
+            return null;
+        }
+        return encode((KeysetScrollPosition) window.positionAt(window.size() - 1));
+    }
+
+    public static KeysetScrollPosition decode(String cursor,
+                                              Map<String, Class<?>> expectedKeys) {
+        KeysetScrollPosition position = decodeKeys(cursor, expectedKeys.keySet());
+        // A hand-made cursor may carry a key of the wrong type, reject it before callers cast
+        position.getKeys().forEach((key, value) -> {
+            if (!expectedKeys.get(key).isInstance(value)) {
+                throw new InvalidCursorException("Unexpected type of cursor key: " + key);
+            }
+        });
+        return position;
+    }
+
+    private static KeysetScrollPosition decodeKeys(String cursor, Set<String> expectedKeys) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor),
+                    StandardCharsets.UTF_8);
+            String[] entries = decoded.split("\\" + ENTRY_SEPARATOR);
+            if (!VERSION.equals(entries[0])) {
+                throw new InvalidCursorException("Unsupported cursor version");
+            }
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (int i = 1; i < entries.length; i++) {
+                String[] parts = entries[i].split(PART_SEPARATOR, 3);
+                keys.put(parts[0], parse(parts[1], parts[2]));
+            }
+            if (!keys.keySet().equals(expectedKeys)) {
+                throw new InvalidCursorException("Cursor does not belong to this listing");
+            }
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new InvalidCursorException("Malformed cursor", e);
+        }
+    }
+
+    private static String typeOf(Object value) {
+        if (value instanceof Long) {
+            return LONG;
+        }
+        if (value instanceof LocalDateTime) {
+            return DATE_TIME;
+        }
+        throw new IllegalArgumentException("Unsupported cursor key type: " + value.getClass());
+    }
+
+    private static Object parse(String type, String value) {
+        return switch (type) {
+            case LONG -> Long.valueOf(value);
+            case DATE_TIME -> LocalDateTime.parse(value);
+            default -> throw new InvalidCursorException("Unsupported cursor key type: " + type);
+        };
+    }
+}
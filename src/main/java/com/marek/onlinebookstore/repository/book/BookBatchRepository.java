@@ -0,0 +1,78 @@
+package com.marek.onlinebookstore.repository.book;
+
+import com.marek.onlinebookstore.dto.book.CreateBookRequestDto;
+import com.marek.onlinebookstore.repository.IdSequenceRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@RequiredArgsConstructor
+@Repository
+public class BookBatchRepository {
+    private static final String UPSERT_BOOK = """
+            INSERT INTO books (id, title, author, isbn, price, description, cover_image,
+                is_deleted)
+            VALUES (?, ?, ?, ?, ?, ?, ?, false)
+            ON DUPLICATE KEY UPDATE title = VALUES(title), author = VALUES(author),
+                price = VALUES(price), description = VALUES(description),
+                cover_image = VALUES(cover_image), is_deleted = false,
+                updated_at = CURRENT_TIMESTAMP(6)""";
+    private static final String BOOKS_SEQUENCE = "books";
+    private static final String SELECT_IDS_BY_ISBN =
+            "SELECT id, isbn FROM books WHERE isbn IN (:isbns)";
+    private static final String DELETE_CATEGORIES =
+            "DELETE FROM books_categories WHERE books_id IN (:bookIds)";
+    private static final String INSERT_CATEGORY =
+            "INSERT INTO books_categories (books_id, categories_id) VALUES (?, ?)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final IdSequenceRepository idSequenceRepository;
+
+    public Map<String, Long> upsertAll(Collection<CreateBookRequestDto> books) {
+        // Rows that turn out to be updates keep their id and leave a gap in the sequence
+        AtomicLong nextId = new AtomicLong(
+                idSequenceRepository.reserve(BOOKS_SEQUENCE, books.size()));
+        jdbcTemplate.getJdbcOperations().batchUpdate(UPSERT_BOOK, books, books.size(),
+                (statement, book) -> {
+                    statement.setLong(1, nextId.getAndIncrement());
+                    statement.setString(2, book.title());
+                    statement.setString(3, book.author());
+                    statement.setString(4, book.isbn());
+                    statement.setBigDecimal(5, book.price());
+                    statement.setString(6, book.description());
+                    statement.setString(7, book.coverImage());
+                });
+        Map<String, Long> bookIds = new HashMap<>();
+        jdbcTemplate.query(SELECT_IDS_BY_ISBN,
+                Map.of("isbns", books.stream().map(CreateBookRequestDto::isbn).toList()),
+                resultSet -> {
+                    bookIds.put(resultSet.getString("isbn"), resultSet.getLong("id"));
+                });
+        replaceCategories(books, bookIds);
+        return bookIds;
+    }
+
+    private void replaceCategories(Collection<CreateBookRequestDto> books,
+                                   Map<String, Long> bookIds) {
+        jdbcTemplate.update(DELETE_CATEGORIES, Map.of("bookIds", bookIds.values()));
+        List<long[]> links = new ArrayList<>();
+        for (CreateBookRequestDto book : books) {
+            if (book.categoriesId() != null) {
+                long bookId = bookIds.get(book.isbn());
+                book.categoriesId().forEach(categoryId ->
+                        links.add(new long[] {bookId, categoryId}));
+            }
+        }
+        jdbcTemplate.getJdbcOperations().batchUpdate(INSERT_CATEGORY, links, links.size(),
+                (statement, link) -> {
+                    statement.setLong(1, link[0]);
+                    statement.setLong(2, link[1]);
+                });
+    }
+}
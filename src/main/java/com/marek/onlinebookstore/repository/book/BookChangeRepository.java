@@ -0,0 +1,27 @@
+package com.marek.onlinebookstore.repository.book;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@RequiredArgsConstructor
+@Repository
+public class BookChangeRepository {
+    // Deleted books count as well, their updated_at is set by the soft delete
+    private static final String SELECT_LAST_UPDATE =
+            "SELECT COALESCE(MAX(updated_at), '1970-01-01') FROM books";
+    private static final String SELECT_DELETED_IDS =
+            "SELECT id FROM books WHERE is_deleted = true AND updated_at > ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LocalDateTime findLastUpdate() {
+        return jdbcTemplate.queryForObject(SELECT_LAST_UPDATE, LocalDateTime.class);
+    }
+
+    public List<Long> findDeletedIds(LocalDateTime updatedAfter) {
+        return jdbcTemplate.queryForList(SELECT_DELETED_IDS, Long.class, updatedAfter);
+    }
+}
@@ -0,0 +1,74 @@
+package com.marek.onlinebookstore.repository.book;
+
+import com.marek.onlinebookstore.dto.book.BookDto;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class BookExportRepository {
+    private static final int FETCH_SIZE = 1000;
+    private static final String SELECT_BOOKS_WITH_CATEGORIES = """
+            SELECT b.id, b.title, b.author, b.isbn, b.price, b.description, b.cover_image,
+                c.id AS category_id
+            FROM books b
+            LEFT JOIN books_categories bc ON bc.books_id = b.id
+            LEFT JOIN categories c ON c.id = bc.categories_id AND c.is_deleted = false
+            WHERE b.is_deleted = false
+            ORDER BY b.id""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BookExportRepository(DataSource dataSource) {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    public void forEachBook(Consumer<BookDto> consumer) {
+        BookAggregator aggregator = new BookAggregator(consumer);
+        jdbcTemplate.query(SELECT_BOOKS_WITH_CATEGORIES, aggregator);
+        aggregator.flush();
+    }
+
+    private static class BookAggregator implements RowCallbackHandler {
+        private final Consumer<BookDto> consumer;
+        private BookDto current;
+
+        private BookAggregator(Consumer<BookDto> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet resultSet) throws SQLException {
+            long bookId = resultSet.getLong("id");
+            if (current == null || current.getId() != bookId) {
+                flush();
+                current = new BookDto();
+                current.setId(bookId);
+                current.setTitle(resultSet.getString("title"));
+                current.setAuthor(resultSet.getString("author"));
+                current.setIsbn(resultSet.getString("isbn"));
+                current.setPrice(resultSet.getBigDecimal("price"));
+                current.setDescription(resultSet.getString("description"));
+                current.setCoverImage(resultSet.getString("cover_image"));
+                current.setCategoriesId(new LinkedHashSet<>());
+            }
+            long categoryId = resultSet.getLong("category_id");
+            if (!resultSet.wasNull()) {
+                current.getCategoriesId().add(categoryId);
+            }
+        }
+
+        private void flush() {
+            if (current != null) {
+                consumer.accept(current);
+                current = null;
+            }
+        }
+    }
+}
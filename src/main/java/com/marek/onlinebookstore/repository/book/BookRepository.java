@@ -1,11 +1,24 @@
 package com.marek.onlinebookstore.repository.book;
 
 import com.marek.onlinebookstore.model.Book;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -13,4 +26,26 @@ public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificat
 
     @Query("SELECT b FROM Book b JOIN b.categories c WHERE c.id = :categoryId")
     Page<Book> findAllByCategoryId(Long categoryId, Pageable pageable);
+
+    Window<Book> findByCategoriesId(Long categoryId, ScrollPosition position, Sort sort,
+                                    Limit limit);
+
+    Window<Book> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // Book detail, the category ids are part of BookDto
+    @Override
+    @EntityGraph(attributePaths = {"categories"})
+    Optional<Book> findById(Long id);
+
+    @EntityGraph(attributePaths = {"categories"})
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Book> findAllByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"categories"})
+    List<Book> findAllByIsbnIn(Collection<String> isbns);
+
+    Slice<Book> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    Slice<Book> findAllByUpdatedAtGreaterThanAndIdGreaterThanOrderByIdAsc(
+            LocalDateTime updatedAt, Long id, Pageable pageable);
 }
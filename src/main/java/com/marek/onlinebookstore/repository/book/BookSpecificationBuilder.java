@@ -4,11 +4,13 @@ import com.marek.onlinebookstore.dto.book.BookSearchParametersDto;
 import com.marek.onlinebookstore.model.Book;
 import com.marek.onlinebookstore.repository.SpecificationBuilder;
 import com.marek.onlinebookstore.repository.SpecificationProviderManager;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 @RequiredArgsConstructor
 @Component
@@ -19,9 +21,18 @@ public class BookSpecificationBuilder implements SpecificationBuilder<Book> {
     public Specification<Book> build(BookSearchParametersDto searchParametersDto) {
         Specification<Book> specification = Specification.where(null);
         Map<String, String[]> parametersMap = new HashMap<>();
+        if (StringUtils.hasText(searchParametersDto.q())) {
+            parametersMap.put("q", new String[]{searchParametersDto.q()});
+        }
         parametersMap.put("title", searchParametersDto.title());
         parametersMap.put("author", searchParametersDto.author());
         parametersMap.put("isbn", searchParametersDto.isbn());
+        if (searchParametersDto.categoryId() != null) {
+            parametersMap.put("categoryId", Arrays.stream(searchParametersDto.categoryId())
+                    .map(String::valueOf)
+                    .toArray(String[]::new));
+        }
+        parametersMap.put("priceBand", searchParametersDto.priceBand());
         for (Map.Entry<String, String[]> entry : parametersMap.entrySet()) {
             String[] values = entry.getValue();
             if (values != null && values.length > 0) {
@@ -0,0 +1,261 @@
+package com.marek.onlinebookstore.repository.book.index;
+
+import com.marek.onlinebookstore.dto.book.BookFacetsDto;
+import com.marek.onlinebookstore.dto.book.FacetCountDto;
+import com.marek.onlinebookstore.model.Book;
+import com.marek.onlinebookstore.model.Category;
+import com.marek.onlinebookstore.model.PriceBand;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BookFacetIndex implements BookIndex {
+    private static final int MAX_AUTHOR_FACETS = 20;
+    private static final Comparator<FacetCountDto> BY_COUNT = Comparator
+            .comparingLong(FacetCountDto::count).reversed()
+            .thenComparing(FacetCountDto::value);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, CompressedBitmap> categories = new HashMap<>();
+    private final Map<String, CompressedBitmap> authors = new HashMap<>();
+    private final Map<String, String> authorNames = new HashMap<>();
+    private final Map<PriceBand, CompressedBitmap> priceBands = new EnumMap<>(PriceBand.class);
+    private final Map<Long, BookFacets> bookFacets = new HashMap<>();
+    private CompressedBitmap allBooks = new CompressedBitmap();
+    private volatile boolean ready;
+    private volatile LocalDateTime syncedTo;
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return bookFacets.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Book book) {
+        BookFacets facets = new BookFacets(
+                book.getCategories().stream().map(Category::getId).toList(),
+                book.getAuthor() == null ? null : authorKey(book.getAuthor()),
+                book.getAuthor(),
+                book.getPrice() == null ? null : PriceBand.of(book.getPrice()));
+        lock.writeLock().lock();
+        try {
+            delete(book.getId());
+            long bookId = book.getId();
+            allBooks.add(bookId);
+            facets.categoryIds().forEach(categoryId ->
+                    categories.computeIfAbsent(categoryId, id -> new CompressedBitmap())
+                            .add(bookId));
+            if (facets.authorKey() != null) {
+                authors.computeIfAbsent(facets.authorKey(), key -> new CompressedBitmap())
+                        .add(bookId);
+                authorNames.putIfAbsent(facets.authorKey(), facets.author());
+            }
+            if (facets.priceBand() != null) {
+                priceBands.computeIfAbsent(facets.priceBand(), band -> new CompressedBitmap())
+                        .add(bookId);
+            }
+            bookFacets.put(bookId, facets);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            delete(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            syncedTo = null;
+            categories.clear();
+            authors.clear();
+            authorNames.clear();
+            priceBands.clear();
+            bookFacets.clear();
+            allBooks = new CompressedBitmap();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void markReady() {
+        ready = true;
+    }
+
+    @Override
+    public LocalDateTime syncedTo() {
+        return syncedTo;
+    }
+
+    @Override
+    public void markSynced(LocalDateTime updatedAt) {
+        syncedTo = updatedAt;
+    }
+
+    public List<Long> findIds(Long[] categoryIds, String[] authorFilter, String[] priceBandLabels,
+                              long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return filter(categoryIds, authorFilter, priceBandLabels).page(offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> findIdsAfter(Long[] categoryIds, String[] authorFilter,
+                                   String[] priceBandLabels, long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap matches = filter(categoryIds, authorFilter, priceBandLabels);
+            return matches.page(matches.rank(afterId), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public BookFacetsDto facets(Long[] categoryIds, String[] authorFilter,
+                                String[] priceBandLabels) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap matches = filter(categoryIds, authorFilter, priceBandLabels);
+            long total = matches.cardinality();
+            List<FacetCountDto> authorCounts = total < authors.size()
+                    ? countAuthorsOf(matches, total)
+                    : count(matches, authors, authorNames::get);
+            return new BookFacetsDto(total,
+                    count(matches, categories, String::valueOf),
+                    authorCounts.stream().limit(MAX_AUTHOR_FACETS).toList(),
+                    countPriceBands(matches));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private CompressedBitmap filter(Long[] categoryIds, String[] authorFilter,
+                                    String[] priceBandLabels) {
+        CompressedBitmap matches = allBooks;
+        if (categoryIds != null && categoryIds.length > 0) {
+            matches = matches.and(union(categoryIds, categories::get));
+        }
+        if (authorFilter != null && authorFilter.length > 0) {
+            matches = matches.and(union(authorFilter, name -> authors.get(authorKey(name))));
+        }
+        if (priceBandLabels != null && priceBandLabels.length > 0) {
+            matches = matches.and(union(priceBandLabels, label -> PriceBand.fromLabel(label)
+                    .map(priceBands::get)
+                    .orElse(null)));
+        }
+        return matches;
+    }
+
+    private <T> List<FacetCountDto> count(CompressedBitmap matches,
+                                          Map<T, CompressedBitmap> bitmaps,
+                                          Function<T, String> label) {
+        List<FacetCountDto> counts = new ArrayList<>();
+        bitmaps.forEach((key, bitmap) -> {
+            long count = matches.andCardinality(bitmap);
+            if (count > 0) {
+                counts.add(new FacetCountDto(label.apply(key), count));
+            }
+        });
+        counts.sort(BY_COUNT);
+        return counts;
+    }
+
+    private List<FacetCountDto> countAuthorsOf(CompressedBitmap matches, long total) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Long bookId : matches.page(0, (int) total)) {
+            Optional.ofNullable(bookFacets.get(bookId).authorKey())
+                    .ifPresent(key -> counts.merge(key, 1L, Long::sum));
+        }
+        return counts.entrySet().stream()
+                .map(entry -> new FacetCountDto(authorNames.get(entry.getKey()), entry.getValue()))
+                .sorted(BY_COUNT)
+                .toList();
+    }
+
+    private List<FacetCountDto> countPriceBands(CompressedBitmap matches) {
+        List<FacetCountDto> counts = new ArrayList<>();
+        priceBands.forEach((band, bitmap) -> {
+            long count = matches.andCardinality(bitmap);
+            if (count > 0) {
+                counts.add(new FacetCountDto(band.getLabel(), count));
+            }
+        });
+        return counts;
+    }
+
+    private void delete(Long bookId) {
+        BookFacets facets = bookFacets.remove(bookId);
+        if (facets == null) {
+            return;
+        }
+        allBooks.remove(bookId);
+        facets.categoryIds().forEach(categoryId -> removeFrom(categories, categoryId, bookId));
+        if (facets.authorKey() != null && removeFrom(authors, facets.authorKey(), bookId)) {
+            authorNames.remove(facets.authorKey());
+        }
+        if (facets.priceBand() != null) {
+            removeFrom(priceBands, facets.priceBand(), bookId);
+        }
+    }
+
+    private static <T> boolean removeFrom(Map<T, CompressedBitmap> bitmaps, T key, long bookId) {
+        CompressedBitmap bitmap = bitmaps.get(key);
+        bitmap.remove(bookId);
+        if (bitmap.isEmpty()) {
+            bitmaps.remove(key);
+            return true;
+        }
+        return false;
+    }
+
+    private static <T> CompressedBitmap union(T[] values, Function<T, CompressedBitmap> lookup) {
+        CompressedBitmap union = new CompressedBitmap();
+        for (T value : values) {
+            CompressedBitmap bitmap = lookup.apply(value);
+            if (bitmap != null) {
+                union = union.or(bitmap);
+            }
+        }
+        return union;
+    }
+
+    private static String authorKey(String author) {
+        return BookTextAnalyzer.normalize(author).trim();
+    }
+
+    private record BookFacets(List<Long> categoryIds, String authorKey, String author,
+                              PriceBand priceBand) {
+    }
+}
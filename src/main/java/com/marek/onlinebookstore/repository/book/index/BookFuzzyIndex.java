@@ -0,0 +1,364 @@
+package com.marek.onlinebookstore.repository.book.index;
+
+import com.marek.onlinebookstore.model.Book;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BookFuzzyIndex implements BookIndex {
+    private static final int TITLE = 0;
+    private static final int AUTHOR = 1;
+    private static final int FIELD_COUNT = 2;
+    private static final int[] ALL_FIELDS = {TITLE, AUTHOR};
+    private static final int GRAM_SIZE = 3;
+    private static final char PADDING = '$';
+    private static final int MIN_DEAD_TERMS_TO_COMPACT = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Term> terms = new HashMap<>();
+    private final Map<String, TermList> grams = new HashMap<>();
+    private final List<Term> termsByOrdinal = new ArrayList<>();
+    private final Map<Long, String[][]> bookTerms = new HashMap<>();
+    private int deadTerms;
+    private volatile boolean ready;
+    private volatile LocalDateTime syncedTo;
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return bookTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Book book) {
+        String[][] fields = new String[FIELD_COUNT][];
+        fields[TITLE] = words(book.getTitle()).toArray(String[]::new);
+        fields[AUTHOR] = words(book.getAuthor()).toArray(String[]::new);
+        lock.writeLock().lock();
+        try {
+            delete(book.getId());
+            bookTerms.put(book.getId(), fields);
+            for (int field : ALL_FIELDS) {
+                for (String word : fields[field]) {
+                    Term term = terms.get(word);
+                    if (term == null) {
+                        term = newTerm(word);
+                        terms.put(word, term);
+                    } else if (term.isDead()) {
+                        deadTerms--;
+                    }
+                    term.books[field].add(book.getId());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            delete(bookId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            syncedTo = null;
+            terms.clear();
+            grams.clear();
+            termsByOrdinal.clear();
+            bookTerms.clear();
+            deadTerms = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void markReady() {
+        ready = true;
+    }
+
+    @Override
+    public LocalDateTime syncedTo() {
+        return syncedTo;
+    }
+
+    @Override
+    public void markSynced(LocalDateTime updatedAt) {
+        syncedTo = updatedAt;
+    }
+
+    public List<Long> search(String query, String[] titles, String[] authors,
+                             long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> matches = null;
+            if (query != null) {
+                matches = intersect(matches, matchPhrase(query, ALL_FIELDS));
+            }
+            if (titles != null && titles.length > 0) {
+                matches = intersect(matches, matchAny(titles, TITLE));
+            }
+            if (authors != null && authors.length > 0) {
+                matches = intersect(matches, matchAny(authors, AUTHOR));
+            }
+            if (matches == null) {
+                return List.of();
+            }
+            return matches.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Integer>comparingByValue()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .skip(offset)
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String didYouMean(String text) {
+        List<String> tokens = BookTextAnalyzer.tokenize(text);
+        lock.readLock().lock();
+        try {
+            boolean corrected = false;
+            List<String> suggestion = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                Term term = terms.get(token);
+                if (BookTextAnalyzer.isStopWord(token) || (term != null && !term.isDead())) {
+                    suggestion.add(token);
+                    continue;
+                }
+                String correction = closestTerm(token);
+                corrected |= correction != null;
+                suggestion.add(correction == null ? token : correction);
+            }
+            return corrected ? String.join(" ", suggestion) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Integer> matchAny(String[] phrases, int field) {
+        Map<Long, Integer> matches = new HashMap<>();
+        for (String phrase : phrases) {
+            Map<Long, Integer> phraseMatches = matchPhrase(phrase, new int[] {field});
+            if (phraseMatches != null) {
+                phraseMatches.forEach((bookId, distance) ->
+                        matches.merge(bookId, distance, Math::min));
+            }
+        }
+        return matches;
+    }
+
+    private Map<Long, Integer> matchPhrase(String phrase, int[] fields) {
+        Map<Long, Integer> matches = null;
+        for (String word : words(phrase)) {
+            Map<Long, Integer> wordMatches = new HashMap<>();
+            for (Map.Entry<Term, Integer> candidate : candidates(word).entrySet()) {
+                for (int field : fields) {
+                    for (Long bookId : candidate.getKey().books[field]) {
+                        wordMatches.merge(bookId, candidate.getValue(), Math::min);
+                    }
+                }
+            }
+            matches = intersect(matches, wordMatches);
+        }
+        return matches;
+    }
+
+    private Map<Term, Integer> candidates(String word) {
+        int maxDistance = maxDistance(word);
+        Map<Term, Integer> candidates = new HashMap<>();
+        Term exact = terms.get(word);
+        if (exact != null && !exact.isDead()) {
+            candidates.put(exact, 0);
+        }
+        if (maxDistance == 0) {
+            return candidates;
+        }
+        Set<String> wordGrams = new LinkedHashSet<>(gramsOf(word));
+        int minSharedGrams = Math.max(1, wordGrams.size() - GRAM_SIZE * maxDistance);
+        Map<Integer, Integer> sharedGrams = new HashMap<>();
+        for (String gram : wordGrams) {
+            TermList termList = grams.get(gram);
+            if (termList != null) {
+                for (int i = 0; i < termList.size; i++) {
+                    sharedGrams.merge(termList.ordinals[i], 1, Integer::sum);
+                }
+            }
+        }
+        for (Map.Entry<Integer, Integer> shared : sharedGrams.entrySet()) {
+            Term term = termsByOrdinal.get(shared.getKey());
+            if (shared.getValue() < minSharedGrams || term == exact || term.isDead()) {
+                continue;
+            }
+            int distance = EditDistance.bounded(word, term.text, maxDistance);
+            if (distance <= maxDistance) {
+                candidates.put(term, distance);
+            }
+        }
+        return candidates;
+    }
+
+    private String closestTerm(String word) {
+        return candidates(word).entrySet().stream()
+                .min(Comparator.<Map.Entry<Term, Integer>>comparingInt(Map.Entry::getValue)
+                        .thenComparing(entry -> -entry.getKey().frequency())
+                        .thenComparing(entry -> entry.getKey().text))
+                .map(entry -> entry.getKey().text)
+                .orElse(null);
+    }
+
+    private void delete(Long bookId) {
+        String[][] fields = bookTerms.remove(bookId);
+        if (fields == null) {
+            return;
+        }
+        for (int field : ALL_FIELDS) {
+            for (String word : fields[field]) {
+                Term term = terms.get(word);
+                if (term.books[field].remove(bookId) && term.isDead()) {
+                    deadTerms++;
+                }
+            }
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (deadTerms < MIN_DEAD_TERMS_TO_COMPACT || deadTerms * 2 < termsByOrdinal.size()) {
+            return;
+        }
+        final List<Term> liveTerms = termsByOrdinal.stream()
+                .filter(term -> !term.isDead())
+                .toList();
+        terms.clear();
+        grams.clear();
+        termsByOrdinal.clear();
+        deadTerms = 0;
+        for (Term liveTerm : liveTerms) {
+            Term term = newTerm(liveTerm.text);
+            for (int field : ALL_FIELDS) {
+                term.books[field] = liveTerm.books[field];
+            }
+            terms.put(term.text, term);
+        }
+    }
+
+    private Term newTerm(String text) {
+        Term term = new Term(text);
+        int ordinal = termsByOrdinal.size();
+        termsByOrdinal.add(term);
+        for (String gram : new LinkedHashSet<>(gramsOf(text))) {
+            grams.computeIfAbsent(gram, g -> new TermList()).add(ordinal);
+        }
+        return term;
+    }
+
+    private static int maxDistance(String word) {
+        if (word.length() <= 3) {
+            return 0;
+        }
+        return word.length() <= 5 ? 1 : 2;
+    }
+
+    private static List<String> gramsOf(String word) {
+        String padded = PADDING + word + PADDING;
+        List<String> wordGrams = new ArrayList<>(word.length());
+        for (int i = 0; i + GRAM_SIZE <= padded.length(); i++) {
+            wordGrams.add(padded.substring(i, i + GRAM_SIZE));
+        }
+        return wordGrams;
+    }
+
+    private static List<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String token : BookTextAnalyzer.tokenize(text)) {
+            if (!BookTextAnalyzer.isStopWord(token)) {
+                words.add(token);
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    private static Map<Long, Integer> intersect(Map<Long, Integer> matches,
+                                                Map<Long, Integer> clause) {
+        if (clause == null) {
+            return matches;
+        }
+        if (matches == null) {
+            return clause;
+        }
+        Map<Long, Integer> intersection = new HashMap<>();
+        matches.forEach((bookId, distance) -> {
+            Integer clauseDistance = clause.get(bookId);
+            if (clauseDistance != null) {
+                intersection.put(bookId, distance + clauseDistance);
+            }
+        });
+        return intersection;
+    }
+
+    private static class Term {
+        private final String text;
+        private final Set<Long>[] books;
+
+        @SuppressWarnings("unchecked")
+        Term(String text) {
+            this.text = text;
+            this.books = new Set[FIELD_COUNT];
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                books[field] = new HashSet<>();
+            }
+        }
+
+        boolean isDead() {
+            return Arrays.stream(books).allMatch(Set::isEmpty);
+        }
+
+        int frequency() {
+            return Arrays.stream(books).mapToInt(Set::size).sum();
+        }
+    }
+
+    private static class TermList {
+        private int[] ordinals = new int[4];
+        private int size;
+
+        void add(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+    }
+}
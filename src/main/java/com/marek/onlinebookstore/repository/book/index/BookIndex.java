@@ -0,0 +1,23 @@
+package com.marek.onlinebookstore.repository.book.index;
+
+import com.marek.onlinebookstore.model.Book;
+import java.time.LocalDateTime;
+
+public interface BookIndex {
+    boolean isReady();
+
+    int size();
+
+    void index(Book book);
+
+    void remove(Long bookId);
+
+    void clear();
+
+    void markReady();
+
+    // The books.updated_at up to which the index holds every change, null when unknown
+    LocalDateTime syncedTo();
+
+    void markSynced(LocalDateTime updatedAt);
+}
@@ -0,0 +1,109 @@
+package com.marek.onlinebookstore.repository.book.index;
+
+import com.marek.onlinebookstore.model.Book;
+import com.marek.onlinebookstore.repository.book.BookChangeRepository;
+import com.marek.onlinebookstore.repository.book.BookRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.LongFunction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Indexes are kept in line with books.updated_at: changes after an index's watermark are
+// replayed on startup and then periodically, which picks up edits made while the process was
+// down, by other instances, or lost between a commit and its afterCommit callback
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class BookIndexInitializer {
+    private static final int BATCH_SIZE = 1000;
+    // updated_at is taken when a statement runs, so a change can become visible after a later
+    // one; changes this close to the watermark are replayed again
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final List<BookIndex> bookIndexes;
+    private final BookRepository bookRepository;
+    private final BookChangeRepository bookChangeRepository;
+    private final PlatformTransactionManager transactionManager;
+    private volatile boolean initialized;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        LocalDateTime lastUpdate = bookChangeRepository.findLastUpdate();
+        for (BookIndex index : bookIndexes) {
+            if (index.isReady() && index.syncedTo() != null) {
+                catchUp(List.of(index), index.syncedTo());
+            }
+        }
+        long bookCount = bookRepository.count();
+        List<BookIndex> staleIndexes = bookIndexes.stream()
+                .filter(index -> !index.isReady() || index.syncedTo() == null
+                        || index.size() != bookCount)
+                .toList();
+        if (!staleIndexes.isEmpty()) {
+            rebuild(staleIndexes, bookCount);
+        }
+        bookIndexes.forEach(index -> index.markSynced(lastUpdate));
+        initialized = true;
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.sync-interval:30s}")
+    public void synchronize() {
+        if (!initialized) {
+            return;
+        }
+        LocalDateTime lastUpdate = bookChangeRepository.findLastUpdate();
+        for (BookIndex index : bookIndexes) {
+            LocalDateTime syncedTo = index.syncedTo();
+            if (syncedTo != null) {
+                catchUp(List.of(index), syncedTo);
+                index.markSynced(lastUpdate);
+            }
+        }
+    }
+
+    private void rebuild(List<BookIndex> staleIndexes, long bookCount) {
+        log.info("Rebuilding {} book index(es) from {} books", staleIndexes.size(), bookCount);
+        staleIndexes.forEach(BookIndex::clear);
+        indexAll(staleIndexes, afterId -> bookRepository.findAllByIdGreaterThanOrderByIdAsc(
+                afterId, PageRequest.of(0, BATCH_SIZE)));
+        staleIndexes.forEach(BookIndex::markReady);
+    }
+
+    private void catchUp(List<BookIndex> indexes, LocalDateTime syncedTo) {
+        LocalDateTime since = syncedTo.minus(SYNC_OVERLAP);
+        for (Long bookId : bookChangeRepository.findDeletedIds(since)) {
+            indexes.forEach(index -> index.remove(bookId));
+        }
+        indexAll(indexes, afterId ->
+                bookRepository.findAllByUpdatedAtGreaterThanAndIdGreaterThanOrderByIdAsc(
+                        since, afterId, PageRequest.of(0, BATCH_SIZE)));
+    }
+
+    private void indexAll(List<BookIndex> indexes, LongFunction<Slice<Book>> nextBatch) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        long lastId = 0;
+        Slice<Book> batch;
+        do {
+            long afterId = lastId;
+            batch = transactionTemplate.execute(status -> {
+                Slice<Book> books = nextBatch.apply(afterId);
+                books.forEach(book -> indexes.forEach(index -> index.index(book)));
+                return books;
+            });
+            if (batch.hasContent()) {
+                lastId = batch.getContent().get(batch.getNumberOfElements() - 1).getId();
+            }
+        } while (batch.hasNext());
+    }
+}
@@ -0,0 +1,36 @@
+package com.marek.onlinebookstore.repository.book.index;
+
+import com.marek.onlinebookstore.model.Book;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@RequiredArgsConstructor
+@Component
+public class BookIndexManager {
+    private final List<BookIndex> bookIndexes;
+
+    public void indexBook(Book book) {
+        afterCommit(() -> bookIndexes.forEach(index -> index.index(book)));
+    }
+
+    public void removeBook(Long bookId) {
+        afterCommit(() -> bookIndexes.forEach(index -> index.remove(bookId)));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+                });
+    }
+}
@@ -0,0 +1,387 @@
+package com.marek.onlinebookstore.repository.book.index;
+
+import com.marek.onlinebookstore.model.Book;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class BookSearchIndex implements BookIndex {
+    static final int TITLE = 0;
+    static final int AUTHOR = 1;
+    static final int DESCRIPTION = 2;
+    static final int FIELD_COUNT = 3;
+    private static final double[] FIELD_BOOSTS = {2.0, 1.5, 1.0};
+    private static final int FREQUENCY_BITS = 10;
+    private static final int MAX_FREQUENCY = (1 << FREQUENCY_BITS) - 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+    private static final double TOMBSTONE_RATIO_TO_COMPACT = 0.2;
+    private static final int MIN_LOG_ENTRIES_TO_COMPACT = 1024;
+    private static final double LOG_ENTRY_RATIO_TO_COMPACT = 0.5;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<IndexedDocument> documents = new ArrayList<>();
+    private final long[] totalFieldLengths = new long[FIELD_COUNT];
+    private final SearchIndexSegments segments;
+    private int tombstones;
+    private LocalDateTime syncedTo;
+    private boolean rebuilding;
+    private volatile boolean ready;
+
+    public BookSearchIndex(@Value("${search.index.directory}") String directory) {
+        this.segments = new SearchIndexSegments(Path.of(directory));
+    }
+
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            segments.load().values().forEach(this::put);
+            syncedTo = segments.syncedTo();
+            ready = true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load search index segments, index will be rebuilt", e);
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (ready) {
+                writeSegment();
+            }
+            segments.closeLog();
+        } catch (IOException e) {
+            log.warn("Could not close search index log", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Book book) {
+        IndexedDocument document = toDocument(book);
+        lock.writeLock().lock();
+        try {
+            put(document);
+            if (!rebuilding) {
+                segments.appendUpsert(document);
+            }
+            compactIfNeeded();
+            compactLogIfNeeded();
+        } catch (IOException e) {
+            log.warn("Could not append book {} to search index log", book.getId(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            if (delete(bookId) && !rebuilding) {
+                segments.appendDelete(bookId);
+            }
+            compactIfNeeded();
+            compactLogIfNeeded();
+        } catch (IOException e) {
+            log.warn("Could not append book {} removal to search index log", bookId, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+            rebuilding = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = false;
+            ready = true;
+            writeSegment();
+        } catch (IOException e) {
+            log.warn("Could not write search index segment", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public LocalDateTime syncedTo() {
+        lock.readLock().lock();
+        try {
+            return syncedTo;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void markSynced(LocalDateTime updatedAt) {
+        lock.writeLock().lock();
+        try {
+            syncedTo = updatedAt;
+            if (ready && !updatedAt.equals(segments.syncedTo())) {
+                segments.appendSynced(updatedAt);
+            }
+        } catch (IOException e) {
+            log.warn("Could not append search index watermark to log", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> search(String query, long offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(BookTextAnalyzer.analyze(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> scores = score(terms);
+            return topDocuments(scores, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Integer, Double> score(Set<String> terms) {
+        int liveDocuments = ordinals.size();
+        double[] averageLengths = new double[FIELD_COUNT];
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            averageLengths[field] = Math.max(1.0,
+                    (double) totalFieldLengths[field] / Math.max(1, liveDocuments));
+        }
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String term : terms) {
+            PostingList postingList = postings.get(term);
+            if (postingList == null || postingList.liveCount == 0) {
+                continue;
+            }
+            double idf = Math.log(1 + (liveDocuments - postingList.liveCount + 0.5)
+                    / (postingList.liveCount + 0.5));
+            for (int i = 0; i < postingList.size; i++) {
+                int ordinal = postingList.ordinals[i];
+                IndexedDocument document = documents.get(ordinal);
+                if (document == null) {
+                    continue;
+                }
+                double frequency = weightedFrequency(
+                        postingList.frequencies[i], document.fieldLengths(), averageLengths);
+                scores.merge(ordinal, idf * frequency * (K1 + 1) / (frequency + K1),
+                        Double::sum);
+            }
+        }
+        return scores;
+    }
+
+    private List<Long> topDocuments(Map<Integer, Double> scores, long offset, int limit) {
+        long wanted = offset + limit;
+        Comparator<Map.Entry<Integer, Double>> byRank =
+                Map.Entry.<Integer, Double>comparingByValue()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+        PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(byRank);
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            if (top.size() < wanted) {
+                top.add(entry);
+            } else if (byRank.compare(entry, top.peek()) > 0) {
+                top.poll();
+                top.add(entry);
+            }
+        }
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(top);
+        ranked.sort(byRank.reversed());
+        return ranked.stream()
+                .skip(offset)
+                .map(entry -> documents.get(entry.getKey()).bookId())
+                .toList();
+    }
+
+    private static double weightedFrequency(int packedFrequencies, int[] fieldLengths,
+                                            double[] averageLengths) {
+        double frequency = 0;
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            int fieldFrequency = unpack(packedFrequencies, field);
+            if (fieldFrequency > 0) {
+                double normalization = 1 - B + B * fieldLengths[field] / averageLengths[field];
+                frequency += FIELD_BOOSTS[field] * fieldFrequency / normalization;
+            }
+        }
+        return frequency;
+    }
+
+    private void put(IndexedDocument document) {
+        delete(document.bookId());
+        int ordinal = documents.size();
+        documents.add(document);
+        ordinals.put(document.bookId(), ordinal);
+        for (int i = 0; i < document.terms().length; i++) {
+            postings.computeIfAbsent(document.terms()[i], term -> new PostingList())
+                    .add(ordinal, document.frequencies()[i]);
+        }
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            totalFieldLengths[field] += document.fieldLengths()[field];
+        }
+    }
+
+    private boolean delete(long bookId) {
+        Integer ordinal = ordinals.remove(bookId);
+        if (ordinal == null) {
+            return false;
+        }
+        IndexedDocument document = documents.set(ordinal, null);
+        for (String term : document.terms()) {
+            postings.get(term).liveCount--;
+        }
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            totalFieldLengths[field] -= document.fieldLengths()[field];
+        }
+        tombstones++;
+        return true;
+    }
+
+    private void compactIfNeeded() {
+        if (tombstones < MIN_TOMBSTONES_TO_COMPACT
+                || tombstones < documents.size() * TOMBSTONE_RATIO_TO_COMPACT) {
+            return;
+        }
+        List<IndexedDocument> liveDocuments = documents.stream()
+                .filter(Objects::nonNull)
+                .toList();
+        resetStructures();
+        liveDocuments.forEach(this::put);
+    }
+
+    // Folds the log into a new segment once replaying it would cost a good part of a full load
+    private void compactLogIfNeeded() throws IOException {
+        int logEntries = segments.logEntries();
+        if (!ready || rebuilding || logEntries < MIN_LOG_ENTRIES_TO_COMPACT
+                || logEntries < ordinals.size() * LOG_ENTRY_RATIO_TO_COMPACT) {
+            return;
+        }
+        writeSegment();
+    }
+
+    private void writeSegment() throws IOException {
+        segments.writeSegment(documents.stream().filter(Objects::nonNull).toList(), syncedTo);
+    }
+
+    private void reset() {
+        resetStructures();
+        syncedTo = null;
+        ready = false;
+    }
+
+    private void resetStructures() {
+        postings.clear();
+        ordinals.clear();
+        documents.clear();
+        Arrays.fill(totalFieldLengths, 0);
+        tombstones = 0;
+    }
+
+    private static IndexedDocument toDocument(Book book) {
+        Map<String, int[]> termFrequencies = new LinkedHashMap<>();
+        int[] fieldLengths = new int[FIELD_COUNT];
+        String[] fields = new String[FIELD_COUNT];
+        fields[TITLE] = book.getTitle();
+        fields[AUTHOR] = book.getAuthor();
+        fields[DESCRIPTION] = book.getDescription();
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            List<String> terms = BookTextAnalyzer.analyze(fields[field]);
+            fieldLengths[field] = terms.size();
+            for (String term : terms) {
+                termFrequencies.computeIfAbsent(term, t -> new int[FIELD_COUNT])[field]++;
+            }
+        }
+        String[] terms = termFrequencies.keySet().toArray(String[]::new);
+        int[] frequencies = new int[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            frequencies[i] = pack(termFrequencies.get(terms[i]));
+        }
+        return new IndexedDocument(book.getId(), terms, frequencies, fieldLengths);
+    }
+
+    private static int pack(int[] fieldFrequencies) {
+        int packed = 0;
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            packed |= Math.min(fieldFrequencies[field], MAX_FREQUENCY) << (field * FREQUENCY_BITS);
+        }
+        return packed;
+    }
+
+    private static int unpack(int packedFrequencies, int field) {
+        return (packedFrequencies >>> (field * FREQUENCY_BITS)) & MAX_FREQUENCY;
+    }
+
+    private static class PostingList {
+        private int[] ordinals = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+        private int liveCount;
+
+        void add(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+            liveCount++;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.marek.onlinebookstore.repository.book.index;
+
+import com.marek.onlinebookstore.dto.book.BookSuggestionDto;
+import com.marek.onlinebookstore.dto.order.BookSalesDto;
+import com.marek.onlinebookstore.model.Book;
+import com.marek.onlinebookstore.repository.order.OrderItemRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BookSuggestionIndex implements BookIndex {
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final String TITLE = "TITLE";
+    private static final String AUTHOR = "AUTHOR";
+    private static final String ISBN = "ISBN";
+    private static final int MAX_WORD_KEYS = 4;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SuggestionTrie trie = new SuggestionTrie(MAX_SUGGESTIONS);
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+    private final Map<String, SuggestionTrie.Entry> authors = new HashMap<>();
+    private final Map<String, Integer> authorBooks = new HashMap<>();
+    private final OrderItemRepository orderItemRepository;
+    private Map<Long, Long> sales = Map.of();
+    private volatile boolean ready;
+    private volatile LocalDateTime syncedTo;
+
+    public BookSuggestionIndex(OrderItemRepository orderItemRepository) {
+        this.orderItemRepository = orderItemRepository;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return contributions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Book book) {
+        lock.writeLock().lock();
+        try {
+            removeContribution(book.getId());
+            long weight = 1 + sales.getOrDefault(book.getId(), 0L);
+            Contribution contribution = new Contribution(weight);
+            addTitle(book, contribution);
+            addAuthor(book, contribution);
+            addIsbn(book, contribution);
+            contributions.put(book.getId(), contribution);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            removeContribution(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        Map<Long, Long> loadedSales = orderItemRepository.findBookSales().stream()
+                .collect(Collectors.toMap(BookSalesDto::bookId, BookSalesDto::quantity));
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            syncedTo = null;
+            trie.clear();
+            contributions.clear();
+            authors.clear();
+            authorBooks.clear();
+            sales = loadedSales;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void markReady() {
+        ready = true;
+    }
+
+    @Override
+    public LocalDateTime syncedTo() {
+        return syncedTo;
+    }
+
+    @Override
+    public void markSynced(LocalDateTime updatedAt) {
+        syncedTo = updatedAt;
+    }
+
+    public List<BookSuggestionDto> suggest(String query, int limit) {
+        String prefix = BookTextAnalyzer.normalize(query).trim();
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int size = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+            return trie.complete(prefix, size).stream()
+                    .map(entry -> new BookSuggestionDto(
+                            entry.getText(), entry.getType(), entry.getBookId()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addTitle(Book book, Contribution contribution) {
+        if (book.getTitle() == null) {
+            return;
+        }
+        SuggestionTrie.Entry entry = new SuggestionTrie.Entry(
+                book.getTitle(), TITLE, book.getId(), contribution.weight);
+        contribution.titleKeys = keysOf(book.getTitle());
+        contribution.title = entry;
+        contribution.titleKeys.forEach(key -> trie.add(key, entry));
+    }
+
+    private void addAuthor(Book book, Contribution contribution) {
+        if (book.getAuthor() == null) {
+            return;
+        }
+        String authorKey = BookTextAnalyzer.normalize(book.getAuthor()).trim();
+        List<String> keys = keysOf(book.getAuthor());
+        SuggestionTrie.Entry entry = authors.get(authorKey);
+        if (entry == null) {
+            entry = new SuggestionTrie.Entry(book.getAuthor(), AUTHOR, null, contribution.weight);
+            authors.put(authorKey, entry);
+            SuggestionTrie.Entry added = entry;
+            keys.forEach(key -> trie.add(key, added));
+        } else {
+            entry.addWeight(contribution.weight);
+            keys.forEach(trie::refresh);
+        }
+        authorBooks.merge(authorKey, 1, Integer::sum);
+        contribution.authorKey = authorKey;
+        contribution.authorKeys = keys;
+    }
+
+    private void addIsbn(Book book, Contribution contribution) {
+        if (book.getIsbn() == null) {
+            return;
+        }
+        String isbnKey = book.getIsbn().replaceAll("[^0-9Xx]", "").toLowerCase(Locale.ROOT);
+        if (isbnKey.isEmpty()) {
+            return;
+        }
+        contribution.isbnKey = isbnKey;
+        contribution.isbn = new SuggestionTrie.Entry(
+                book.getIsbn(), ISBN, book.getId(), contribution.weight);
+        trie.add(isbnKey, contribution.isbn);
+    }
+
+    private void removeContribution(Long bookId) {
+        Contribution contribution = contributions.remove(bookId);
+        if (contribution == null) {
+            return;
+        }
+        if (contribution.title != null) {
+            contribution.titleKeys.forEach(key -> trie.remove(key, contribution.title));
+        }
+        if (contribution.isbn != null) {
+            trie.remove(contribution.isbnKey, contribution.isbn);
+        }
+        if (contribution.authorKey != null) {
+            SuggestionTrie.Entry author = authors.get(contribution.authorKey);
+            int remainingBooks = authorBooks.merge(contribution.authorKey, -1, Integer::sum);
+            if (remainingBooks == 0) {
+                authors.remove(contribution.authorKey);
+                authorBooks.remove(contribution.authorKey);
+                contribution.authorKeys.forEach(key -> trie.remove(key, author));
+            } else {
+                author.addWeight(-contribution.weight);
+                contribution.authorKeys.forEach(trie::refresh);
+            }
+        }
+    }
+
+    private static List<String> keysOf(String text) {
+        String normalized = BookTextAnalyzer.normalize(text).trim();
+        Set<String> keys = new LinkedHashSet<>();
+        if (!normalized.isEmpty()) {
+            keys.add(normalized);
+        }
+        List<String> words = BookTextAnalyzer.tokenize(text);
+        for (int i = 1; i < words.size() && keys.size() <= MAX_WORD_KEYS; i++) {
+            keys.add(String.join(" ", words.subList(i, words.size())));
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private static class Contribution {
+        private final long weight;
+        private SuggestionTrie.Entry title;
+        private List<String> titleKeys;
+        private String authorKey;
+        private List<String> authorKeys;
+        private SuggestionTrie.Entry isbn;
+        private String isbnKey;
+
+        Contribution(long weight) {
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.marek.onlinebookstore.repository.book.index;
+
+record IndexedDocument(
+        long bookId,
+        String[] terms,
+        int[] frequencies,
+        int[] fieldLengths
+) {
+}
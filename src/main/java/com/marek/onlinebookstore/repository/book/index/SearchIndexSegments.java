@@ -0,0 +1,321 @@
+package com.marek.onlinebookstore.repository.book.index;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+
+// The log starts with a header and frames every record as length, CRC32 and payload. Replay
+// stops at the first record that is cut short or does not match its checksum, and the log is
+// cut back to the last complete record before anything is appended after it.
+@Slf4j
+class SearchIndexSegments {
+    private static final int MAGIC = 0x42534958;
+    private static final int VERSION = 2;
+    private static final int LOG_VERSION = 3;
+    private static final int LOG_HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+    private static final byte UPSERT = 1;
+    private static final byte DELETE = 2;
+    private static final byte SYNCED = 3;
+
+    private final Path segmentFile;
+    private final Path logFile;
+    private FileChannel logChannel;
+    private long logLength;
+    private int logEntries;
+    private LocalDateTime syncedTo;
+
+    SearchIndexSegments(Path directory) {
+        this.segmentFile = directory.resolve("books.seg");
+        this.logFile = directory.resolve("books.log");
+    }
+
+    Map<Long, IndexedDocument> load() throws IOException {
+        Map<Long, IndexedDocument> documents = new LinkedHashMap<>();
+        closeLog();
+        logEntries = 0;
+        logLength = 0;
+        syncedTo = null;
+        if (Files.exists(segmentFile)) {
+            readSegment(documents);
+        }
+        if (Files.exists(logFile)) {
+            replayLog(documents);
+        }
+        return documents;
+    }
+
+    void writeSegment(Collection<IndexedDocument> documents, LocalDateTime synced)
+            throws IOException {
+        closeLog();
+        Files.createDirectories(segmentFile.getParent());
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (IndexedDocument document : documents) {
+            for (String term : document.terms()) {
+                dictionary.putIfAbsent(term, dictionary.size());
+            }
+        }
+        Path tmpFile = segmentFile.resolveSibling(segmentFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, synced == null ? "" : synced.toString());
+            out.writeInt(dictionary.size());
+            for (String term : dictionary.keySet()) {
+                writeString(out, term);
+            }
+            out.writeInt(documents.size());
+            for (IndexedDocument document : documents) {
+                out.writeLong(document.bookId());
+                for (int fieldLength : document.fieldLengths()) {
+                    out.writeInt(fieldLength);
+                }
+                out.writeInt(document.terms().length);
+                for (int i = 0; i < document.terms().length; i++) {
+                    out.writeInt(dictionary.get(document.terms()[i]));
+                    out.writeInt(document.frequencies()[i]);
+                }
+            }
+        }
+        Files.move(tmpFile, segmentFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(logFile);
+        logEntries = 0;
+        logLength = 0;
+        syncedTo = synced;
+    }
+
+    void appendUpsert(IndexedDocument document) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(record);
+        out.writeByte(UPSERT);
+        out.writeLong(document.bookId());
+        for (int fieldLength : document.fieldLengths()) {
+            out.writeInt(fieldLength);
+        }
+        out.writeInt(document.terms().length);
+        for (int i = 0; i < document.terms().length; i++) {
+            writeString(out, document.terms()[i]);
+            out.writeInt(document.frequencies()[i]);
+        }
+        appendRecord(record.toByteArray());
+    }
+
+    void appendSynced(LocalDateTime synced) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(record);
+        out.writeByte(SYNCED);
+        writeString(out, synced.toString());
+        appendRecord(record.toByteArray());
+        syncedTo = synced;
+    }
+
+    void appendDelete(long bookId) throws IOException {
+        appendRecord(ByteBuffer.allocate(Byte.BYTES + Long.BYTES)
+                .put(DELETE)
+                .putLong(bookId)
+                .array());
+    }
+
+    // The last watermark written to the segment or log, null when there is none
+    LocalDateTime syncedTo() {
+        return syncedTo;
+    }
+
+    // Entries appended since the last segment, replayed on every load
+    int logEntries() {
+        return logEntries;
+    }
+
+    void closeLog() throws IOException {
+        if (logChannel != null) {
+            logChannel.close();
+            logChannel = null;
+        }
+    }
+
+    // A failed write closes the log, so the next append first cuts off whatever part of the
+    // record made it to the file
+    private void appendRecord(byte[] payload) throws IOException {
+        FileChannel channel = openLog();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+        try {
+            writeFully(channel, record);
+        } catch (IOException e) {
+            closeLog();
+            throw e;
+        }
+        logLength += record.limit();
+        logEntries++;
+    }
+
+    private FileChannel openLog() throws IOException {
+        if (logChannel == null) {
+            Files.createDirectories(logFile.getParent());
+            FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+            try {
+                if (logLength == 0) {
+                    channel.truncate(0);
+                    writeFully(channel, ByteBuffer.allocate(LOG_HEADER_BYTES)
+                            .putInt(MAGIC)
+                            .putInt(LOG_VERSION)
+                            .flip());
+                    logLength = LOG_HEADER_BYTES;
+                } else {
+                    channel.truncate(logLength);
+                    channel.position(logLength);
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            logChannel = channel;
+        }
+        return logChannel;
+    }
+
+    private void readSegment(Map<Long, IndexedDocument> documents) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported search index segment: " + segmentFile);
+            }
+            String synced = readString(buffer);
+            syncedTo = synced.isEmpty() ? null : LocalDateTime.parse(synced);
+            String[] dictionary = new String[readCount(buffer, Integer.BYTES)];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = readString(buffer);
+            }
+            int documentCount = readCount(buffer, Long.BYTES);
+            for (int i = 0; i < documentCount; i++) {
+                long bookId = buffer.getLong();
+                int[] fieldLengths = readFieldLengths(buffer);
+                int termCount = readCount(buffer, 2 * Integer.BYTES);
+                String[] terms = new String[termCount];
+                int[] frequencies = new int[termCount];
+                for (int j = 0; j < termCount; j++) {
+                    terms[j] = dictionary[buffer.getInt()];
+                    frequencies[j] = buffer.getInt();
+                }
+                documents.put(bookId,
+                        new IndexedDocument(bookId, terms, frequencies, fieldLengths));
+            }
+        }
+    }
+
+    private void replayLog(Map<Long, IndexedDocument> documents) throws IOException {
+        Map<String, String> internedTerms = new HashMap<>();
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(logFile));
+        if (buffer.limit() < LOG_HEADER_BYTES) {
+            return;
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != LOG_VERSION) {
+            throw new IOException("Unsupported search index log: " + logFile);
+        }
+        logLength = LOG_HEADER_BYTES;
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+            int length = buffer.getInt();
+            final int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            buffer.position(buffer.position() + length);
+            replayRecord(payload, documents, internedTerms);
+            logLength = buffer.position();
+            logEntries++;
+        }
+        if (logLength < buffer.limit()) {
+            log.warn("Dropping {} bytes of a torn record at the end of {}",
+                    buffer.limit() - logLength, logFile);
+        }
+    }
+
+    private void replayRecord(ByteBuffer payload, Map<Long, IndexedDocument> documents,
+                              Map<String, String> internedTerms) throws IOException {
+        byte operation = payload.get();
+        if (operation == SYNCED) {
+            syncedTo = LocalDateTime.parse(readString(payload));
+            return;
+        }
+        long bookId = payload.getLong();
+        if (operation == DELETE) {
+            documents.remove(bookId);
+            return;
+        }
+        int[] fieldLengths = readFieldLengths(payload);
+        String[] terms = new String[readCount(payload, 2 * Integer.BYTES)];
+        int[] frequencies = new int[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = internedTerms.computeIfAbsent(readString(payload), term -> term);
+            frequencies[i] = payload.getInt();
+        }
+        documents.put(bookId, new IndexedDocument(bookId, terms, frequencies, fieldLengths));
+    }
+
+    private static int[] readFieldLengths(ByteBuffer buffer) {
+        int[] fieldLengths = new int[BookSearchIndex.FIELD_COUNT];
+        for (int i = 0; i < fieldLengths.length; i++) {
+            fieldLengths[i] = buffer.getInt();
+        }
+        return fieldLengths;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // Counts are checked against the bytes left, so a damaged file cannot ask for a huge array
+    private static int readCount(ByteBuffer buffer, int minBytesEach) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * minBytesEach > buffer.remaining()) {
+            throw new IOException("Damaged search index file, count " + count + " with "
+                    + buffer.remaining() + " bytes left");
+        }
+        return count;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[readCount(buffer, Byte.BYTES)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
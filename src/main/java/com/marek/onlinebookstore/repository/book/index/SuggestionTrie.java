@@ -0,0 +1,239 @@
+package com.marek.onlinebookstore.repository.book.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+class SuggestionTrie {
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final Comparator<Entry> BY_WEIGHT = Comparator
+            .comparingLong(Entry::getWeight).reversed()
+            .thenComparing(Entry::getText);
+
+    private final int topSize;
+    private Node root = new Node("");
+
+    SuggestionTrie(int topSize) {
+        this.topSize = topSize;
+    }
+
+    void add(String key, Entry entry) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.child(key.charAt(position));
+            if (child == null) {
+                child = new Node(key.substring(position));
+                node.addChild(child);
+                node = child;
+                path.add(node);
+                break;
+            }
+            int common = commonPrefixLength(child.label, key, position);
+            if (common < child.label.length()) {
+                child = split(node, child, common);
+            }
+            node = child;
+            path.add(node);
+            position += common;
+        }
+        node.terminals.add(entry);
+        recompute(path);
+    }
+
+    void remove(String key, Entry entry) {
+        List<Node> path = findPath(key, true);
+        if (path == null) {
+            return;
+        }
+        Node node = path.get(path.size() - 1);
+        node.terminals.remove(entry);
+        if (node.terminals.isEmpty() && node.children.length == 0 && path.size() > 1) {
+            path.get(path.size() - 2).removeChild(node);
+            path.remove(path.size() - 1);
+        }
+        recompute(path);
+    }
+
+    void refresh(String key) {
+        List<Node> path = findPath(key, true);
+        if (path != null) {
+            recompute(path);
+        }
+    }
+
+    List<Entry> complete(String prefix, int limit) {
+        List<Node> path = findPath(prefix, false);
+        if (path == null) {
+            return List.of();
+        }
+        Entry[] top = path.get(path.size() - 1).top;
+        return Arrays.asList(top).subList(0, Math.min(limit, top.length));
+    }
+
+    void clear() {
+        root = new Node("");
+    }
+
+    private List<Node> findPath(String key, boolean exact) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.child(key.charAt(position));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefixLength(child.label, key, position);
+            if (common < child.label.length()) {
+                boolean prefixEndsInLabel = position + common == key.length();
+                return !exact && prefixEndsInLabel ? append(path, child) : null;
+            }
+            node = child;
+            path.add(node);
+            position += common;
+        }
+        return path;
+    }
+
+    private Node split(Node parent, Node child, int at) {
+        Node middle = new Node(child.label.substring(0, at));
+        parent.removeChild(child);
+        child.label = child.label.substring(at);
+        middle.addChild(child);
+        middle.top = child.top;
+        parent.addChild(middle);
+        return middle;
+    }
+
+    private void recompute(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            List<Entry> candidates = new ArrayList<>(node.terminals);
+            for (Node child : node.children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(BY_WEIGHT);
+            Map<Entry, Boolean> seen = new IdentityHashMap<>();
+            List<Entry> top = new ArrayList<>(topSize);
+            for (Entry candidate : candidates) {
+                if (top.size() == topSize) {
+                    break;
+                }
+                if (seen.put(candidate, Boolean.TRUE) == null) {
+                    top.add(candidate);
+                }
+            }
+            node.top = top.toArray(NO_ENTRIES);
+        }
+    }
+
+    private static List<Node> append(List<Node> path, Node node) {
+        path.add(node);
+        return path;
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int length = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < length && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    static class Entry {
+        private final String text;
+        private final String type;
+        private final Long bookId;
+        private long weight;
+
+        Entry(String text, String type, Long bookId, long weight) {
+            this.text = text;
+            this.type = type;
+            this.bookId = bookId;
+            this.weight = weight;
+        }
+
+        String getText() {
+            return text;
+        }
+
+        String getType() {
+            return type;
+        }
+
+        Long getBookId() {
+            return bookId;
+        }
+
+        long getWeight() {
+            return weight;
+        }
+
+        void addWeight(long delta) {
+            weight += delta;
+        }
+    }
+
+    private static class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private final List<Entry> terminals = new ArrayList<>(1);
+        private Entry[] top = NO_ENTRIES;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char candidate = children[middle].label.charAt(0);
+                if (candidate < first) {
+                    low = middle + 1;
+                } else if (candidate > first) {
+                    high = middle - 1;
+                } else {
+                    return children[middle];
+                }
+            }
+            return null;
+        }
+
+        void addChild(Node child) {
+            char first = child.label.charAt(0);
+            int index = 0;
+            while (index < children.length && children[index].label.charAt(0) < first) {
+                index++;
+            }
+            Node[] extended = new Node[children.length + 1];
+            System.arraycopy(children, 0, extended, 0, index);
+            extended[index] = child;
+            System.arraycopy(children, index, extended, index + 1, children.length - index);
+            children = extended;
+        }
+
+        void removeChild(Node child) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    Node[] reduced = new Node[children.length - 1];
+                    System.arraycopy(children, 0, reduced, 0, i);
+                    System.arraycopy(children, i + 1, reduced, i, children.length - i - 1);
+                    children = reduced;
+                    return;
+                }
+            }
+        }
+    }
+}
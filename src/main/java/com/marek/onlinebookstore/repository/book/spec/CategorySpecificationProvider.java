@@ -0,0 +1,25 @@
+package com.marek.onlinebookstore.repository.book.spec;
+
+import com.marek.onlinebookstore.model.Book;
+import com.marek.onlinebookstore.repository.SpecificationProvider;
+import java.util.Arrays;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CategorySpecificationProvider implements SpecificationProvider<Book> {
+    private static final String KEY = "categoryId";
+
+    @Override
+    public String getKey() {
+        return KEY;
+    }
+
+    public Specification<Book> getSpecification(String[] params) {
+        return (root, query, criteriaBuilder) -> {
+            query.distinct(true);
+            return root.join("categories").get("id")
+                    .in(Arrays.stream(params).map(Long::valueOf).toArray());
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.marek.onlinebookstore.repository.book.spec;
+
+import com.marek.onlinebookstore.model.Book;
+import com.marek.onlinebookstore.model.PriceBand;
+import com.marek.onlinebookstore.repository.SpecificationProvider;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Optional;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PriceBandSpecificationProvider implements SpecificationProvider<Book> {
+    private static final String KEY = "priceBand";
+    private static final String FIELD_NAME = "price";
+
+    @Override
+    public String getKey() {
+        return KEY;
+    }
+
+    public Specification<Book> getSpecification(String[] params) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.or(
+                Arrays.stream(params)
+                        .map(PriceBand::fromLabel)
+                        .flatMap(Optional::stream)
+                        .map(band -> inBand(criteriaBuilder, root.get(FIELD_NAME), band))
+                        .toArray(Predicate[]::new));
+    }
+
+    private static Predicate inBand(CriteriaBuilder criteriaBuilder, Path<BigDecimal> price,
+                                    PriceBand band) {
+        if (band.getMin() == null) {
+            return criteriaBuilder.lessThan(price, band.getMax());
+        }
+        if (band.getMax() == null) {
+            return criteriaBuilder.greaterThanOrEqualTo(price, band.getMin());
+        }
+        return criteriaBuilder.and(criteriaBuilder.greaterThanOrEqualTo(price, band.getMin()),
+                criteriaBuilder.lessThan(price, band.getMax()));
+    }
+}
@@ -0,0 +1,29 @@
+package com.marek.onlinebookstore.repository.book.spec;
+
+import com.marek.onlinebookstore.model.Book;
+import com.marek.onlinebookstore.repository.SpecificationProvider;
+import jakarta.persistence.criteria.Predicate;
+import java.util.Arrays;
+import java.util.Locale;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+@Component
+public class QuerySpecificationProvider implements SpecificationProvider<Book> {
+    private static final String KEY = "q";
+    private static final String[] FIELD_NAMES = {"title", "author", "description"};
+
+    @Override
+    public String getKey() {
+        return KEY;
+    }
+
+    public Specification<Book> getSpecification(String[] params) {
+        String pattern = "%" + String.join(" ", params).toLowerCase(Locale.ROOT) + "%";
+        return (root, query, criteriaBuilder) -> criteriaBuilder.or(
+                Arrays.stream(FIELD_NAMES)
+                        .map(field -> criteriaBuilder.like(
+                                criteriaBuilder.lower(root.get(field)), pattern))
+                        .toArray(Predicate[]::new));
+    }
+}
@@ -1,21 +1,32 @@
 package com.marek.onlinebookstore.repository.cart;
 
 import com.marek.onlinebookstore.model.ShoppingCart;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ShoppingCartRepository extends JpaRepository<ShoppingCart, Long>,
         JpaSpecificationExecutor<ShoppingCart> {
 
+    // Items and their books come with the cart, an empty cart is still found
     @Query("SELECT sc "
             + "FROM ShoppingCart sc "
-            + "JOIN FETCH sc.cartItems "
-            + "JOIN FETCH sc.user u "
-            + "WHERE u.id = :user")
+            + "LEFT JOIN FETCH sc.cartItems ci "
+            + "LEFT JOIN FETCH ci.book "
+            + "WHERE sc.user.id = :user")
     ShoppingCart findShoppingCartByUser(Long user);
-}
-
 
+    // Same fetch plan for the cart view, loaded read-only so nothing is snapshotted
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT sc "
+            + "FROM ShoppingCart sc "
+            + "LEFT JOIN FETCH sc.cartItems ci "
+            + "LEFT JOIN FETCH ci.book "
+            + "WHERE sc.user.id = :user")
+    ShoppingCart findCartViewByUser(Long user);
+}
@@ -1,11 +1,22 @@
 package com.marek.onlinebookstore.repository.category;
 
 import com.marek.onlinebookstore.model.Category;
+import java.util.Set;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long>,
         JpaSpecificationExecutor<Category> {
+
+    Window<Category> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @Query("SELECT c.id FROM Category c")
+    Set<Long> findAllIds();
 }
@@ -0,0 +1,63 @@
+package com.marek.onlinebookstore.repository.idempotency;
+
+import com.marek.onlinebookstore.service.idempotency.StoredResponse;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@RequiredArgsConstructor
+@Repository
+public class IdempotencyKeyRepository {
+    private static final String SELECT_KEY = "SELECT request_hash, response_status, content_type,"
+            + " response_body FROM idempotency_keys WHERE id = ? AND expires_at > ?";
+    private static final String INSERT_KEY = "INSERT INTO idempotency_keys"
+            + " (id, request_hash, expires_at) VALUES (?, ?, ?)";
+    private static final String DELETE_EXPIRED_KEY =
+            "DELETE FROM idempotency_keys WHERE id = ? AND expires_at <= ?";
+    private static final String COMPLETE_KEY = "UPDATE idempotency_keys SET response_status = ?,"
+            + " content_type = ?, response_body = ?, expires_at = ? WHERE id = ?";
+    private static final String DELETE_KEY = "DELETE FROM idempotency_keys WHERE id = ?";
+    private static final String DELETE_EXPIRED =
+            "DELETE FROM idempotency_keys WHERE expires_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // A response without a body is still being executed
+    public Optional<StoredResponse> find(String id, LocalDateTime now) {
+        List<StoredResponse> responses = jdbcTemplate.query(SELECT_KEY, (resultSet, row) ->
+                new StoredResponse(resultSet.getString("request_hash"),
+                        resultSet.getInt("response_status"),
+                        resultSet.getString("content_type"),
+                        resultSet.getBytes("response_body")), id, Timestamp.valueOf(now));
+        return responses.stream().findFirst();
+    }
+
+    public boolean insertInProgress(String id, String requestHash, LocalDateTime now,
+                                    LocalDateTime expiresAt) {
+        jdbcTemplate.update(DELETE_EXPIRED_KEY, id, Timestamp.valueOf(now));
+        try {
+            jdbcTemplate.update(INSERT_KEY, id, requestHash, Timestamp.valueOf(expiresAt));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    public void complete(String id, StoredResponse response, LocalDateTime expiresAt) {
+        jdbcTemplate.update(COMPLETE_KEY, response.status(), response.contentType(),
+                response.body(), Timestamp.valueOf(expiresAt), id);
+    }
+
+    public void delete(String id) {
+        jdbcTemplate.update(DELETE_KEY, id);
+    }
+
+    public int deleteExpired(LocalDateTime now) {
+        return jdbcTemplate.update(DELETE_EXPIRED, Timestamp.valueOf(now));
+    }
+}
@@ -0,0 +1,140 @@
+package com.marek.onlinebookstore.repository.inventory;
+
+import com.marek.onlinebookstore.dto.book.BookStockDto;
+import com.marek.onlinebookstore.service.inventory.StockReservation;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@RequiredArgsConstructor
+@Repository
+public class StockReservationRepository {
+    private static final String SELECT_STOCK =
+            "SELECT id, stock FROM books WHERE stock IS NOT NULL AND is_deleted = false";
+    private static final String SELECT_RESERVATIONS = "SELECT id, book_id, user_id, quantity,"
+            + " status, order_id, expires_at FROM stock_reservations";
+    private static final String SELECT_LEVELS = "SELECT b.id, b.stock,"
+            + " COALESCE(SUM(CASE WHEN r.status = 'HELD' THEN r.quantity END), 0) AS held,"
+            + " COALESCE(SUM(CASE WHEN r.status = 'COMMITTED' THEN r.quantity END), 0) AS sold"
+            + " FROM books b LEFT JOIN stock_reservations r ON r.book_id = b.id"
+            + " WHERE b.stock IS NOT NULL AND b.is_deleted = false GROUP BY b.id, b.stock";
+    private static final String SELECT_COMMITTED_BOOKS = "SELECT DISTINCT book_id"
+            + " FROM stock_reservations WHERE status = 'COMMITTED' LIMIT :limit";
+    private static final String SELECT_COMMITTED = SELECT_RESERVATIONS
+            + " WHERE status = 'COMMITTED' AND book_id IN (:bookIds)"
+            + " ORDER BY id LIMIT :limit FOR UPDATE";
+    private static final String LOCK_STOCK = "SELECT id, stock FROM books"
+            + " WHERE id IN (:bookIds) AND is_deleted = false ORDER BY id FOR UPDATE";
+    // A locking read, so it also sees reservations committed after the transaction started
+    private static final String SUM_RESERVED = "SELECT book_id, SUM(quantity) AS reserved"
+            + " FROM stock_reservations WHERE book_id IN (:bookIds) GROUP BY book_id FOR SHARE";
+    private static final String INSERT_RESERVATION = "INSERT INTO stock_reservations"
+            + " (id, book_id, user_id, quantity, status, order_id, expires_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_RESERVATION = "DELETE FROM stock_reservations WHERE id = ?";
+    private static final String SET_STOCK = "UPDATE books SET stock = ? WHERE id = ?";
+    private static final String SUBTRACT_STOCK = "UPDATE books SET stock = stock - ? WHERE id = ?";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public Map<Long, Integer> findStock() {
+        Map<Long, Integer> stock = new HashMap<>();
+        jdbcTemplate.getJdbcOperations().query(SELECT_STOCK, resultSet -> {
+            stock.put(resultSet.getLong("id"), resultSet.getInt("stock"));
+        });
+        return stock;
+    }
+
+    public List<StockReservation> findAll() {
+        return jdbcTemplate.getJdbcOperations().query(SELECT_RESERVATIONS,
+                (resultSet, row) -> new StockReservation(
+                        resultSet.getString("id"),
+                        resultSet.getLong("book_id"),
+                        resultSet.getLong("user_id"),
+                        resultSet.getInt("quantity"),
+                        StockReservation.Status.valueOf(resultSet.getString("status")),
+                        resultSet.getObject("order_id", Long.class),
+                        resultSet.getObject("expires_at", LocalDateTime.class)));
+    }
+
+    public List<BookStockDto> findLevels() {
+        return jdbcTemplate.getJdbcOperations().query(SELECT_LEVELS, (resultSet, row) -> {
+            int held = resultSet.getInt("held");
+            int sold = resultSet.getInt("sold");
+            return new BookStockDto(resultSet.getLong("id"),
+                    resultSet.getInt("stock") - held - sold, held, sold);
+        });
+    }
+
+    public List<Long> findCommittedBooks(int limit) {
+        return jdbcTemplate.queryForList(SELECT_COMMITTED_BOOKS, Map.of("limit", limit),
+                Long.class);
+    }
+
+    // Books rows are always locked before reservation rows, in id order, so that checkouts,
+    // stock changes and the reconciler cannot deadlock each other
+    public Map<Long, Integer> lockStock(Collection<Long> bookIds) {
+        Map<Long, Integer> stock = new HashMap<>();
+        jdbcTemplate.query(LOCK_STOCK, Map.of("bookIds", bookIds), resultSet -> {
+            stock.put(resultSet.getLong("id"), resultSet.getObject("stock", Integer.class));
+        });
+        return stock;
+    }
+
+    public Map<Long, Integer> sumReserved(Collection<Long> bookIds) {
+        Map<Long, Integer> reserved = new HashMap<>();
+        jdbcTemplate.query(SUM_RESERVED, Map.of("bookIds", bookIds), resultSet -> {
+            reserved.put(resultSet.getLong("book_id"), resultSet.getInt("reserved"));
+        });
+        return reserved;
+    }
+
+    public List<StockReservation> lockCommitted(Collection<Long> bookIds, int limit) {
+        return jdbcTemplate.query(SELECT_COMMITTED, Map.of("bookIds", bookIds, "limit", limit),
+                (resultSet, row) -> new StockReservation(
+                        resultSet.getString("id"),
+                        resultSet.getLong("book_id"),
+                        resultSet.getLong("user_id"),
+                        resultSet.getInt("quantity"),
+                        StockReservation.Status.COMMITTED,
+                        resultSet.getObject("order_id", Long.class),
+                        null));
+    }
+
+    public void insertAll(Collection<StockReservation> reservations) {
+        jdbcTemplate.getJdbcOperations().batchUpdate(INSERT_RESERVATION, reservations,
+                reservations.size(), (statement, reservation) -> {
+                    statement.setString(1, reservation.id());
+                    statement.setLong(2, reservation.bookId());
+                    statement.setLong(3, reservation.userId());
+                    statement.setInt(4, reservation.quantity());
+                    statement.setString(5, reservation.status().name());
+                    statement.setObject(6, reservation.orderId());
+                    statement.setTimestamp(7, reservation.expiresAt() == null
+                            ? null : Timestamp.valueOf(reservation.expiresAt()));
+                });
+    }
+
+    public void deleteAll(Collection<String> ids) {
+        jdbcTemplate.getJdbcOperations().batchUpdate(DELETE_RESERVATION, ids, ids.size(),
+                (statement, id) -> statement.setString(1, id));
+    }
+
+    public void setStock(Long bookId, int stock) {
+        jdbcTemplate.getJdbcOperations().update(SET_STOCK, stock, bookId);
+    }
+
+    public void subtractStock(Map<Long, Integer> quantities) {
+        jdbcTemplate.getJdbcOperations().batchUpdate(SUBTRACT_STOCK, quantities.entrySet(),
+                quantities.size(), (statement, entry) -> {
+                    statement.setInt(1, entry.getValue());
+                    statement.setLong(2, entry.getKey());
+                });
+    }
+}
@@ -0,0 +1,75 @@
+package com.marek.onlinebookstore.repository.order;
+
+import com.marek.onlinebookstore.dto.order.OrderItemDto;
+import com.marek.onlinebookstore.service.inventory.StockLine;
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@RequiredArgsConstructor
+@Repository
+public class CheckoutRepository {
+    private static final String CART_LINES = """
+            FROM cart_items ci
+            JOIN shopping_carts sc ON sc.id = ci.cart_id
+            JOIN books b ON b.id = ci.books_id
+            WHERE sc.user_id = ? AND sc.is_deleted = false AND ci.is_deleted = false
+                AND b.is_deleted = false""";
+    private static final String LOCK_CART = "SELECT COUNT(*) AS line_count, "
+            + "COALESCE(SUM(b.price * ci.quantity), 0) AS total " + CART_LINES + " FOR UPDATE";
+    private static final String COUNT_CART_LINES = "SELECT COUNT(*) " + CART_LINES;
+    private static final String COPY_CART_TO_ORDER = """
+            INSERT INTO order_items (id, order_id, book_id, quantity, price, is_deleted)
+            SELECT ? + ROW_NUMBER() OVER (ORDER BY ci.id) - 1, ?, ci.books_id, ci.quantity,
+                b.price * ci.quantity, false
+            """ + CART_LINES;
+    private static final String CLEAR_CART = """
+            UPDATE cart_items ci
+            JOIN shopping_carts sc ON sc.id = ci.cart_id
+            SET ci.is_deleted = true
+            WHERE sc.user_id = ? AND sc.is_deleted = false AND ci.is_deleted = false""";
+    private static final String SELECT_CART_LINES =
+            "SELECT ci.books_id, ci.quantity " + CART_LINES;
+    private static final String SELECT_ORDER_ITEMS = "SELECT oi.id, oi.book_id, oi.quantity,"
+            + " b.title FROM order_items oi JOIN books b ON b.id = oi.book_id"
+            + " WHERE oi.order_id = ? ORDER BY oi.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Locks the user's cart lines until the transaction ends, so the cart cannot change
+    // between pricing it and copying it into the order
+    public CartSummary lockCart(Long userId) {
+        return jdbcTemplate.queryForObject(LOCK_CART, (resultSet, rowNumber) ->
+                new CartSummary(resultSet.getInt("line_count"),
+                        resultSet.getBigDecimal("total")), userId);
+    }
+
+    public int countCartLines(Long userId) {
+        return jdbcTemplate.queryForObject(COUNT_CART_LINES, Integer.class, userId);
+    }
+
+    public int copyCartToOrder(Long userId, Long orderId, long firstItemId) {
+        return jdbcTemplate.update(COPY_CART_TO_ORDER, firstItemId, orderId, userId);
+    }
+
+    public int clearCart(Long userId) {
+        return jdbcTemplate.update(CLEAR_CART, userId);
+    }
+
+    public List<StockLine> findCartLines(Long userId) {
+        return jdbcTemplate.query(SELECT_CART_LINES, (resultSet, rowNumber) ->
+                new StockLine(resultSet.getLong("books_id"), resultSet.getInt("quantity")),
+                userId);
+    }
+
+    public List<OrderItemDto> findOrderItems(Long orderId) {
+        return jdbcTemplate.query(SELECT_ORDER_ITEMS, (resultSet, rowNumber) ->
+                new OrderItemDto(resultSet.getLong("id"), resultSet.getLong("book_id"),
+                        resultSet.getInt("quantity"), resultSet.getString("title")), orderId);
+    }
+
+    public record CartSummary(int lines, BigDecimal total) {
+    }
+}
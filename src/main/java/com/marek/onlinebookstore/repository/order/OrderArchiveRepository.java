@@ -0,0 +1,165 @@
+package com.marek.onlinebookstore.repository.order;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Moves orders and their items into orders_archive and order_items_archive. Both archive
+// tables are range partitioned by month of order_date and end with a p_future partition.
+@RequiredArgsConstructor
+@Repository
+public class OrderArchiveRepository {
+    public static final String ORDERS_ARCHIVE = "orders_archive";
+    public static final String ORDER_ITEMS_ARCHIVE = "order_items_archive";
+    private static final YearMonth FIRST_MONTH = YearMonth.of(2024, 1);
+    private static final String PARTITION_PREFIX = "p_";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String SELECT_COMPLETED_ORDERS = "SELECT id FROM orders"
+            + " WHERE status = 'ORDER_COMPLETED' AND order_date < :before"
+            + " ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED";
+    private static final String SELECT_DELETED_ORDERS = "SELECT id FROM orders"
+            + " WHERE is_deleted = true ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED";
+    private static final String SELECT_DELETED_ITEMS = "SELECT id FROM order_items"
+            + " WHERE is_deleted = true ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED";
+    private static final String COPY_ORDERS = """
+            INSERT INTO orders_archive (id, user_id, status, total, order_date,
+                shipping_address, is_deleted, archived_at)
+            SELECT id, user_id, status, total, order_date, shipping_address, is_deleted, NOW()
+            FROM orders WHERE id IN (:ids)""";
+    private static final String COPY_ITEMS = """
+            INSERT INTO order_items_archive (id, order_id, book_id, quantity, price,
+                is_deleted, order_date)
+            SELECT oi.id, oi.order_id, oi.book_id, oi.quantity, oi.price, oi.is_deleted,
+                o.order_date
+            FROM order_items oi
+            JOIN orders o ON o.id = oi.order_id""";
+    private static final String DELETE_ITEMS_OF_ORDERS =
+            "DELETE FROM order_items WHERE order_id IN (:ids)";
+    private static final String DELETE_ORDERS = "DELETE FROM orders WHERE id IN (:ids)";
+    private static final String DELETE_ITEMS = "DELETE FROM order_items WHERE id IN (:ids)";
+    private static final String SELECT_PARTITIONS = "SELECT PARTITION_NAME"
+            + " FROM information_schema.PARTITIONS"
+            + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = :table";
+    private static final String LOCK_PARTITIONS =
+            "SELECT GET_LOCK(CONCAT(DATABASE(), '.partitions.', ?), 0)";
+    private static final String UNLOCK_PARTITIONS =
+            "SELECT RELEASE_LOCK(CONCAT(DATABASE(), '.partitions.', ?))";
+    private static final int ER_SAME_NAME_PARTITION = 1517;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // Rows are locked until the transaction ends and skipped by a concurrent archiver
+    public List<Long> findCompletedOrders(LocalDateTime before, int limit) {
+        return jdbcTemplate.queryForList(SELECT_COMPLETED_ORDERS,
+                new MapSqlParameterSource("before", Timestamp.valueOf(before))
+                        .addValue("limit", limit), Long.class);
+    }
+
+    public List<Long> findDeletedOrders(int limit) {
+        return jdbcTemplate.queryForList(SELECT_DELETED_ORDERS,
+                new MapSqlParameterSource("limit", limit), Long.class);
+    }
+
+    public List<Long> findDeletedItems(int limit) {
+        return jdbcTemplate.queryForList(SELECT_DELETED_ITEMS,
+                new MapSqlParameterSource("limit", limit), Long.class);
+    }
+
+    // Moves whole orders with all of their items, callers must hold the rows' locks
+    public int archiveOrders(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource("ids", ids);
+        jdbcTemplate.update(COPY_ITEMS + " WHERE oi.order_id IN (:ids)", parameters);
+        jdbcTemplate.update(COPY_ORDERS, parameters);
+        jdbcTemplate.update(DELETE_ITEMS_OF_ORDERS, parameters);
+        return jdbcTemplate.update(DELETE_ORDERS, parameters);
+    }
+
+    // Moves deleted items of orders that stay in the hot tables
+    public int archiveItems(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource("ids", ids);
+        jdbcTemplate.update(COPY_ITEMS + " WHERE oi.id IN (:ids)", parameters);
+        return jdbcTemplate.update(DELETE_ITEMS, parameters);
+    }
+
+    // Splits p_future so that every month up to and including the given one has its own
+    // partition. Runs DDL, which commits on its own, so it must not be called in a transaction.
+    // Only one instance at a time changes a table's partitions, the others skip it until their
+    // next run; a partition added meanwhile by an instance without the lock counts as added.
+    public int addPartitions(String table, YearMonth until) {
+        return jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Integer>) connection -> {
+            if (!partitionLock(connection, LOCK_PARTITIONS, table)) {
+                return 0;
+            }
+            try {
+                return addMissingPartitions(table, until);
+            } catch (DataAccessException e) {
+                if (e.getMostSpecificCause() instanceof SQLException sqlException
+                        && sqlException.getErrorCode() == ER_SAME_NAME_PARTITION) {
+                    return 0;
+                }
+                throw e;
+            } finally {
+                partitionLock(connection, UNLOCK_PARTITIONS, table);
+            }
+        });
+    }
+
+    private static boolean partitionLock(Connection connection, String sql, String table)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, table);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getInt(1) == 1;
+            }
+        }
+    }
+
+    private int addMissingPartitions(String table, YearMonth until) {
+        TreeSet<YearMonth> existing = new TreeSet<>();
+        for (String name : jdbcTemplate.queryForList(SELECT_PARTITIONS,
+                new MapSqlParameterSource("table", table), String.class)) {
+            if (name != null && name.matches(PARTITION_PREFIX + "\\d{6}")) {
+                existing.add(YearMonth.parse(name.substring(PARTITION_PREFIX.length()),
+                        PARTITION_MONTH));
+            }
+        }
+        YearMonth month = existing.isEmpty()
+                ? FIRST_MONTH : existing.last().plusMonths(1);
+        StringBuilder partitions = new StringBuilder();
+        int added = 0;
+        while (!month.isAfter(until)) {
+            partitions.append("PARTITION ").append(PARTITION_PREFIX)
+                    .append(month.format(PARTITION_MONTH))
+                    .append(" VALUES LESS THAN (UNIX_TIMESTAMP('")
+                    .append(month.plusMonths(1).atDay(1)).append(" 00:00:00')), ");
+            month = month.plusMonths(1);
+            added++;
+        }
+        if (added > 0) {
+            jdbcTemplate.getJdbcTemplate().execute("ALTER TABLE " + table
+                    + " REORGANIZE PARTITION p_future INTO (" + partitions
+                    + "PARTITION p_future VALUES LESS THAN MAXVALUE)");
+        }
+        return added;
+    }
+}
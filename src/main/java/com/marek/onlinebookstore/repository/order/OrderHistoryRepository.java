@@ -0,0 +1,117 @@
+package com.marek.onlinebookstore.repository.order;
+
+import com.marek.onlinebookstore.dto.order.OrderDto;
+import com.marek.onlinebookstore.dto.order.OrderItemDto;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+// Read side of the order history: summaries and items are selected straight into DTOs, so a
+// page costs one query for the orders and one for all of their items. Every query reads the
+// hot tables and the archive together, so paging continues into archived orders unnoticed.
+@RequiredArgsConstructor
+@Repository
+public class OrderHistoryRepository {
+    private static final String SELECT_ORDERS = "SELECT id, order_date, total, status"
+            + " FROM %s WHERE user_id = :userId AND is_deleted = false";
+    private static final String NEWEST_FIRST = " ORDER BY order_date DESC, id DESC";
+    private static final String BEFORE = " AND (order_date < :orderDate"
+            + " OR (order_date = :orderDate AND id < :id))";
+    private static final String SELECT_ITEMS = """
+            SELECT oi.id, oi.order_id, oi.book_id, oi.quantity, b.title
+            FROM %s oi
+            JOIN books b ON b.id = oi.book_id
+            WHERE oi.is_deleted = false""";
+    private static final String BY_ORDERS = " AND oi.order_id IN (:orderIds)";
+    private static final String BY_ORDER = " AND oi.order_id = :orderId";
+    private static final String BY_ORDER_AND_ID = " AND oi.order_id = :orderId AND oi.id = :id";
+    private static final String BY_ID = " ORDER BY id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public List<OrderDto> findPage(Long userId, long offset, int limit) {
+        String newest = NEWEST_FIRST + " LIMIT :rows";
+        return jdbcTemplate.query(bothOrderTables(newest)
+                        + NEWEST_FIRST + " LIMIT :limit OFFSET :offset",
+                new MapSqlParameterSource("userId", userId)
+                        .addValue("rows", offset + limit)
+                        .addValue("limit", limit)
+                        .addValue("offset", offset),
+                (resultSet, row) -> toOrder(resultSet));
+    }
+
+    // Orders older than the given key, newest first; a null key starts at the newest order
+    public List<OrderDto> findPageBefore(Long userId, LocalDateTime orderDate, Long id,
+                                         int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("userId", userId)
+                .addValue("limit", limit);
+        String filter = NEWEST_FIRST + " LIMIT :limit";
+        if (orderDate != null) {
+            filter = BEFORE + filter;
+            parameters.addValue("orderDate", Timestamp.valueOf(orderDate))
+                    .addValue("id", id);
+        }
+        return jdbcTemplate.query(bothOrderTables(filter)
+                        + NEWEST_FIRST + " LIMIT :limit", parameters,
+                (resultSet, row) -> toOrder(resultSet));
+    }
+
+    public Map<Long, Set<OrderItemDto>> findItems(Collection<Long> orderIds) {
+        Map<Long, Set<OrderItemDto>> items = new HashMap<>();
+        if (orderIds.isEmpty()) {
+            return items;
+        }
+        jdbcTemplate.query(bothItemTables(BY_ORDERS) + BY_ID,
+                new MapSqlParameterSource("orderIds", orderIds), resultSet -> {
+                    items.computeIfAbsent(resultSet.getLong("order_id"),
+                            orderId -> new LinkedHashSet<>()).add(toItem(resultSet));
+                });
+        return items;
+    }
+
+    public List<OrderItemDto> findItems(Long orderId) {
+        return jdbcTemplate.query(bothItemTables(BY_ORDER) + BY_ID,
+                new MapSqlParameterSource("orderId", orderId), (resultSet, row) ->
+                        toItem(resultSet));
+    }
+
+    public Optional<OrderItemDto> findItem(Long orderId, Long id) {
+        return jdbcTemplate.query(bothItemTables(BY_ORDER_AND_ID),
+                new MapSqlParameterSource("orderId", orderId).addValue("id", id),
+                (resultSet, row) -> toItem(resultSet)).stream().findFirst();
+    }
+
+    private static String bothOrderTables(String filter) {
+        return "(" + SELECT_ORDERS.formatted("orders") + filter + ") UNION ALL ("
+                + SELECT_ORDERS.formatted(OrderArchiveRepository.ORDERS_ARCHIVE) + filter + ")";
+    }
+
+    private static String bothItemTables(String filter) {
+        return "(" + SELECT_ITEMS.formatted("order_items") + filter + ") UNION ALL ("
+                + SELECT_ITEMS.formatted(OrderArchiveRepository.ORDER_ITEMS_ARCHIVE) + filter
+                + ")";
+    }
+
+    private static OrderDto toOrder(ResultSet resultSet) throws SQLException {
+        return new OrderDto(resultSet.getLong("id"), null,
+                resultSet.getObject("order_date", LocalDateTime.class),
+                resultSet.getBigDecimal("total"), resultSet.getString("status"));
+    }
+
+    private static OrderItemDto toItem(ResultSet resultSet) throws SQLException {
+        return new OrderItemDto(resultSet.getLong("id"), resultSet.getLong("book_id"),
+                resultSet.getInt("quantity"), resultSet.getString("title"));
+    }
+}
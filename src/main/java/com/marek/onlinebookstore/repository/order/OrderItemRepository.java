@@ -1,12 +1,20 @@
 package com.marek.onlinebookstore.repository.order;
 
+import com.marek.onlinebookstore.dto.order.BookSalesDto;
 import com.marek.onlinebookstore.model.OrderItem;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long>,
         JpaSpecificationExecutor<OrderItem> {
-}
 
+    @Query("SELECT new com.marek.onlinebookstore.dto.order.BookSalesDto("
+            + "oi.book.id, SUM(oi.quantity)) "
+            + "FROM OrderItem oi "
+            + "GROUP BY oi.book.id")
+    List<BookSalesDto> findBookSales();
+}
@@ -0,0 +1,89 @@
+package com.marek.onlinebookstore.repository.order;
+
+import com.marek.onlinebookstore.dto.order.OrderRequestStatusDto;
+import com.marek.onlinebookstore.model.OrderRequestStatus;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@RequiredArgsConstructor
+@Repository
+public class OrderRequestRepository {
+    private static final int MAX_ERROR_LENGTH = 255;
+    private static final String INSERT_REQUEST = "INSERT INTO order_requests"
+            + " (id, user_id, shipping_address, status, created_at) VALUES (?, ?, ?, ?, ?)";
+    // Each worker owns the users whose id falls into its partition, so one user's requests
+    // are always taken by the same worker in the order they were queued
+    private static final String SELECT_QUEUED = """
+            SELECT position, id, user_id, shipping_address
+            FROM order_requests
+            WHERE status = 'QUEUED' AND MOD(user_id, ?) = ?
+            ORDER BY position
+            LIMIT ?""";
+    // Locks the request for the transaction that places it. Nothing is returned when another
+    // instance holds the request or has already finished it.
+    private static final String CLAIM_REQUEST = "SELECT id FROM order_requests"
+            + " WHERE id = ? AND status = 'QUEUED' FOR UPDATE SKIP LOCKED";
+    private static final String SELECT_STATUS = """
+            SELECT r.id, r.status, r.order_id, r.error, r.created_at, r.processed_at,
+                CASE WHEN r.status = 'QUEUED' THEN (SELECT COUNT(*) FROM order_requests q
+                    WHERE q.status = 'QUEUED' AND q.position < r.position) END AS queued_ahead
+            FROM order_requests r
+            WHERE r.id = ? AND r.user_id = ?""";
+    private static final String FINISH_REQUEST = "UPDATE order_requests SET status = ?,"
+            + " order_id = ?, error = ?, processed_at = ? WHERE id = ? AND status = 'QUEUED'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(String id, Long userId, String shippingAddress) {
+        jdbcTemplate.update(INSERT_REQUEST, id, userId, shippingAddress,
+                OrderRequestStatus.QUEUED.name(), Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    public List<QueuedOrder> findQueued(int partitions, int partition, int limit) {
+        return jdbcTemplate.query(SELECT_QUEUED, (resultSet, row) -> new QueuedOrder(
+                resultSet.getLong("position"),
+                resultSet.getString("id"),
+                resultSet.getLong("user_id"),
+                resultSet.getString("shipping_address")), partitions, partition, limit);
+    }
+
+    public boolean claim(String id) {
+        return !jdbcTemplate.queryForList(CLAIM_REQUEST, String.class, id).isEmpty();
+    }
+
+    public Optional<OrderRequestStatusDto> findStatus(String id, Long userId) {
+        return jdbcTemplate.query(SELECT_STATUS, (resultSet, row) -> new OrderRequestStatusDto(
+                resultSet.getString("id"),
+                resultSet.getString("status"),
+                resultSet.getObject("queued_ahead", Long.class),
+                resultSet.getObject("order_id", Long.class),
+                resultSet.getString("error"),
+                resultSet.getObject("created_at", LocalDateTime.class),
+                resultSet.getObject("processed_at", LocalDateTime.class)), id, userId)
+                .stream()
+                .findFirst();
+    }
+
+    public void complete(String id, Long orderId) {
+        finish(id, OrderRequestStatus.COMPLETED, orderId, null);
+    }
+
+    public void fail(String id, String error) {
+        String message = error != null && error.length() > MAX_ERROR_LENGTH
+                ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        finish(id, OrderRequestStatus.FAILED, null, message);
+    }
+
+    private void finish(String id, OrderRequestStatus status, Long orderId, String error) {
+        jdbcTemplate.update(FINISH_REQUEST, status.name(), orderId, error,
+                Timestamp.valueOf(LocalDateTime.now()), id);
+    }
+
+    public record QueuedOrder(long position, String id, Long userId, String shippingAddress) {
+    }
+}
@@ -0,0 +1,57 @@
+package com.marek.onlinebookstore.repository.order;
+
+import com.marek.onlinebookstore.service.order.OrderStreamEvent;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@RequiredArgsConstructor
+@Repository
+public class OrderStreamRepository {
+    private static final String INSERT_EVENT = "INSERT INTO order_stream_events"
+            + " (event_id, user_id, event_type, payload) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_NOW = "SELECT CURRENT_TIMESTAMP(6)";
+    private static final String SELECT_AFTER = """
+            SELECT event_id, user_id, event_type, payload, created_at
+            FROM order_stream_events
+            WHERE created_at > ?
+            ORDER BY created_at, id
+            LIMIT ?""";
+    private static final String DELETE_BEFORE = "DELETE FROM order_stream_events"
+            + " WHERE created_at < CURRENT_TIMESTAMP(6) - INTERVAL ? SECOND";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // created_at is taken from the database clock, so instances with drifting clocks agree
+    public void insertAll(Collection<OrderStreamEvent> events) {
+        jdbcTemplate.batchUpdate(INSERT_EVENT, events, events.size(), (statement, event) -> {
+            statement.setLong(1, event.eventId());
+            statement.setLong(2, event.userId());
+            statement.setString(3, event.type());
+            statement.setString(4, event.payload());
+        });
+    }
+
+    public LocalDateTime findNow() {
+        return jdbcTemplate.queryForObject(SELECT_NOW, LocalDateTime.class);
+    }
+
+    public List<OrderStreamEvent> findAfter(LocalDateTime createdAfter, int limit) {
+        return jdbcTemplate.query(SELECT_AFTER, (resultSet, row) -> new OrderStreamEvent(
+                resultSet.getLong("event_id"),
+                resultSet.getLong("user_id"),
+                resultSet.getString("event_type"),
+                resultSet.getString("payload"),
+                resultSet.getObject("created_at", LocalDateTime.class)),
+                Timestamp.valueOf(createdAfter), limit);
+    }
+
+    public int deleteOlderThan(Duration age) {
+        return jdbcTemplate.update(DELETE_BEFORE, age.toSeconds());
+    }
+}
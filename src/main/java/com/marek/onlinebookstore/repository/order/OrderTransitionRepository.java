@@ -0,0 +1,71 @@
+package com.marek.onlinebookstore.repository.order;
+
+import com.marek.onlinebookstore.model.Status;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@RequiredArgsConstructor
+@Repository
+public class OrderTransitionRepository {
+    // Status.next() as SQL, so one statement can advance orders that are in different statuses
+    private static final String NEXT_STATUS = Arrays.stream(Status.values())
+            .filter(status -> status.next() != null)
+            .map(status -> "WHEN '" + status + "' THEN '" + status.next() + "'")
+            .collect(Collectors.joining(" ", "CASE status ", " END"));
+    private static final String LOCK_ORDERS = "SELECT id, user_id, status, total, order_date"
+            + " FROM orders WHERE id IN (:ids) AND is_deleted = false FOR UPDATE";
+    private static final String ADVANCE_ORDERS =
+            "UPDATE orders SET status = " + NEXT_STATUS + " WHERE id IN (:ids)";
+    private static final String SELECT_IDS = "SELECT id FROM orders"
+            + " WHERE status = :status AND is_deleted = false AND id > :afterId";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public List<LockedOrder> lock(Collection<Long> ids) {
+        return jdbcTemplate.query(LOCK_ORDERS, new MapSqlParameterSource("ids", ids),
+                (resultSet, row) -> new LockedOrder(
+                        resultSet.getLong("id"),
+                        resultSet.getLong("user_id"),
+                        Status.valueOf(resultSet.getString("status")),
+                        resultSet.getBigDecimal("total"),
+                        resultSet.getObject("order_date", LocalDateTime.class)));
+    }
+
+    // Callers must hold the row locks taken by lock(), otherwise an order could be advanced
+    // twice by concurrent requests
+    public int advance(Collection<Long> ids) {
+        return jdbcTemplate.update(ADVANCE_ORDERS, new MapSqlParameterSource("ids", ids));
+    }
+
+    public List<Long> findIds(Status status, LocalDateTime orderedFrom, LocalDateTime orderedTo,
+                              long afterId, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT_IDS);
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("status", status.name())
+                .addValue("afterId", afterId)
+                .addValue("limit", limit);
+        if (orderedFrom != null) {
+            sql.append(" AND order_date >= :orderedFrom");
+            parameters.addValue("orderedFrom", Timestamp.valueOf(orderedFrom));
+        }
+        if (orderedTo != null) {
+            sql.append(" AND order_date < :orderedTo");
+            parameters.addValue("orderedTo", Timestamp.valueOf(orderedTo));
+        }
+        sql.append(" ORDER BY id LIMIT :limit");
+        return jdbcTemplate.queryForList(sql.toString(), parameters, Long.class);
+    }
+
+    public record LockedOrder(Long id, Long userId, Status status, BigDecimal total,
+                              LocalDateTime orderDate) {
+    }
+}
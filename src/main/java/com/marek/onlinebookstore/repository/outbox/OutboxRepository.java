@@ -0,0 +1,89 @@
+package com.marek.onlinebookstore.repository.outbox;
+
+import com.marek.onlinebookstore.service.outbox.OutboxEvent;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@RequiredArgsConstructor
+@Repository
+public class OutboxRepository {
+    private static final int MAX_ERROR_LENGTH = 255;
+    private static final String INSERT_EVENT = "INSERT INTO outbox_events (aggregate_type,"
+            + " aggregate_id, event_type, payload, created_at, next_attempt_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?)";
+    // Rows locked by another dispatcher are skipped instead of waited for, so several
+    // instances can drain the outbox side by side
+    private static final String CLAIM_EVENTS = """
+            SELECT id, aggregate_type, aggregate_id, event_type, payload, created_at, attempts
+            FROM outbox_events
+            WHERE next_attempt_at <= ?
+            ORDER BY id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED""";
+    private static final String DELETE_EVENT = "DELETE FROM outbox_events WHERE id = ?";
+    private static final String RETRY_EVENT = "UPDATE outbox_events SET attempts = attempts + 1,"
+            + " next_attempt_at = ?, last_error = ? WHERE id = ?";
+    private static final String SELECT_OLDEST =
+            "SELECT created_at FROM outbox_events ORDER BY id LIMIT 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(String aggregateType, Long aggregateId, String eventType, String payload) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(INSERT_EVENT, aggregateType, aggregateId, eventType, payload, now,
+                now);
+    }
+
+    public void insertAll(String aggregateType, String eventType,
+                          Map<Long, String> payloads) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_EVENT, payloads.entrySet(), payloads.size(),
+                (statement, payload) -> {
+                    statement.setString(1, aggregateType);
+                    statement.setLong(2, payload.getKey());
+                    statement.setString(3, eventType);
+                    statement.setString(4, payload.getValue());
+                    statement.setTimestamp(5, now);
+                    statement.setTimestamp(6, now);
+                });
+    }
+
+    public List<OutboxEvent> claim(LocalDateTime now, int limit) {
+        return jdbcTemplate.query(CLAIM_EVENTS, (resultSet, row) -> new OutboxEvent(
+                resultSet.getLong("id"),
+                resultSet.getString("aggregate_type"),
+                resultSet.getLong("aggregate_id"),
+                resultSet.getString("event_type"),
+                resultSet.getString("payload"),
+                resultSet.getObject("created_at", LocalDateTime.class),
+                resultSet.getInt("attempts")), Timestamp.valueOf(now), limit);
+    }
+
+    public void deleteAll(Collection<OutboxEvent> events) {
+        jdbcTemplate.batchUpdate(DELETE_EVENT, events, events.size(),
+                (statement, event) -> statement.setLong(1, event.id()));
+    }
+
+    public void retryAll(Collection<OutboxEvent> events, LocalDateTime nextAttemptAt,
+                         String error) {
+        String message = error != null && error.length() > MAX_ERROR_LENGTH
+                ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        jdbcTemplate.batchUpdate(RETRY_EVENT, events, events.size(), (statement, event) -> {
+            statement.setTimestamp(1, Timestamp.valueOf(nextAttemptAt));
+            statement.setString(2, message);
+            statement.setLong(3, event.id());
+        });
+    }
+
+    public Optional<LocalDateTime> findOldestCreatedAt() {
+        return jdbcTemplate.query(SELECT_OLDEST, (resultSet, row) ->
+                resultSet.getObject("created_at", LocalDateTime.class)).stream().findFirst();
+    }
+}
@@ -0,0 +1,37 @@
+package com.marek.onlinebookstore.repository.replica;
+
+import javax.sql.DataSource;
+
+// A read replica with the health and lag seen by the last check
+public final class Replica {
+    private final String name;
+    private final DataSource dataSource;
+    private volatile boolean healthy;
+    private volatile long lagMillis;
+
+    public Replica(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    void update(boolean healthy, long lagMillis) {
+        this.lagMillis = lagMillis;
+        this.healthy = healthy;
+    }
+}
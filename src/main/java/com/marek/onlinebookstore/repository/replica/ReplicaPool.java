@@ -0,0 +1,95 @@
+package com.marek.onlinebookstore.repository.replica;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+// Picks the replica for a read. A replica is used only while it is healthy and no further
+// behind than maxLag; for a user who wrote recently it must also be less behind than the time
+// since that write, otherwise the read goes to the primary. Reads are spread round robin.
+@Slf4j
+public class ReplicaPool {
+    private static final int CHECK_TIMEOUT_SECONDS = 2;
+
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaPool(List<Replica> replicas, Duration maxLag) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("A replica pool needs at least one replica");
+        }
+        this.replicas = List.copyOf(replicas);
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    // Returns null when no replica is fresh enough
+    public DataSource choose(Long userId) {
+        Long lastWrite = userId == null ? null : lastWrites.get(userId);
+        long allowedLag = lastWrite == null
+                ? maxLagMillis : Math.min(maxLagMillis, System.currentTimeMillis() - lastWrite);
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.isHealthy() && replica.getLagMillis() < allowedLag) {
+                return replica.getDataSource();
+            }
+        }
+        return null;
+    }
+
+    public void recordWrite(Long userId) {
+        lastWrites.put(userId, System.currentTimeMillis());
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @Scheduled(fixedDelayString = "${replicas.check-interval:1s}")
+    public void check() {
+        for (Replica replica : replicas) {
+            try {
+                replica.update(true, lagMillis(replica.getDataSource()));
+            } catch (SQLException e) {
+                if (replica.isHealthy()) {
+                    log.warn("Replica {} is down, reads go to the other replicas",
+                            replica.getName(), e);
+                }
+                replica.update(false, Long.MAX_VALUE);
+            }
+        }
+        // Writes older than maxLag no longer rule out any usable replica
+        long forgetBefore = System.currentTimeMillis() - maxLagMillis;
+        lastWrites.values().removeIf(lastWrite -> lastWrite < forgetBefore);
+    }
+
+    // Seconds_Behind_Source is rounded down, so a second is added. A server that is not
+    // replicating from anything is not a replica and must not serve reads.
+    private static long lagMillis(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(CHECK_TIMEOUT_SECONDS);
+            try (ResultSet status = statement.executeQuery("SHOW REPLICA STATUS")) {
+                if (!status.next()) {
+                    throw new SQLException("Replication is not configured");
+                }
+                long seconds = status.getLong("Seconds_Behind_Source");
+                if (status.wasNull()) {
+                    throw new SQLException("Replication is not running");
+                }
+                return (seconds + 1) * 1000;
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.marek.onlinebookstore.repository.replica;
+
+import com.marek.onlinebookstore.repository.shard.ShardContext;
+import com.marek.onlinebookstore.security.AuthenticatedUser;
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Sends connections of read-only transactions on the main shard to a replica and everything
+// else to the primary. Has to sit behind a LazyConnectionDataSourceProxy, so the connection
+// is taken once the transaction is marked read-only rather than while it is being opened.
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+    private final DataSource primary;
+    private final ReplicaPool replicaPool;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaPool replicaPool) {
+        this.primary = primary;
+        this.replicaPool = replicaPool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return target().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return target().getConnection(username, password);
+    }
+
+    private DataSource target() {
+        Long userId = currentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (userId != null) {
+                replicaPool.recordWrite(userId);
+            }
+            return primary;
+        }
+        if (!ShardContext.MAIN.equals(ShardContext.current())) {
+            return primary;
+        }
+        DataSource replica = replicaPool.choose(userId);
+        return replica == null ? primary : replica;
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null
+                && authentication.getPrincipal() instanceof AuthenticatedUser user
+                ? user.id() : null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.marek.onlinebookstore.repository.shard;
+
+import java.util.function.Supplier;
+
+// The shard the current thread works on. Connections are taken from the shard that is current
+// when a transaction begins, so it must be set before entering @Transactional code.
+public final class ShardContext {
+    public static final String MAIN = "main";
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        String shard = CURRENT.get();
+        return shard == null ? MAIN : shard;
+    }
+
+    public static <T> T callOn(String shard, Supplier<T> action) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    static void restore(String shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+
+    static String set(String shard) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+}
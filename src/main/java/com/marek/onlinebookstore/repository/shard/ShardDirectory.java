@@ -0,0 +1,85 @@
+package com.marek.onlinebookstore.repository.shard;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Knows which shard holds a user's orders and cart. While the shards are rebalanced, users that
+// were already moved are routed by an override until the new ring is switched in. Requests
+// routed for a user hold a shared lock, so a move waits for them and new ones wait for it.
+public class ShardDirectory {
+    private static final int LOCK_STRIPES = 1024;
+
+    private final Set<String> shards;
+    private final Map<Long, String> moved = new ConcurrentHashMap<>();
+    private final ReadWriteLock[] locks = new ReadWriteLock[LOCK_STRIPES];
+    private volatile ShardRing ring;
+
+    public ShardDirectory(Set<String> shards, ShardRing ring) {
+        this.shards = Set.copyOf(shards);
+        this.ring = ring;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    public String shardFor(Long userId) {
+        String shard = moved.get(userId);
+        return shard == null ? ring.shardFor(userId) : shard;
+    }
+
+    // Every configured shard, including ones the current ring does not use yet
+    public Set<String> getShards() {
+        return shards;
+    }
+
+    public ShardRing getRing() {
+        return ring;
+    }
+
+    public Route route(Long userId) {
+        Lock lock = lockOf(userId).readLock();
+        lock.lock();
+        return new Route(lock, ShardContext.set(shardFor(userId)));
+    }
+
+    // Runs the copy with the user's requests held off, then routes the user to the new shard
+    public void move(Long userId, String shard, Runnable copy) {
+        Lock lock = lockOf(userId).writeLock();
+        lock.lock();
+        try {
+            copy.run();
+            moved.put(userId, shard);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void switchRing(ShardRing next) {
+        ring = next;
+        moved.clear();
+    }
+
+    private ReadWriteLock lockOf(Long userId) {
+        return locks[(int) Math.floorMod(userId, (long) LOCK_STRIPES)];
+    }
+
+    public static final class Route implements AutoCloseable {
+        private final Lock lock;
+        private final String previous;
+
+        private Route(Lock lock, String previous) {
+            this.lock = lock;
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            ShardContext.restore(previous);
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.marek.onlinebookstore.repository.shard;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+// Scatter-gather for work that spans all users, such as admin queries and background jobs.
+// With a single shard the work runs on the calling thread.
+public class ShardExecutor {
+    private final ShardDirectory shardDirectory;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "shard-scatter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ShardExecutor(ShardDirectory shardDirectory) {
+        this.shardDirectory = shardDirectory;
+    }
+
+    public <T> List<T> onEveryShard(Supplier<T> action) {
+        if (shardDirectory.getShards().size() == 1) {
+            return Collections.singletonList(ShardContext.callOn(
+                    shardDirectory.getShards().iterator().next(), action));
+        }
+        List<CompletableFuture<T>> results = new ArrayList<>();
+        for (String shard : shardDirectory.getShards()) {
+            results.add(CompletableFuture.supplyAsync(
+                    () -> ShardContext.callOn(shard, action), executor));
+        }
+        try {
+            return results.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
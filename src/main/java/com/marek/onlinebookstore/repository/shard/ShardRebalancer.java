@@ -0,0 +1,103 @@
+package com.marek.onlinebookstore.repository.shard;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Moves users between shards while the application keeps serving them. Each user is copied
+// to the new shard, routed there and only then deleted from the old one; copies use
+// INSERT IGNORE, so a rebalance that died half way can simply be run again.
+@Slf4j
+public class ShardRebalancer {
+    // Parents before children, rows are deleted in the reverse order
+    private static final Map<String, String> USER_ROWS = new LinkedHashMap<>();
+    private static final String SELECT_USERS = "SELECT user_id FROM shopping_carts"
+            + " UNION SELECT user_id FROM orders UNION SELECT user_id FROM orders_archive";
+
+    static {
+        USER_ROWS.put("shopping_carts", "user_id = ?");
+        USER_ROWS.put("cart_items",
+                "cart_id IN (SELECT id FROM shopping_carts WHERE user_id = ?)");
+        USER_ROWS.put("orders", "user_id = ?");
+        USER_ROWS.put("order_items", "order_id IN (SELECT id FROM orders WHERE user_id = ?)");
+        USER_ROWS.put("orders_archive", "user_id = ?");
+        USER_ROWS.put("order_items_archive",
+                "order_id IN (SELECT id FROM orders_archive WHERE user_id = ?)");
+    }
+
+    private final ShardDirectory shardDirectory;
+    private final Map<String, JdbcTemplate> jdbcTemplates = new HashMap<>();
+    private final Map<String, TransactionTemplate> transactionTemplates = new HashMap<>();
+
+    public ShardRebalancer(ShardDirectory shardDirectory, Map<String, DataSource> dataSources) {
+        this.shardDirectory = shardDirectory;
+        dataSources.forEach((shard, dataSource) -> {
+            jdbcTemplates.put(shard, new JdbcTemplate(dataSource));
+            transactionTemplates.put(shard,
+                    new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        });
+    }
+
+    // Returns the number of users moved
+    public int rebalance(ShardRing target) {
+        if (!shardDirectory.getShards().containsAll(target.getShards())) {
+            throw new IllegalArgumentException("Unknown shards in " + target.getShards());
+        }
+        int movedUsers = 0;
+        for (String shard : shardDirectory.getShards()) {
+            for (Long userId : jdbcTemplates.get(shard).queryForList(SELECT_USERS, Long.class)) {
+                String destination = target.shardFor(userId);
+                if (!destination.equals(shard)) {
+                    shardDirectory.move(userId, destination,
+                            () -> copy(userId, shard, destination));
+                    delete(userId, shard);
+                    movedUsers++;
+                }
+            }
+        }
+        shardDirectory.switchRing(target);
+        log.info("Rebalanced {} users onto shards {}", movedUsers, target.getShards());
+        return movedUsers;
+    }
+
+    private void copy(Long userId, String from, String to) {
+        Map<String, List<Map<String, Object>>> rows = new LinkedHashMap<>();
+        transactionTemplates.get(from).executeWithoutResult(status -> USER_ROWS.forEach(
+                (table, owner) -> rows.put(table, jdbcTemplates.get(from).queryForList(
+                        "SELECT * FROM " + table + " WHERE " + owner + " FOR UPDATE",
+                        userId))));
+        transactionTemplates.get(to).executeWithoutResult(status -> rows.forEach(
+                (table, tableRows) -> insert(jdbcTemplates.get(to), table, tableRows)));
+    }
+
+    private void delete(Long userId, String shard) {
+        List<String> tables = List.copyOf(USER_ROWS.keySet());
+        transactionTemplates.get(shard).executeWithoutResult(status -> {
+            for (int i = tables.size() - 1; i >= 0; i--) {
+                jdbcTemplates.get(shard).update("DELETE FROM " + tables.get(i) + " WHERE "
+                        + USER_ROWS.get(tables.get(i)), userId);
+            }
+        });
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, String table,
+                               List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = List.copyOf(rows.get(0).keySet());
+        String sql = "INSERT IGNORE INTO " + table + " (" + String.join(", ", columns)
+                + ") VALUES (" + columns.stream().map(column -> "?")
+                .collect(Collectors.joining(", ")) + ")";
+        jdbcTemplate.batchUpdate(sql, rows.stream()
+                .map(row -> columns.stream().map(row::get).toArray())
+                .toList());
+    }
+}
@@ -0,0 +1,67 @@
+package com.marek.onlinebookstore.repository.shard;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Consistent hash ring over shard names. Every shard owns virtualNodes points on the ring and
+// a user belongs to the first point at or after the hash of their id, so adding a shard only
+// moves the users that land on its points.
+public final class ShardRing {
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+    private final Set<String> shards;
+    private final int virtualNodes;
+
+    public ShardRing(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A ring needs at least one shard and one point");
+        }
+        this.shards = Set.copyOf(new TreeSet<>(shards));
+        this.virtualNodes = virtualNodes;
+        for (String shard : this.shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(hash(shard + "#" + i), shard);
+            }
+        }
+    }
+
+    public String shardFor(long userId) {
+        Map.Entry<Long, String> point = points.ceilingEntry(mix(userId));
+        return (point == null ? points.firstEntry() : point).getValue();
+    }
+
+    public Set<String> getShards() {
+        return shards;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    private static long hash(String point) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5")
+                    .digest(point.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+
+    // MurmurHash3 finalizer, spreads sequential ids over the whole ring
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,88 @@
+package com.marek.onlinebookstore.repository.token;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+@RequiredArgsConstructor
+@Repository
+public class RefreshTokenRepository {
+    private static final String INSERT_FAMILY = "INSERT INTO refresh_token_families"
+            + " (user_id, created_at) VALUES (?, ?)";
+    private static final String INSERT_TOKEN = "INSERT INTO refresh_tokens"
+            + " (id, family_id, expires_at) VALUES (?, ?, ?)";
+    private static final String SELECT_TOKEN = "SELECT t.family_id, f.user_id, t.used,"
+            + " t.expires_at, f.revoked FROM refresh_tokens t"
+            + " JOIN refresh_token_families f ON f.id = t.family_id WHERE t.id = ?";
+    private static final String MARK_USED =
+            "UPDATE refresh_tokens SET used = true WHERE id = ? AND used = false";
+    private static final String REVOKE_FAMILY =
+            "UPDATE refresh_token_families SET revoked = true WHERE id = ?";
+    private static final String REVOKE_USER_FAMILIES = "UPDATE refresh_token_families"
+            + " SET revoked = true WHERE user_id = ? AND revoked = false";
+    private static final String DELETE_EXPIRED =
+            "DELETE FROM refresh_tokens WHERE expires_at <= ?";
+    private static final String DELETE_EMPTY_FAMILIES = "DELETE FROM refresh_token_families"
+            + " WHERE NOT EXISTS (SELECT 1 FROM refresh_tokens t"
+            + " WHERE t.family_id = refresh_token_families.id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public long insertFamily(Long userId, LocalDateTime now) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement =
+                    connection.prepareStatement(INSERT_FAMILY, Statement.RETURN_GENERATED_KEYS);
+            statement.setLong(1, userId);
+            statement.setTimestamp(2, Timestamp.valueOf(now));
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    public void insert(String id, long familyId, LocalDateTime expiresAt) {
+        jdbcTemplate.update(INSERT_TOKEN, id, familyId, Timestamp.valueOf(expiresAt));
+    }
+
+    public Optional<StoredRefreshToken> find(String id) {
+        List<StoredRefreshToken> tokens = jdbcTemplate.query(SELECT_TOKEN, (resultSet, row) ->
+                new StoredRefreshToken(resultSet.getLong("family_id"),
+                        resultSet.getLong("user_id"),
+                        resultSet.getBoolean("used"),
+                        resultSet.getTimestamp("expires_at").toLocalDateTime(),
+                        resultSet.getBoolean("revoked")), id);
+        return tokens.stream().findFirst();
+    }
+
+    // False when the token was already used, also by a request running at the same time
+    public boolean markUsed(String id) {
+        return jdbcTemplate.update(MARK_USED, id) == 1;
+    }
+
+    public void revokeFamily(long familyId) {
+        jdbcTemplate.update(REVOKE_FAMILY, familyId);
+    }
+
+    public int revokeAllFamilies(Long userId) {
+        return jdbcTemplate.update(REVOKE_USER_FAMILIES, userId);
+    }
+
+    // Used tokens are kept until they expire, so a replayed one is still recognised
+    public int deleteExpired(LocalDateTime now) {
+        int deleted = jdbcTemplate.update(DELETE_EXPIRED, Timestamp.valueOf(now));
+        jdbcTemplate.update(DELETE_EMPTY_FAMILIES);
+        return deleted;
+    }
+
+    public record StoredRefreshToken(long familyId, Long userId, boolean used,
+                                     LocalDateTime expiresAt, boolean revoked) {
+    }
+}
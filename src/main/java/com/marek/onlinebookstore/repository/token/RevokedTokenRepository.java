@@ -0,0 +1,39 @@
+package com.marek.onlinebookstore.repository.token;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@RequiredArgsConstructor
+@Repository
+public class RevokedTokenRepository {
+    private static final String INSERT_TOKEN =
+            "INSERT IGNORE INTO revoked_tokens (id, expires_at) VALUES (?, ?)";
+    private static final String SELECT_ACTIVE =
+            "SELECT id, expires_at FROM revoked_tokens WHERE expires_at > ?";
+    private static final String DELETE_EXPIRED =
+            "DELETE FROM revoked_tokens WHERE expires_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(String id, LocalDateTime expiresAt) {
+        jdbcTemplate.update(INSERT_TOKEN, id, Timestamp.valueOf(expiresAt));
+    }
+
+    public Map<String, LocalDateTime> findActive(LocalDateTime now) {
+        Map<String, LocalDateTime> tokens = new HashMap<>();
+        jdbcTemplate.query(SELECT_ACTIVE, resultSet -> {
+            tokens.put(resultSet.getString("id"),
+                    resultSet.getTimestamp("expires_at").toLocalDateTime());
+        }, Timestamp.valueOf(now));
+        return tokens;
+    }
+
+    public int deleteExpired(LocalDateTime now) {
+        return jdbcTemplate.update(DELETE_EXPIRED, Timestamp.valueOf(now));
+    }
+}
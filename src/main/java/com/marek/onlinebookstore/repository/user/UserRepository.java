@@ -1,11 +1,13 @@
 package com.marek.onlinebookstore.repository.user;
 
 import com.marek.onlinebookstore.model.User;
-import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -14,5 +16,10 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     @EntityGraph(attributePaths = {"roles"})
     Optional<User> findByEmail(String email);
 
-    List<User> findByShippingAddress(String shippingAddress);
+    @EntityGraph(attributePaths = {"roles"})
+    Optional<User> findWithRolesById(Long id);
+
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.email = :email")
+    int updatePassword(@Param("email") String email, @Param("password") String password);
 }
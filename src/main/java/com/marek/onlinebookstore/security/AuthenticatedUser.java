@@ -0,0 +1,35 @@
+package com.marek.onlinebookstore.security;
+
+import com.marek.onlinebookstore.model.User;
+import java.security.Principal;
+import java.util.List;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+// Principal of a request authenticated by token, built from the token claims alone
+public record AuthenticatedUser(Long id, String email, List<GrantedAuthority> authorities)
+        implements Principal {
+    public AuthenticatedUser {
+        authorities = List.copyOf(authorities);
+    }
+
+    public static AuthenticatedUser of(Long id, String email, List<String> roles) {
+        return new AuthenticatedUser(id, email, roles.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList());
+    }
+
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(),
+                List.<GrantedAuthority>copyOf(user.getAuthorities()));
+    }
+
+    public List<String> roles() {
+        return authorities.stream().map(GrantedAuthority::getAuthority).toList();
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
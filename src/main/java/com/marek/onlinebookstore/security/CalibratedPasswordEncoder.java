@@ -0,0 +1,75 @@
+package com.marek.onlinebookstore.security;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// BCrypt with a cost factor that is either configured or measured at startup. A stored hash
+// with a lower cost is reported for upgrade, so it is rehashed on the next successful login;
+// hashes are never rehashed to a lower cost.
+@Slf4j
+public class CalibratedPasswordEncoder implements PasswordEncoder {
+    static final int MIN_STRENGTH = 10;
+    static final int MAX_STRENGTH = 16;
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+    private static final int CALIBRATION_RUNS = 5;
+
+    private final int strength;
+    private final BCryptPasswordEncoder delegate;
+
+    public CalibratedPasswordEncoder(int strength) {
+        this.strength = strength;
+        this.delegate = new BCryptPasswordEncoder(strength);
+    }
+
+    // Each cost step doubles the work, so hashing at the minimum cost is enough to pick the
+    // highest cost that still verifies within the target. The median of several runs keeps a
+    // single slow or fast run from moving the cost.
+    public static CalibratedPasswordEncoder calibrated(Duration targetLatency) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_STRENGTH);
+        probe.encode(CALIBRATION_PASSWORD);
+        long[] runs = new long[CALIBRATION_RUNS];
+        for (int i = 0; i < CALIBRATION_RUNS; i++) {
+            long start = System.nanoTime();
+            probe.encode(CALIBRATION_PASSWORD);
+            runs[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(runs);
+        long nanos = runs[CALIBRATION_RUNS / 2];
+        int strength = MIN_STRENGTH;
+        while (strength < MAX_STRENGTH && nanos * 2 <= targetLatency.toNanos()) {
+            strength++;
+            nanos *= 2;
+        }
+        log.info("BCrypt cost {} takes about {} ms", strength, nanos / 1_000_000);
+        return new CalibratedPasswordEncoder(strength);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_HASH.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) < strength;
+    }
+}
@@ -0,0 +1,181 @@
+package com.marek.onlinebookstore.security;
+
+import com.marek.onlinebookstore.service.idempotency.IdempotencyClaim;
+import com.marek.onlinebookstore.service.idempotency.IdempotencyService;
+import com.marek.onlinebookstore.service.idempotency.StoredResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+@Component
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final Set<String> IDEMPOTENT_PATHS = Set.of("/orders", "/cart");
+    private static final int MAX_KEY_LENGTH = 255;
+    // Order and cart bodies are a few hundred bytes; the body is held in memory to hash it
+    private static final int MAX_BODY_SIZE = 64 * 1024;
+
+    private final IdempotencyService idempotencyService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || !HttpMethod.POST.matches(request.getMethod())
+                || !IDEMPOTENT_PATHS.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH
+                || authentication == null) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(),
+                    "Invalid " + IDEMPOTENCY_KEY_HEADER + " header");
+            return;
+        }
+        if (request.getContentLengthLong() > MAX_BODY_SIZE) {
+            rejectTooLarge(response);
+            return;
+        }
+        // Chunked bodies carry no length, so the read is bounded as well
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_SIZE + 1);
+        if (body.length > MAX_BODY_SIZE) {
+            rejectTooLarge(response);
+            return;
+        }
+        // Keys are scoped per user and endpoint, so one client cannot replay another's response
+        String key = sha256((authentication.getName() + '\n' + request.getMethod() + '\n'
+                + request.getServletPath() + '\n' + idempotencyKey)
+                .getBytes(StandardCharsets.UTF_8));
+        String requestHash = sha256(body);
+        IdempotencyClaim claim = idempotencyService.claim(key, requestHash);
+        switch (claim.outcome()) {
+            case REPLAY -> replay(claim.response(), response);
+            case KEY_REUSED -> response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                    IDEMPOTENCY_KEY_HEADER + " was already used for a different request");
+            case IN_PROGRESS -> response.sendError(HttpStatus.CONFLICT.value(),
+                    "A request with this " + IDEMPOTENCY_KEY_HEADER + " is still in progress");
+            default -> execute(key, requestHash, new CachedBodyRequest(request, body),
+                    response, filterChain);
+        }
+    }
+
+    private void execute(String key, String requestHash, HttpServletRequest request,
+                         HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper cachingResponse =
+                new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, cachingResponse);
+        } catch (ServletException | IOException | RuntimeException e) {
+            idempotencyService.release(key);
+            throw e;
+        }
+        if (cachingResponse.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            idempotencyService.release(key);
+        } else {
+            idempotencyService.complete(key, new StoredResponse(requestHash,
+                    cachingResponse.getStatus(), cachingResponse.getContentType(),
+                    cachingResponse.getContentAsByteArray()));
+        }
+        cachingResponse.copyBodyToResponse();
+    }
+
+    private static void rejectTooLarge(HttpServletResponse response) throws IOException {
+        response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                "Requests with an " + IDEMPOTENCY_KEY_HEADER + " header are limited to "
+                        + MAX_BODY_SIZE + " bytes");
+    }
+
+    private static void replay(StoredResponse stored, HttpServletResponse response)
+            throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, Boolean.TRUE.toString());
+        response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(stored.body().length));
+        response.getOutputStream().write(stored.body());
+    }
+
+    private static String sha256(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // The body is already in memory, so it is available as soon as asked for
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+    }
+}
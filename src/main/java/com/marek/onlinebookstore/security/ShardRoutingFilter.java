@@ -0,0 +1,43 @@
+package com.marek.onlinebookstore.security;
+
+import com.marek.onlinebookstore.repository.shard.ShardDirectory;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+// Runs after Spring Security and sends the user's order and cart requests to their shard
+@Component
+@ConditionalOnProperty("sharding.enabled")
+@RequiredArgsConstructor
+public class ShardRoutingFilter extends OncePerRequestFilter {
+    private final ShardDirectory shardDirectory;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null
+                || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try (ShardDirectory.Route route = shardDirectory.route(user.id())) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return !path.startsWith("/orders") && !path.startsWith("/cart");
+    }
+}
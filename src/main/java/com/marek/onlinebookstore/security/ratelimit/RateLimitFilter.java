@@ -0,0 +1,116 @@
+package com.marek.onlinebookstore.security.ratelimit;
+
+import com.marek.onlinebookstore.config.RateLimitProperties;
+import com.marek.onlinebookstore.security.AuthenticatedUser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+// Runs after JwtAuthenticationFilter, so signed in users are limited by id and everyone else
+// by client IP. Only the first policy whose paths match a request applies. Behind a proxy,
+// set server.forward-headers-strategy so the client IP is the one the proxy saw.
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final List<Route> routes = new ArrayList<>();
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        if (!properties.enabled() || properties.policies() == null) {
+            return;
+        }
+        for (Map.Entry<String, RateLimitProperties.Policy> entry
+                : properties.policies().entrySet()) {
+            RateLimitProperties.Policy policy = entry.getValue();
+            RateLimiter limiter = new RateLimiter(policy.capacity(), policy.refillPerSecond(),
+                    properties.maxKeys());
+            FunctionCounter.builder("rate-limit.untracked", limiter, RateLimiter::untracked)
+                    .description("Requests let through because rate-limit.max-keys was reached")
+                    .tag("policy", entry.getKey())
+                    .register(meterRegistry);
+            routes.add(new Route(
+                    policy.paths().stream().map(PathPatternParser.defaultInstance::parse)
+                            .toList(),
+                    limiter,
+                    Counter.builder("rate-limit.rejected")
+                            .description("Requests turned away with 429")
+                            .tag("policy", entry.getKey())
+                            .register(meterRegistry)));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Route route = routeFor(request);
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long wait = route.limiter().tryAcquire(callerOf(request), System.nanoTime());
+        if (wait == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        route.rejected().increment();
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Too many requests, retry in " + seconds + " s");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return routes.isEmpty();
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.cleanup-interval:1m}")
+    public void removeIdle() {
+        long now = System.nanoTime();
+        routes.forEach(route -> route.limiter().removeIdle(now));
+    }
+
+    private Route routeFor(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getServletPath());
+        for (Route route : routes) {
+            for (PathPattern pattern : route.patterns()) {
+                if (pattern.matches(path)) {
+                    return route;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Object callerOf(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null
+                && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.id();
+        }
+        return request.getRemoteAddr();
+    }
+
+    private record Route(List<PathPattern> patterns, RateLimiter limiter, Counter rejected) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.marek.onlinebookstore.security.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token buckets for one policy, kept as the time at which each caller's bucket is full again
+// (GCRA). A decision is one map lookup and a compare-and-set, without locks or allocation
+// for a known caller. A caller whose bucket is full again is the same as a new one, so those
+// entries are dropped when the table reaches maxKeys. If it is still full, requests of new
+// callers pass unlimited and are counted, rather than sharing one bucket in which a single
+// caller would lock everyone else out.
+public class RateLimiter {
+    private final long interval;
+    private final long tolerance;
+    private final int maxKeys;
+    private final Map<Object, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong untracked = new AtomicLong();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    public RateLimiter(int capacity, double refillPerSecond, int maxKeys) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException(
+                    "Rate limit needs a capacity of at least 1 and a positive refill rate");
+        }
+        this.interval = (long) (1_000_000_000L / refillPerSecond);
+        this.tolerance = interval * capacity;
+        this.maxKeys = maxKeys;
+    }
+
+    // Returns 0 when the request may pass, otherwise the nanos until it would
+    public long tryAcquire(Object key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = newBucket(key, now);
+            if (bucket == null) {
+                untracked.incrementAndGet();
+                return 0;
+            }
+        }
+        while (true) {
+            long full = bucket.get();
+            long next = (full - now > 0 ? full : now) + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public void removeIdle(long now) {
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    // Requests let through because the caller could not be tracked
+    public long untracked() {
+        return untracked.get();
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private AtomicLong newBucket(Object key, long now) {
+        if (buckets.size() >= maxKeys) {
+            if (sweeping.compareAndSet(false, true)) {
+                try {
+                    removeIdle(now);
+                } finally {
+                    sweeping.set(false);
+                }
+            }
+            if (buckets.size() >= maxKeys) {
+                return null;
+            }
+        }
+        return buckets.computeIfAbsent(key, ignored -> new AtomicLong(now));
+    }
+}
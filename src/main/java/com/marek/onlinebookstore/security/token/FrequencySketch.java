@@ -0,0 +1,84 @@
+package com.marek.onlinebookstore.security.token;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Count-min sketch of 4-bit counters, sixteen to a long, that estimates how often a key was
+// seen recently. Counters stop at 15 and are all halved once sampleSize keys were counted,
+// so popularity fades. Updates are lock-free and may race, the estimate is approximate anyway.
+final class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x97cb3127, 0x3c6ef372, 0xa54ff53a, 0x510e527f};
+    private static final long MAX_COUNTER = 15L;
+    private static final long HALF_MASK = 0x7777777777777777L;
+
+    private final AtomicLongArray table;
+    private final int tableMask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    FrequencySketch(int maximumSize) {
+        int length = Integer.highestOneBit(Math.max(maximumSize, 8) - 1) << 1;
+        table = new AtomicLongArray(length);
+        tableMask = length - 1;
+        sampleSize = 10 * Math.max(maximumSize, 8);
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++) {
+            added |= incrementAt(indexOf(hash, i), offsetOf(hash, i));
+        }
+        if (added && additions.incrementAndGet() >= sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        long frequency = MAX_COUNTER;
+        for (int i = 0; i < DEPTH; i++) {
+            frequency = Math.min(frequency,
+                    (table.get(indexOf(hash, i)) >>> offsetOf(hash, i)) & MAX_COUNTER);
+        }
+        return (int) frequency;
+    }
+
+    private boolean incrementAt(int index, int offset) {
+        while (true) {
+            long value = table.get(index);
+            if (((value >>> offset) & MAX_COUNTER) == MAX_COUNTER) {
+                return false;
+            }
+            if (table.compareAndSet(index, value, value + (1L << offset))) {
+                return true;
+            }
+        }
+    }
+
+    private void reset() {
+        additions.set(0);
+        for (int i = 0; i < table.length(); i++) {
+            long value;
+            do {
+                value = table.get(i);
+            } while (!table.compareAndSet(i, value, (value >>> 1) & HALF_MASK));
+        }
+    }
+
+    private int indexOf(int hash, int row) {
+        int mixed = (hash ^ SEEDS[row]) * 0x9e3779b9;
+        return (mixed ^ (mixed >>> 16)) & tableMask;
+    }
+
+    // Each row uses its own counter of the sixteen in the long
+    private static int offsetOf(int hash, int row) {
+        return (((hash >>> (row << 3)) & 3) + (row << 2)) << 2;
+    }
+
+    private static int spread(int hash) {
+        int mixed = hash * 0x45d9f3b;
+        return mixed ^ (mixed >>> 16);
+    }
+}
@@ -1,5 +1,8 @@
 package com.marek.onlinebookstore.security.token;
 
+import com.marek.onlinebookstore.model.User;
+import com.marek.onlinebookstore.security.AuthenticatedUser;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,10 +12,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 @Component
@@ -20,6 +21,8 @@ import org.springframework.web.filter.OncePerRequestFilter;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final TokenCache tokenCache;
+    private final TokenRevocations tokenRevocations;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -32,12 +35,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
 
     private void tokenValidation(String tokenFromRequest) {
-        if (tokenFromRequest != null && jwtUtil.isValid(tokenFromRequest)) {
-            String username = jwtUtil.getUserName(tokenFromRequest);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if (tokenFromRequest != null) {
+            String digest = JwtUtil.digest(tokenFromRequest);
+            if (tokenRevocations.isRevoked(digest)) {
+                return;
+            }
+            AuthenticatedUser principal = tokenCache.get(digest,
+                    () -> verify(tokenFromRequest));
             Authentication authenticationToken
                     = new UsernamePasswordAuthenticationToken(
-                    userDetails, null, userDetails.getAuthorities()
+                    principal, null, principal.authorities()
             );
             SecurityContextHolder
                     .getContext()
@@ -45,17 +52,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
     }
 
-    private String getTokenFromRequest(HttpServletRequest request) {
-        String authorization = request.getHeader("Authorization");
-        return extractToken(authorization);
+    private TokenCache.VerifiedToken verify(String tokenFromRequest) {
+        Claims claims = jwtUtil.parse(tokenFromRequest);
+        AuthenticatedUser principal = jwtUtil.toPrincipal(claims);
+        if (principal == null) {
+            // Tokens issued before the claims were added, until they expire
+            principal = AuthenticatedUser.of(
+                    (User) userDetailsService.loadUserByUsername(claims.getSubject()));
+        }
+        return new TokenCache.VerifiedToken(principal, claims.getExpiration().getTime());
     }
 
-    private static String extractToken(String authorization) {
-        if (StringUtils.hasText(authorization)
-                && authorization.startsWith("Bearer ")) {
-            return authorization.substring(7);
-        }
-        return null;
+    private String getTokenFromRequest(HttpServletRequest request) {
+        String authorization = request.getHeader("Authorization");
+        return JwtUtil.extractToken(authorization);
     }
 }
 
@@ -1,26 +1,42 @@
 package com.marek.onlinebookstore.security.token;
 
+import com.marek.onlinebookstore.security.AuthenticatedUser;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 @Component
 public class JwtUtil {
+    private static final String ID_CLAIM = "id";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String BEARER_PREFIX = "Bearer ";
+
     @Value("${jwtUtil.expiration}")
     private long expiration;
 
     private Key secret;
 
+    // A built parser is immutable and thread safe, so one serves every request
+    private JwtParser parser;
+
     public JwtUtil(@Value("${jwtUtil.secret}") String secretString) {
         secret = Keys.hmacShaKeyFor(secretString.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .setSigningKey(secret)
+                .build();
     }
 
     public String generateToken(String username, Map<String, Object> additionalClaims) {
@@ -34,13 +50,47 @@ public class JwtUtil {
                 .compact();
     }
 
-    public boolean isValid(String tokenFromRequest) {
-        Jws<Claims> claimsJws = Jwts.parser()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(tokenFromRequest);
+    public String generateToken(AuthenticatedUser user) {
+        return generateToken(user.email(), Map.of(ID_CLAIM, user.id(),
+                ROLES_CLAIM, user.roles()));
+    }
 
-        return !claimsJws.getBody()
+    // Checks the signature and expiry, a token failing either throws JwtException
+    public Claims parse(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    // Null for tokens issued before they carried the user id and roles
+    public AuthenticatedUser toPrincipal(Claims claims) {
+        Number id = claims.get(ID_CLAIM, Number.class);
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        if (id == null || roles == null) {
+            return null;
+        }
+        return AuthenticatedUser.of(id.longValue(), claims.getSubject(),
+                roles.stream().map(String::valueOf).toList());
+    }
+
+    public static String extractToken(String authorization) {
+        if (StringUtils.hasText(authorization)
+                && authorization.startsWith(BEARER_PREFIX)) {
+            return authorization.substring(BEARER_PREFIX.length());
+        }
+        return null;
+    }
+
+    // Key for caching and revoking a token without keeping the token itself
+    public static String digest(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public boolean isValid(String tokenFromRequest) {
+        return !parse(tokenFromRequest)
                 .getExpiration()
                 .before(new Date());
     }
@@ -50,24 +100,6 @@ public class JwtUtil {
     }
 
     public <T> T getClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims body = Jwts.parser()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claimsResolver.apply(body);
-    }
-
-    public String getUserRole(String tokenFromRequest) {
-        Claims claims = getAllClaims(tokenFromRequest);
-        return claims.get("role", String.class); // Assuming role is stored as a string
-    }
-
-    private Claims getAllClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return claimsResolver.apply(parse(token));
     }
 }
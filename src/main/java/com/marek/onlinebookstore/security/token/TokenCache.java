@@ -0,0 +1,161 @@
+package com.marek.onlinebookstore.security.token;
+
+import com.marek.onlinebookstore.security.AuthenticatedUser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Principals of verified tokens by token digest, so a hot token skips the signature check and
+// the user lookup. Entries live until their token expires. The cache is split into segments,
+// each an LRU list under its own lock; when a segment is full a new token only replaces the
+// least recently used one if the frequency sketch has seen it more often (TinyLFU), so a burst
+// of one-off tokens does not push out the busy ones.
+@Component
+public class TokenCache {
+    private static final int SEGMENTS = 16;
+
+    private final boolean enabled;
+    private final int segmentSize;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final FrequencySketch sketch;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiryEvictions;
+    private final Timer verification;
+
+    public TokenCache(MeterRegistry meterRegistry,
+                      @Value("${security.token-cache.enabled:false}") boolean enabled,
+                      @Value("${security.token-cache.maximum-size:10000}") int maximumSize) {
+        this.enabled = enabled;
+        segmentSize = Math.max(1, maximumSize / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+        sketch = new FrequencySketch(maximumSize);
+        hits = Counter.builder("security.token.cache.requests")
+                .description("Token lookups served from the cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        misses = Counter.builder("security.token.cache.requests")
+                .description("Token lookups that had to verify the token")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        sizeEvictions = Counter.builder("security.token.cache.evictions")
+                .description("Tokens dropped to make room for more frequent ones")
+                .tag("cause", "size")
+                .register(meterRegistry);
+        expiryEvictions = Counter.builder("security.token.cache.evictions")
+                .description("Tokens dropped because they expired")
+                .tag("cause", "expired")
+                .register(meterRegistry);
+        verification = Timer.builder("security.token.verify")
+                .description("Time to verify a token and build its principal")
+                .register(meterRegistry);
+        Gauge.builder("security.token.cache.size", this, TokenCache::size)
+                .description("Tokens in the cache")
+                .register(meterRegistry);
+        Gauge.builder("security.token.cache.hit.ratio", this, TokenCache::hitRatio)
+                .description("Share of token lookups served from the cache")
+                .register(meterRegistry);
+    }
+
+    // The verifier runs on a miss and must throw for a token that is not valid
+    public AuthenticatedUser get(String digest, Supplier<VerifiedToken> verifier) {
+        if (!enabled) {
+            return verification.record(verifier).principal();
+        }
+        sketch.increment(digest);
+        Segment segment = segmentFor(digest);
+        long now = System.currentTimeMillis();
+        synchronized (segment) {
+            VerifiedToken cached = segment.get(digest);
+            if (cached != null && cached.expiresAtMillis() > now) {
+                hits.increment();
+                return cached.principal();
+            }
+            if (cached != null) {
+                segment.remove(digest);
+                expiryEvictions.increment();
+            }
+        }
+        misses.increment();
+        VerifiedToken verified = verification.record(verifier);
+        put(segment, digest, verified);
+        return verified.principal();
+    }
+
+    public void invalidate(String digest) {
+        Segment segment = segmentFor(digest);
+        synchronized (segment) {
+            segment.remove(digest);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.token-cache.cleanup-interval:1m}")
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                int before = segment.size();
+                segment.values().removeIf(token -> token.expiresAtMillis() <= now);
+                expiryEvictions.increment(before - segment.size());
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    double hitRatio() {
+        double lookups = hits.count() + misses.count();
+        return lookups == 0 ? 0 : hits.count() / lookups;
+    }
+
+    private void put(Segment segment, String digest, VerifiedToken verified) {
+        synchronized (segment) {
+            if (segment.size() >= segmentSize && !segment.containsKey(digest)) {
+                Iterator<Map.Entry<String, VerifiedToken>> eldest =
+                        segment.entrySet().iterator();
+                Map.Entry<String, VerifiedToken> victim = eldest.next();
+                if (victim.getValue().expiresAtMillis() <= System.currentTimeMillis()) {
+                    expiryEvictions.increment();
+                } else if (sketch.frequency(digest) > sketch.frequency(victim.getKey())) {
+                    sizeEvictions.increment();
+                } else {
+                    return;
+                }
+                eldest.remove();
+            }
+            segment.put(digest, verified);
+        }
+    }
+
+    private Segment segmentFor(String digest) {
+        return segments[(digest.hashCode() & Integer.MAX_VALUE) % SEGMENTS];
+    }
+
+    public record VerifiedToken(AuthenticatedUser principal, long expiresAtMillis) {
+    }
+
+    private static final class Segment extends LinkedHashMap<String, VerifiedToken> {
+        private Segment() {
+            super(16, 0.75f, true);
+        }
+    }
+}
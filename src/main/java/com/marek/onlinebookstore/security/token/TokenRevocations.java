@@ -0,0 +1,46 @@
+package com.marek.onlinebookstore.security.token;
+
+import com.marek.onlinebookstore.repository.token.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Digests of logged out tokens that have not expired yet. Every request is checked against the
+// in-memory copy; revoked_tokens keeps logouts across restarts and hands them to the other
+// instances on their next refresh.
+@RequiredArgsConstructor
+@Component
+public class TokenRevocations {
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final Map<String, LocalDateTime> revoked = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    public boolean isRevoked(String digest) {
+        return revoked.containsKey(digest);
+    }
+
+    public void revoke(String digest, LocalDateTime expiresAt) {
+        revokedTokenRepository.insert(digest, expiresAt);
+        revoked.put(digest, expiresAt);
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.refresh-interval:30s}")
+    public void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        revokedTokenRepository.deleteExpired(now);
+        revoked.putAll(revokedTokenRepository.findActive(now));
+        revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+    }
+
+    int size() {
+        return revoked.size();
+    }
+}
@@ -0,0 +1,9 @@
+package com.marek.onlinebookstore.service.book;
+
+import com.marek.onlinebookstore.service.book.exporter.BookExportFormat;
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface BookExportService {
+    void export(BookExportFormat format, OutputStream output) throws IOException;
+}
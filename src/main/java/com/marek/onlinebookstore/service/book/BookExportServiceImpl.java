@@ -0,0 +1,46 @@
+package com.marek.onlinebookstore.service.book;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marek.onlinebookstore.repository.book.BookExportRepository;
+import com.marek.onlinebookstore.service.book.exporter.BookExportFormat;
+import com.marek.onlinebookstore.service.book.exporter.BookExportWriter;
+import com.marek.onlinebookstore.service.book.exporter.CsvBookExportWriter;
+import com.marek.onlinebookstore.service.book.exporter.NdjsonBookExportWriter;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+@RequiredArgsConstructor
+@Service
+public class BookExportServiceImpl implements BookExportService {
+    private final BookExportRepository bookExportRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void export(BookExportFormat format, OutputStream output) throws IOException {
+        BookExportWriter writer = switch (format) {
+            case NDJSON -> new NdjsonBookExportWriter(new BufferedOutputStream(output),
+                    objectMapper.writer());
+            case CSV -> new CsvBookExportWriter(new BufferedWriter(
+                    new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+        };
+        try {
+            bookExportRepository.forEachBook(book -> {
+                try {
+                    writer.write(book);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+    }
+}
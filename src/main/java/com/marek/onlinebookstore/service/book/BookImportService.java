@@ -0,0 +1,13 @@
+package com.marek.onlinebookstore.service.book;
+
+import com.marek.onlinebookstore.dto.book.BookImportStatusDto;
+import java.io.InputStream;
+import java.util.List;
+
+public interface BookImportService {
+    BookImportStatusDto importBooks(InputStream input, String contentType);
+
+    BookImportStatusDto getStatus(String jobId);
+
+    List<BookImportStatusDto> getJobs();
+}
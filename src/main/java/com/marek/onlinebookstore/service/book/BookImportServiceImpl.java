@@ -0,0 +1,218 @@
+package com.marek.onlinebookstore.service.book;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marek.onlinebookstore.dto.book.BookImportStatusDto;
+import com.marek.onlinebookstore.dto.book.CreateBookRequestDto;
+import com.marek.onlinebookstore.exception.DataProcessingException;
+import com.marek.onlinebookstore.exception.EntityNotFoundException;
+import com.marek.onlinebookstore.repository.book.BookBatchRepository;
+import com.marek.onlinebookstore.repository.book.BookRepository;
+import com.marek.onlinebookstore.repository.book.index.BookIndexManager;
+import com.marek.onlinebookstore.repository.category.CategoryRepository;
+import com.marek.onlinebookstore.service.book.importer.BookImportJob;
+import com.marek.onlinebookstore.service.book.importer.BookRowReader;
+import com.marek.onlinebookstore.service.book.importer.CsvBookRowReader;
+import com.marek.onlinebookstore.service.book.importer.InvalidBookRowException;
+import com.marek.onlinebookstore.service.book.importer.NdjsonBookRowReader;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class BookImportServiceImpl implements BookImportService {
+    static final int BATCH_SIZE = 1000;
+    private static final int QUEUED_BATCHES = 4;
+    private static final int RETAINED_JOBS = 20;
+    // Further imports wait for a free writer instead of each getting a new thread
+    private static final int MAX_WRITERS = 2;
+    private static final List<CreateBookRequestDto> END_OF_INPUT = List.of();
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final BookBatchRepository bookBatchRepository;
+    private final BookRepository bookRepository;
+    private final CategoryRepository categoryRepository;
+    private final BookIndexManager bookIndexManager;
+    private final PlatformTransactionManager transactionManager;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService writers = Executors.newFixedThreadPool(MAX_WRITERS,
+            runnable -> {
+                Thread thread = new Thread(runnable, "book-import-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private final Map<String, BookImportJob> jobs = Collections.synchronizedMap(
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, BookImportJob> eldest) {
+                    return size() > RETAINED_JOBS && eldest.getValue().isFinished();
+                }
+            });
+
+    @Override
+    public BookImportStatusDto importBooks(InputStream input, String contentType) {
+        BookImportJob job = new BookImportJob();
+        jobs.put(job.getId(), job);
+        BookRowReader reader = readerFor(input, contentType);
+        Set<Long> categoryIds = categoryRepository.findAllIds();
+        BlockingQueue<List<CreateBookRequestDto>> queue = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+        Future<?> writer = writers.submit(() -> {
+            write(queue, job);
+            return null;
+        });
+        try {
+            List<CreateBookRequestDto> batch = new ArrayList<>(BATCH_SIZE);
+            CreateBookRequestDto book;
+            while ((book = nextRow(reader, job)) != null) {
+                String error = validate(book, categoryIds);
+                if (error != null) {
+                    job.rowFailed(reader.rowNumber(), error);
+                    continue;
+                }
+                batch.add(book);
+                if (batch.size() == BATCH_SIZE) {
+                    enqueue(queue, batch, writer);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                enqueue(queue, batch, writer);
+            }
+            enqueue(queue, END_OF_INPUT, writer);
+            writer.get();
+            job.complete();
+        } catch (ExecutionException e) {
+            log.error("Book import {} failed", job.getId(), e.getCause());
+            job.fail(reader.rowNumber(), "Writing failed: " + e.getCause().getMessage());
+        } catch (IOException | RuntimeException e) {
+            writer.cancel(true);
+            log.error("Book import {} failed", job.getId(), e);
+            job.fail(reader.rowNumber(), e.getMessage());
+        } catch (InterruptedException e) {
+            writer.cancel(true);
+            Thread.currentThread().interrupt();
+            job.fail(reader.rowNumber(), "Import interrupted");
+        }
+        return job.toDto();
+    }
+
+    @Override
+    public BookImportStatusDto getStatus(String jobId) {
+        BookImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new EntityNotFoundException("Import job not found with id: " + jobId);
+        }
+        return job.toDto();
+    }
+
+    @Override
+    public List<BookImportStatusDto> getJobs() {
+        synchronized (jobs) {
+            return jobs.values().stream()
+                    .map(BookImportJob::toDto)
+                    .toList();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdownNow();
+    }
+
+    private BookRowReader readerFor(InputStream input, String contentType) {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(input, StandardCharsets.UTF_8));
+        if (contentType != null && NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType))) {
+            return new NdjsonBookRowReader(reader, objectMapper.reader());
+        }
+        return new CsvBookRowReader(reader);
+    }
+
+    private CreateBookRequestDto nextRow(BookRowReader reader, BookImportJob job)
+            throws IOException {
+        while (true) {
+            try {
+                CreateBookRequestDto book = reader.next();
+                if (book != null) {
+                    job.rowRead();
+                }
+                return book;
+            } catch (InvalidBookRowException e) {
+                job.rowRead();
+                job.rowFailed(reader.rowNumber(), e.getMessage());
+            }
+        }
+    }
+
+    private String validate(CreateBookRequestDto book, Set<Long> categoryIds) {
+        Set<ConstraintViolation<CreateBookRequestDto>> violations = validator.validate(book);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        if (book.categoriesId() != null) {
+            for (Long categoryId : book.categoriesId()) {
+                if (!categoryIds.contains(categoryId)) {
+                    return "Category not found with id: " + categoryId;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void enqueue(BlockingQueue<List<CreateBookRequestDto>> queue,
+                         List<CreateBookRequestDto> batch, Future<?> writer)
+            throws InterruptedException, ExecutionException {
+        while (!queue.offer(batch, 1, TimeUnit.SECONDS)) {
+            if (writer.isDone()) {
+                writer.get();
+                throw new DataProcessingException("Import writer stopped unexpectedly");
+            }
+        }
+    }
+
+    private void write(BlockingQueue<List<CreateBookRequestDto>> queue, BookImportJob job)
+            throws InterruptedException {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<CreateBookRequestDto> batch;
+        while ((batch = queue.take()) != END_OF_INPUT) {
+            Map<String, CreateBookRequestDto> booksByIsbn = new LinkedHashMap<>();
+            batch.forEach(book -> booksByIsbn.put(book.isbn(), book));
+            transactionTemplate.executeWithoutResult(status ->
+                    bookBatchRepository.upsertAll(booksByIsbn.values()));
+            // Rows repeating an ISBN within the batch collapse into a single book
+            job.rowsWritten(booksByIsbn.size());
+            bookRepository.findAllByIsbnIn(booksByIsbn.keySet())
+                    .forEach(bookIndexManager::indexBook);
+        }
+    }
+}
@@ -2,23 +2,39 @@ package com.marek.onlinebookstore.service.book;
 
 import com.marek.onlinebookstore.dto.book.BookDto;
 import com.marek.onlinebookstore.dto.book.BookDtoWithoutCategoryIds;
+import com.marek.onlinebookstore.dto.book.BookFacetsDto;
 import com.marek.onlinebookstore.dto.book.BookSearchParametersDto;
+import com.marek.onlinebookstore.dto.book.BookSearchResultDto;
+import com.marek.onlinebookstore.dto.book.BookSuggestionDto;
 import com.marek.onlinebookstore.dto.book.CreateBookRequestDto;
 import java.util.List;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 
 public interface BookService {
     BookDtoWithoutCategoryIds save(CreateBookRequestDto createBookRequestDto);
 
     List<BookDto> findAll(Pageable pageable);
 
+    Window<BookDto> findAll(String cursor, int size);
+
     BookDto findById(Long id);
 
     void deleteById(Long id);
 
     BookDto update(Long id, CreateBookRequestDto createBookRequestDto);
 
-    List<BookDto> searchBooks(BookSearchParametersDto searchParameters, Pageable pageable);
+    BookSearchResultDto searchBooks(BookSearchParametersDto searchParameters,
+                                    Pageable pageable);
+
+    Window<BookDto> searchBooks(BookSearchParametersDto searchParameters, String cursor,
+                                int size);
 
     List<BookDtoWithoutCategoryIds> findByCategoryId(Long id, Pageable pageable);
+
+    Window<BookDtoWithoutCategoryIds> findByCategoryId(Long id, String cursor, int size);
+
+    BookFacetsDto getFacets(BookSearchParametersDto searchParameters);
+
+    List<BookSuggestionDto> suggest(String query, int limit);
 }
@@ -2,29 +2,65 @@ package com.marek.onlinebookstore.service.book;
 
 import com.marek.onlinebookstore.dto.book.BookDto;
 import com.marek.onlinebookstore.dto.book.BookDtoWithoutCategoryIds;
+import com.marek.onlinebookstore.dto.book.BookFacetsDto;
 import com.marek.onlinebookstore.dto.book.BookSearchParametersDto;
+import com.marek.onlinebookstore.dto.book.BookSearchResultDto;
+import com.marek.onlinebookstore.dto.book.BookSuggestionDto;
 import com.marek.onlinebookstore.dto.book.CreateBookRequestDto;
 import com.marek.onlinebookstore.exception.EntityNotFoundException;
+import com.marek.onlinebookstore.exception.IndexNotReadyException;
+import com.marek.onlinebookstore.exception.InvalidCursorException;
 import com.marek.onlinebookstore.mapper.BookMapper;
 import com.marek.onlinebookstore.model.Book;
+import com.marek.onlinebookstore.repository.KeysetCursor;
 import com.marek.onlinebookstore.repository.book.BookRepository;
 import com.marek.onlinebookstore.repository.book.BookSpecificationBuilder;
+import com.marek.onlinebookstore.repository.book.index.BookFacetIndex;
+import com.marek.onlinebookstore.repository.book.index.BookFuzzyIndex;
+import com.marek.onlinebookstore.repository.book.index.BookIndexManager;
+import com.marek.onlinebookstore.repository.book.index.BookSearchIndex;
+import com.marek.onlinebookstore.repository.book.index.BookSuggestionIndex;
 import com.marek.onlinebookstore.repository.category.CategoryRepository;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 @RequiredArgsConstructor
 @Service
 public class BookServiceImpl implements BookService {
+    private static final String ID = "id";
+    private static final String RANK = "rank";
+    private static final Map<String, Class<?>> ID_KEYS = Map.of(ID, Long.class);
+    private static final Map<String, Class<?>> RANK_KEYS = Map.of(RANK, Long.class);
+    // Ranked pages re-score the whole query and skip the earlier ranks, so depth is bounded
+    private static final long MAX_RANK = 1000;
+    private static final Sort BY_ID = Sort.by(ID);
+
     private final BookRepository bookRepository;
     private final CategoryRepository categoryRepository;
     private final BookMapper bookMapping;
     private final BookSpecificationBuilder bookSpecificationBuilder;
+    private final BookIndexManager bookIndexManager;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookSuggestionIndex bookSuggestionIndex;
+    private final BookFuzzyIndex bookFuzzyIndex;
+    private final BookFacetIndex bookFacetIndex;
 
     @Override
     public BookDtoWithoutCategoryIds save(CreateBookRequestDto createBookRequestDto) {
@@ -36,10 +72,13 @@ public class BookServiceImpl implements BookService {
                                         "Category not found with id: " + categoryId)))
                         .collect(Collectors.toSet())
         );
-        return bookMapping.toDtoWithoutCategoryIds(bookRepository.save(book));
+        Book savedBook = bookRepository.save(book);
+        bookIndexManager.indexBook(savedBook);
+        return bookMapping.toDtoWithoutCategoryIds(savedBook);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookDto> findAll(Pageable pageable) {
         return bookRepository.findAll(pageable).stream()
                 .map(bookMapping::toDto)
@@ -47,6 +86,15 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Window<BookDto> findAll(String cursor, int size) {
+        return bookRepository.findAllBy(KeysetCursor.decode(cursor, ID_KEYS), BY_ID,
+                        Limit.of(size))
+                .map(bookMapping::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public BookDto findById(Long id) {
         return bookMapping.toDto(
                 bookRepository.findById(id)
@@ -59,6 +107,7 @@ public class BookServiceImpl implements BookService {
         Book book = bookRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Can't find book with id: " + id));
         bookRepository.deleteById(id);
+        bookIndexManager.removeBook(id);
     }
 
     @Override
@@ -77,18 +126,79 @@ public class BookServiceImpl implements BookService {
                         .collect(Collectors.toSet())
         );
 
-        return bookMapping.toDto(bookRepository.save(updatedBook));
+        Book savedBook = bookRepository.save(updatedBook);
+        bookIndexManager.indexBook(savedBook);
+        return bookMapping.toDto(savedBook);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookSearchResultDto searchBooks(BookSearchParametersDto searchParameters,
+                                           Pageable pageable) {
+        if (isFuzzyQuery(searchParameters) && bookFuzzyIndex.isReady()) {
+            List<Long> matchedIds = bookFuzzyIndex.search(searchParameters.q(),
+                    searchParameters.title(), searchParameters.author(),
+                    pageable.getOffset(), pageable.getPageSize());
+            return new BookSearchResultDto(toDtosInOrder(matchedIds),
+                    didYouMean(searchParameters));
+        }
+        List<BookDto> books;
+        if (isFacetQuery(searchParameters) && pageable.getSort().isUnsorted()) {
+            books = toDtosInOrder(bookFacetIndex.findIds(searchParameters.categoryId(),
+                    searchParameters.author(), searchParameters.priceBand(),
+                    pageable.getOffset(), pageable.getPageSize()));
+        } else if (isFullTextQuery(searchParameters) && bookSearchIndex.isReady()) {
+            books = toDtosInOrder(bookSearchIndex.search(searchParameters.q(),
+                    pageable.getOffset(), pageable.getPageSize()));
+        } else {
+            Specification<Book> bookSpecification =
+                    bookSpecificationBuilder.build(searchParameters);
+            books = bookRepository.findAll(bookSpecification, pageable)
+                    .stream().map(bookMapping::toDto).toList();
+        }
+        return new BookSearchResultDto(books,
+                books.isEmpty() ? didYouMean(searchParameters) : null);
     }
 
     @Override
-    public List<BookDto> searchBooks(BookSearchParametersDto searchParameters, Pageable pageable) {
-        Specification<Book> bookSpecification = bookSpecificationBuilder.build(searchParameters);
-        return bookRepository.findAll(bookSpecification, pageable)
-                .stream().map(bookMapping::toDto).toList();
+    @Transactional(readOnly = true)
+    public Window<BookDto> searchBooks(BookSearchParametersDto searchParameters, String cursor,
+                                       int size) {
+        if (isFuzzyQuery(searchParameters) && bookFuzzyIndex.isReady()) {
+            long offset = rankOf(cursor);
+            return rankedWindow(bookFuzzyIndex.search(searchParameters.q(),
+                    searchParameters.title(), searchParameters.author(), offset, size + 1),
+                    offset, size).map(bookMapping::toDto);
+        }
+        if (isFacetQuery(searchParameters)) {
+            return idWindow(bookFacetIndex.findIdsAfter(searchParameters.categoryId(),
+                    searchParameters.author(), searchParameters.priceBand(),
+                    idOf(cursor), size + 1), size).map(bookMapping::toDto);
+        }
+        if (isFullTextQuery(searchParameters) && bookSearchIndex.isReady()) {
+            long offset = rankOf(cursor);
+            return rankedWindow(bookSearchIndex.search(searchParameters.q(), offset, size + 1),
+                    offset, size).map(bookMapping::toDto);
+        }
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, ID_KEYS);
+        return bookRepository.findBy(bookSpecificationBuilder.build(searchParameters),
+                        query -> query.sortBy(BY_ID).limit(size).scroll(position))
+                .map(bookMapping::toDto);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookDtoWithoutCategoryIds> findByCategoryId(Long id, Pageable pageable) {
+        if (bookFacetIndex.isReady() && pageable.getSort().isUnsorted()) {
+            List<Long> ids = bookFacetIndex.findIds(new Long[]{id}, null, null,
+                    pageable.getOffset(), pageable.getPageSize());
+            if (ids.isEmpty()) {
+                throw new EntityNotFoundException("Can't find books with category id: " + id);
+            }
+            return findAllInOrder(ids).stream()
+                    .map(bookMapping::toDtoWithoutCategoryIds)
+                    .toList();
+        }
         Page<Book> booksPage = bookRepository.findAllByCategoryId(id, pageable);
         if (!booksPage.hasContent()) {
             throw new EntityNotFoundException("Can't find books with category id: " + id);
@@ -97,4 +207,126 @@ public class BookServiceImpl implements BookService {
                 .map(bookMapping::toDtoWithoutCategoryIds)
                 .toList();
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Window<BookDtoWithoutCategoryIds> findByCategoryId(Long id, String cursor, int size) {
+        Window<Book> books;
+        if (bookFacetIndex.isReady()) {
+            books = idWindow(bookFacetIndex.findIdsAfter(new Long[]{id}, null, null,
+                    idOf(cursor), size + 1), size);
+        } else {
+            books = bookRepository.findByCategoriesId(id,
+                    KeysetCursor.decode(cursor, ID_KEYS), BY_ID, Limit.of(size));
+        }
+        if (books.isEmpty() && !StringUtils.hasText(cursor)) {
+            throw new EntityNotFoundException("Can't find books with category id: " + id);
+        }
+        return books.map(bookMapping::toDtoWithoutCategoryIds);
+    }
+
+    @Override
+    public BookFacetsDto getFacets(BookSearchParametersDto searchParameters) {
+        if (!bookFacetIndex.isReady()) {
+            throw new IndexNotReadyException("Book facets are still being built, retry shortly");
+        }
+        return bookFacetIndex.facets(searchParameters.categoryId(),
+                searchParameters.author(), searchParameters.priceBand());
+    }
+
+    @Override
+    public List<BookSuggestionDto> suggest(String query, int limit) {
+        return bookSuggestionIndex.suggest(query, limit);
+    }
+
+    private Window<Book> idWindow(List<Long> ids, int size) {
+        boolean hasNext = ids.size() > size;
+        List<Book> books = findAllInOrder(hasNext ? ids.subList(0, size) : ids);
+        return Window.from(books,
+                index -> ScrollPosition.forward(Map.of(ID, books.get(index).getId())), hasNext);
+    }
+
+    private Window<Book> rankedWindow(List<Long> ids, long offset, int size) {
+        boolean hasNext = ids.size() > size && offset + size < MAX_RANK;
+        List<Book> books = findAllInOrder(ids.size() > size ? ids.subList(0, size) : ids);
+        return Window.from(books, index -> ScrollPosition.forward(
+                Map.of(RANK, offset + ids.indexOf(books.get(index).getId()) + 1)), hasNext);
+    }
+
+    private static long idOf(String cursor) {
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, ID_KEYS);
+        return position.isInitial() ? 0 : (Long) position.getKeys().get(ID);
+    }
+
+    private static long rankOf(String cursor) {
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, RANK_KEYS);
+        long rank = position.isInitial() ? 0 : (Long) position.getKeys().get(RANK);
+        if (rank < 0 || rank >= MAX_RANK) {
+            throw new InvalidCursorException("Ranked results end after " + MAX_RANK + " books");
+        }
+        return rank;
+    }
+
+    private List<BookDto> toDtosInOrder(List<Long> ids) {
+        return findAllInOrder(ids).stream()
+                .map(bookMapping::toDto)
+                .toList();
+    }
+
+    private List<Book> findAllInOrder(List<Long> ids) {
+        Map<Long, Book> booksById = bookRepository.findAllByIdIn(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return ids.stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private boolean isFullTextQuery(BookSearchParametersDto searchParameters) {
+        return StringUtils.hasText(searchParameters.q())
+                && isEmpty(searchParameters.title())
+                && isEmpty(searchParameters.author())
+                && isEmpty(searchParameters.isbn())
+                && !hasFacetFilter(searchParameters);
+    }
+
+    // An author filter alone keeps the exact match and order of the database query
+    private boolean isFacetQuery(BookSearchParametersDto searchParameters) {
+        return bookFacetIndex.isReady()
+                && !StringUtils.hasText(searchParameters.q())
+                && isEmpty(searchParameters.title())
+                && isEmpty(searchParameters.isbn())
+                && hasFacetFilter(searchParameters);
+    }
+
+    private boolean hasFacetFilter(BookSearchParametersDto searchParameters) {
+        return !isEmpty(searchParameters.categoryId()) || !isEmpty(searchParameters.priceBand());
+    }
+
+    private boolean isFuzzyQuery(BookSearchParametersDto searchParameters) {
+        return searchParameters.fuzzy()
+                && isEmpty(searchParameters.isbn())
+                && !hasFacetFilter(searchParameters)
+                && (StringUtils.hasText(searchParameters.q())
+                || !isEmpty(searchParameters.title())
+                || !isEmpty(searchParameters.author()));
+    }
+
+    private String didYouMean(BookSearchParametersDto searchParameters) {
+        if (!bookFuzzyIndex.isReady()) {
+            return null;
+        }
+        if (StringUtils.hasText(searchParameters.q())) {
+            return bookFuzzyIndex.didYouMean(searchParameters.q());
+        }
+        String text = Stream.of(searchParameters.title(), searchParameters.author())
+                .filter(values -> !isEmpty(values))
+                .flatMap(Arrays::stream)
+                .collect(Collectors.joining(" "));
+        return text.isBlank() ? null : bookFuzzyIndex.didYouMean(text);
+    }
+
+    private static boolean isEmpty(Object[] values) {
+        return values == null || values.length == 0;
+    }
 }
@@ -0,0 +1,10 @@
+package com.marek.onlinebookstore.service.book.exporter;
+
+import com.marek.onlinebookstore.dto.book.BookDto;
+import java.io.IOException;
+
+public interface BookExportWriter {
+    void write(BookDto book) throws IOException;
+
+    void finish() throws IOException;
+}
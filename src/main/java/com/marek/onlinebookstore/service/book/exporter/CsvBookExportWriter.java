@@ -0,0 +1,64 @@
+package com.marek.onlinebookstore.service.book.exporter;
+
+import com.marek.onlinebookstore.dto.book.BookDto;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.stream.Collectors;
+
+public class CsvBookExportWriter implements BookExportWriter {
+    // The import columns plus a leading id, which the import ignores, so an export can be
+    // imported back
+    private static final String HEADER =
+            "id,title,author,isbn,price,description,coverImage,categoriesId\n";
+
+    private final Writer output;
+    private boolean headerWritten;
+
+    public CsvBookExportWriter(Writer output) {
+        this.output = output;
+    }
+
+    @Override
+    public void write(BookDto book) throws IOException {
+        writeHeader();
+        output.write(String.valueOf(book.getId()));
+        writeField(book.getTitle());
+        writeField(book.getAuthor());
+        writeField(book.getIsbn());
+        writeField(book.getPrice() == null ? null : book.getPrice().toPlainString());
+        writeField(book.getDescription());
+        writeField(book.getCoverImage());
+        writeField(book.getCategoriesId().stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(";")));
+        output.write('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writeHeader();
+        output.flush();
+    }
+
+    private void writeHeader() throws IOException {
+        if (!headerWritten) {
+            output.write(HEADER);
+            headerWritten = true;
+        }
+    }
+
+    private void writeField(String value) throws IOException {
+        output.write(',');
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            output.write(value);
+            return;
+        }
+        output.write('"');
+        output.write(value.replace("\"", "\"\""));
+        output.write('"');
+    }
+}
@@ -0,0 +1,29 @@
+package com.marek.onlinebookstore.service.book.exporter;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.marek.onlinebookstore.dto.book.BookDto;
+import java.io.IOException;
+import java.io.OutputStream;
+
+public class NdjsonBookExportWriter implements BookExportWriter {
+    private static final int LINE_SEPARATOR = '\n';
+
+    private final OutputStream output;
+    private final ObjectWriter objectWriter;
+
+    public NdjsonBookExportWriter(OutputStream output, ObjectWriter objectWriter) {
+        this.output = output;
+        this.objectWriter = objectWriter.forType(BookDto.class);
+    }
+
+    @Override
+    public void write(BookDto book) throws IOException {
+        output.write(objectWriter.writeValueAsBytes(book));
+        output.write(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void finish() throws IOException {
+        output.flush();
+    }
+}
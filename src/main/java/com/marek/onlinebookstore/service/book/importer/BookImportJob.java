@@ -0,0 +1,85 @@
+package com.marek.onlinebookstore.service.book.importer;
+
+import com.marek.onlinebookstore.dto.book.BookImportErrorDto;
+import com.marek.onlinebookstore.dto.book.BookImportStatusDto;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+
+public class BookImportJob {
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    @Getter
+    private final String id = UUID.randomUUID().toString();
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final long startedNanos = System.nanoTime();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final List<BookImportErrorDto> errors = new ArrayList<>();
+    private volatile State state = State.RUNNING;
+    private volatile LocalDateTime finishedAt;
+    private volatile long finishedNanos;
+
+    public void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    public void rowsWritten(int count) {
+        rowsWritten.addAndGet(count);
+    }
+
+    public void rowFailed(long row, String message) {
+        rowsFailed.incrementAndGet();
+        addError(row, message);
+    }
+
+    public void complete() {
+        finish(State.COMPLETED);
+    }
+
+    public void fail(long row, String message) {
+        addError(row, message);
+        finish(State.FAILED);
+    }
+
+    public boolean isFinished() {
+        return state != State.RUNNING;
+    }
+
+    public BookImportStatusDto toDto() {
+        long elapsedNanos = (isFinished() ? finishedNanos : System.nanoTime()) - startedNanos;
+        double seconds = Math.max(elapsedNanos, 1) / (double) Duration.ofSeconds(1).toNanos();
+        List<BookImportErrorDto> reportedErrors;
+        synchronized (errors) {
+            reportedErrors = List.copyOf(errors);
+        }
+        return new BookImportStatusDto(id, state.name(), startedAt, finishedAt,
+                rowsRead.get(), rowsWritten.get(), rowsFailed.get(),
+                rowsWritten.get() / seconds, reportedErrors);
+    }
+
+    private void addError(long row, String message) {
+        synchronized (errors) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BookImportErrorDto(row, message));
+            }
+        }
+    }
+
+    private void finish(State finalState) {
+        finishedNanos = System.nanoTime();
+        finishedAt = LocalDateTime.now();
+        state = finalState;
+    }
+
+    private enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,13 @@
+package com.marek.onlinebookstore.service.book.importer;
+
+import com.marek.onlinebookstore.dto.book.CreateBookRequestDto;
+import java.io.IOException;
+
+public interface BookRowReader {
+
+    // null at the end of the input; an unparsable row is consumed before
+    // InvalidBookRowException is thrown, so the caller can keep reading
+    CreateBookRequestDto next() throws IOException;
+
+    long rowNumber();
+}
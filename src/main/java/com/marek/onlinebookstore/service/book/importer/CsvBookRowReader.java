@@ -0,0 +1,149 @@
+package com.marek.onlinebookstore.service.book.importer;
+
+import com.marek.onlinebookstore.dto.book.CreateBookRequestDto;
+import com.marek.onlinebookstore.exception.DataProcessingException;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+public class CsvBookRowReader implements BookRowReader {
+    private static final List<String> REQUIRED_COLUMNS = List.of("title", "author", "isbn",
+            "price");
+    private static final String CATEGORY_SEPARATOR = ";";
+
+    private final Reader input;
+    private Map<String, Integer> columns;
+    private long rowNumber;
+
+    public CsvBookRowReader(Reader input) {
+        this.input = input;
+    }
+
+    @Override
+    public CreateBookRequestDto next() throws IOException {
+        if (columns == null) {
+            readHeader();
+        }
+        List<String> fields;
+        do {
+            fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).isBlank());
+        if (fields.size() != columns.size()) {
+            throw new InvalidBookRowException("Expected " + columns.size()
+                    + " columns but found " + fields.size());
+        }
+        return new CreateBookRequestDto(
+                field(fields, "title"),
+                field(fields, "author"),
+                field(fields, "isbn"),
+                parsePrice(field(fields, "price")),
+                field(fields, "description"),
+                field(fields, "coverimage"),
+                parseCategoryIds(field(fields, "categoriesid")));
+    }
+
+    @Override
+    public long rowNumber() {
+        return rowNumber;
+    }
+
+    private void readHeader() throws IOException {
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new DataProcessingException("CSV input is empty");
+        }
+        columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.keySet().containsAll(REQUIRED_COLUMNS)) {
+            throw new DataProcessingException("CSV header must contain columns "
+                    + REQUIRED_COLUMNS + " but was " + header);
+        }
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = input.read();
+        if (c == -1) {
+            return null;
+        }
+        rowNumber++;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new InvalidBookRowException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    c = input.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = input.read();
+        }
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static BigDecimal parsePrice(String price) {
+        if (price == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(price);
+        } catch (NumberFormatException e) {
+            throw new InvalidBookRowException("Invalid price: " + price, e);
+        }
+    }
+
+    private static Set<Long> parseCategoryIds(String categoryIds) {
+        Set<Long> ids = new LinkedHashSet<>();
+        if (categoryIds == null) {
+            return ids;
+        }
+        try {
+            Arrays.stream(categoryIds.split(CATEGORY_SEPARATOR))
+                    .map(String::trim)
+                    .filter(id -> !id.isEmpty())
+                    .map(Long::valueOf)
+                    .forEach(ids::add);
+        } catch (NumberFormatException e) {
+            throw new InvalidBookRowException("Invalid category ids: " + categoryIds, e);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,11 @@
+package com.marek.onlinebookstore.service.book.importer;
+
+public class InvalidBookRowException extends RuntimeException {
+    public InvalidBookRowException(String message) {
+        super(message);
+    }
+
+    public InvalidBookRowException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,40 @@
+package com.marek.onlinebookstore.service.book.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.marek.onlinebookstore.dto.book.CreateBookRequestDto;
+import java.io.BufferedReader;
+import java.io.IOException;
+
+public class NdjsonBookRowReader implements BookRowReader {
+    private final BufferedReader input;
+    private final ObjectReader objectReader;
+    private long rowNumber;
+
+    public NdjsonBookRowReader(BufferedReader input, ObjectReader objectReader) {
+        this.input = input;
+        this.objectReader = objectReader.forType(CreateBookRequestDto.class);
+    }
+
+    @Override
+    public CreateBookRequestDto next() throws IOException {
+        String line;
+        do {
+            line = input.readLine();
+            if (line == null) {
+                return null;
+            }
+            rowNumber++;
+        } while (line.isBlank());
+        try {
+            return objectReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new InvalidBookRowException("Malformed JSON: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    @Override
+    public long rowNumber() {
+        return rowNumber;
+    }
+}
@@ -4,12 +4,11 @@ import com.marek.onlinebookstore.dto.cart.CartItemDto;
 import com.marek.onlinebookstore.dto.cart.CartItemRequestDto;
 import com.marek.onlinebookstore.dto.cart.CartItemUpdatedDto;
 import com.marek.onlinebookstore.dto.cart.ShoppingCartDto;
-import com.marek.onlinebookstore.model.User;
 
 public interface ShoppingCartService {
-    ShoppingCartDto findUserCart(User user);
+    ShoppingCartDto findUserCart(Long userId);
 
-    ShoppingCartDto addItem(User user, CartItemRequestDto cartItemRequestDto);
+    ShoppingCartDto addItem(Long userId, CartItemRequestDto cartItemRequestDto);
 
     CartItemDto updateItemQuantity(Long itemId, CartItemUpdatedDto updatedDto);
 
@@ -9,13 +9,14 @@ import com.marek.onlinebookstore.mapper.CartItemMapper;
 import com.marek.onlinebookstore.mapper.ShoppingCartMapper;
 import com.marek.onlinebookstore.model.CartItem;
 import com.marek.onlinebookstore.model.ShoppingCart;
-import com.marek.onlinebookstore.model.User;
 import com.marek.onlinebookstore.repository.book.BookRepository;
 import com.marek.onlinebookstore.repository.cart.CartItemRepository;
 import com.marek.onlinebookstore.repository.cart.ShoppingCartRepository;
+import com.marek.onlinebookstore.service.inventory.InventoryService;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -25,24 +26,28 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     private final CartItemRepository cartItemRepository;
     private final CartItemMapper cartItemMapper;
     private final BookRepository bookRepository;
+    private final InventoryService inventoryService;
 
     @Override
-    public ShoppingCartDto findUserCart(User user) {
-        validateUser(user);
+    @Transactional(readOnly = true)
+    public ShoppingCartDto findUserCart(Long userId) {
+        validateUser(userId);
         return shoppingCartMapper.toDto(
-                shoppingCartRepository.findShoppingCartByUser(user.getId())
+                shoppingCartRepository.findCartViewByUser(userId)
         );
     }
 
     @Override
-    public ShoppingCartDto addItem(User user, CartItemRequestDto cartItemRequestDto) {
-        validateUser(user);
+    @Transactional
+    public ShoppingCartDto addItem(Long userId, CartItemRequestDto cartItemRequestDto) {
+        validateUser(userId);
         CartItem item = cartItemMapper.toModel(cartItemRequestDto);
         item.setBook(
                 bookRepository.findById(item.getBook().getId())
                         .orElseThrow(EntityNotFoundException::new)
         );
-        ShoppingCart cart = shoppingCartRepository.findShoppingCartByUser(user.getId());
+        inventoryService.hold(userId, item.getBook().getId(), item.getQuantity());
+        ShoppingCart cart = shoppingCartRepository.findShoppingCartByUser(userId);
         item.setShoppingCart(cart);
         Set<CartItem> cartItems = cart.getCartItems();
         cartItems.add(item);
@@ -51,23 +56,37 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     }
 
     @Override
+    @Transactional
     public CartItemDto updateItemQuantity(Long itemId, CartItemUpdatedDto updatedDto) {
         CartItem cartItem = cartItemRepository.findById(itemId).orElseThrow(
                 () -> new EntityNotFoundException("Item not found with item id: " + itemId)
         );
 
+        Long userId = cartItem.getShoppingCart().getUser().getId();
+        Long bookId = cartItem.getBook().getId();
+        int change = updatedDto.quantity() - cartItem.getQuantity();
+        if (change > 0) {
+            inventoryService.hold(userId, bookId, change);
+        } else {
+            inventoryService.release(userId, bookId, -change);
+        }
         cartItem.setQuantity(updatedDto.quantity());
         return cartItemMapper.toDto(cartItemRepository.save(cartItem));
     }
 
     @Override
+    @Transactional
     public void deleteById(Long itemId) {
-        cartItemRepository.deleteById(itemId);
+        cartItemRepository.findById(itemId).ifPresent(cartItem -> {
+            cartItemRepository.delete(cartItem);
+            inventoryService.release(cartItem.getShoppingCart().getUser().getId(),
+                    cartItem.getBook().getId(), cartItem.getQuantity());
+        });
     }
 
-    private void validateUser(User user) {
-        if (user == null || user.getId() == null) {
-            throw new IllegalArgumentException("User cannot be null or have a null ID");
+    private void validateUser(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
         }
     }
 }
@@ -4,10 +4,13 @@ import com.marek.onlinebookstore.dto.category.CategoryDto;
 import com.marek.onlinebookstore.dto.category.CreateCategoryRequestDto;
 import java.util.List;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 
 public interface CategoryService {
     List<CategoryDto> findAll(Pageable pageable);
 
+    Window<CategoryDto> findAll(String cursor, int size);
+
     CategoryDto getById(Long id);
 
     CategoryDto save(CreateCategoryRequestDto categoryDto);
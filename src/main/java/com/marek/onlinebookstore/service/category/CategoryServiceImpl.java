@@ -5,19 +5,30 @@ import com.marek.onlinebookstore.dto.category.CreateCategoryRequestDto;
 import com.marek.onlinebookstore.exception.EntityNotFoundException;
 import com.marek.onlinebookstore.mapper.CategoryMapper;
 import com.marek.onlinebookstore.model.Category;
+import com.marek.onlinebookstore.repository.KeysetCursor;
 import com.marek.onlinebookstore.repository.category.CategoryRepository;
 import java.util.List;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
 public class CategoryServiceImpl implements CategoryService {
+    private static final String ID = "id";
+    private static final Sort BY_ID = Sort.by(ID);
+    private static final Map<String, Class<?>> ID_KEYS = Map.of(ID, Long.class);
+
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
 
     @Override
+    @Transactional(readOnly = true)
     public List<CategoryDto> findAll(Pageable pageable) {
         return categoryRepository.findAll(pageable).stream()
                 .map(categoryMapper::toDto)
@@ -25,6 +36,15 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Window<CategoryDto> findAll(String cursor, int size) {
+        return categoryRepository.findAllBy(KeysetCursor.decode(cursor, ID_KEYS), BY_ID,
+                        Limit.of(size))
+                .map(categoryMapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public CategoryDto getById(Long id) {
         return categoryMapper.toDto(
                 categoryRepository.findById(id).orElseThrow(
@@ -0,0 +1,17 @@
+package com.marek.onlinebookstore.service.idempotency;
+
+public record IdempotencyClaim(
+        Outcome outcome,
+        StoredResponse response
+) {
+    public static IdempotencyClaim of(Outcome outcome) {
+        return new IdempotencyClaim(outcome, null);
+    }
+
+    public enum Outcome {
+        EXECUTE,
+        REPLAY,
+        KEY_REUSED,
+        IN_PROGRESS
+    }
+}
@@ -0,0 +1,9 @@
+package com.marek.onlinebookstore.service.idempotency;
+
+public interface IdempotencyService {
+    IdempotencyClaim claim(String key, String requestHash);
+
+    void complete(String key, StoredResponse response);
+
+    void release(String key);
+}
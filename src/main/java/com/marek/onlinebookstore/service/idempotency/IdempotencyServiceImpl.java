@@ -0,0 +1,142 @@
+package com.marek.onlinebookstore.service.idempotency;
+
+import com.marek.onlinebookstore.repository.idempotency.IdempotencyKeyRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+    private static final Duration RESPONSE_TTL = Duration.ofHours(24);
+    // How long a crashed instance can keep a key locked
+    private static final Duration EXECUTION_LEASE = Duration.ofMinutes(1);
+    private static final Duration DUPLICATE_WAIT = Duration.ofSeconds(30);
+    private static final int CACHED_RESPONSES = 10_000;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight =
+            new ConcurrentHashMap<>();
+    private final Map<String, CachedResponse> responses = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                    return size() > CACHED_RESPONSES;
+                }
+            });
+
+    @Override
+    public IdempotencyClaim claim(String key, String requestHash) {
+        while (true) {
+            CachedResponse cached = responses.get(key);
+            if (cached != null && cached.expiresAt().isAfter(LocalDateTime.now())) {
+                return replay(cached.response(), requestHash);
+            }
+            CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, execution);
+            if (running == null) {
+                return claimStored(key, requestHash, execution);
+            }
+            StoredResponse response = await(running);
+            if (response == null && !running.isDone()) {
+                return IdempotencyClaim.of(IdempotencyClaim.Outcome.IN_PROGRESS);
+            }
+            if (response != null) {
+                return replay(response, requestHash);
+            }
+        }
+    }
+
+    @Override
+    public void complete(String key, StoredResponse response) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(RESPONSE_TTL);
+        try {
+            idempotencyKeyRepository.complete(key, response, expiresAt);
+            responses.put(key, new CachedResponse(response, expiresAt));
+        } finally {
+            finish(key, response);
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        try {
+            idempotencyKeyRepository.delete(key);
+        } finally {
+            finish(key, null);
+        }
+    }
+
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.HOURS)
+    public void deleteExpired() {
+        int deleted = idempotencyKeyRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private IdempotencyClaim claimStored(String key, String requestHash,
+                                         CompletableFuture<StoredResponse> execution) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            Optional<StoredResponse> stored = idempotencyKeyRepository.find(key, now);
+            if (stored.isEmpty() && idempotencyKeyRepository.insertInProgress(key, requestHash,
+                    now, now.plus(EXECUTION_LEASE))) {
+                return IdempotencyClaim.of(IdempotencyClaim.Outcome.EXECUTE);
+            }
+            // Completed earlier, or being executed by another instance right now
+            StoredResponse response = stored
+                    .or(() -> idempotencyKeyRepository.find(key, now))
+                    .filter(candidate -> candidate.body() != null)
+                    .orElse(null);
+            finish(key, response);
+            return response == null
+                    ? IdempotencyClaim.of(IdempotencyClaim.Outcome.IN_PROGRESS)
+                    : replay(response, requestHash);
+        } catch (RuntimeException e) {
+            finish(key, null);
+            throw e;
+        }
+    }
+
+    private void finish(String key, StoredResponse response) {
+        CompletableFuture<StoredResponse> execution = inFlight.remove(key);
+        if (execution != null) {
+            execution.complete(response);
+        }
+    }
+
+    private static StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(DUPLICATE_WAIT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static IdempotencyClaim replay(StoredResponse response, String requestHash) {
+        if (!response.requestHash().equals(requestHash)) {
+            return IdempotencyClaim.of(IdempotencyClaim.Outcome.KEY_REUSED);
+        }
+        return new IdempotencyClaim(IdempotencyClaim.Outcome.REPLAY, response);
+    }
+
+    private record CachedResponse(StoredResponse response, LocalDateTime expiresAt) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.marek.onlinebookstore.service.idempotency;
+
+public record StoredResponse(
+        String requestHash,
+        int status,
+        String contentType,
+        byte[] body
+) {
+}
@@ -0,0 +1,16 @@
+package com.marek.onlinebookstore.service.inventory;
+
+import com.marek.onlinebookstore.dto.book.BookStockDto;
+import java.util.List;
+
+public interface InventoryService {
+    void hold(Long userId, Long bookId, int quantity);
+
+    void release(Long userId, Long bookId, int quantity);
+
+    void checkout(Long userId, Long orderId, List<StockLine> lines);
+
+    BookStockDto getStock(Long bookId);
+
+    BookStockDto setStock(Long bookId, int available);
+}
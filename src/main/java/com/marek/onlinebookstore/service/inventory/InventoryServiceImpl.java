@@ -0,0 +1,521 @@
+package com.marek.onlinebookstore.service.inventory;
+
+import com.marek.onlinebookstore.dto.book.BookStockDto;
+import com.marek.onlinebookstore.exception.DataProcessingException;
+import com.marek.onlinebookstore.exception.EntityNotFoundException;
+import com.marek.onlinebookstore.exception.IndexNotReadyException;
+import com.marek.onlinebookstore.exception.OutOfStockException;
+import com.marek.onlinebookstore.repository.inventory.StockReservationRepository;
+import com.marek.onlinebookstore.repository.shard.ShardContext;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Every unit taken is backed by a stock_reservations row: HELD rows for cart holds and
+// COMMITTED rows for ordered units, so available = books.stock - sum(reservations). The
+// in-memory counters only turn away requests early; several instances sell the same stock, so
+// a checkout is confirmed against the database under the books row lock. The counters are
+// rebuilt on startup and refreshed from the database to pick up other instances' changes.
+// Reservations and books.stock live on the main datasource, also for users whose orders are
+// on another shard.
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class InventoryServiceImpl implements InventoryService {
+    private static final int RECONCILE_BATCH = 5000;
+    private static final long RECOVERY_WAIT_SECONDS = 10;
+
+    private final StockReservationRepository stockReservationRepository;
+    private final StockJournal stockJournal;
+    private final PlatformTransactionManager transactionManager;
+    private final Map<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, StockReservation>> holds = new ConcurrentHashMap<>();
+    private final CountDownLatch recovered = new CountDownLatch(1);
+
+    @Value("${inventory.cart-hold.enabled:false}")
+    private boolean cartHoldEnabled;
+
+    @Value("${inventory.cart-hold.ttl:15m}")
+    private Duration cartHoldTtl;
+
+    @Override
+    public void hold(Long userId, Long bookId, int quantity) {
+        if (!cartHoldEnabled) {
+            return;
+        }
+        StockCounter counter = counterOf(bookId);
+        if (counter == null) {
+            return;
+        }
+        if (!counter.tryTake(quantity)) {
+            throw new OutOfStockException("Not enough stock for book with id: " + bookId);
+        }
+        StockReservation reservation = new StockReservation(UUID.randomUUID().toString(),
+                bookId, userId, quantity, StockReservation.Status.HELD, null,
+                LocalDateTime.now().plus(cartHoldTtl));
+        try {
+            stockJournal.append(reservation).get();
+        } catch (ExecutionException e) {
+            counter.give(quantity);
+            throw new DataProcessingException("Could not hold stock for book with id: "
+                    + bookId, e.getCause());
+        } catch (InterruptedException e) {
+            counter.give(quantity);
+            Thread.currentThread().interrupt();
+            throw new DataProcessingException("Interrupted while holding stock", e);
+        }
+        counter.held().addAndGet(quantity);
+        putHold(reservation);
+        // The hold is already written, so a cart change that rolls back releases it again
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            if (status != STATUS_COMMITTED) {
+                                releaseHold(reservation);
+                            }
+                        }
+                    });
+        }
+    }
+
+    // Takes effect once the cart change commits, so a rolled back change keeps its holds
+    @Override
+    public void release(Long userId, Long bookId, int quantity) {
+        if (!cartHoldEnabled || quantity <= 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            releaseUnits(userId, bookId, quantity);
+                        }
+                    });
+            return;
+        }
+        releaseUnits(userId, bookId, quantity);
+    }
+
+    // Runs inside the order transaction: the user's holds become COMMITTED reservations and
+    // any quantity not covered by a hold is taken now. Nothing is taken unless every line fits.
+    @Override
+    public void checkout(Long userId, Long orderId, List<StockLine> lines) {
+        awaitRecovery();
+        Map<Long, Integer> ordered = new LinkedHashMap<>();
+        for (StockLine line : lines) {
+            if (counters.containsKey(line.bookId())) {
+                ordered.merge(line.bookId(), line.quantity(), Integer::sum);
+            }
+        }
+        List<StockReservation> claimed = claimHolds(userId);
+        if (ordered.isEmpty() && claimed.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> held = claimed.stream().collect(Collectors.groupingBy(
+                StockReservation::bookId, Collectors.summingInt(StockReservation::quantity)));
+        Map<Long, Integer> taken = new HashMap<>();
+        for (Map.Entry<Long, Integer> line : ordered.entrySet()) {
+            int shortfall = line.getValue() - held.getOrDefault(line.getKey(), 0);
+            if (shortfall <= 0) {
+                continue;
+            }
+            if (!counters.get(line.getKey()).tryTake(shortfall)) {
+                taken.forEach((bookId, units) -> counters.get(bookId).give(units));
+                claimed.forEach(this::putHold);
+                throw new OutOfStockException("Not enough stock for book with id: "
+                        + line.getKey());
+            }
+            taken.put(line.getKey(), shortfall);
+        }
+        List<StockReservation> sold = ordered.entrySet().stream()
+                .map(line -> new StockReservation(UUID.randomUUID().toString(), line.getKey(),
+                        userId, line.getValue(), StockReservation.Status.COMMITTED, orderId,
+                        null))
+                .toList();
+        AtomicBoolean writtenApart = new AtomicBoolean();
+        afterCompletion(committed -> {
+            if (committed) {
+                claimed.forEach(hold -> counters.get(hold.bookId()).held()
+                        .addAndGet(-hold.quantity()));
+                held.forEach((bookId, units) -> {
+                    int released = units - ordered.getOrDefault(bookId, 0);
+                    if (released > 0) {
+                        counters.get(bookId).give(released);
+                    }
+                });
+                ordered.forEach((bookId, units) -> counters.get(bookId).committed()
+                        .addAndGet(units));
+            } else {
+                taken.forEach((bookId, units) -> counters.get(bookId).give(units));
+                claimed.forEach(this::putHold);
+                if (writtenApart.get()) {
+                    undoCheckout(claimed, sold);
+                }
+            }
+        }, () -> writtenApart.set(onMain(() -> {
+            Map<Long, Integer> stock = ordered.isEmpty()
+                    ? Map.of() : stockReservationRepository.lockStock(ordered.keySet());
+            stockReservationRepository.deleteAll(ids(claimed));
+            stockReservationRepository.insertAll(sold);
+            if (!stock.isEmpty()) {
+                confirmStock(stock, stockReservationRepository.sumReserved(stock.keySet()));
+            }
+        })));
+    }
+
+    @Override
+    public BookStockDto getStock(Long bookId) {
+        return toDto(bookId, counterOf(bookId));
+    }
+
+    // The reservations are locked with the books row, so a checkout on any instance either
+    // commits before the new level is computed or waits for it
+    @Override
+    public BookStockDto setStock(Long bookId, int available) {
+        awaitRecovery();
+        ShardContext.callOn(ShardContext.MAIN, () ->
+                new TransactionTemplate(transactionManager).execute(status -> {
+                    if (stockReservationRepository.lockStock(List.of(bookId)).isEmpty()) {
+                        throw new EntityNotFoundException("Can't find book by id " + bookId);
+                    }
+                    int reserved = stockReservationRepository.sumReserved(List.of(bookId))
+                            .getOrDefault(bookId, 0);
+                    stockReservationRepository.setStock(bookId, available + reserved);
+                    return null;
+                }));
+        StockCounter counter = counters.computeIfAbsent(bookId, id -> new StockCounter(0));
+        counter.adjust(available - counter.available());
+        return toDto(bookId, counter);
+    }
+
+    // Moves sold units from the journal into books.stock, one row update per book per batch
+    // instead of one per order
+    @Scheduled(fixedDelayString = "${inventory.reconcile-interval:1s}")
+    public void reconcile() {
+        if (recovered.getCount() > 0) {
+            return;
+        }
+        ShardContext.callOn(ShardContext.MAIN, () -> {
+            reconcileOnMain();
+            return null;
+        });
+    }
+
+    // Read committed, so that scanning the sold rows neither locks other books' rows nor the
+    // gaps that checkouts insert into
+    private void reconcileOnMain() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        Map<Long, Integer> reconciled;
+        do {
+            reconciled = transactionTemplate.execute(status -> {
+                List<Long> bookIds =
+                        stockReservationRepository.findCommittedBooks(RECONCILE_BATCH);
+                if (bookIds.isEmpty()) {
+                    return Map.<Long, Integer>of();
+                }
+                stockReservationRepository.lockStock(bookIds);
+                List<StockReservation> sold =
+                        stockReservationRepository.lockCommitted(bookIds, RECONCILE_BATCH);
+                Map<Long, Integer> quantities = sold.stream().collect(Collectors.groupingBy(
+                        StockReservation::bookId,
+                        Collectors.summingInt(StockReservation::quantity)));
+                if (!sold.isEmpty()) {
+                    stockReservationRepository.subtractStock(quantities);
+                    stockReservationRepository.deleteAll(ids(sold));
+                }
+                return quantities;
+            });
+            reconciled.forEach((bookId, units) -> {
+                StockCounter counter = counters.get(bookId);
+                if (counter != null) {
+                    counter.committed().addAndGet(-units);
+                }
+            });
+        } while (reconciled.values().stream().mapToInt(Integer::intValue).sum()
+                >= RECONCILE_BATCH);
+    }
+
+    // Brings the counters in line with sales, holds and stock changes made by other instances
+    @Scheduled(fixedDelayString = "${inventory.refresh-interval:5s}")
+    public void refresh() {
+        if (recovered.getCount() > 0) {
+            return;
+        }
+        List<BookStockDto> levels = ShardContext.callOn(ShardContext.MAIN,
+                stockReservationRepository::findLevels);
+        for (BookStockDto level : levels) {
+            StockCounter counter = counters.computeIfAbsent(level.bookId(),
+                    id -> new StockCounter(0));
+            counter.adjust(level.available() - counter.available());
+            counter.held().set(level.held());
+            counter.committed().set(level.sold());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.cart-hold.expiry-interval:10s}")
+    public void expireHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        List<StockReservation> expired = new ArrayList<>();
+        holds.forEach((userId, userHolds) -> userHolds.values().forEach(hold -> {
+            if (hold.expiresAt().isBefore(now) && userHolds.remove(hold.id(), hold)) {
+                expired.add(hold);
+            }
+        }));
+        if (expired.isEmpty()) {
+            return;
+        }
+        try {
+            ShardContext.callOn(ShardContext.MAIN, () -> {
+                stockReservationRepository.deleteAll(ids(expired));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("Could not release {} expired stock holds", expired.size(), e);
+            expired.forEach(this::putHold);
+            return;
+        }
+        for (StockReservation hold : expired) {
+            StockCounter counter = counters.get(hold.bookId());
+            counter.held().addAndGet(-hold.quantity());
+            counter.give(hold.quantity());
+            holds.computeIfPresent(hold.userId(),
+                    (userId, userHolds) -> userHolds.isEmpty() ? null : userHolds);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        Map<Long, Integer> stock = ShardContext.callOn(ShardContext.MAIN,
+                stockReservationRepository::findStock);
+        List<StockReservation> outstanding = ShardContext.callOn(ShardContext.MAIN,
+                stockReservationRepository::findAll);
+        Map<Long, Integer> reserved = outstanding.stream().collect(Collectors.groupingBy(
+                StockReservation::bookId, Collectors.summingInt(StockReservation::quantity)));
+        stock.forEach((bookId, units) -> counters.put(bookId,
+                new StockCounter(units - reserved.getOrDefault(bookId, 0))));
+        for (StockReservation reservation : outstanding) {
+            StockCounter counter = counters.get(reservation.bookId());
+            if (counter == null) {
+                continue;
+            }
+            if (reservation.status() == StockReservation.Status.HELD) {
+                counter.held().addAndGet(reservation.quantity());
+                putHold(reservation);
+            } else {
+                counter.committed().addAndGet(reservation.quantity());
+            }
+        }
+        recovered.countDown();
+        log.info("Loaded stock of {} books and {} outstanding reservations", stock.size(),
+                outstanding.size());
+    }
+
+    private static void confirmStock(Map<Long, Integer> stock, Map<Long, Integer> reserved) {
+        stock.forEach((bookId, units) -> {
+            if (units != null && units < reserved.getOrDefault(bookId, 0)) {
+                throw new OutOfStockException("Not enough stock for book with id: " + bookId);
+            }
+        });
+    }
+
+    // Joins the current transaction on main. The order transaction of a user on another shard
+    // can't write to main, so the work gets a main transaction of its own; returns whether it
+    // did, as a rollback of the order then has to be undone by hand.
+    private boolean onMain(Runnable work) {
+        if (ShardContext.MAIN.equals(ShardContext.current())) {
+            work.run();
+            return false;
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        ShardContext.callOn(ShardContext.MAIN, () -> transactionTemplate.execute(status -> {
+            work.run();
+            return null;
+        }));
+        return true;
+    }
+
+    // Until this succeeds the units stay sold, so stock is undersold rather than oversold
+    private void undoCheckout(List<StockReservation> claimed, List<StockReservation> sold) {
+        try {
+            onMain(() -> {
+                stockReservationRepository.deleteAll(ids(sold));
+                stockReservationRepository.insertAll(claimed);
+            });
+        } catch (RuntimeException e) {
+            log.error("Could not undo stock reservations of a rolled back order", e);
+        }
+    }
+
+    private StockCounter counterOf(Long bookId) {
+        awaitRecovery();
+        return counters.get(bookId);
+    }
+
+    private void awaitRecovery() {
+        try {
+            if (!recovered.await(RECOVERY_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IndexNotReadyException("Stock levels are still loading, retry shortly");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IndexNotReadyException("Interrupted while loading stock levels");
+        }
+    }
+
+    private List<StockReservation> claimHolds(Long userId) {
+        List<StockReservation> claimed = new ArrayList<>();
+        Map<String, StockReservation> userHolds = holds.get(userId);
+        if (userHolds != null) {
+            for (String id : userHolds.keySet()) {
+                StockReservation hold = userHolds.remove(id);
+                if (hold != null) {
+                    claimed.add(hold);
+                }
+            }
+        }
+        return claimed;
+    }
+
+    private void releaseHold(StockReservation hold) {
+        Map<String, StockReservation> userHolds = holds.get(hold.userId());
+        if (userHolds != null && userHolds.remove(hold.id(), hold)) {
+            releaseHolds(hold.userId(), hold.bookId(), List.of(hold), null);
+        }
+    }
+
+    // Gives back up to quantity units of the user's holds on the book; a hold that is only
+    // partly released is replaced by a smaller one with the same expiry
+    private void releaseUnits(Long userId, Long bookId, int quantity) {
+        Map<String, StockReservation> userHolds = holds.get(userId);
+        if (userHolds == null) {
+            return;
+        }
+        List<StockReservation> removed = new ArrayList<>();
+        StockReservation rest = null;
+        int remaining = quantity;
+        for (StockReservation hold : userHolds.values()) {
+            if (remaining == 0) {
+                break;
+            }
+            if (!hold.bookId().equals(bookId) || !userHolds.remove(hold.id(), hold)) {
+                continue;
+            }
+            removed.add(hold);
+            if (hold.quantity() > remaining) {
+                rest = new StockReservation(UUID.randomUUID().toString(), bookId, userId,
+                        hold.quantity() - remaining, StockReservation.Status.HELD, null,
+                        hold.expiresAt());
+                remaining = 0;
+            } else {
+                remaining -= hold.quantity();
+            }
+        }
+        if (!removed.isEmpty()) {
+            releaseHolds(userId, bookId, removed, rest);
+        }
+    }
+
+    // The smaller hold is written before the old ones are removed, so the table never shows
+    // less held than the counters. If the journal fails, the holds stay until they expire.
+    private void releaseHolds(Long userId, Long bookId, List<StockReservation> removed,
+                              StockReservation rest) {
+        try {
+            if (rest != null) {
+                stockJournal.append(rest).get();
+            }
+            CompletableFuture.allOf(removed.stream()
+                    .map(hold -> stockJournal.remove(hold.id()))
+                    .toArray(CompletableFuture[]::new)).get();
+        } catch (ExecutionException e) {
+            log.error("Could not release stock holds of user {}", userId, e.getCause());
+            removed.forEach(this::putHold);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            removed.forEach(this::putHold);
+            return;
+        }
+        int released = removed.stream().mapToInt(StockReservation::quantity).sum()
+                - (rest == null ? 0 : rest.quantity());
+        StockCounter counter = counters.get(bookId);
+        counter.held().addAndGet(-released);
+        counter.give(released);
+        if (rest != null) {
+            putHold(rest);
+        }
+        holds.computeIfPresent(userId,
+                (id, userHolds) -> userHolds.isEmpty() ? null : userHolds);
+    }
+
+    private void putHold(StockReservation hold) {
+        holds.compute(hold.userId(), (userId, userHolds) -> {
+            Map<String, StockReservation> updated =
+                    userHolds == null ? new ConcurrentHashMap<>() : userHolds;
+            updated.put(hold.id(), hold);
+            return updated;
+        });
+    }
+
+    private static void afterCompletion(Consumer<Boolean> completion, Runnable work) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            completion.accept(status == STATUS_COMMITTED);
+                        }
+                    });
+            work.run();
+            return;
+        }
+        try {
+            work.run();
+        } catch (RuntimeException e) {
+            completion.accept(false);
+            throw e;
+        }
+        completion.accept(true);
+    }
+
+    private static List<String> ids(List<StockReservation> reservations) {
+        return reservations.stream().map(StockReservation::id).toList();
+    }
+
+    private static BookStockDto toDto(Long bookId, StockCounter counter) {
+        if (counter == null) {
+            return new BookStockDto(bookId, null, 0, 0);
+        }
+        return new BookStockDto(bookId, counter.available(), counter.held().get(),
+                counter.committed().get());
+    }
+}
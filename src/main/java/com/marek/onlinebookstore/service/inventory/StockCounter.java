@@ -0,0 +1,195 @@
+package com.marek.onlinebookstore.service.inventory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Units available for sale. A unit is only ever taken by a successful compare-and-set on the
+// cell holding it, so concurrent takes cannot oversell. Like LongAdder, the counter starts as
+// a single cell and spreads its units over striped cells once threads start colliding on it.
+// A take that comes up short is retried under the monitor, since the units may only have been
+// away for a moment: moved by stripe() or picked up in part by another failing take.
+final class StockCounter {
+    private static final int STRIPES = 16;
+    private static final int COLLISIONS_BEFORE_STRIPING = 8;
+
+    private final AtomicInteger base;
+    private final AtomicInteger collisions = new AtomicInteger();
+    private final AtomicInteger takesInFlight = new AtomicInteger();
+    private final AtomicInteger held = new AtomicInteger();
+    private final AtomicInteger committed = new AtomicInteger();
+    private volatile AtomicIntegerArray stripes;
+
+    StockCounter(int available) {
+        base = new AtomicInteger(Math.max(available, 0));
+    }
+
+    boolean tryTake(int quantity) {
+        AtomicIntegerArray cells = stripes;
+        if (cells == null) {
+            while (true) {
+                int available = base.get();
+                if (available < quantity) {
+                    return tryTakeContended(quantity);
+                }
+                if (base.compareAndSet(available, available - quantity)) {
+                    return true;
+                }
+                if (collisions.incrementAndGet() >= COLLISIONS_BEFORE_STRIPING) {
+                    stripe();
+                    return tryTakeStriped(quantity);
+                }
+            }
+        }
+        return tryTakeStriped(quantity);
+    }
+
+    void give(int quantity) {
+        AtomicIntegerArray cells = stripes;
+        if (cells == null) {
+            base.addAndGet(quantity);
+        } else {
+            cells.addAndGet(homeStripe(), quantity);
+        }
+    }
+
+    // Moves the counter towards a level read from the database; a cut takes what is there
+    void adjust(int change) {
+        if (change >= 0) {
+            give(change);
+            return;
+        }
+        int remaining = -change - takeFromBase(-change);
+        AtomicIntegerArray cells = stripes;
+        if (cells != null) {
+            for (int i = 0; i < cells.length() && remaining > 0; i++) {
+                remaining -= takeFrom(cells, i, remaining);
+            }
+        }
+    }
+
+    int available() {
+        int available = base.get();
+        AtomicIntegerArray cells = stripes;
+        if (cells != null) {
+            for (int i = 0; i < cells.length(); i++) {
+                available += cells.get(i);
+            }
+        }
+        return available;
+    }
+
+    int drain() {
+        int drained = base.getAndSet(0);
+        AtomicIntegerArray cells = stripes;
+        if (cells != null) {
+            for (int i = 0; i < cells.length(); i++) {
+                drained += cells.getAndSet(i, 0);
+            }
+        }
+        return drained;
+    }
+
+    AtomicInteger held() {
+        return held;
+    }
+
+    AtomicInteger committed() {
+        return committed;
+    }
+
+    private boolean tryTakeStriped(int quantity) {
+        takesInFlight.incrementAndGet();
+        try {
+            if (takeStriped(quantity)) {
+                return true;
+            }
+        } finally {
+            takesInFlight.decrementAndGet();
+        }
+        return tryTakeContended(quantity);
+    }
+
+    // Only fails once no other take is holding units it may still give back
+    private synchronized boolean tryTakeContended(int quantity) {
+        while (true) {
+            if (stripes == null) {
+                int available = base.get();
+                if (available < quantity) {
+                    return false;
+                }
+                if (base.compareAndSet(available, available - quantity)) {
+                    return true;
+                }
+            } else if (takeStriped(quantity)) {
+                return true;
+            } else if (takesInFlight.get() == 0) {
+                return false;
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private boolean takeStriped(int quantity) {
+        AtomicIntegerArray cells = stripes;
+        int[] taken = new int[cells.length()];
+        int remaining = quantity;
+        int home = homeStripe();
+        for (int i = 0; i < cells.length() && remaining > 0; i++) {
+            int stripe = (home + i) & (cells.length() - 1);
+            taken[stripe] = takeFrom(cells, stripe, remaining);
+            remaining -= taken[stripe];
+        }
+        int fromBase = remaining > 0 ? takeFromBase(remaining) : 0;
+        if (remaining == fromBase) {
+            return true;
+        }
+        base.addAndGet(fromBase);
+        for (int i = 0; i < taken.length; i++) {
+            if (taken[i] > 0) {
+                cells.addAndGet(i, taken[i]);
+            }
+        }
+        return false;
+    }
+
+    private int takeFromBase(int wanted) {
+        while (true) {
+            int available = base.get();
+            int take = Math.min(available, wanted);
+            if (take <= 0 || base.compareAndSet(available, available - take)) {
+                return Math.max(take, 0);
+            }
+        }
+    }
+
+    private synchronized void stripe() {
+        if (stripes != null) {
+            return;
+        }
+        AtomicIntegerArray cells = new AtomicIntegerArray(STRIPES);
+        int units = base.getAndSet(0);
+        for (int i = 0; i < STRIPES; i++) {
+            cells.set(i, units / STRIPES + (i < units % STRIPES ? 1 : 0));
+        }
+        stripes = cells;
+    }
+
+    private static int takeFrom(AtomicIntegerArray cells, int stripe, int wanted) {
+        while (true) {
+            int available = cells.get(stripe);
+            int take = Math.min(available, wanted);
+            if (take <= 0) {
+                return 0;
+            }
+            if (cells.compareAndSet(stripe, available, available - take)) {
+                return take;
+            }
+        }
+    }
+
+    private static int homeStripe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,99 @@
+package com.marek.onlinebookstore.service.inventory;
+
+import com.marek.onlinebookstore.repository.inventory.StockReservationRepository;
+import com.marek.onlinebookstore.repository.shard.ShardContext;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+// Group commit for cart holds: callers queue their change and wait, a single writer flushes
+// whatever has queued up since its last flush as one JDBC batch, so the database sees one
+// round trip per batch instead of one per hold
+@Slf4j
+@Component
+public class StockJournal {
+    private static final int MAX_BATCH = 1000;
+
+    private final StockReservationRepository stockReservationRepository;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    public StockJournal(StockReservationRepository stockReservationRepository) {
+        this.stockReservationRepository = stockReservationRepository;
+        writer = new Thread(this::run, "stock-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public CompletableFuture<Void> append(StockReservation reservation) {
+        return enqueue(new Entry(reservation, null));
+    }
+
+    public CompletableFuture<Void> remove(String reservationId) {
+        return enqueue(new Entry(null, reservationId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.interrupt();
+    }
+
+    private CompletableFuture<Void> enqueue(Entry entry) {
+        queue.add(entry);
+        return entry.done();
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Holds live on main whichever shard the user's cart is on
+    private void flush(List<Entry> batch) {
+        try {
+            List<StockReservation> inserts = new ArrayList<>();
+            List<String> deletes = new ArrayList<>();
+            for (Entry entry : batch) {
+                if (entry.reservation() != null) {
+                    inserts.add(entry.reservation());
+                } else {
+                    deletes.add(entry.deleteId());
+                }
+            }
+            ShardContext.callOn(ShardContext.MAIN, () -> {
+                if (!inserts.isEmpty()) {
+                    stockReservationRepository.insertAll(inserts);
+                }
+                if (!deletes.isEmpty()) {
+                    stockReservationRepository.deleteAll(deletes);
+                }
+                return null;
+            });
+            batch.forEach(entry -> entry.done().complete(null));
+        } catch (RuntimeException e) {
+            log.error("Could not write {} stock journal entries", batch.size(), e);
+            batch.forEach(entry -> entry.done().completeExceptionally(e));
+        }
+    }
+
+    private record Entry(StockReservation reservation, String deleteId,
+                         CompletableFuture<Void> done) {
+        Entry(StockReservation reservation, String deleteId) {
+            this(reservation, deleteId, new CompletableFuture<>());
+        }
+    }
+}
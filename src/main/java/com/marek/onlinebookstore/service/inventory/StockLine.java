@@ -0,0 +1,7 @@
+package com.marek.onlinebookstore.service.inventory;
+
+public record StockLine(
+        Long bookId,
+        int quantity
+) {
+}
@@ -0,0 +1,18 @@
+package com.marek.onlinebookstore.service.inventory;
+
+import java.time.LocalDateTime;
+
+public record StockReservation(
+        String id,
+        Long bookId,
+        Long userId,
+        int quantity,
+        Status status,
+        Long orderId,
+        LocalDateTime expiresAt
+) {
+    public enum Status {
+        HELD,
+        COMMITTED
+    }
+}
@@ -0,0 +1,75 @@
+package com.marek.onlinebookstore.service.order;
+
+import com.marek.onlinebookstore.repository.order.OrderArchiveRepository;
+import com.marek.onlinebookstore.repository.shard.ShardContext;
+import com.marek.onlinebookstore.repository.shard.ShardExecutor;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Keeps the hot orders tables small: completed orders older than orders.archive.completed-after
+// and soft-deleted rows are moved to the partitioned archive tables, one batch per transaction
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class OrderArchiver {
+    private final OrderArchiveRepository orderArchiveRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ShardExecutor shardExecutor;
+
+    @Value("${orders.archive.completed-after:180d}")
+    private Duration completedAfter;
+
+    @Value("${orders.archive.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${orders.archive.interval:1h}",
+            initialDelayString = "${orders.archive.initial-delay:5m}")
+    public void archive() {
+        shardExecutor.onEveryShard(() -> {
+            archiveShard();
+            return null;
+        });
+    }
+
+    private void archiveShard() {
+        YearMonth nextMonth = YearMonth.now().plusMonths(1);
+        orderArchiveRepository.addPartitions(OrderArchiveRepository.ORDERS_ARCHIVE, nextMonth);
+        orderArchiveRepository.addPartitions(OrderArchiveRepository.ORDER_ITEMS_ARCHIVE,
+                nextMonth);
+        LocalDateTime completedBefore = LocalDateTime.now().minus(completedAfter);
+        int completed = drain(limit ->
+                orderArchiveRepository.findCompletedOrders(completedBefore, limit),
+                orderArchiveRepository::archiveOrders);
+        int deleted = drain(orderArchiveRepository::findDeletedOrders,
+                orderArchiveRepository::archiveOrders);
+        int deletedItems = drain(orderArchiveRepository::findDeletedItems,
+                orderArchiveRepository::archiveItems);
+        if (completed + deleted + deletedItems > 0) {
+            log.info("Archived {} completed orders, {} deleted orders and {} deleted items"
+                    + " on shard {}", completed, deleted, deletedItems, ShardContext.current());
+        }
+    }
+
+    // Runs batches until one comes back short, returns the number of rows moved
+    int drain(IntFunction<List<Long>> find, Function<List<Long>, Integer> move) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int moved = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> move.apply(find.apply(batchSize)));
+            moved += batch;
+        } while (batch == batchSize);
+        return moved;
+    }
+}
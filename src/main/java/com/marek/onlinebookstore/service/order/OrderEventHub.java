@@ -0,0 +1,204 @@
+package com.marek.onlinebookstore.service.order;
+
+import com.marek.onlinebookstore.repository.order.OrderStreamRepository;
+import com.marek.onlinebookstore.repository.shard.ShardContext;
+import com.marek.onlinebookstore.repository.shard.ShardExecutor;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Fans order events out to the SSE streams of the order's owner. Every instance tails
+// order_stream_events on every shard, so a stream gets the events no matter which instance
+// dispatched them. An open stream is an async request, so it holds no thread while idle;
+// events are written by a small sender pool, each stream through its own bounded buffer. A
+// stream that falls more than BUFFER_SIZE events behind is closed, the client reconnects and
+// reloads its orders.
+@RequiredArgsConstructor
+@Component
+public class OrderEventHub {
+    private static final int BUFFER_SIZE = 32;
+    private static final int SENDER_THREADS = 8;
+    private static final int POLL_LIMIT = 1000;
+    // A row's created_at is taken before the dispatcher commits, so rows this close to the
+    // newest one seen are read again, and event ids already sent are skipped
+    private static final Duration POLL_OVERLAP = Duration.ofMinutes(1);
+    private static final Duration RETENTION = Duration.ofMinutes(10);
+
+    private final OrderStreamRepository orderStreamRepository;
+    private final ShardExecutor shardExecutor;
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, ShardCursor> cursors = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newFixedThreadPool(SENDER_THREADS,
+            runnable -> {
+                Thread thread = new Thread(runnable, "order-stream-sender");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    @Value("${orders.stream.timeout:30m}")
+    private Duration timeout;
+
+    public SseEmitter subscribe(Long userId) {
+        return subscribe(userId, new SseEmitter(timeout.toMillis()));
+    }
+
+    SseEmitter subscribe(Long userId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        subscribers.compute(userId, (id, owners) -> {
+            Set<Subscriber> updated = owners == null ? ConcurrentHashMap.newKeySet() : owners;
+            updated.add(subscriber);
+            return updated;
+        });
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${orders.stream.poll-interval:500ms}")
+    public void poll() {
+        if (subscribers.isEmpty()) {
+            cursors.clear();
+            return;
+        }
+        shardExecutor.onEveryShard(() -> {
+            cursors.computeIfAbsent(ShardContext.current(),
+                    shard -> new ShardCursor(orderStreamRepository.findNow())).poll();
+            return null;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${orders.stream.purge-interval:1m}")
+    public void purge() {
+        shardExecutor.onEveryShard(() -> orderStreamRepository.deleteOlderThan(RETENTION));
+    }
+
+    void publish(OrderStreamEvent event) {
+        Set<Subscriber> owners = subscribers.get(event.userId());
+        if (owners == null) {
+            return;
+        }
+        for (Subscriber subscriber : owners) {
+            subscriber.offer(SseEmitter.event()
+                    .id(String.valueOf(event.eventId()))
+                    .name(event.type())
+                    .data(event.payload(), MediaType.APPLICATION_JSON));
+        }
+    }
+
+    // Keeps proxies from closing idle streams and finds clients that went away
+    @Scheduled(fixedDelayString = "${orders.stream.heartbeat-interval:30s}")
+    public void heartbeat() {
+        subscribers.values().forEach(owners -> owners.forEach(subscriber ->
+                subscriber.offer(SseEmitter.event().comment("keep-alive"))));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscribers.values().forEach(owners -> owners.forEach(subscriber ->
+                subscriber.emitter.complete()));
+    }
+
+    int subscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (id, owners) -> {
+            owners.remove(subscriber);
+            return owners.isEmpty() ? null : owners;
+        });
+    }
+
+    // Read position in one shard's order_stream_events, only used by the polling thread
+    private final class ShardCursor {
+        private final Map<Long, LocalDateTime> sent = new HashMap<>();
+        private LocalDateTime since;
+
+        private ShardCursor(LocalDateTime since) {
+            this.since = since;
+        }
+
+        private void poll() {
+            List<OrderStreamEvent> events;
+            do {
+                events = orderStreamRepository.findAfter(since, POLL_LIMIT);
+                for (OrderStreamEvent event : events) {
+                    if (sent.putIfAbsent(event.eventId(), event.createdAt()) == null) {
+                        publish(event);
+                    }
+                }
+                if (events.isEmpty()) {
+                    return;
+                }
+                LocalDateTime newest = events.get(events.size() - 1).createdAt();
+                // a full page moves on without overlap, or it would be read again forever
+                LocalDateTime next = events.size() == POLL_LIMIT
+                        ? newest : newest.minus(POLL_OVERLAP);
+                if (!next.isAfter(since)) {
+                    return;
+                }
+                since = next;
+                sent.values().removeIf(createdAt -> createdAt.isBefore(since));
+            } while (events.size() == POLL_LIMIT);
+        }
+    }
+
+    private final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> buffer =
+                new ArrayBlockingQueue<>(BUFFER_SIZE);
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void offer(SseEmitter.SseEventBuilder event) {
+            if (!buffer.offer(event)) {
+                remove(this);
+                emitter.complete();
+                return;
+            }
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::send);
+            }
+        }
+
+        // Only one sender works on a stream at a time, so events keep their order
+        private void send() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while ((event = buffer.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        remove(this);
+                        emitter.completeWithError(e);
+                        return;
+                    }
+                }
+                sending.set(false);
+            } while (!buffer.isEmpty() && sending.compareAndSet(false, true));
+        }
+    }
+}
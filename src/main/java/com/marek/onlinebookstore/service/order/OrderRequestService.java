@@ -0,0 +1,10 @@
+package com.marek.onlinebookstore.service.order;
+
+import com.marek.onlinebookstore.dto.order.OrderRequestStatusDto;
+import com.marek.onlinebookstore.dto.order.PlacingOrderRequestDto;
+
+public interface OrderRequestService {
+    OrderRequestStatusDto enqueue(Long userId, PlacingOrderRequestDto requestDto);
+
+    OrderRequestStatusDto getStatus(Long userId, String id);
+}
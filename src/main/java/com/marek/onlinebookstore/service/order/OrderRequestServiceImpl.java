@@ -0,0 +1,167 @@
+package com.marek.onlinebookstore.service.order;
+
+import com.marek.onlinebookstore.dto.order.OrderDto;
+import com.marek.onlinebookstore.dto.order.OrderRequestStatusDto;
+import com.marek.onlinebookstore.dto.order.PlacingOrderRequestDto;
+import com.marek.onlinebookstore.exception.EmptyShoppingCartException;
+import com.marek.onlinebookstore.exception.EntityNotFoundException;
+import com.marek.onlinebookstore.repository.order.CheckoutRepository;
+import com.marek.onlinebookstore.repository.order.OrderRequestRepository;
+import com.marek.onlinebookstore.repository.order.OrderRequestRepository.QueuedOrder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Order requests are queued in the order_requests table and placed by a fixed pool of
+// workers, so a burst of checkouts waits in the database instead of holding request threads
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class OrderRequestServiceImpl implements OrderRequestService {
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final OrderRequestRepository orderRequestRepository;
+    private final CheckoutRepository checkoutRepository;
+    private final OrderService orderService;
+    private final PlatformTransactionManager transactionManager;
+    private Semaphore[] wakeUps;
+    private ExecutorService workers;
+
+    @Value("${orders.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${orders.async.workers:4}")
+    private int workerCount;
+
+    @Value("${orders.async.batch-size:20}")
+    private int batchSize;
+
+    @PostConstruct
+    public void init() {
+        wakeUps = new Semaphore[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            wakeUps[i] = new Semaphore(0);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorkers() {
+        if (!enabled) {
+            return;
+        }
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "order-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            int partition = i;
+            workers.submit(() -> work(partition));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    @Override
+    public OrderRequestStatusDto enqueue(Long userId, PlacingOrderRequestDto requestDto) {
+        if (checkoutRepository.countCartLines(userId) == 0) {
+            throw new EmptyShoppingCartException(
+                    "Shopping cart is empty for user with id: " + userId);
+        }
+        String id = UUID.randomUUID().toString();
+        orderRequestRepository.insert(id, userId, requestDto.shippingAddress());
+        wakeUps[partitionOf(userId)].release();
+        return getStatus(userId, id);
+    }
+
+    @Override
+    public OrderRequestStatusDto getStatus(Long userId, String id) {
+        return orderRequestRepository.findStatus(id, userId).orElseThrow(
+                () -> new EntityNotFoundException("Order request not found, id: " + id));
+    }
+
+    // Places the next micro-batch of a partition, returns how many requests were finished.
+    // Stops at the first transient failure, or at a request another instance holds, so a
+    // user's later requests never overtake it.
+    int drain(int partition) {
+        List<QueuedOrder> batch =
+                orderRequestRepository.findQueued(workerCount, partition, batchSize);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int finished = 0;
+        for (QueuedOrder request : batch) {
+            try {
+                OrderDto order = transactionTemplate.execute(status -> {
+                    if (!orderRequestRepository.claim(request.id())) {
+                        return null;
+                    }
+                    OrderDto placed = orderService.makeOrder(request.userId(),
+                            new PlacingOrderRequestDto(request.shippingAddress()));
+                    orderRequestRepository.complete(request.id(), placed.getId());
+                    return placed;
+                });
+                if (order == null) {
+                    return finished;
+                }
+                log.debug("Order request {} placed order {}", request.id(), order.getId());
+            } catch (TransientDataAccessException e) {
+                log.warn("Order request {} will be retried", request.id(), e);
+                return -1;
+            } catch (RuntimeException e) {
+                orderRequestRepository.fail(request.id(), e.getMessage());
+            }
+            finished++;
+        }
+        return finished;
+    }
+
+    private void work(int partition) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                wakeUps[partition].drainPermits();
+                int finished = drain(partition);
+                if (finished < 0) {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } else if (finished < batchSize) {
+                    wakeUps[partition].tryAcquire(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Order worker {} failed, retrying", partition, e);
+                sleep(RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private int partitionOf(Long userId) {
+        return (int) (userId % workerCount);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
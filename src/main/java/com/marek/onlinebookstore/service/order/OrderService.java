@@ -1,20 +1,26 @@
 package com.marek.onlinebookstore.service.order;
 
+import com.marek.onlinebookstore.dto.order.BulkOrderStatusRequestDto;
+import com.marek.onlinebookstore.dto.order.BulkOrderStatusResultDto;
 import com.marek.onlinebookstore.dto.order.OrderDto;
 import com.marek.onlinebookstore.dto.order.OrderItemDto;
 import com.marek.onlinebookstore.dto.order.PlacingOrderRequestDto;
-import com.marek.onlinebookstore.model.User;
 import java.util.List;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 
 public interface OrderService {
-    OrderDto makeOrder(PlacingOrderRequestDto requestDto);
+    OrderDto makeOrder(Long userId, PlacingOrderRequestDto requestDto);
 
-    List<OrderDto> getHistory(User user, Pageable pageable);
+    List<OrderDto> getHistory(Long userId, Pageable pageable);
+
+    Window<OrderDto> getHistory(Long userId, String cursor, int size);
 
     List<OrderItemDto> getFromOrder(Long orderId);
 
     OrderItemDto getFromOrder(Long orderId, Long id);
 
     OrderDto updateStatus(Long id);
+
+    BulkOrderStatusResultDto updateStatuses(BulkOrderStatusRequestDto requestDto);
 }
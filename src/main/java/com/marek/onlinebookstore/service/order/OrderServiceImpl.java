@@ -1,32 +1,48 @@
 package com.marek.onlinebookstore.service.order;
 
-import static com.marek.onlinebookstore.model.Status.BOOK_DELIVERED;
-import static com.marek.onlinebookstore.model.Status.ORDER_COMPLETED;
 import static com.marek.onlinebookstore.model.Status.ORDER_PENDING;
 
+import com.marek.onlinebookstore.dto.order.BulkOrderStatusRequestDto;
+import com.marek.onlinebookstore.dto.order.BulkOrderStatusResultDto;
 import com.marek.onlinebookstore.dto.order.OrderDto;
+import com.marek.onlinebookstore.dto.order.OrderEventDto;
 import com.marek.onlinebookstore.dto.order.OrderItemDto;
+import com.marek.onlinebookstore.dto.order.OrderTransitionDto;
 import com.marek.onlinebookstore.dto.order.PlacingOrderRequestDto;
+import com.marek.onlinebookstore.exception.EmptyShoppingCartException;
 import com.marek.onlinebookstore.exception.EntityNotFoundException;
-import com.marek.onlinebookstore.mapper.OrderItemMapper;
 import com.marek.onlinebookstore.mapper.OrderMapper;
-import com.marek.onlinebookstore.model.CartItem;
 import com.marek.onlinebookstore.model.Order;
-import com.marek.onlinebookstore.model.OrderItem;
-import com.marek.onlinebookstore.model.ShoppingCart;
-import com.marek.onlinebookstore.model.User;
-import com.marek.onlinebookstore.repository.cart.ShoppingCartRepository;
+import com.marek.onlinebookstore.model.Status;
+import com.marek.onlinebookstore.repository.IdSequenceRepository;
+import com.marek.onlinebookstore.repository.KeysetCursor;
+import com.marek.onlinebookstore.repository.order.CheckoutRepository;
+import com.marek.onlinebookstore.repository.order.OrderHistoryRepository;
 import com.marek.onlinebookstore.repository.order.OrderRepository;
+import com.marek.onlinebookstore.repository.order.OrderTransitionRepository;
+import com.marek.onlinebookstore.repository.order.OrderTransitionRepository.LockedOrder;
+import com.marek.onlinebookstore.repository.shard.ShardExecutor;
 import com.marek.onlinebookstore.repository.user.UserRepository;
-import java.math.BigDecimal;
+import com.marek.onlinebookstore.service.inventory.InventoryService;
+import com.marek.onlinebookstore.service.inventory.StockLine;
+import com.marek.onlinebookstore.service.outbox.OutboxService;
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
@@ -34,134 +50,245 @@ public class OrderServiceImpl implements OrderService {
     public static final String MISSING_ORDER_MESSAGE = "Order with your id not found, id: ";
     public static final String MISSING_ORDER_ITEM_MESSAGE
             = "Order item with your id not found, id: ";
+    public static final String ORDER_PLACED = "ORDER_PLACED";
+    public static final String ORDER_STATUS_CHANGED = "ORDER_STATUS_CHANGED";
+    private static final String ORDER_ITEMS_SEQUENCE = "order_items";
+    private static final String ORDER_AGGREGATE = "order";
+    private static final int TRANSITION_CHUNK = 1000;
+    private static final int DEFAULT_TRANSITION_LIMIT = 10_000;
+    private static final Map<String, Class<?>> HISTORY_KEYS =
+            Map.of("orderDate", LocalDateTime.class, "id", Long.class);
 
     private final OrderRepository orderRepository;
+    private final OrderHistoryRepository orderHistoryRepository;
+    private final OrderTransitionRepository orderTransitionRepository;
+    private final CheckoutRepository checkoutRepository;
+    private final IdSequenceRepository idSequenceRepository;
     private final UserRepository userRepository;
-    private final ShoppingCartRepository shoppingCartRepository;
-    private final OrderItemMapper orderItemMapper;
+    private final InventoryService inventoryService;
+    private final OutboxService outboxService;
     private final OrderMapper orderMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final ShardExecutor shardExecutor;
 
+    // Item ids are reserved before the checkout transaction begins, so a checkout never holds
+    // its connection and the cart lock while waiting for the connection of the reservation.
+    // If the cart grew in between, the ids are left unused and the checkout starts over.
     @Override
-    public OrderDto makeOrder(PlacingOrderRequestDto requestDto) {
-        List<User> users = userRepository.findByShippingAddress(requestDto.shippingAddress());
-
-        User user = users.stream().findFirst()
-                .orElseThrow(
-                        () -> new EntityNotFoundException("No user found for shipping address "
-                                + requestDto.shippingAddress())
-                );
-
-        Order newOrder = createEmptyOrder(requestDto, user);
-        Order orderWithItems = fillingOrderWithItems(user, newOrder);
-
-        return orderMapper.toDto(orderWithItems);
-    }
-
-    private Order fillingOrderWithItems(User user, Order newOrder) {
-        ShoppingCart cart = shoppingCartRepository
-                .findShoppingCartByUser(user.getId());
-        Set<OrderItem> orderItemSet = getOrderItemSet(cart, newOrder);
-
-        Set<OrderItem> orderItemsWithPrice = calculatePriceForSet(orderItemSet);
-        newOrder.setOrderItems(orderItemsWithPrice);
-
-        BigDecimal total = orderItemsWithPrice.stream()
-                .map(OrderItem::getPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        newOrder.setTotal(total);
-        return orderRepository.save(newOrder);
+    public OrderDto makeOrder(Long userId, PlacingOrderRequestDto requestDto) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        while (true) {
+            int lines = checkoutRepository.countCartLines(userId);
+            if (lines == 0) {
+                throw emptyCart(userId);
+            }
+            long firstItemId = idSequenceRepository.reserve(ORDER_ITEMS_SEQUENCE, lines);
+            OrderDto order = transactionTemplate.execute(status ->
+                    placeOrder(userId, requestDto, firstItemId, lines));
+            if (order != null) {
+                return order;
+            }
+        }
     }
 
-    private Order createEmptyOrder(PlacingOrderRequestDto requestDto, User user) {
+    private OrderDto placeOrder(Long userId, PlacingOrderRequestDto requestDto,
+                                long firstItemId, int reservedItems) {
+        CheckoutRepository.CartSummary cart = checkoutRepository.lockCart(userId);
+        if (cart.lines() == 0) {
+            throw emptyCart(userId);
+        }
+        if (cart.lines() > reservedItems) {
+            return null;
+        }
         Order order = new Order();
-        order.setUser(user);
+        order.setUser(userRepository.getReferenceById(userId));
         order.setStatus(ORDER_PENDING);
-        order.setTotal(BigDecimal.ZERO);
+        order.setTotal(cart.total());
         order.setOrderDate(LocalDateTime.now());
         order.setShippingAddress(requestDto.shippingAddress());
-        order.setOrderItems(new HashSet<>());
-        return orderRepository.save(order);
-    }
-
-    private Set<OrderItem> calculatePriceForSet(Set<OrderItem> orderItemSet) {
-        return orderItemSet.stream()
-                .map(this::setPrice)
-                .collect(Collectors.toSet());
-    }
+        Order savedOrder = orderRepository.saveAndFlush(order);
+        final List<StockLine> lines = checkoutRepository.findCartLines(userId);
 
-    private OrderItem setPrice(OrderItem orderItem) {
-        orderItem.setPrice(
-                orderItem.getBook().getPrice().multiply(
-                        BigDecimal.valueOf(orderItem.getQuantity())
-                )
-        );
-        return orderItem;
-    }
+        checkoutRepository.copyCartToOrder(userId, savedOrder.getId(), firstItemId);
+        checkoutRepository.clearCart(userId);
 
-    private Set<OrderItem> getOrderItemSet(ShoppingCart cart, Order emptyOrder) {
-        Set<CartItem> cartItems = cart.getCartItems();
-        return cartItems.stream()
-                .map(orderItemMapper::fromCarttoOrderItem)
-                .map(orderItem -> setOrderToItem(orderItem, emptyOrder))
-                .collect(Collectors.toSet());
+        OrderDto orderDto = orderMapper.toDto(savedOrder);
+        orderDto.setOrderItems(new LinkedHashSet<>(
+                checkoutRepository.findOrderItems(savedOrder.getId())));
+        outboxService.append(ORDER_AGGREGATE, savedOrder.getId(), ORDER_PLACED,
+                toEvent(savedOrder, orderDto.getOrderItems()));
+        // Last, so the books rows it locks are held only until the order commits
+        inventoryService.checkout(userId, savedOrder.getId(), lines);
+        return orderDto;
     }
 
-    private OrderItem setOrderToItem(OrderItem orderItem, Order emptyOrder) {
-        orderItem.setOrder(emptyOrder);
-        return orderItem;
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderDto> getHistory(Long userId, Pageable pageable) {
+        return withItems(orderHistoryRepository.findPage(userId, pageable.getOffset(),
+                pageable.getPageSize()));
     }
 
+    // Reads one order more than asked for to learn whether there is a next page
     @Override
-    public List<OrderDto> getHistory(User user, Pageable pageable) {
-        return orderRepository.findAllByUser(user, pageable).stream()
-                .map(orderMapper::toDto)
-                .toList();
+    @Transactional(readOnly = true)
+    public Window<OrderDto> getHistory(Long userId, String cursor, int size) {
+        Map<String, Object> after = KeysetCursor.decode(cursor, HISTORY_KEYS).getKeys();
+        List<OrderDto> orders = orderHistoryRepository.findPageBefore(userId,
+                (LocalDateTime) after.get("orderDate"), (Long) after.get("id"), size + 1);
+        boolean hasNext = orders.size() > size;
+        List<OrderDto> page = withItems(hasNext ? orders.subList(0, size) : orders);
+        return Window.from(page, index -> ScrollPosition.forward(Map.of(
+                "orderDate", page.get(index).getOrderDate(),
+                "id", page.get(index).getId())), hasNext);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrderItemDto> getFromOrder(Long orderId) {
-        Order order = getOrderFromId(orderId);
-        return order.getOrderItems().stream()
-                .map(orderItemMapper::toDto)
-                .toList();
+        List<OrderItemDto> items = orderHistoryRepository.findItems(orderId);
+        if (items.isEmpty() && !orderRepository.existsById(orderId)) {
+            throw new EntityNotFoundException(MISSING_ORDER_MESSAGE + orderId);
+        }
+        return items;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public OrderItemDto getFromOrder(Long orderId, Long id) {
-        Order order = getOrderFromId(orderId);
-        Set<OrderItem> orderItems = order.getOrderItems();
-        OrderItem orderItem = orderItems.stream()
-                .filter(item -> item.getId().equals(id))
-                .findFirst()
-                .orElseThrow(
-                        () -> new EntityNotFoundException(MISSING_ORDER_ITEM_MESSAGE + id)
-                );
-        return orderItemMapper.toDto(orderItem);
+        return orderHistoryRepository.findItem(orderId, id).orElseThrow(
+                () -> new EntityNotFoundException(MISSING_ORDER_ITEM_MESSAGE + id));
     }
 
-    private Order getOrderFromId(Long orderId) {
-        return orderRepository.findById(orderId)
-                .orElseThrow(
-                        () -> new EntityNotFoundException(MISSING_ORDER_MESSAGE + orderId)
-                );
+    private List<OrderDto> withItems(List<OrderDto> orders) {
+        Map<Long, Set<OrderItemDto>> items = orderHistoryRepository.findItems(
+                orders.stream().map(OrderDto::getId).toList());
+        orders.forEach(order -> order.setOrderItems(
+                items.getOrDefault(order.getId(), Set.of())));
+        return orders;
     }
 
     @Override
+    @Transactional
     public OrderDto updateStatus(Long orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new EntityNotFoundException("Order not found"));
 
-        switch (order.getStatus()) {
-            case ORDER_PENDING:
-                order.setStatus(BOOK_DELIVERED);
-                break;
-            case BOOK_DELIVERED:
-                order.setStatus(ORDER_COMPLETED);
-                break;
-            default:
-                throw new IllegalStateException("Cannot update status further");
+        Status next = order.getStatus().next();
+        if (next == null) {
+            throw new IllegalStateException("Cannot update status further");
+        }
+        order.setStatus(next);
+
+        Order savedOrder = orderRepository.save(order);
+        outboxService.append(ORDER_AGGREGATE, savedOrder.getId(), ORDER_STATUS_CHANGED,
+                toEvent(savedOrder, null));
+        return orderMapper.toDto(savedOrder);
+    }
+
+    // Advances orders one step each, in chunks that are locked, updated with one statement
+    // and given their change events in one transaction
+    @Override
+    public BulkOrderStatusResultDto updateStatuses(BulkOrderStatusRequestDto requestDto) {
+        // Every shard reports the ids it does not hold as NOT_FOUND
+        Map<Long, OrderTransitionDto> merged = new LinkedHashMap<>();
+        for (List<OrderTransitionDto> shardResults
+                : shardExecutor.onEveryShard(() -> transitionAll(requestDto))) {
+            shardResults.forEach(result -> merged.merge(result.orderId(), result,
+                    (current, other) -> current.outcome() == OrderTransitionDto.Outcome.NOT_FOUND
+                            ? other : current));
         }
+        List<OrderTransitionDto> results = List.copyOf(merged.values());
+        int transitioned = (int) results.stream()
+                .filter(result -> result.outcome() == OrderTransitionDto.Outcome.TRANSITIONED)
+                .count();
+        return new BulkOrderStatusResultDto(transitioned, results.size() - transitioned,
+                results);
+    }
+
+    private List<OrderTransitionDto> transitionAll(BulkOrderStatusRequestDto requestDto) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<OrderTransitionDto> results = new ArrayList<>();
+        if (requestDto.ids() != null && !requestDto.ids().isEmpty()) {
+            List<Long> ids = requestDto.ids().stream().distinct().toList();
+            for (int from = 0; from < ids.size(); from += TRANSITION_CHUNK) {
+                List<Long> chunk = ids.subList(from,
+                        Math.min(from + TRANSITION_CHUNK, ids.size()));
+                results.addAll(transactionTemplate.execute(
+                        status -> transition(chunk, requestDto)));
+            }
+        } else {
+            int limit = requestDto.limit() == null
+                    ? DEFAULT_TRANSITION_LIMIT : requestDto.limit();
+            long afterId = 0;
+            while (results.size() < limit) {
+                long lastId = afterId;
+                int chunkSize = Math.min(TRANSITION_CHUNK, limit - results.size());
+                List<OrderTransitionDto> chunk = transactionTemplate.execute(status ->
+                        transition(orderTransitionRepository.findIds(requestDto.status(),
+                                requestDto.orderedFrom(), requestDto.orderedTo(), lastId,
+                                chunkSize), requestDto));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                results.addAll(chunk);
+                afterId = chunk.get(chunk.size() - 1).orderId();
+            }
+        }
+        return results;
+    }
+
+    private List<OrderTransitionDto> transition(List<Long> ids,
+                                                BulkOrderStatusRequestDto requestDto) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, LockedOrder> orders = orderTransitionRepository.lock(ids).stream()
+                .collect(Collectors.toMap(LockedOrder::id, Function.identity()));
+        List<OrderTransitionDto> results = new ArrayList<>(ids.size());
+        Map<Long, OrderEventDto> events = new LinkedHashMap<>();
+        for (Long id : ids) {
+            LockedOrder order = orders.get(id);
+            if (order == null) {
+                results.add(new OrderTransitionDto(id, OrderTransitionDto.Outcome.NOT_FOUND,
+                        null, null));
+            } else if (!matches(order, requestDto)) {
+                results.add(new OrderTransitionDto(id, OrderTransitionDto.Outcome.NOT_MATCHED,
+                        order.status().name(), null));
+            } else if (order.status().next() == null) {
+                results.add(new OrderTransitionDto(id,
+                        OrderTransitionDto.Outcome.ALREADY_COMPLETED, order.status().name(),
+                        null));
+            } else {
+                Status next = order.status().next();
+                results.add(new OrderTransitionDto(id, OrderTransitionDto.Outcome.TRANSITIONED,
+                        order.status().name(), next.name()));
+                events.put(id, new OrderEventDto(id, order.userId(), next.name(),
+                        order.total(), order.orderDate(), null));
+            }
+        }
+        if (!events.isEmpty()) {
+            orderTransitionRepository.advance(events.keySet());
+            outboxService.appendAll(ORDER_AGGREGATE, ORDER_STATUS_CHANGED, events);
+        }
+        return results;
+    }
+
+    private static boolean matches(LockedOrder order, BulkOrderStatusRequestDto requestDto) {
+        return (requestDto.status() == null || order.status() == requestDto.status())
+                && (requestDto.orderedFrom() == null
+                        || !order.orderDate().isBefore(requestDto.orderedFrom()))
+                && (requestDto.orderedTo() == null
+                        || order.orderDate().isBefore(requestDto.orderedTo()));
+    }
+
+    private static OrderEventDto toEvent(Order order, Set<OrderItemDto> orderItems) {
+        return new OrderEventDto(order.getId(), order.getUser().getId(),
+                order.getStatus().name(), order.getTotal(), order.getOrderDate(), orderItems);
+    }
 
-        return orderMapper.toDto(orderRepository.save(order));
+    private static EmptyShoppingCartException emptyCart(Long userId) {
+        return new EmptyShoppingCartException(
+                "Shopping cart is empty for user with id: " + userId);
     }
 }
@@ -0,0 +1,12 @@
+package com.marek.onlinebookstore.service.order;
+
+import java.time.LocalDateTime;
+
+public record OrderStreamEvent(
+        long eventId,
+        Long userId,
+        String type,
+        String payload,
+        LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,55 @@
+package com.marek.onlinebookstore.service.order;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marek.onlinebookstore.repository.order.OrderStreamRepository;
+import com.marek.onlinebookstore.service.outbox.OutboxEvent;
+import com.marek.onlinebookstore.service.outbox.OutboxSink;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+// Copies the events shown on order streams into order_stream_events, in the dispatcher's
+// transaction on the event's shard. Only one instance dispatches an event, but every instance
+// tails that table, so a user's streams get it wherever they are connected.
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class OrderStreamOutboxSink implements OutboxSink {
+    private static final Set<String> STREAMED_EVENTS =
+            Set.of(OrderServiceImpl.ORDER_PLACED, OrderServiceImpl.ORDER_STATUS_CHANGED);
+
+    private final OrderStreamRepository orderStreamRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String getName() {
+        return "order-stream";
+    }
+
+    @Override
+    public void deliver(List<OutboxEvent> events) {
+        List<OrderStreamEvent> streamed = events.stream()
+                .filter(event -> STREAMED_EVENTS.contains(event.type()))
+                .map(this::toStreamEvent)
+                .filter(Objects::nonNull)
+                .toList();
+        if (!streamed.isEmpty()) {
+            orderStreamRepository.insertAll(streamed);
+        }
+    }
+
+    private OrderStreamEvent toStreamEvent(OutboxEvent event) {
+        try {
+            long userId = objectMapper.readTree(event.payload()).path("userId").asLong();
+            return new OrderStreamEvent(event.id(), userId, event.type(), event.payload(),
+                    null);
+        } catch (JsonProcessingException e) {
+            log.warn("Can't read user of order event {}", event.id(), e);
+            return null;
+        }
+    }
+}
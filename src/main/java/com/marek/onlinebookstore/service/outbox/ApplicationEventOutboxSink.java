@@ -0,0 +1,23 @@
+package com.marek.onlinebookstore.service.outbox;
+
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+// Hands events to @EventListener(OutboxEvent.class) methods in this application
+@RequiredArgsConstructor
+@Component
+public class ApplicationEventOutboxSink implements OutboxSink {
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public String getName() {
+        return "application";
+    }
+
+    @Override
+    public void deliver(List<OutboxEvent> events) {
+        events.forEach(applicationEventPublisher::publishEvent);
+    }
+}
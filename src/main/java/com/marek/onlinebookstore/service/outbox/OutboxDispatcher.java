@@ -0,0 +1,125 @@
+package com.marek.onlinebookstore.service.outbox;
+
+import com.marek.onlinebookstore.repository.outbox.OutboxRepository;
+import com.marek.onlinebookstore.repository.shard.ShardExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Claims pending outbox rows in batches, hands each batch to every sink and deletes it once
+// all of them accepted it. A failed batch is retried with exponential backoff.
+@Slf4j
+@Component
+public class OutboxDispatcher {
+    private static final Duration FIRST_RETRY = Duration.ofSeconds(1);
+    private static final Duration MAX_RETRY = Duration.ofMinutes(5);
+
+    private final OutboxRepository outboxRepository;
+    private final List<OutboxSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardExecutor shardExecutor;
+    private final Counter delivered;
+    private final Counter failed;
+    private final Timer batchDuration;
+    private final Timer deliveryLag;
+    private final AtomicLong oldestPendingSeconds = new AtomicLong();
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    public OutboxDispatcher(OutboxRepository outboxRepository, List<OutboxSink> sinks,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry, ShardExecutor shardExecutor) {
+        this.outboxRepository = outboxRepository;
+        this.sinks = sinks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardExecutor = shardExecutor;
+        delivered = Counter.builder("outbox.events.delivered")
+                .description("Outbox events accepted by all sinks")
+                .register(meterRegistry);
+        failed = Counter.builder("outbox.events.failed")
+                .description("Outbox event deliveries that will be retried")
+                .register(meterRegistry);
+        batchDuration = Timer.builder("outbox.dispatch")
+                .description("Time to deliver one batch to all sinks")
+                .register(meterRegistry);
+        deliveryLag = Timer.builder("outbox.delivery.lag")
+                .description("Time from writing an event to delivering it")
+                .register(meterRegistry);
+        Gauge.builder("outbox.pending.age", oldestPendingSeconds, AtomicLong::get)
+                .description("Age of the oldest undelivered event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    // Events are written on the shard of the order, so every shard is drained
+    @Scheduled(fixedDelayString = "${outbox.dispatch-interval:500ms}")
+    public void dispatch() {
+        oldestPendingSeconds.set(shardExecutor.onEveryShard(() -> {
+            int dispatched;
+            do {
+                dispatched = dispatchBatch();
+            } while (dispatched == batchSize);
+            return outboxRepository.findOldestCreatedAt()
+                    .map(createdAt -> Duration.between(createdAt, LocalDateTime.now())
+                            .toSeconds())
+                    .orElse(0L);
+        }).stream().mapToLong(Long::longValue).max().orElse(0L));
+    }
+
+    // Returns the number of events delivered, the claimed rows stay locked until it returns
+    int dispatchBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> events = outboxRepository.claim(now, batchSize);
+            if (events.isEmpty()) {
+                return 0;
+            }
+            String error = batchDuration.record(() -> deliver(events));
+            if (error != null) {
+                int attempts = events.stream().mapToInt(OutboxEvent::attempts).max().orElse(0);
+                outboxRepository.retryAll(events, now.plus(backoff(attempts)), error);
+                failed.increment(events.size());
+                return 0;
+            }
+            outboxRepository.deleteAll(events);
+            delivered.increment(events.size());
+            LocalDateTime deliveredAt = LocalDateTime.now();
+            events.forEach(event ->
+                    deliveryLag.record(Duration.between(event.createdAt(), deliveredAt)));
+            return events.size();
+        });
+    }
+
+    private String deliver(List<OutboxEvent> events) {
+        for (OutboxSink sink : sinks) {
+            try {
+                sink.deliver(events);
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                log.warn("Outbox sink {} failed to take {} events", sink.getName(),
+                        events.size(), e);
+                return sink.getName() + ": " + e.getMessage();
+            }
+        }
+        return null;
+    }
+
+    private static Duration backoff(int attempts) {
+        Duration delay = FIRST_RETRY.multipliedBy(1L << Math.min(attempts, 20));
+        return delay.compareTo(MAX_RETRY) > 0 ? MAX_RETRY : delay;
+    }
+}
@@ -0,0 +1,18 @@
+package com.marek.onlinebookstore.service.outbox;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import java.time.LocalDateTime;
+
+public record OutboxEvent(
+        long id,
+        String aggregateType,
+        Long aggregateId,
+        String type,
+        @JsonRawValue
+        String payload,
+        LocalDateTime createdAt,
+        @JsonIgnore
+        int attempts
+) {
+}
@@ -0,0 +1,9 @@
+package com.marek.onlinebookstore.service.outbox;
+
+import java.util.Map;
+
+public interface OutboxService {
+    void append(String aggregateType, Long aggregateId, String eventType, Object payload);
+
+    void appendAll(String aggregateType, String eventType, Map<Long, ?> payloads);
+}
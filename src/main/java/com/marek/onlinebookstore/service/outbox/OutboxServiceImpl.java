@@ -0,0 +1,47 @@
+package com.marek.onlinebookstore.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marek.onlinebookstore.exception.DataProcessingException;
+import com.marek.onlinebookstore.repository.outbox.OutboxRepository;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@RequiredArgsConstructor
+@Service
+public class OutboxServiceImpl implements OutboxService {
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    // Must join the caller's transaction, the event is only published if the change commits
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String aggregateType, Long aggregateId, String eventType,
+                       Object payload) {
+        try {
+            outboxRepository.insert(aggregateType, aggregateId, eventType,
+                    objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new DataProcessingException("Can't serialize " + eventType + " event", e);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(String aggregateType, String eventType, Map<Long, ?> payloads) {
+        Map<Long, String> serialized = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<Long, ?> payload : payloads.entrySet()) {
+                serialized.put(payload.getKey(),
+                        objectMapper.writeValueAsString(payload.getValue()));
+            }
+        } catch (JsonProcessingException e) {
+            throw new DataProcessingException("Can't serialize " + eventType + " event", e);
+        }
+        outboxRepository.insertAll(aggregateType, eventType, serialized);
+    }
+}
@@ -0,0 +1,11 @@
+package com.marek.onlinebookstore.service.outbox;
+
+import java.util.List;
+
+// A destination for outbox events. Events are delivered at least once: a batch that fails
+// on any sink is retried on every sink, so receivers should ignore event ids already seen.
+public interface OutboxSink {
+    String getName();
+
+    void deliver(List<OutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,8 @@
+package com.marek.onlinebookstore.service.shard;
+
+import com.marek.onlinebookstore.dto.shard.ShardRebalanceRequestDto;
+import com.marek.onlinebookstore.dto.shard.ShardRebalanceResultDto;
+
+public interface ShardService {
+    ShardRebalanceResultDto rebalance(ShardRebalanceRequestDto requestDto);
+}
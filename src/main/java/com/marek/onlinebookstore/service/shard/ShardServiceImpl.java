@@ -0,0 +1,28 @@
+package com.marek.onlinebookstore.service.shard;
+
+import com.marek.onlinebookstore.dto.shard.ShardRebalanceRequestDto;
+import com.marek.onlinebookstore.dto.shard.ShardRebalanceResultDto;
+import com.marek.onlinebookstore.repository.shard.ShardDirectory;
+import com.marek.onlinebookstore.repository.shard.ShardRebalancer;
+import com.marek.onlinebookstore.repository.shard.ShardRing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+@Service
+@ConditionalOnProperty("sharding.enabled")
+@RequiredArgsConstructor
+public class ShardServiceImpl implements ShardService {
+    private final ShardDirectory shardDirectory;
+    private final ShardRebalancer shardRebalancer;
+
+    // Only one rebalance may run at a time, the ring it ends with is not persisted and has to
+    // be put into sharding.ring before the next restart
+    @Override
+    public synchronized ShardRebalanceResultDto rebalance(ShardRebalanceRequestDto requestDto) {
+        ShardRing target = new ShardRing(requestDto.ring(),
+                shardDirectory.getRing().getVirtualNodes());
+        return new ShardRebalanceResultDto(shardRebalancer.rebalance(target),
+                target.getShards());
+    }
+}
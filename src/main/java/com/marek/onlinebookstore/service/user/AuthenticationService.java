@@ -2,16 +2,19 @@ package com.marek.onlinebookstore.service.user;
 
 import com.marek.onlinebookstore.dto.user.login.UserLoginRequestDto;
 import com.marek.onlinebookstore.dto.user.login.UserLoginResponseDto;
+import com.marek.onlinebookstore.exception.InvalidRefreshTokenException;
+import com.marek.onlinebookstore.model.User;
+import com.marek.onlinebookstore.repository.user.UserRepository;
+import com.marek.onlinebookstore.security.AuthenticatedUser;
 import com.marek.onlinebookstore.security.token.JwtUtil;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import com.marek.onlinebookstore.security.token.TokenCache;
+import com.marek.onlinebookstore.security.token.TokenRevocations;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -19,26 +22,49 @@ import org.springframework.stereotype.Service;
 public class AuthenticationService {
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final TokenRevocations tokenRevocations;
+    private final TokenCache tokenCache;
+    private final RefreshTokenService refreshTokenService;
+    private final UserRepository userRepository;
+    private final LoginExecutor loginExecutor;
 
     public UserLoginResponseDto authenticate(UserLoginRequestDto requestDto) {
-        Authentication authenticate = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        requestDto.email(),
-                        requestDto.password()
-                )
-        );
+        // BCrypt runs on the login pool, not on the request thread
+        Authentication authenticate = loginExecutor.execute(() ->
+                authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(
+                                requestDto.email(),
+                                requestDto.password()
+                        )
+                ));
 
         User user = (User) authenticate.getPrincipal();
 
-        List<String> roles = user.getAuthorities().stream()
-                .map(authority -> authority.getAuthority())
-                .collect(Collectors.toList());
+        // Id and roles travel in the token, requests carrying it need no user lookup
+        String token = jwtUtil.generateToken(AuthenticatedUser.of(user));
 
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", roles);
+        return new UserLoginResponseDto(token, refreshTokenService.issue(user.getId()));
+    }
+
+    // Roles are read again, so a change reaches the user with the next access token
+    public UserLoginResponseDto refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        User user = userRepository.findWithRolesById(rotation.userId()).orElseThrow(
+                () -> new InvalidRefreshTokenException("User of the refresh token not found"));
+        return new UserLoginResponseDto(jwtUtil.generateToken(AuthenticatedUser.of(user)),
+                rotation.refreshToken());
+    }
 
-        String token = jwtUtil.generateToken(user.getUsername(), claims);
+    // The token stays revoked until it would have expired anyway
+    public void logout(String token) {
+        String digest = JwtUtil.digest(token);
+        tokenRevocations.revoke(digest, LocalDateTime.ofInstant(
+                jwtUtil.parse(token).getExpiration().toInstant(), ZoneId.systemDefault()));
+        tokenCache.invalidate(digest);
+    }
 
-        return new UserLoginResponseDto(token);
+    public void logoutAll(Long userId, String token) {
+        refreshTokenService.revokeAll(userId);
+        logout(token);
     }
 }
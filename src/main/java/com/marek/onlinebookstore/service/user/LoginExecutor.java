@@ -0,0 +1,100 @@
+package com.marek.onlinebookstore.service.user;
+
+import com.marek.onlinebookstore.exception.LoginRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Password checks run on a small pool of their own, so a login storm uses at most that many
+// CPUs and the request threads stay free for the rest of the API. Logins that don't fit into
+// the queue, or wait in it longer than the timeout, are turned away instead of piling up.
+@Component
+public class LoginExecutor {
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final Timer logins;
+    private final Counter rejected;
+
+    public LoginExecutor(MeterRegistry meterRegistry,
+                         @Value("${security.login.threads:0}") int threads,
+                         @Value("${security.login.queue-capacity:64}") int queueCapacity,
+                         @Value("${security.login.timeout:5s}") Duration timeout) {
+        int poolSize = threads > 0
+                ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "login-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.timeout = timeout;
+        logins = Timer.builder("security.login")
+                .description("Time to verify a password, including the wait in the queue")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        rejected = Counter.builder("security.login.rejected")
+                .description("Logins turned away because the login queue was full or slow")
+                .register(meterRegistry);
+        Gauge.builder("security.login.queue.size", executor, pool -> pool.getQueue().size())
+                .description("Logins waiting for a login worker")
+                .register(meterRegistry);
+        Gauge.builder("security.login.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Logins being verified")
+                .register(meterRegistry);
+    }
+
+    // Exceptions of the login itself, such as bad credentials, reach the caller unchanged
+    public <T> T execute(Supplier<T> login) {
+        long start = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(login::get);
+        } catch (RejectedExecutionException e) {
+            throw reject("Too many logins in progress, try again shortly");
+        }
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw reject("Login timed out, try again shortly");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw reject("Login interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Login failed", e.getCause());
+        } finally {
+            logins.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    int queueSize() {
+        return executor.getQueue().size();
+    }
+
+    private LoginRejectedException reject(String message) {
+        rejected.increment();
+        return new LoginRejectedException(message);
+    }
+}
@@ -0,0 +1,76 @@
+package com.marek.onlinebookstore.service.user;
+
+import com.marek.onlinebookstore.exception.InvalidRefreshTokenException;
+import com.marek.onlinebookstore.repository.token.RefreshTokenRepository;
+import com.marek.onlinebookstore.repository.token.RefreshTokenRepository.StoredRefreshToken;
+import com.marek.onlinebookstore.security.token.JwtUtil;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Refresh tokens are random strings that are stored only as their SHA-256. Every login starts a
+// family; each refresh uses up the token and hands out the next one of the same family. A used
+// token that comes back has been copied, so the whole family is revoked.
+@RequiredArgsConstructor
+@Service
+public class RefreshTokenService {
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${security.refresh-token.ttl:30d}")
+    private Duration ttl;
+
+    @Transactional
+    public String issue(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        return newToken(refreshTokenRepository.insertFamily(userId, now), now);
+    }
+
+    // The revocation of a reused family has to stay even though the refresh fails
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String refreshToken) {
+        String id = JwtUtil.digest(refreshToken);
+        LocalDateTime now = LocalDateTime.now();
+        StoredRefreshToken stored = refreshTokenRepository.find(id)
+                .filter(token -> !token.revoked() && token.expiresAt().isAfter(now))
+                .orElseThrow(() -> new InvalidRefreshTokenException(
+                        "Refresh token is not valid, sign in again"));
+        if (stored.used() || !refreshTokenRepository.markUsed(id)) {
+            refreshTokenRepository.revokeFamily(stored.familyId());
+            throw new InvalidRefreshTokenException(
+                    "Refresh token was already used, sign in again");
+        }
+        return new Rotation(stored.userId(), newToken(stored.familyId(), now));
+    }
+
+    // Signs the user out of every session with a single update
+    @Transactional
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.revokeAllFamilies(userId);
+    }
+
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.HOURS)
+    public void deleteExpired() {
+        refreshTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private String newToken(long familyId, LocalDateTime now) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.insert(JwtUtil.digest(token), familyId, now.plus(ttl));
+        return token;
+    }
+
+    public record Rotation(Long userId, String refreshToken) {
+    }
+}
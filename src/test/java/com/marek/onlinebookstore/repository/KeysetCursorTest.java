@@ -0,0 +1,63 @@
+package com.marek.onlinebookstore.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.marek.onlinebookstore.exception.InvalidCursorException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+class KeysetCursorTest {
+    private static final Map<String, Class<?>> HISTORY_KEYS =
+            Map.of("orderDate", LocalDateTime.class, "id", Long.class);
+    private static final Map<String, Class<?>> ID_KEYS = Map.of("id", Long.class);
+
+    @Test
+    @DisplayName("Encode and decode cursor - restores typed keys")
+    void decode_encodedCursor_restoresKeys() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("orderDate", LocalDateTime.of(2024, 5, 1, 12, 30, 15));
+        keys.put("id", 42L);
+
+        String cursor = KeysetCursor.encode(ScrollPosition.forward(keys));
+        KeysetScrollPosition actual = KeysetCursor.decode(cursor, HISTORY_KEYS);
+
+        assertThat(cursor).doesNotContain("orderDate");
+        assertThat(actual.getKeys()).isEqualTo(keys);
+    }
+
+    @Test
+    @DisplayName("Decode empty cursor - returns the first page position")
+    void decode_emptyCursor_returnsInitialPosition() {
+        assertThat(KeysetCursor.decode("", HISTORY_KEYS).isInitial()).isTrue();
+        assertThat(KeysetCursor.decode(null, HISTORY_KEYS).isInitial()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Decode tampered or foreign cursor - throws InvalidCursorException")
+    void decode_invalidCursor_throwsException() {
+        String bookCursor = KeysetCursor.encode(ScrollPosition.forward(Map.of("id", 7L)));
+
+        assertThatThrownBy(() -> KeysetCursor.decode(bookCursor, HISTORY_KEYS))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor!", ID_KEYS))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("MXxpZH5Mfng", ID_KEYS))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    @DisplayName("Decode cursor with a key of the wrong type - throws InvalidCursorException")
+    void decode_wrongKeyType_throwsException() {
+        String cursor = KeysetCursor.encode(ScrollPosition.forward(
+                Map.of("id", LocalDateTime.of(2024, 5, 1, 12, 30))));
+
+        assertThatThrownBy(() -> KeysetCursor.decode(cursor, ID_KEYS))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+}
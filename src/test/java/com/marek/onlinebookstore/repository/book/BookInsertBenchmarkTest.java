@@ -0,0 +1,95 @@
+package com.marek.onlinebookstore.repository.book;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.marek.onlinebookstore.model.Book;
+import com.marek.onlinebookstore.model.IdSequences;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+// mvn test -Dtest=BookInsertBenchmarkTest -Dbenchmark=true
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("batching")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookInsertBenchmarkTest {
+    private static final int BOOKS = 5_000;
+    private static final int WARM_UP_BOOKS = 500;
+    private static final String ISBN_PREFIX = "benchmark-";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Insert books - batching sends one statement per batch instead of per row")
+    void insertBooks_batched_preparesFewerStatements() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        insertBooks(WARM_UP_BOOKS, IdSequences.ALLOCATION_SIZE);
+
+        statistics.clear();
+        Duration single = insertBooks(BOOKS, 1);
+        long singleStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+        Duration batched = insertBooks(BOOKS, IdSequences.ALLOCATION_SIZE);
+        long batchedStatements = statistics.getPrepareStatementCount();
+
+        // Throughput depends on the machine and the database, so it is reported, not asserted
+        log.info("Inserted {} books: {} rows/s one by one, {} rows/s batched", BOOKS,
+                Math.round(rowsPerSecond(single)), Math.round(rowsPerSecond(batched)));
+        assertThat(batchedStatements).isLessThan(singleStatements / 10);
+    }
+
+    private Duration insertBooks(int count, int batchSize) {
+        jdbcTemplate.update("DELETE FROM books WHERE isbn LIKE ?", ISBN_PREFIX + "%");
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            final long start = System.nanoTime();
+            entityManager.getTransaction().begin();
+            for (int i = 0; i < count; i++) {
+                entityManager.persist(getBook(i));
+                if ((i + 1) % IdSequences.ALLOCATION_SIZE == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.getTransaction().commit();
+            return Duration.ofNanos(System.nanoTime() - start);
+        } finally {
+            entityManager.close();
+            jdbcTemplate.update("DELETE FROM books WHERE isbn LIKE ?", ISBN_PREFIX + "%");
+        }
+    }
+
+    private static double rowsPerSecond(Duration duration) {
+        return BOOKS * 1_000_000_000.0 / duration.toNanos();
+    }
+
+    private static Book getBook(int number) {
+        Book book = new Book();
+        book.setTitle("Benchmark book " + number);
+        book.setAuthor("Benchmark author");
+        book.setIsbn(ISBN_PREFIX + number);
+        book.setPrice(BigDecimal.TEN);
+        book.setDescription("description");
+        book.setCoverImage("cover.png");
+        return book;
+    }
+}
@@ -0,0 +1,108 @@
+package com.marek.onlinebookstore.repository.book.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.marek.onlinebookstore.dto.book.BookFacetsDto;
+import com.marek.onlinebookstore.dto.book.FacetCountDto;
+import com.marek.onlinebookstore.model.Book;
+import com.marek.onlinebookstore.model.Category;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BookFacetIndexTest {
+    private static final Long FANTASY = 1L;
+    private static final Long CLASSICS = 2L;
+
+    private BookFacetIndex bookFacetIndex;
+
+    @BeforeEach
+    void setUp() {
+        bookFacetIndex = new BookFacetIndex();
+        bookFacetIndex.index(getBook(1L, "Andrzej Sapkowski", "15.00", FANTASY));
+        bookFacetIndex.index(getBook(2L, "Andrzej Sapkowski", "45.50", FANTASY));
+        bookFacetIndex.index(getBook(3L, "Fyodor Dostoevsky", "9.99", CLASSICS));
+        bookFacetIndex.index(getBook(4L, "J.R.R. Tolkien", "120", FANTASY, CLASSICS));
+        bookFacetIndex.markReady();
+    }
+
+    @Test
+    @DisplayName("Find ids by category, author and price band - intersects filters")
+    void findIds_combinedFilters_returnsIntersection() {
+        assertThat(bookFacetIndex.findIds(new Long[]{FANTASY}, null, null, 0, 10))
+                .containsExactly(1L, 2L, 4L);
+        assertThat(bookFacetIndex.findIds(new Long[]{FANTASY}, new String[]{"andrzej sapkowski"},
+                new String[]{"20-50"}, 0, 10)).containsExactly(2L);
+        assertThat(bookFacetIndex.findIds(new Long[]{FANTASY, CLASSICS}, null, null, 1, 2))
+                .containsExactly(2L, 3L);
+    }
+
+    @Test
+    @DisplayName("Facets for category - counts other dimensions within the category")
+    void facets_category_countsMatchingBooks() {
+        BookFacetsDto actual = bookFacetIndex.facets(new Long[]{CLASSICS}, null, null);
+
+        assertThat(actual.total()).isEqualTo(2);
+        assertThat(actual.categories()).containsExactly(
+                new FacetCountDto("2", 2), new FacetCountDto("1", 1));
+        assertThat(actual.priceBands()).containsExactly(
+                new FacetCountDto("0-10", 1), new FacetCountDto("100+", 1));
+    }
+
+    @Test
+    @DisplayName("Facets after update and removal - counts follow the catalog")
+    void facets_afterUpdateAndRemove_stayCorrect() {
+        bookFacetIndex.index(getBook(1L, "Andrzej Sapkowski", "8", CLASSICS));
+        bookFacetIndex.remove(4L);
+
+        BookFacetsDto actual = bookFacetIndex.facets(null, null, null);
+
+        assertThat(actual.total()).isEqualTo(3);
+        assertThat(actual.categories()).containsExactly(
+                new FacetCountDto("2", 2), new FacetCountDto("1", 1));
+        assertThat(actual.authors()).containsExactly(
+                new FacetCountDto("Andrzej Sapkowski", 2),
+                new FacetCountDto("Fyodor Dostoevsky", 1));
+    }
+
+    @Test
+    @DisplayName("Bitmap with dense and sparse chunks - matches a plain set")
+    void compressedBitmap_denseAndSparseChunks_behavesLikeSet() {
+        CompressedBitmap dense = new CompressedBitmap();
+        CompressedBitmap sparse = new CompressedBitmap();
+        LongStream.range(0, 10_000).forEach(dense::add);
+        LongStream.range(0, 200_000).filter(id -> id % 7 == 0).forEach(sparse::add);
+        LongStream.range(0, 10_000).filter(id -> id % 2 == 0).forEach(dense::remove);
+
+        assertThat(dense.cardinality()).isEqualTo(5_000);
+        assertThat(dense.andCardinality(sparse)).isEqualTo(
+                LongStream.range(0, 10_000).filter(id -> id % 2 == 1 && id % 7 == 0).count());
+        assertThat(dense.or(sparse).cardinality()).isEqualTo(5_000 + 200_000 / 7 + 1
+                - dense.andCardinality(sparse));
+        assertThat(dense.and(sparse).page(1, 2)).containsExactly(21L, 35L);
+        assertThat(sparse.page(20_000, 1)).containsExactly(140_000L);
+        assertThat(sparse.page(sparse.rank(140_000L), 1)).containsExactly(140_007L);
+        assertThat(dense.page(dense.rank(64), 2)).containsExactly(65L, 67L);
+    }
+
+    private static Book getBook(Long id, String author, String price, Long... categoryIds) {
+        Book book = new Book(id);
+        book.setTitle("Title " + id);
+        book.setAuthor(author);
+        book.setPrice(new BigDecimal(price));
+        book.setCategories(Arrays.stream(categoryIds)
+                .map(BookFacetIndexTest::getCategory)
+                .collect(Collectors.toSet()));
+        return book;
+    }
+
+    private static Category getCategory(Long id) {
+        Category category = new Category();
+        category.setId(id);
+        return category;
+    }
+}
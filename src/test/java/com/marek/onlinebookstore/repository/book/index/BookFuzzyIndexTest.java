@@ -0,0 +1,72 @@
+package com.marek.onlinebookstore.repository.book.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.marek.onlinebookstore.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BookFuzzyIndexTest {
+    private BookFuzzyIndex bookFuzzyIndex;
+
+    @BeforeEach
+    void setUp() {
+        bookFuzzyIndex = new BookFuzzyIndex();
+        bookFuzzyIndex.clear();
+        bookFuzzyIndex.index(getBook(1L, "Crime and Punishment", "Fyodor Dostoevsky"));
+        bookFuzzyIndex.index(getBook(2L, "The Last Wish", "Andrzej Sapkowski"));
+        bookFuzzyIndex.index(getBook(3L, "Blood of Elves", "Andrzej Sapkowski"));
+        bookFuzzyIndex.markReady();
+    }
+
+    @Test
+    @DisplayName("Search misspelled author - returns author's books")
+    void search_misspelledAuthor_returnsBooks() {
+        assertThat(bookFuzzyIndex.search(null, null, new String[] {"Sapkowsky"}, 0, 10))
+                .containsExactly(2L, 3L);
+        assertThat(bookFuzzyIndex.search("dostoyevski", null, null, 0, 10))
+                .containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Search with every word required - ranks closer matches first")
+    void search_multipleWords_intersectsAndRanks() {
+        assertThat(bookFuzzyIndex.search("sapkowski blod", null, null, 0, 10))
+                .containsExactly(3L);
+        assertThat(bookFuzzyIndex.search("last wsh", null, null, 0, 10))
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Did you mean - corrects unknown words only")
+    void didYouMean_misspelledQuery_returnsCorrection() {
+        assertThat(bookFuzzyIndex.didYouMean("Crime and Punishmnet")).isEqualTo(
+                "crime and punishment");
+        assertThat(bookFuzzyIndex.didYouMean("last wish")).isNull();
+    }
+
+    @Test
+    @DisplayName("Search after removal - removed book is not matched")
+    void search_afterRemove_skipsBook() {
+        bookFuzzyIndex.remove(2L);
+
+        assertThat(bookFuzzyIndex.search("sapkowsky", null, null, 0, 10))
+                .containsExactly(3L);
+        assertThat(bookFuzzyIndex.didYouMean("lst wish")).isNull();
+    }
+
+    @Test
+    @DisplayName("Edit distance - stops once the bound is exceeded")
+    void bounded_distanceAboveLimit_returnsLimitPlusOne() {
+        assertThat(EditDistance.bounded("sapkowsky", "sapkowski", 2)).isEqualTo(1);
+        assertThat(EditDistance.bounded("kitten", "sitting", 2)).isEqualTo(3);
+    }
+
+    private static Book getBook(Long id, String title, String author) {
+        Book book = new Book(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        return book;
+    }
+}
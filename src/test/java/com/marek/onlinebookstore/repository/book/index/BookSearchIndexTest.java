@@ -0,0 +1,147 @@
+package com.marek.onlinebookstore.repository.book.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.marek.onlinebookstore.model.Book;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BookSearchIndexTest {
+    @TempDir
+    private Path directory;
+
+    private BookSearchIndex bookSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        bookSearchIndex = new BookSearchIndex(directory.toString());
+        bookSearchIndex.load();
+        bookSearchIndex.index(getBook(1L, "The Hobbit", "J.R.R. Tolkien",
+                "A hobbit goes on an unexpected journey"));
+        bookSearchIndex.index(getBook(2L, "The Lord of the Rings", "J.R.R. Tolkien",
+                "Hobbits carry the ring to Mordor"));
+        bookSearchIndex.index(getBook(3L, "The Witcher", "Andrzej Sapkowski",
+                "Geralt hunts monsters"));
+    }
+
+    @Test
+    @DisplayName("Search by author token - returns all matching books")
+    void search_authorToken_returnsMatchingBooks() {
+        List<Long> actual = bookSearchIndex.search("tolkien", 0, 10);
+
+        assertThat(actual).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Search with plural form - title match ranked first")
+    void search_stemmedTerm_ranksTitleMatchFirst() {
+        List<Long> actual = bookSearchIndex.search("hobbits", 0, 10);
+
+        assertThat(actual).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Search after removal and update - index reflects changes")
+    void search_afterRemoveAndUpdate_reflectsChanges() {
+        bookSearchIndex.remove(1L);
+        bookSearchIndex.index(getBook(3L, "Blood of Elves", "Andrzej Sapkowski",
+                "Ciri trains in Kaer Morhen"));
+
+        assertThat(bookSearchIndex.search("hobbit", 0, 10)).containsExactly(2L);
+        assertThat(bookSearchIndex.search("witcher", 0, 10)).isEmpty();
+        assertThat(bookSearchIndex.search("elves", 0, 10)).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Reload from segments - restores index without rebuild")
+    void load_afterClose_restoresDocuments() {
+        bookSearchIndex.remove(3L);
+        bookSearchIndex.close();
+
+        BookSearchIndex reloaded = new BookSearchIndex(directory.toString());
+        reloaded.load();
+
+        assertThat(reloaded.isReady()).isTrue();
+        assertThat(reloaded.size()).isEqualTo(2);
+        assertThat(reloaded.search("ring", 0, 10)).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Reload after marking synced - keeps the watermark from log and segment")
+    void load_afterMarkSynced_restoresWatermark() {
+        LocalDateTime fromLog = LocalDateTime.of(2024, 5, 1, 12, 0, 0, 123_456_000);
+        bookSearchIndex.markSynced(fromLog);
+        BookSearchIndex reloaded = new BookSearchIndex(directory.toString());
+        reloaded.load();
+        LocalDateTime fromSegment = fromLog.plusSeconds(5);
+        reloaded.markSynced(fromSegment);
+        reloaded.close();
+        BookSearchIndex reloadedAgain = new BookSearchIndex(directory.toString());
+        reloadedAgain.load();
+
+        assertThat(reloaded.syncedTo()).isEqualTo(fromSegment);
+        assertThat(reloadedAgain.syncedTo()).isEqualTo(fromSegment);
+        assertThat(reloadedAgain.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Torn record at the end of the log - is cut off before the next append")
+    void load_tornLogRecord_truncatesBeforeAppending() throws IOException {
+        Path logFile = directory.resolve("books.log");
+        Files.write(logFile, new byte[] {0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff, 1, 2},
+                StandardOpenOption.APPEND);
+
+        BookSearchIndex reloaded = new BookSearchIndex(directory.toString());
+        reloaded.load();
+        reloaded.index(getBook(4L, "Dune", "Frank Herbert", "Spice on Arrakis"));
+        BookSearchIndex reloadedAgain = new BookSearchIndex(directory.toString());
+        reloadedAgain.load();
+
+        assertThat(reloaded.size()).isEqualTo(4);
+        assertThat(reloadedAgain.isReady()).isTrue();
+        assertThat(reloadedAgain.size()).isEqualTo(4);
+        assertThat(reloadedAgain.search("dune", 0, 10)).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("Many updates while running - log is folded into a segment without a restart")
+    void index_manyUpdates_compactsLog() throws IOException {
+        for (int i = 0; i < 1100; i++) {
+            bookSearchIndex.index(getBook(3L, "The Witcher " + i, "Andrzej Sapkowski",
+                    "Geralt hunts monsters"));
+        }
+
+        Files.delete(directory.resolve("books.log"));
+        BookSearchIndex fromSegment = new BookSearchIndex(directory.toString());
+        fromSegment.load();
+
+        assertThat(fromSegment.size()).isEqualTo(3);
+        assertThat(fromSegment.search("1020", 0, 10)).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Search with offset - returns requested page")
+    void search_withOffset_returnsPage() {
+        List<Long> firstPage = bookSearchIndex.search("tolkien", 0, 1);
+        List<Long> secondPage = bookSearchIndex.search("tolkien", 1, 1);
+
+        assertThat(firstPage).hasSize(1);
+        assertThat(secondPage).hasSize(1).doesNotContainAnyElementsOf(firstPage);
+    }
+
+    private static Book getBook(Long id, String title, String author, String description) {
+        Book book = new Book(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setDescription(description);
+        return book;
+    }
+}
@@ -0,0 +1,99 @@
+package com.marek.onlinebookstore.repository.book.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.marek.onlinebookstore.dto.book.BookSuggestionDto;
+import com.marek.onlinebookstore.dto.order.BookSalesDto;
+import com.marek.onlinebookstore.model.Book;
+import com.marek.onlinebookstore.repository.order.OrderItemRepository;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class BookSuggestionIndexTest {
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    @InjectMocks
+    private BookSuggestionIndex bookSuggestionIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(orderItemRepository.findBookSales())
+                .thenReturn(List.of(new BookSalesDto(2L, 50L)));
+        bookSuggestionIndex.clear();
+        bookSuggestionIndex.index(
+                getBook(1L, "The Hobbit", "J.R.R. Tolkien", "978-0261102217"));
+        bookSuggestionIndex.index(
+                getBook(2L, "The Hunger Games", "Suzanne Collins", "9780439023481"));
+        bookSuggestionIndex.index(
+                getBook(3L, "The Silmarillion", "J.R.R. Tolkien", "9780261102736"));
+        bookSuggestionIndex.markReady();
+    }
+
+    @Test
+    @DisplayName("Suggest by title prefix - best selling title first")
+    void suggest_titlePrefix_ordersByPopularity() {
+        List<String> actual = texts(bookSuggestionIndex.suggest("the h", 10));
+
+        assertThat(actual).containsExactly("The Hunger Games", "The Hobbit");
+    }
+
+    @Test
+    @DisplayName("Suggest by word inside author name - returns author once")
+    void suggest_authorWordPrefix_returnsAggregatedAuthor() {
+        List<BookSuggestionDto> actual = bookSuggestionIndex.suggest("tolk", 10);
+
+        assertThat(actual).containsExactly(new BookSuggestionDto("J.R.R. Tolkien", "AUTHOR", null));
+    }
+
+    @Test
+    @DisplayName("Suggest by ISBN prefix - ignores dashes")
+    void suggest_isbnPrefix_returnsBook() {
+        List<BookSuggestionDto> actual = bookSuggestionIndex.suggest("9780261102", 10);
+
+        assertThat(actual).extracting(BookSuggestionDto::bookId).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    @DisplayName("Suggest after update and removal - reflects catalog changes")
+    void suggest_afterUpdateAndRemove_reflectsChanges() {
+        bookSuggestionIndex.remove(2L);
+        bookSuggestionIndex.index(getBook(1L, "Hobbit", "J.R.R. Tolkien", "978-0261102217"));
+
+        assertThat(texts(bookSuggestionIndex.suggest("the h", 10))).isEmpty();
+        assertThat(texts(bookSuggestionIndex.suggest("hob", 10))).containsExactly("Hobbit");
+        assertThat(bookSuggestionIndex.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Suggest with limit - returns at most limit completions")
+    void suggest_withLimit_truncatesResults() {
+        assertThat(bookSuggestionIndex.suggest("t", 1)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Suggest with limit below one - returns a single completion")
+    void suggest_negativeLimit_returnsOneCompletion() {
+        assertThat(bookSuggestionIndex.suggest("t", -5)).hasSize(1);
+    }
+
+    private static List<String> texts(List<BookSuggestionDto> suggestions) {
+        return suggestions.stream().map(BookSuggestionDto::text).toList();
+    }
+
+    private static Book getBook(Long id, String title, String author, String isbn) {
+        Book book = new Book(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setIsbn(isbn);
+        return book;
+    }
+}
@@ -0,0 +1,159 @@
+package com.marek.onlinebookstore.repository.book.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CompressedBitmapTest {
+    private static final int CHUNK = 1 << 16;
+    private static final int ARRAY_MAX = 4096;
+
+    @Test
+    @DisplayName("Chunk grows past the array limit and shrinks back - matches a sorted set")
+    void addRemove_acrossArrayLimit_matchesReference() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        TreeSet<Long> reference = new TreeSet<>();
+        for (long value = 0; value < 2L * (ARRAY_MAX + 1); value += 2) {
+            assertThat(bitmap.add(value)).isEqualTo(reference.add(value));
+        }
+        assertMatches(bitmap, reference);
+
+        assertThat(bitmap.add(10)).isFalse();
+        for (long value = 0; value < 40; value += 2) {
+            assertThat(bitmap.remove(value)).isEqualTo(reference.remove(value));
+        }
+        assertThat(bitmap.remove(1)).isFalse();
+        assertMatches(bitmap, reference);
+
+        reference.forEach(bitmap::remove);
+        assertThat(bitmap.isEmpty()).isTrue();
+        assertThat(bitmap.cardinality()).isZero();
+    }
+
+    @Test
+    @DisplayName("Values on both sides of chunk boundaries - are kept in separate chunks")
+    void add_chunkBoundaries_matchesReference() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        TreeSet<Long> reference = new TreeSet<>();
+        for (long chunk = 0; chunk < 6; chunk++) {
+            for (long value : new long[] {chunk * CHUNK - 1, chunk * CHUNK, chunk * CHUNK + 1}) {
+                if (value >= 0) {
+                    bitmap.add(value);
+                    reference.add(value);
+                }
+            }
+        }
+        bitmap.remove(3L * CHUNK);
+        reference.remove(3L * CHUNK);
+
+        assertMatches(bitmap, reference);
+        assertThat(bitmap.contains(3L * CHUNK)).isFalse();
+        assertThat(bitmap.contains(3L * CHUNK - 1)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Rank and page across chunks of both container types - match a sorted set")
+    void rankAndPage_acrossChunks_matchReference() {
+        TreeSet<Long> reference = randomValues(new Random(7), 20_000, 4 * CHUNK);
+        reference.addAll(denseRange(2L * CHUNK, ARRAY_MAX * 2));
+        CompressedBitmap bitmap = toBitmap(reference);
+
+        assertMatches(bitmap, reference);
+        for (long value : new long[] {0, CHUNK - 1, CHUNK, 2L * CHUNK + 100, 3L * CHUNK + 7,
+                5L * CHUNK}) {
+            assertThat(bitmap.rank(value))
+                    .as("rank of %d", value)
+                    .isEqualTo(reference.headSet(value, true).size());
+        }
+        List<Long> sorted = new ArrayList<>(reference);
+        for (int offset : new int[] {0, 1, 4_000, 4_097, 9_000, sorted.size() - 3,
+                sorted.size()}) {
+            int end = Math.min(sorted.size(), offset + 50);
+            assertThat(bitmap.page(offset, 50))
+                    .as("page at %d", offset)
+                    .isEqualTo(sorted.subList(offset, end));
+        }
+    }
+
+    @Test
+    @DisplayName("And and or of array and bitmap chunks - match set intersection and union")
+    void andOr_mixedContainers_matchReference() {
+        Random random = new Random(11);
+        TreeSet<Long> sparse = randomValues(random, 3_000, 3 * CHUNK);
+        TreeSet<Long> dense = denseRange(0, CHUNK);
+        dense.addAll(randomValues(random, 6_000, 3 * CHUNK));
+        TreeSet<Long> denseToo = randomValues(random, 30_000, CHUNK);
+        List<TreeSet<Long>> sets = List.of(sparse, dense, denseToo);
+        List<CompressedBitmap> bitmaps = sets.stream().map(CompressedBitmapTest::toBitmap)
+                .toList();
+
+        for (int[] pair : new int[][] {{0, 1}, {1, 0}, {1, 2}, {2, 0}, {0, 0}}) {
+            CompressedBitmap left = bitmaps.get(pair[0]);
+            CompressedBitmap right = bitmaps.get(pair[1]);
+            TreeSet<Long> intersection = new TreeSet<>(sets.get(pair[0]));
+            intersection.retainAll(sets.get(pair[1]));
+            TreeSet<Long> union = new TreeSet<>(sets.get(pair[0]));
+            union.addAll(sets.get(pair[1]));
+
+            assertMatches(left.and(right), intersection);
+            assertThat(left.andCardinality(right)).isEqualTo(intersection.size());
+            assertMatches(left.or(right), union);
+        }
+        for (int i = 0; i < sets.size(); i++) {
+            assertMatches(bitmaps.get(i), sets.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Or result changed afterwards - leaves its inputs alone")
+    void or_resultModified_keepsInputs() {
+        TreeSet<Long> values = denseRange(0, 100);
+        CompressedBitmap bitmap = toBitmap(values);
+
+        CompressedBitmap union = bitmap.or(new CompressedBitmap());
+        union.add(500);
+        union.remove(5);
+
+        assertMatches(bitmap, values);
+    }
+
+    private static void assertMatches(CompressedBitmap bitmap, TreeSet<Long> reference) {
+        assertThat(bitmap.cardinality()).isEqualTo(reference.size());
+        assertThat(bitmap.page(0, reference.size() + 1)).containsExactlyElementsOf(reference);
+        List<Long> wrong = new ArrayList<>();
+        for (long value : reference) {
+            if (!bitmap.contains(value) || bitmap.contains(value + 1)
+                    != reference.contains(value + 1)) {
+                wrong.add(value);
+            }
+        }
+        assertThat(wrong).isEmpty();
+    }
+
+    private static CompressedBitmap toBitmap(TreeSet<Long> values) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        values.forEach(bitmap::add);
+        return bitmap;
+    }
+
+    private static TreeSet<Long> randomValues(Random random, int count, long bound) {
+        TreeSet<Long> values = new TreeSet<>();
+        for (int i = 0; i < count; i++) {
+            values.add((long) random.nextInt((int) bound));
+        }
+        return values;
+    }
+
+    private static TreeSet<Long> denseRange(long from, int count) {
+        TreeSet<Long> values = new TreeSet<>();
+        for (long value = from; value < from + count; value++) {
+            values.add(value);
+        }
+        return values;
+    }
+}
@@ -44,6 +44,21 @@ class ShoppingCartRepositoryTest {
                 takeItemsAndGetString(actual));
     }
 
+    @Test
+    @DisplayName("Should return an empty ShoppingCart for a User without cart items")
+    @Sql(scripts = {"classpath:db/cart/repository/delete_existing_carts.sql",
+            "classpath:db/cart/repository/add_empty_shopping_cart.sql"},
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts = {"classpath:db/cart/repository/delete_existing_carts.sql"},
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void findCartViewByUser_UserWithEmptyCart_returnsShoppingCart() {
+        ShoppingCart actual = shoppingCartRepository.findCartViewByUser(1L);
+
+        Assertions.assertNotNull(actual);
+        Assertions.assertEquals(1L, actual.getId());
+        Assertions.assertTrue(actual.getCartItems().isEmpty());
+    }
+
     @Test
     @DisplayName("Should return null for an invalid User ID")
     @Sql(scripts = {"classpath:db/cart/repository/delete_existing_carts.sql"},
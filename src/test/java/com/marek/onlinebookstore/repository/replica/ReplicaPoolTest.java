@@ -0,0 +1,99 @@
+package com.marek.onlinebookstore.repository.replica;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ReplicaPoolTest {
+    private static final Long USER_ID = 7L;
+
+    private Replica first;
+    private Replica second;
+    private ReplicaPool replicaPool;
+
+    @BeforeEach
+    void setUp() {
+        first = new Replica("first", mock(DataSource.class));
+        second = new Replica("second", mock(DataSource.class));
+        first.update(true, 1000);
+        second.update(true, 1000);
+        replicaPool = new ReplicaPool(List.of(first, second), Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Choose - spreads reads over the healthy replicas")
+    void choose_healthyReplicas_alternates() {
+        DataSource one = replicaPool.choose(USER_ID);
+        DataSource two = replicaPool.choose(USER_ID);
+
+        Assertions.assertNotSame(one, two);
+        Assertions.assertTrue(List.of(first.getDataSource(), second.getDataSource())
+                .containsAll(List.of(one, two)));
+    }
+
+    @Test
+    @DisplayName("Choose - skips replicas that are down or too far behind")
+    void choose_unhealthyAndLagging_skipsThem() {
+        first.update(false, Long.MAX_VALUE);
+        second.update(true, 6000);
+
+        Assertions.assertNull(replicaPool.choose(USER_ID));
+
+        second.update(true, 2000);
+        Assertions.assertSame(second.getDataSource(), replicaPool.choose(USER_ID));
+    }
+
+    @Test
+    @DisplayName("Choose after own write - no replica is behind the write, so the primary reads")
+    void choose_userWroteJustNow_returnsNull() {
+        replicaPool.recordWrite(USER_ID);
+
+        Assertions.assertNull(replicaPool.choose(USER_ID));
+        Assertions.assertNotNull(replicaPool.choose(8L));
+    }
+
+    @Test
+    @DisplayName("Choose after own write - a replica that caught up is used again")
+    void choose_replicaCaughtUpWithWrite_returnsReplica() throws InterruptedException {
+        replicaPool.recordWrite(USER_ID);
+        first.update(true, 0);
+        Thread.sleep(10);
+
+        Assertions.assertSame(first.getDataSource(), replicaPool.choose(USER_ID));
+    }
+
+    @Test
+    @DisplayName("Create without replicas - fails fast")
+    void create_noReplicas_throwsException() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ReplicaPool(List.of(), Duration.ofSeconds(5)));
+    }
+
+    @Test
+    @DisplayName("Check a server that is not replicating - marks it unhealthy")
+    void check_noReplicaStatus_marksUnhealthy() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery("SHOW REPLICA STATUS")).thenReturn(mock(ResultSet.class));
+        Replica standalone = new Replica("standalone", dataSource);
+        standalone.update(true, 0);
+
+        new ReplicaPool(List.of(standalone), Duration.ofSeconds(5)).check();
+
+        Assertions.assertFalse(standalone.isHealthy());
+    }
+}
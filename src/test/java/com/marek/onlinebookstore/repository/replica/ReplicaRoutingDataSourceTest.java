@@ -0,0 +1,87 @@
+package com.marek.onlinebookstore.repository.replica;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.marek.onlinebookstore.repository.shard.ShardContext;
+import com.marek.onlinebookstore.security.AuthenticatedUser;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ReplicaRoutingDataSourceTest {
+    private DataSource primary;
+    private DataSource replicaDataSource;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        replicaDataSource = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(mock(Connection.class));
+        when(replicaDataSource.getConnection()).thenReturn(mock(Connection.class));
+        Replica replica = new Replica("replica", replicaDataSource);
+        replica.update(true, 1000);
+        routingDataSource = new ReplicaRoutingDataSource(primary,
+                new ReplicaPool(List.of(replica), Duration.ofSeconds(5)));
+        AuthenticatedUser user = AuthenticatedUser.of(7L, "reader@email.com", List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.authorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Read-only transaction - connection comes from a replica")
+    void getConnection_readOnly_usesReplica() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        routingDataSource.getConnection();
+
+        verify(replicaDataSource).getConnection();
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    @DisplayName("Write then read - the user's next read stays on the primary")
+    void getConnection_readAfterWrite_usesPrimary() throws SQLException {
+        routingDataSource.getConnection();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        routingDataSource.getConnection();
+
+        verifyNoInteractions(replicaDataSource);
+    }
+
+    @Test
+    @DisplayName("Read-only transaction on another shard - stays on that shard's primary")
+    void getConnection_otherShard_usesPrimary() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        ShardContext.callOn("b", () -> {
+            try {
+                return routingDataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        verifyNoInteractions(replicaDataSource);
+        verify(primary).getConnection();
+    }
+}
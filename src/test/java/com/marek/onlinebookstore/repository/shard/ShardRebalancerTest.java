@@ -0,0 +1,126 @@
+package com.marek.onlinebookstore.repository.shard;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+// Runs against two embedded H2 databases in MySQL mode holding the user owned tables
+class ShardRebalancerTest {
+    private static final String SHARD = "b";
+    private static final List<String> SCHEMA = List.of(
+            "CREATE TABLE shopping_carts (id bigint PRIMARY KEY, user_id bigint NOT NULL,"
+                    + " is_deleted bit NOT NULL DEFAULT 0)",
+            "CREATE TABLE cart_items (id bigint PRIMARY KEY, cart_id bigint NOT NULL,"
+                    + " books_id bigint NOT NULL, quantity int NOT NULL,"
+                    + " is_deleted bit NOT NULL DEFAULT 0)",
+            "CREATE TABLE orders (id bigint PRIMARY KEY, user_id bigint NOT NULL,"
+                    + " status varchar(255) NOT NULL, is_deleted bit NOT NULL DEFAULT 0)",
+            "CREATE TABLE order_items (id bigint PRIMARY KEY, order_id bigint NOT NULL,"
+                    + " book_id bigint NOT NULL, is_deleted bit NOT NULL DEFAULT 0)",
+            "CREATE TABLE orders_archive (id bigint PRIMARY KEY, user_id bigint NOT NULL,"
+                    + " status varchar(255) NOT NULL)",
+            "CREATE TABLE order_items_archive (id bigint PRIMARY KEY,"
+                    + " order_id bigint NOT NULL)");
+
+    private JdbcTemplate main;
+    private JdbcTemplate shard;
+    private ShardDirectory shardDirectory;
+    private ShardRebalancer shardRebalancer;
+
+    @BeforeEach
+    void setUp() {
+        DataSource mainDataSource = h2("main");
+        DataSource shardDataSource = h2(SHARD);
+        main = new JdbcTemplate(mainDataSource);
+        shard = new JdbcTemplate(shardDataSource);
+        for (JdbcTemplate database : List.of(main, shard)) {
+            SCHEMA.forEach(database::execute);
+        }
+        shardDirectory = new ShardDirectory(Set.of(ShardContext.MAIN, SHARD),
+                new ShardRing(List.of(ShardContext.MAIN), 16));
+        shardRebalancer = new ShardRebalancer(shardDirectory,
+                Map.of(ShardContext.MAIN, mainDataSource, SHARD, shardDataSource));
+    }
+
+    @Test
+    @DisplayName("Rebalance - moves every row of a user and routes the user to the new shard")
+    void rebalance_newRing_movesUsersWithAllTheirRows() {
+        // Given
+        for (long userId = 1; userId <= 20; userId++) {
+            insertUser(main, userId);
+        }
+        ShardRing target = new ShardRing(List.of(ShardContext.MAIN, SHARD), 16);
+
+        // When
+        int moved = shardRebalancer.rebalance(target);
+
+        // Then
+        Assertions.assertTrue(moved > 0 && moved < 20, "moved " + moved);
+        for (long userId = 1; userId <= 20; userId++) {
+            JdbcTemplate owner = SHARD.equals(target.shardFor(userId)) ? shard : main;
+            JdbcTemplate other = owner == shard ? main : shard;
+            Assertions.assertEquals(1, countRows(owner, userId));
+            Assertions.assertEquals(0, countRows(other, userId));
+            Assertions.assertEquals(target.shardFor(userId), shardDirectory.shardFor(userId));
+        }
+        Assertions.assertEquals(20, count(main, "order_items") + count(shard, "order_items"));
+        Assertions.assertEquals(20, count(main, "cart_items") + count(shard, "cart_items"));
+        Assertions.assertEquals(20, count(main, "order_items_archive")
+                + count(shard, "order_items_archive"));
+    }
+
+    @Test
+    @DisplayName("Rebalance - a user copied before a failure is not duplicated when rerun")
+    void rebalance_rowsAlreadyCopied_isIdempotent() {
+        // Given
+        insertUser(main, 1L);
+        insertUser(shard, 1L);
+
+        // When
+        int moved = shardRebalancer.rebalance(new ShardRing(List.of(SHARD), 16));
+
+        // Then
+        Assertions.assertEquals(1, moved);
+        Assertions.assertEquals(1, count(shard, "orders"));
+        Assertions.assertEquals(1, count(shard, "order_items"));
+        Assertions.assertEquals(0, count(main, "orders"));
+        Assertions.assertEquals(SHARD, shardDirectory.shardFor(1L));
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + System.nanoTime()
+                + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+    }
+
+    // Every user gets one cart, order and archived order, each with one item
+    private static void insertUser(JdbcTemplate database, long userId) {
+        database.update("INSERT INTO shopping_carts (id, user_id) VALUES (?, ?)",
+                userId, userId);
+        database.update("INSERT INTO cart_items (id, cart_id, books_id, quantity)"
+                + " VALUES (?, ?, 1, 1)", userId, userId);
+        database.update("INSERT INTO orders (id, user_id, status) VALUES (?, ?, 'ORDER_PENDING')",
+                userId, userId);
+        database.update("INSERT INTO order_items (id, order_id, book_id) VALUES (?, ?, 1)",
+                userId, userId);
+        database.update("INSERT INTO orders_archive (id, user_id, status)"
+                + " VALUES (?, ?, 'ORDER_COMPLETED')", userId + 1000, userId);
+        database.update("INSERT INTO order_items_archive (id, order_id) VALUES (?, ?)",
+                userId + 1000, userId + 1000);
+    }
+
+    private static int countRows(JdbcTemplate database, long userId) {
+        return database.queryForObject("SELECT COUNT(*) FROM orders WHERE user_id = ?",
+                Integer.class, userId);
+    }
+
+    private static int count(JdbcTemplate database, String table) {
+        return database.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
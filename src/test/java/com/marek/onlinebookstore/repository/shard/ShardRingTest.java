@@ -0,0 +1,52 @@
+package com.marek.onlinebookstore.repository.shard;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ShardRingTest {
+    private static final int USERS = 30_000;
+
+    @Test
+    @DisplayName("Shard for user - spreads users evenly over the shards")
+    void shardFor_manyUsers_spreadsEvenly() {
+        // Given
+        ShardRing ring = new ShardRing(List.of("main", "b", "c"), 160);
+
+        // When
+        Map<String, Integer> users = new HashMap<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            users.merge(ring.shardFor(userId), 1, Integer::sum);
+        }
+
+        // Then
+        Assertions.assertEquals(3, users.size());
+        users.values().forEach(count -> Assertions.assertTrue(
+                Math.abs(count - USERS / 3) < USERS / 3 * 0.15, "unbalanced: " + users));
+    }
+
+    @Test
+    @DisplayName("Add shard - only moves users onto the new shard")
+    void shardFor_addedShard_movesAboutOneQuarterToIt() {
+        // Given
+        ShardRing before = new ShardRing(List.of("main", "b", "c"), 160);
+        ShardRing after = new ShardRing(List.of("main", "b", "c", "d"), 160);
+
+        // When
+        int moved = 0;
+        for (long userId = 1; userId <= USERS; userId++) {
+            String shard = after.shardFor(userId);
+            if (!shard.equals(before.shardFor(userId))) {
+                Assertions.assertEquals("d", shard);
+                moved++;
+            }
+        }
+
+        // Then
+        Assertions.assertTrue(Math.abs(moved - USERS / 4) < USERS / 4 * 0.2,
+                "moved " + moved);
+    }
+}
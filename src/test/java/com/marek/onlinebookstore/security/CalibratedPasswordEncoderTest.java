@@ -0,0 +1,42 @@
+package com.marek.onlinebookstore.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class CalibratedPasswordEncoderTest {
+    private static final String PASSWORD = "password";
+
+    @Test
+    @DisplayName("Upgrade encoding - only hashes with a lower cost are rehashed")
+    void upgradeEncoding_lowerCost_returnsTrue() {
+        CalibratedPasswordEncoder encoder = new CalibratedPasswordEncoder(5);
+
+        assertThat(encoder.upgradeEncoding(encoder.encode(PASSWORD))).isFalse();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode(PASSWORD)))
+                .isTrue();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode(PASSWORD)))
+                .isFalse();
+    }
+
+    @Test
+    @DisplayName("Matches - hashes of another cost still verify")
+    void matches_otherCost_returnsTrue() {
+        CalibratedPasswordEncoder encoder = new CalibratedPasswordEncoder(5);
+
+        assertThat(encoder.matches(PASSWORD, new BCryptPasswordEncoder(4).encode(PASSWORD)))
+                .isTrue();
+        assertThat(encoder.matches("wrong", encoder.encode(PASSWORD))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Calibrated - never goes below the default BCrypt cost")
+    void calibrated_tinyTarget_usesMinimumStrength() {
+        CalibratedPasswordEncoder encoder = CalibratedPasswordEncoder.calibrated(Duration.ZERO);
+
+        assertThat(encoder.getStrength()).isEqualTo(CalibratedPasswordEncoder.MIN_STRENGTH);
+    }
+}
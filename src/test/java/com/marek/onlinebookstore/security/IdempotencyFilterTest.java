@@ -0,0 +1,103 @@
+package com.marek.onlinebookstore.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.marek.onlinebookstore.service.idempotency.IdempotencyClaim;
+import com.marek.onlinebookstore.service.idempotency.IdempotencyService;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class IdempotencyFilterTest {
+    private static final String BODY = "{\"shippingAddress\":\"Street 1\"}";
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Non-blocking read of the cached body - delivers it through the read listener")
+    void doFilter_readListener_readsCachedBody() throws Exception {
+        IdempotencyService idempotencyService = mock(IdempotencyService.class);
+        when(idempotencyService.claim(anyString(), anyString()))
+                .thenReturn(IdempotencyClaim.of(IdempotencyClaim.Outcome.EXECUTE));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("user@example.com", null));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/orders");
+        request.setServletPath("/orders");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-1");
+        request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicBoolean allDataRead = new AtomicBoolean();
+
+        new IdempotencyFilter(idempotencyService).doFilter(request,
+                new MockHttpServletResponse(), (filteredRequest, filteredResponse) -> {
+                    ServletInputStream input = filteredRequest.getInputStream();
+                    input.setReadListener(new ReadListener() {
+                        @Override
+                        public void onDataAvailable() throws IOException {
+                            while (input.isReady() && !input.isFinished()) {
+                                read.write(input.read());
+                            }
+                        }
+
+                        @Override
+                        public void onAllDataRead() {
+                            allDataRead.set(true);
+                        }
+
+                        @Override
+                        public void onError(Throwable throwable) {
+                            throw new IllegalStateException(throwable);
+                        }
+                    });
+                });
+
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo(BODY);
+        assertThat(allDataRead).isTrue();
+    }
+
+    @Test
+    @DisplayName("Body over the size limit - is rejected with 413 before it is claimed")
+    void doFilter_oversizedBody_rejected() throws Exception {
+        IdempotencyService idempotencyService = mock(IdempotencyService.class);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("user@example.com", null));
+        AtomicBoolean chainCalled = new AtomicBoolean();
+        for (boolean chunked : new boolean[] {false, true}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/orders") {
+                @Override
+                public long getContentLengthLong() {
+                    return chunked ? -1 : super.getContentLengthLong();
+                }
+            };
+            request.setServletPath("/orders");
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-1");
+            request.setContent(new byte[64 * 1024 + 1]);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            new IdempotencyFilter(idempotencyService).doFilter(request, response,
+                    (filteredRequest, filteredResponse) -> chainCalled.set(true));
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        }
+        assertThat(chainCalled).isFalse();
+        verifyNoInteractions(idempotencyService);
+    }
+}
@@ -0,0 +1,84 @@
+package com.marek.onlinebookstore.security.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.marek.onlinebookstore.config.RateLimitProperties;
+import com.marek.onlinebookstore.security.AuthenticatedUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class RateLimitFilterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FilterChain filterChain = mock(FilterChain.class);
+    private final RateLimitFilter filter = new RateLimitFilter(new RateLimitProperties(true, 100,
+            Map.of("search", new RateLimitProperties.Policy(
+                    List.of("/books/search", "/category/*/books"), 1, 0.1))), meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Request over the limit - answered 429 with Retry-After")
+    void doFilter_overLimit_returnsTooManyRequests() throws Exception {
+        filter.doFilter(request("/category/4/books"), new MockHttpServletResponse(),
+                filterChain);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("/category/5/books"), response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("10");
+        verify(filterChain, times(1)).doFilter(any(), any());
+        assertThat(meterRegistry.get("rate-limit.rejected").tag("policy", "search")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Signed in user - limited by id, not by the shared client IP")
+    void doFilter_authenticatedUser_limitedById() throws Exception {
+        filter.doFilter(request("/books/search"), new MockHttpServletResponse(), filterChain);
+        AuthenticatedUser user = AuthenticatedUser.of(3L, "reader@email.com",
+                List.of("ROLE_USER"));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.authorities()));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("/books/search"), response, filterChain);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        verify(filterChain, times(2)).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("Request outside every policy - never limited")
+    void doFilter_unlimitedPath_passes() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            filter.doFilter(request("/books/1"), new MockHttpServletResponse(), filterChain);
+        }
+
+        verify(filterChain, times(5)).doFilter(any(), any());
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        request.setRemoteAddr("10.0.0.1");
+        return request;
+    }
+}
@@ -0,0 +1,69 @@
+package com.marek.onlinebookstore.security.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long now = System.nanoTime();
+
+    @Test
+    @DisplayName("Try acquire - allows a burst of capacity, then one request per interval")
+    void tryAcquire_burst_limitsToCapacity() {
+        RateLimiter limiter = new RateLimiter(3, 1, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("10.0.0.1", now)).isZero();
+        }
+        assertThat(limiter.tryAcquire("10.0.0.1", now)).isEqualTo(SECOND);
+        assertThat(limiter.tryAcquire("10.0.0.1", now + SECOND)).isZero();
+        assertThat(limiter.tryAcquire("10.0.0.1", now + SECOND)).isPositive();
+    }
+
+    @Test
+    @DisplayName("Try acquire - each caller has a bucket of its own")
+    void tryAcquire_differentKeys_limitedSeparately() {
+        RateLimiter limiter = new RateLimiter(1, 1, 100);
+
+        assertThat(limiter.tryAcquire(7L, now)).isZero();
+        assertThat(limiter.tryAcquire(7L, now)).isPositive();
+        assertThat(limiter.tryAcquire("10.0.0.1", now)).isZero();
+    }
+
+    @Test
+    @DisplayName("Try acquire with full table - lets new callers through and drops idle ones")
+    void tryAcquire_fullTable_staysBounded() {
+        RateLimiter limiter = new RateLimiter(1, 1, 2);
+        limiter.tryAcquire("a", now);
+        limiter.tryAcquire("b", now);
+
+        assertThat(limiter.tryAcquire("c", now)).isZero();
+        assertThat(limiter.tryAcquire("d", now)).isZero();
+        assertThat(limiter.tryAcquire("d", now)).isZero();
+        assertThat(limiter.tryAcquire("a", now)).isPositive();
+        assertThat(limiter.size()).isEqualTo(2);
+        assertThat(limiter.untracked()).isEqualTo(3);
+
+        limiter.tryAcquire("e", now + 2 * SECOND);
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Remove idle - keeps callers whose bucket is not full again")
+    void removeIdle_refilledBuckets_removed() {
+        RateLimiter limiter = new RateLimiter(2, 1, 100);
+        limiter.tryAcquire("idle", now);
+        limiter.tryAcquire("busy", now + SECOND);
+        limiter.tryAcquire("busy", now + SECOND);
+
+        limiter.removeIdle(now + 2 * SECOND);
+
+        assertThat(limiter.size()).isEqualTo(1);
+        assertThat(limiter.tryAcquire("busy", now + 2 * SECOND)).isZero();
+        assertThat(limiter.tryAcquire("busy", now + 2 * SECOND)).isPositive();
+    }
+}
@@ -0,0 +1,112 @@
+package com.marek.onlinebookstore.security.token;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.marek.onlinebookstore.model.Role;
+import com.marek.onlinebookstore.model.RoleName;
+import com.marek.onlinebookstore.model.User;
+import com.marek.onlinebookstore.repository.token.RevokedTokenRepository;
+import com.marek.onlinebookstore.security.AuthenticatedUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class JwtAuthenticationFilterTest {
+    private static final String SECRET = "afadsgfdgsfaafdgdsdadfasdfasdfdfasdfasdfs";
+    private static final Long USER_ID = 3L;
+    private static final String EMAIL = "reader@email.com";
+
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private final FilterChain filterChain = mock(FilterChain.class);
+    private final TokenRevocations tokenRevocations =
+            new TokenRevocations(mock(RevokedTokenRepository.class));
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+        filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService,
+                new TokenCache(new SimpleMeterRegistry(), true, 64), tokenRevocations);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Token with id and roles - principal is built from the claims alone")
+    void doFilter_tokenWithClaims_authenticatesWithoutLookup() throws Exception {
+        String token = jwtUtil.generateToken(
+                AuthenticatedUser.of(USER_ID, EMAIL, List.of("ROLE_USER")));
+
+        filter.doFilter(request(token), new MockHttpServletResponse(), filterChain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getPrincipal())
+                .isEqualTo(AuthenticatedUser.of(USER_ID, EMAIL, List.of("ROLE_USER")));
+        assertThat(authentication.getAuthorities()).extracting("authority")
+                .containsExactly("ROLE_USER");
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    @DisplayName("Token issued before the claims - user is loaded once by email")
+    void doFilter_tokenWithoutClaims_loadsUser() throws Exception {
+        Role role = new Role();
+        role.setName(RoleName.ROLE_ADMIN);
+        User user = new User();
+        user.setId(USER_ID);
+        user.setEmail(EMAIL);
+        user.setRoles(Set.of(role));
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(user);
+        String token = jwtUtil.generateToken(EMAIL, Map.of());
+
+        filter.doFilter(request(token), new MockHttpServletResponse(), filterChain);
+
+        AuthenticatedUser principal = (AuthenticatedUser) SecurityContextHolder.getContext()
+                .getAuthentication().getPrincipal();
+        assertThat(principal.id()).isEqualTo(USER_ID);
+        assertThat(principal.roles()).containsExactly("ROLE_ADMIN");
+        verify(userDetailsService).loadUserByUsername(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Revoked token - request stays unauthenticated")
+    void doFilter_revokedToken_doesNotAuthenticate() throws Exception {
+        String token = jwtUtil.generateToken(
+                AuthenticatedUser.of(USER_ID, EMAIL, List.of("ROLE_USER")));
+        tokenRevocations.revoke(JwtUtil.digest(token), LocalDateTime.now().plusHours(1));
+
+        filter.doFilter(request(token), new MockHttpServletResponse(), filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(filterChain).doFilter(any(), any());
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,96 @@
+package com.marek.onlinebookstore.security.token;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.marek.onlinebookstore.security.AuthenticatedUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TokenCacheTest {
+    private static final AuthenticatedUser PRINCIPAL =
+            AuthenticatedUser.of(1L, "reader@email.com", List.of("ROLE_USER"));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    @Test
+    @DisplayName("Repeated token - verified once, then served from the cache")
+    void get_repeatedToken_verifiesOnce() {
+        TokenCache tokenCache = new TokenCache(meterRegistry, true, 64);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(tokenCache.get("hot", verifier(60_000))).isEqualTo(PRINCIPAL);
+        }
+
+        assertThat(verifications).hasValue(1);
+        assertThat(tokenCache.hitRatio()).isEqualTo(2.0 / 3);
+        assertThat(meterRegistry.get("security.token.verify").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Expired token - is dropped and verified again")
+    void get_expiredToken_verifiesAgain() {
+        TokenCache tokenCache = new TokenCache(meterRegistry, true, 64);
+
+        tokenCache.get("old", verifier(-1));
+        tokenCache.get("old", verifier(-1));
+
+        assertThat(verifications).hasValue(2);
+        assertThat(meterRegistry.get("security.token.cache.evictions")
+                .tag("cause", "expired").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Burst of one-off tokens - does not push out a frequently used token")
+    void get_oneOffTokens_keepFrequentToken() {
+        TokenCache tokenCache = new TokenCache(meterRegistry, true, 64);
+
+        for (int i = 0; i < 1000; i++) {
+            if (i % 100 == 0) {
+                tokenCache.get("hot", verifier(60_000));
+            }
+            tokenCache.get("one-off-" + i, verifier(60_000));
+        }
+        verifications.set(0);
+        tokenCache.get("hot", verifier(60_000));
+
+        assertThat(verifications).hasValue(0);
+        assertThat(tokenCache.size()).isLessThanOrEqualTo(64);
+    }
+
+    @Test
+    @DisplayName("Invalidated token - is verified on its next use")
+    void invalidate_cachedToken_verifiesAgain() {
+        TokenCache tokenCache = new TokenCache(meterRegistry, true, 64);
+        tokenCache.get("token", verifier(60_000));
+
+        tokenCache.invalidate("token");
+        tokenCache.get("token", verifier(60_000));
+
+        assertThat(verifications).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Disabled cache - verifies every time and keeps nothing")
+    void get_disabled_alwaysVerifies() {
+        TokenCache tokenCache = new TokenCache(meterRegistry, false, 64);
+
+        tokenCache.get("token", verifier(60_000));
+        tokenCache.get("token", verifier(60_000));
+
+        assertThat(verifications).hasValue(2);
+        assertThat(tokenCache.size()).isZero();
+    }
+
+    private Supplier<TokenCache.VerifiedToken> verifier(long validForMillis) {
+        return () -> {
+            verifications.incrementAndGet();
+            return new TokenCache.VerifiedToken(PRINCIPAL,
+                    System.currentTimeMillis() + validForMillis);
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.marek.onlinebookstore.security.token;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.marek.onlinebookstore.repository.token.RevokedTokenRepository;
+import java.time.LocalDateTime;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationsTest {
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @InjectMocks
+    private TokenRevocations tokenRevocations;
+
+    @Test
+    @DisplayName("Revoke - stores the digest and rejects it right away")
+    void revoke_token_isRevokedAndStored() {
+        LocalDateTime expiresAt = LocalDateTime.now().plusHours(1);
+
+        tokenRevocations.revoke("digest", expiresAt);
+
+        assertThat(tokenRevocations.isRevoked("digest")).isTrue();
+        assertThat(tokenRevocations.isRevoked("other")).isFalse();
+        verify(revokedTokenRepository).insert("digest", expiresAt);
+    }
+
+    @Test
+    @DisplayName("Refresh - loads revocations from other instances and forgets expired ones")
+    void refresh_storedRevocations_replaceExpired() {
+        tokenRevocations.revoke("expired", LocalDateTime.now().minusSeconds(1));
+        when(revokedTokenRepository.findActive(any()))
+                .thenReturn(Map.of("remote", LocalDateTime.now().plusHours(1)));
+
+        tokenRevocations.refresh();
+
+        assertThat(tokenRevocations.isRevoked("remote")).isTrue();
+        assertThat(tokenRevocations.isRevoked("expired")).isFalse();
+        assertThat(tokenRevocations.size()).isEqualTo(1);
+        verify(revokedTokenRepository).deleteExpired(any());
+    }
+}
@@ -0,0 +1,97 @@
+package com.marek.onlinebookstore.service.book;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marek.onlinebookstore.dto.book.BookDto;
+import com.marek.onlinebookstore.dto.book.CreateBookRequestDto;
+import com.marek.onlinebookstore.repository.book.BookExportRepository;
+import com.marek.onlinebookstore.service.book.exporter.BookExportFormat;
+import com.marek.onlinebookstore.service.book.importer.CsvBookRowReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class BookExportServiceImplTest {
+    @Mock
+    private BookExportRepository bookExportRepository;
+
+    private BookExportServiceImpl bookExportService;
+
+    @BeforeEach
+    void setUp() {
+        bookExportService = new BookExportServiceImpl(bookExportRepository, new ObjectMapper());
+        doAnswer(invocation -> {
+            Consumer<BookDto> consumer = invocation.getArgument(0);
+            consumer.accept(getBook(1L, "Witcher, The", "Saga \"part one\"", 1L, 2L));
+            consumer.accept(getBook(2L, "Dune", "Spice"));
+            return null;
+        }).when(bookExportRepository).forEachBook(any());
+    }
+
+    @Test
+    @DisplayName("Export as NDJSON - writes one JSON document per book")
+    void export_ndjson_writesOneLinePerBook() throws IOException {
+        String actual = export(BookExportFormat.NDJSON);
+
+        List<String> lines = actual.lines().toList();
+        assertThat(lines).hasSize(2);
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertThat(objectMapper.readValue(lines.get(0), BookDto.class))
+                .isEqualTo(getBook(1L, "Witcher, The", "Saga \"part one\"", 1L, 2L));
+        assertThat(objectMapper.readValue(lines.get(1), BookDto.class).getCategoriesId())
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Export as CSV - escapes fields and can be imported back")
+    void export_csv_roundTripsThroughImportReader() throws IOException {
+        String actual = export(BookExportFormat.CSV);
+
+        assertThat(actual).startsWith(
+                "id,title,author,isbn,price,description,coverImage,categoriesId\n"
+                + "1,\"Witcher, The\",Author,isbn-1,19.90,"
+                + "\"Saga \"\"part one\"\"\",cover.png,1;2\n");
+        CsvBookRowReader reader = new CsvBookRowReader(new StringReader(actual));
+        CreateBookRequestDto first = reader.next();
+        assertThat(first.title()).isEqualTo("Witcher, The");
+        assertThat(first.description()).isEqualTo("Saga \"part one\"");
+        assertThat(first.categoriesId()).containsExactly(1L, 2L);
+        assertThat(reader.next().isbn()).isEqualTo("isbn-2");
+        assertThat(reader.next()).isNull();
+    }
+
+    private String export(BookExportFormat format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        bookExportService.export(format, output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private static BookDto getBook(Long id, String title, String description,
+                                   Long... categoryIds) {
+        BookDto book = new BookDto();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor("Author");
+        book.setIsbn("isbn-" + id);
+        book.setPrice(new BigDecimal("19.90"));
+        book.setDescription(description);
+        book.setCoverImage("cover.png");
+        book.setCategoriesId(new LinkedHashSet<>(List.of(categoryIds)));
+        return book;
+    }
+}
@@ -0,0 +1,177 @@
+package com.marek.onlinebookstore.service.book;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marek.onlinebookstore.dto.book.BookImportErrorDto;
+import com.marek.onlinebookstore.dto.book.BookImportStatusDto;
+import com.marek.onlinebookstore.dto.book.CreateBookRequestDto;
+import com.marek.onlinebookstore.repository.book.BookBatchRepository;
+import com.marek.onlinebookstore.repository.book.BookRepository;
+import com.marek.onlinebookstore.repository.book.index.BookIndexManager;
+import com.marek.onlinebookstore.repository.category.CategoryRepository;
+import jakarta.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class BookImportServiceImplTest {
+    private static final String CSV_HEADER =
+            "title,author,isbn,price,description,coverImage,categoriesId\n";
+
+    @Mock
+    private BookBatchRepository bookBatchRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private BookIndexManager bookIndexManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BookImportServiceImpl bookImportService;
+
+    @BeforeEach
+    void setUp() {
+        bookImportService = new BookImportServiceImpl(bookBatchRepository, bookRepository,
+                categoryRepository, bookIndexManager, transactionManager,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper());
+        when(categoryRepository.findAllIds()).thenReturn(Set.of(1L, 2L));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookImportService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Import CSV - writes valid rows and reports invalid ones by row number")
+    void importBooks_csvWithInvalidRows_writesValidRowsAndReportsErrors() {
+        List<List<CreateBookRequestDto>> batches = captureBatches();
+
+        BookImportStatusDto actual = bookImportService.importBooks(input(CSV_HEADER
+                + "\"Witcher, The\",Andrzej Sapkowski,111,19.99,\"Saga,\n\"\"part one\"\"\","
+                + "cover.png,1;2\n"
+                + "Dune,Frank Herbert,222,cheap,Spice,cover.png,1\n"
+                + "Emma,Jane Austen,333,9.99,Novel,cover.png,7\n"
+                + "Ulysses,James Joyce,,12.00,Novel,cover.png,\n"
+                + "\n"
+                + "Lalka,Boleslaw Prus,444,25,Novel,cover.png,2\n"), "text/csv");
+
+        assertThat(actual.status()).isEqualTo("COMPLETED");
+        assertThat(actual.rowsRead()).isEqualTo(5);
+        assertThat(actual.rowsWritten()).isEqualTo(2);
+        assertThat(actual.rowsFailed()).isEqualTo(3);
+        assertThat(actual.errors()).containsExactly(
+                new BookImportErrorDto(3, "Invalid price: cheap"),
+                new BookImportErrorDto(4, "Category not found with id: 7"),
+                new BookImportErrorDto(5, "isbn must not be blank"));
+        assertThat(batches).hasSize(1);
+        CreateBookRequestDto witcher = batches.get(0).get(0);
+        assertThat(witcher.title()).isEqualTo("Witcher, The");
+        assertThat(witcher.description()).isEqualTo("Saga,\n\"part one\"");
+        assertThat(witcher.price()).isEqualByComparingTo(new BigDecimal("19.99"));
+        assertThat(witcher.categoriesId()).containsExactly(1L, 2L);
+        assertThat(batches.get(0).get(1).isbn()).isEqualTo("444");
+    }
+
+    @Test
+    @DisplayName("Import NDJSON - skips malformed lines and keeps the last row per ISBN")
+    void importBooks_ndjson_deduplicatesIsbnWithinBatch() {
+        List<List<CreateBookRequestDto>> batches = captureBatches();
+
+        BookImportStatusDto actual = bookImportService.importBooks(input("""
+                {"title":"Dune","author":"Frank Herbert","isbn":"222","price":10,\
+                "description":"Spice","coverImage":"cover.png","categoriesId":[1]}
+                {"title":"Dune
+                {"title":"Dune 2","author":"Frank Herbert","isbn":"222","price":12,\
+                "description":"Spice","coverImage":"cover.png"}
+                """), "application/x-ndjson");
+
+        assertThat(actual.status()).isEqualTo("COMPLETED");
+        assertThat(actual.rowsRead()).isEqualTo(3);
+        assertThat(actual.rowsWritten()).isEqualTo(1);
+        assertThat(actual.rowsFailed()).isEqualTo(1);
+        assertThat(actual.errors()).extracting(BookImportErrorDto::row).containsExactly(2L);
+        assertThat(batches).singleElement().satisfies(batch -> assertThat(batch)
+                .extracting(CreateBookRequestDto::title).containsExactly("Dune 2"));
+    }
+
+    @Test
+    @DisplayName("Import more rows than a batch - writes several batches")
+    void importBooks_manyRows_writesInBatches() {
+        final List<List<CreateBookRequestDto>> batches = captureBatches();
+        StringBuilder csv = new StringBuilder(CSV_HEADER);
+        int rows = BookImportServiceImpl.BATCH_SIZE * 2 + 5;
+        for (int i = 0; i < rows; i++) {
+            csv.append("Book ").append(i).append(",Author,isbn-").append(i)
+                    .append(",10,Description,cover.png,1\n");
+        }
+
+        BookImportStatusDto actual = bookImportService.importBooks(input(csv.toString()),
+                "text/csv");
+
+        assertThat(actual.status()).isEqualTo("COMPLETED");
+        assertThat(actual.rowsWritten()).isEqualTo(rows);
+        assertThat(batches).extracting(List::size).containsExactly(
+                BookImportServiceImpl.BATCH_SIZE, BookImportServiceImpl.BATCH_SIZE, 5);
+        verify(bookRepository, times(3)).findAllByIsbnIn(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Import when the database rejects a batch - marks the job as failed")
+    void importBooks_writeFails_marksJobFailed() {
+        when(bookBatchRepository.upsertAll(anyCollection()))
+                .thenThrow(new DataIntegrityViolationException("Data too long for column"));
+
+        BookImportStatusDto actual = bookImportService.importBooks(input(CSV_HEADER
+                + "Dune,Frank Herbert,222,10,Spice,cover.png,1\n"), "text/csv");
+
+        assertThat(actual.status()).isEqualTo("FAILED");
+        assertThat(actual.rowsWritten()).isZero();
+        assertThat(actual.errors()).singleElement().satisfies(error ->
+                assertThat(error.message()).contains("Data too long for column"));
+        assertThat(bookImportService.getStatus(actual.id())).isEqualTo(actual);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<CreateBookRequestDto>> captureBatches() {
+        List<List<CreateBookRequestDto>> batches = new ArrayList<>();
+        ArgumentCaptor<Collection<CreateBookRequestDto>> captor =
+                ArgumentCaptor.forClass(Collection.class);
+        when(bookBatchRepository.upsertAll(captor.capture())).thenAnswer(invocation -> {
+            batches.add(List.copyOf(invocation.<Collection<CreateBookRequestDto>>getArgument(0)));
+            return null;
+        });
+        return batches;
+    }
+
+    private static InputStream input(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
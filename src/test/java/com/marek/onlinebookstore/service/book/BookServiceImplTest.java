@@ -2,6 +2,9 @@ package com.marek.onlinebookstore.service.book;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -9,12 +12,18 @@ import static org.mockito.Mockito.when;
 
 import com.marek.onlinebookstore.dto.book.BookDto;
 import com.marek.onlinebookstore.dto.book.BookDtoWithoutCategoryIds;
+import com.marek.onlinebookstore.dto.book.BookSearchParametersDto;
+import com.marek.onlinebookstore.dto.book.BookSearchResultDto;
 import com.marek.onlinebookstore.dto.book.CreateBookRequestDto;
 import com.marek.onlinebookstore.exception.EntityNotFoundException;
 import com.marek.onlinebookstore.mapper.BookMapper;
 import com.marek.onlinebookstore.model.Book;
 import com.marek.onlinebookstore.model.Category;
 import com.marek.onlinebookstore.repository.book.BookRepository;
+import com.marek.onlinebookstore.repository.book.BookSpecificationBuilder;
+import com.marek.onlinebookstore.repository.book.index.BookFacetIndex;
+import com.marek.onlinebookstore.repository.book.index.BookIndexManager;
+import com.marek.onlinebookstore.repository.book.index.BookSearchIndex;
 import com.marek.onlinebookstore.repository.category.CategoryRepository;
 import java.math.BigDecimal;
 import java.util.HashSet;
@@ -32,6 +41,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 
 @ExtendWith(MockitoExtension.class)
 class BookServiceImplTest {
@@ -54,6 +64,18 @@ class BookServiceImplTest {
     @Mock
     private BookMapper bookMapper;
 
+    @Mock
+    private BookIndexManager bookIndexManager;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private BookFacetIndex bookFacetIndex;
+
+    @Mock
+    private BookSpecificationBuilder bookSpecificationBuilder;
+
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -218,6 +240,27 @@ class BookServiceImplTest {
         verifyNoMoreInteractions(bookRepository);
     }
 
+    @Test
+    @DisplayName("Search by author only - keeps using the database, not the facet index")
+    public void searchBooks_authorOnly_queriesDatabase() {
+        BookSearchParametersDto searchParameters = new BookSearchParametersDto(
+                null, null, new String[]{AUTHOR}, null, null, null, false);
+        Pageable pageable = PageRequest.of(0, 10);
+        Specification<Book> specification = Specification.where(null);
+        Book book = getBook();
+        BookDto bookDto = new BookDto();
+        when(bookFacetIndex.isReady()).thenReturn(true);
+        when(bookSpecificationBuilder.build(searchParameters)).thenReturn(specification);
+        when(bookRepository.findAll(specification, pageable))
+                .thenReturn(new PageImpl<>(List.of(book)));
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+
+        BookSearchResultDto actual = bookService.searchBooks(searchParameters, pageable);
+
+        assertThat(actual.books()).containsExactly(bookDto);
+        verify(bookFacetIndex, never()).findIds(any(), any(), any(), anyLong(), anyInt());
+    }
+
     @Test
     @DisplayName("Find books by invalid category ID - throws EntityNotFoundException")
     public void findByCategoryId_withIncorrectCategoryId_throwException() {
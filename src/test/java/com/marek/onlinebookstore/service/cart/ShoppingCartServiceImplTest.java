@@ -21,6 +21,7 @@ import com.marek.onlinebookstore.model.User;
 import com.marek.onlinebookstore.repository.book.BookRepository;
 import com.marek.onlinebookstore.repository.cart.CartItemRepository;
 import com.marek.onlinebookstore.repository.cart.ShoppingCartRepository;
+import com.marek.onlinebookstore.service.inventory.InventoryService;
 import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Optional;
@@ -62,6 +63,8 @@ class ShoppingCartServiceImplTest {
     private CartItemMapper cartItemMapper;
     @Mock
     private BookRepository bookRepository;
+    @Mock
+    private InventoryService inventoryService;
 
     @InjectMocks
     private ShoppingCartServiceImpl shoppingCartService;
@@ -75,16 +78,16 @@ class ShoppingCartServiceImplTest {
         ShoppingCart shoppingCart = getShoppingCart(user);
         ShoppingCartDto expected = getShoppingCartDto(user, Set.of());
 
-        when(shoppingCartRepository.findShoppingCartByUser(user.getId()))
+        when(shoppingCartRepository.findCartViewByUser(user.getId()))
                 .thenReturn(shoppingCart);
         when(shoppingCartMapper.toDto(shoppingCart)).thenReturn(expected);
 
-        ShoppingCartDto actual = shoppingCartService.findUserCart(user);
+        ShoppingCartDto actual = shoppingCartService.findUserCart(user.getId());
 
         Assertions.assertEquals(expected, actual);
         Assertions.assertEquals(user.getId(), actual.userId());
 
-        verify(shoppingCartRepository, times(1)).findShoppingCartByUser(user.getId());
+        verify(shoppingCartRepository, times(1)).findCartViewByUser(user.getId());
         verify(shoppingCartMapper, times(1)).toDto(shoppingCart);
         verifyNoMoreInteractions(shoppingCartRepository, shoppingCartMapper);
     }
@@ -113,7 +116,7 @@ class ShoppingCartServiceImplTest {
         when(shoppingCartRepository.save(shoppingCart)).thenReturn(shoppingCart);
         when(shoppingCartMapper.toDto(shoppingCart)).thenReturn(expected);
 
-        ShoppingCartDto actual = shoppingCartService.addItem(user, cartItemRequestDto);
+        ShoppingCartDto actual = shoppingCartService.addItem(user.getId(), cartItemRequestDto);
 
         Assertions.assertNotNull(actual);
         Assertions.assertEquals(expected, actual);
@@ -152,7 +155,7 @@ class ShoppingCartServiceImplTest {
                 () -> bookRepository.findById(book.getId())
         );
         Exception actual = Assertions.assertThrows(EntityNotFoundException.class,
-                () -> shoppingCartService.addItem(user, cartItemRequestDto)
+                () -> shoppingCartService.addItem(user.getId(), cartItemRequestDto)
         );
 
         Assertions.assertEquals(expected, actual);
@@ -188,9 +191,26 @@ class ShoppingCartServiceImplTest {
         verify(cartItemRepository, times(1)).findById(ID);
         verify(cartItemRepository, times(1)).save(cartItem);
         verify(cartItemMapper, times(1)).toDto(cartItem);
+        verify(inventoryService).hold(ID, book.getId(), 1);
         verifyNoMoreInteractions(cartItemRepository, cartItemMapper);
     }
 
+    @Test
+    @DisplayName("""
+            Delete item releases the stock held for it
+            """)
+    void deleteById_existingItem_releasesHold() {
+        Book book = getBook();
+        CartItem cartItem = getCartItem(getShoppingCart(getUser()), book);
+        cartItem.setId(ID);
+        when(cartItemRepository.findById(ID)).thenReturn(Optional.of(cartItem));
+
+        shoppingCartService.deleteById(ID);
+
+        verify(cartItemRepository).delete(cartItem);
+        verify(inventoryService).release(ID, book.getId(), QUANTITY);
+    }
+
     @Test
     @DisplayName("""
             Update item quantity with invalid input throws EntityNotFoundException
@@ -10,8 +10,10 @@ import com.marek.onlinebookstore.dto.category.CreateCategoryRequestDto;
 import com.marek.onlinebookstore.exception.EntityNotFoundException;
 import com.marek.onlinebookstore.mapper.CategoryMapper;
 import com.marek.onlinebookstore.model.Category;
+import com.marek.onlinebookstore.repository.KeysetCursor;
 import com.marek.onlinebookstore.repository.category.CategoryRepository;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
@@ -20,10 +22,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
 @ExtendWith(MockitoExtension.class)
 class CategoryServiceImplTest {
@@ -63,6 +70,30 @@ class CategoryServiceImplTest {
         verifyNoMoreInteractions(categoryRepository, categoryMapper);
     }
 
+    @Test
+    @DisplayName("Find all categories after cursor - seeks past the cursor id")
+    public void findAll_withCursor_seeksAfterCursorId() {
+        // Given
+        Category category = getCategory();
+        CategoryDto expected = getCategoryDtoFromCategory(category);
+        KeysetScrollPosition position = ScrollPosition.forward(Map.of("id", 1L));
+        String cursor = KeysetCursor.encode(position);
+        Window<Category> window = Window.from(List.of(category),
+                index -> ScrollPosition.forward(Map.of("id", category.getId())), true);
+
+        when(categoryRepository.findAllBy(position, Sort.by("id"), Limit.of(1)))
+                .thenReturn(window);
+        when(categoryMapper.toDto(category)).thenReturn(expected);
+
+        // When
+        Window<CategoryDto> actual = categoryService.findAll(cursor, 1);
+
+        // Then
+        Assertions.assertEquals(List.of(expected), actual.getContent());
+        Assertions.assertEquals(ScrollPosition.forward(Map.of("id", category.getId())),
+                KeysetCursor.decode(KeysetCursor.nextCursor(actual), Map.of("id", Long.class)));
+    }
+
     @Test
     @DisplayName("Get category by valid ID - returns CategoryDto")
     public void getById_withCorrectId_returnsCategoryDto() {
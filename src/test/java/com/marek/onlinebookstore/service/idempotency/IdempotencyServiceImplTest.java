@@ -0,0 +1,101 @@
+package com.marek.onlinebookstore.service.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.marek.onlinebookstore.repository.idempotency.IdempotencyKeyRepository;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceImplTest {
+    private static final String KEY = "key";
+    private static final String REQUEST_HASH = "request";
+    private static final StoredResponse RESPONSE = new StoredResponse(REQUEST_HASH, 200,
+            "application/json", "{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @InjectMocks
+    private IdempotencyServiceImpl idempotencyService;
+
+    @Test
+    @DisplayName("Claim after completion - replays from memory without the database")
+    void claim_completedKey_replaysStoredResponse() {
+        givenNewKey();
+
+        assertThat(idempotencyService.claim(KEY, REQUEST_HASH).outcome())
+                .isEqualTo(IdempotencyClaim.Outcome.EXECUTE);
+        idempotencyService.complete(KEY, RESPONSE);
+        IdempotencyClaim actual = idempotencyService.claim(KEY, REQUEST_HASH);
+
+        assertThat(actual.outcome()).isEqualTo(IdempotencyClaim.Outcome.REPLAY);
+        assertThat(actual.response()).isEqualTo(RESPONSE);
+        assertThat(idempotencyService.claim(KEY, "other request").outcome())
+                .isEqualTo(IdempotencyClaim.Outcome.KEY_REUSED);
+        verify(idempotencyKeyRepository, times(1)).find(eq(KEY), any());
+        verify(idempotencyKeyRepository).complete(eq(KEY), eq(RESPONSE), any());
+    }
+
+    @Test
+    @DisplayName("Concurrent duplicate - waits for the running request and replays it")
+    void claim_duplicateWhileRunning_waitsForResponse() throws Exception {
+        givenNewKey();
+        assertThat(idempotencyService.claim(KEY, REQUEST_HASH).outcome())
+                .isEqualTo(IdempotencyClaim.Outcome.EXECUTE);
+
+        CompletableFuture<IdempotencyClaim> duplicate = CompletableFuture.supplyAsync(
+                () -> idempotencyService.claim(KEY, REQUEST_HASH));
+        Thread.sleep(100);
+        assertThat(duplicate).isNotDone();
+        idempotencyService.complete(KEY, RESPONSE);
+
+        IdempotencyClaim actual = duplicate.get(5, TimeUnit.SECONDS);
+        assertThat(actual.outcome()).isEqualTo(IdempotencyClaim.Outcome.REPLAY);
+        assertThat(actual.response()).isEqualTo(RESPONSE);
+        verify(idempotencyKeyRepository, times(1)).insertInProgress(eq(KEY), eq(REQUEST_HASH),
+                any(), any());
+    }
+
+    @Test
+    @DisplayName("Claim after release - lets the retry execute again")
+    void claim_releasedKey_executesAgain() {
+        givenNewKey();
+
+        idempotencyService.claim(KEY, REQUEST_HASH);
+        idempotencyService.release(KEY);
+
+        assertThat(idempotencyService.claim(KEY, REQUEST_HASH).outcome())
+                .isEqualTo(IdempotencyClaim.Outcome.EXECUTE);
+        verify(idempotencyKeyRepository).delete(KEY);
+    }
+
+    @Test
+    @DisplayName("Claim while another instance runs the key - reports it in progress")
+    void claim_runningOnAnotherInstance_returnsInProgress() {
+        when(idempotencyKeyRepository.find(eq(KEY), any())).thenReturn(
+                Optional.of(new StoredResponse(REQUEST_HASH, 0, null, null)));
+
+        assertThat(idempotencyService.claim(KEY, REQUEST_HASH).outcome())
+                .isEqualTo(IdempotencyClaim.Outcome.IN_PROGRESS);
+    }
+
+    private void givenNewKey() {
+        when(idempotencyKeyRepository.find(eq(KEY), any())).thenReturn(Optional.empty());
+        when(idempotencyKeyRepository.insertInProgress(eq(KEY), eq(REQUEST_HASH), any(), any()))
+                .thenReturn(true);
+    }
+}
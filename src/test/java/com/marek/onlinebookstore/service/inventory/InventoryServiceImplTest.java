@@ -0,0 +1,316 @@
+package com.marek.onlinebookstore.service.inventory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.marek.onlinebookstore.dto.book.BookStockDto;
+import com.marek.onlinebookstore.exception.DataProcessingException;
+import com.marek.onlinebookstore.exception.EntityNotFoundException;
+import com.marek.onlinebookstore.exception.OutOfStockException;
+import com.marek.onlinebookstore.repository.inventory.StockReservationRepository;
+import com.marek.onlinebookstore.repository.shard.ShardContext;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryServiceImplTest {
+    private static final Long USER_ID = 7L;
+    private static final Long ORDER_ID = 100L;
+    private static final Long BOOK_ID = 1L;
+    private static final Long OTHER_BOOK_ID = 2L;
+
+    @Mock
+    private StockReservationRepository stockReservationRepository;
+
+    @Mock
+    private StockJournal stockJournal;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private InventoryServiceImpl inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(inventoryService, "cartHoldEnabled", true);
+        ReflectionTestUtils.setField(inventoryService, "cartHoldTtl", Duration.ofMinutes(15));
+    }
+
+    @Test
+    @DisplayName("Recover - available is stock minus held and sold reservations")
+    void recover_outstandingReservations_subtractsThemFromStock() {
+        when(stockReservationRepository.findStock()).thenReturn(Map.of(BOOK_ID, 10));
+        when(stockReservationRepository.findAll()).thenReturn(List.of(
+                reservation(BOOK_ID, 2, StockReservation.Status.HELD),
+                reservation(BOOK_ID, 3, StockReservation.Status.COMMITTED)));
+
+        inventoryService.recover();
+
+        assertThat(inventoryService.getStock(BOOK_ID))
+                .isEqualTo(new BookStockDto(BOOK_ID, 5, 2, 3));
+        assertThat(inventoryService.getStock(OTHER_BOOK_ID).available()).isNull();
+    }
+
+    @Test
+    @DisplayName("Hold more than available - throws and journals nothing")
+    void hold_notEnoughStock_throwsOutOfStock() {
+        givenStock(Map.of(BOOK_ID, 1));
+
+        assertThatThrownBy(() -> inventoryService.hold(USER_ID, BOOK_ID, 2))
+                .isInstanceOf(OutOfStockException.class);
+        verifyNoInteractions(stockJournal);
+    }
+
+    @Test
+    @DisplayName("Hold when journal fails - gives the units back")
+    void hold_journalFails_givesStockBack() {
+        givenStock(Map.of(BOOK_ID, 4));
+        when(stockJournal.append(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("down")));
+
+        assertThatThrownBy(() -> inventoryService.hold(USER_ID, BOOK_ID, 3))
+                .isInstanceOf(DataProcessingException.class);
+        assertThat(inventoryService.getStock(BOOK_ID).available()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Checkout - turns the hold into a sale and takes only the shortfall")
+    void checkout_withHold_commitsHoldAndShortfall() {
+        givenStock(Map.of(BOOK_ID, 10));
+        when(stockJournal.append(any())).thenReturn(CompletableFuture.completedFuture(null));
+        inventoryService.hold(USER_ID, BOOK_ID, 2);
+        ArgumentCaptor<StockReservation> hold = ArgumentCaptor.forClass(StockReservation.class);
+        verify(stockJournal).append(hold.capture());
+
+        inventoryService.checkout(USER_ID, ORDER_ID, List.of(new StockLine(BOOK_ID, 3)));
+
+        assertThat(inventoryService.getStock(BOOK_ID))
+                .isEqualTo(new BookStockDto(BOOK_ID, 7, 0, 3));
+        verify(stockReservationRepository).deleteAll(List.of(hold.getValue().id()));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<StockReservation>> sold = ArgumentCaptor.forClass(
+                Collection.class);
+        verify(stockReservationRepository).insertAll(sold.capture());
+        assertThat(sold.getValue()).singleElement().satisfies(reservation -> {
+            assertThat(reservation.status()).isEqualTo(StockReservation.Status.COMMITTED);
+            assertThat(reservation.orderId()).isEqualTo(ORDER_ID);
+            assertThat(reservation.quantity()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    @DisplayName("Checkout with one line out of stock - takes nothing and keeps holds")
+    void checkout_lineOutOfStock_takesNothing() {
+        givenStock(Map.of(BOOK_ID, 5, OTHER_BOOK_ID, 1));
+        when(stockJournal.append(any())).thenReturn(CompletableFuture.completedFuture(null));
+        inventoryService.hold(USER_ID, BOOK_ID, 1);
+
+        assertThatThrownBy(() -> inventoryService.checkout(USER_ID, ORDER_ID, List.of(
+                new StockLine(BOOK_ID, 3), new StockLine(OTHER_BOOK_ID, 2))))
+                .isInstanceOf(OutOfStockException.class);
+
+        assertThat(inventoryService.getStock(BOOK_ID))
+                .isEqualTo(new BookStockDto(BOOK_ID, 4, 1, 0));
+        assertThat(inventoryService.getStock(OTHER_BOOK_ID).available()).isEqualTo(1);
+        verify(stockReservationRepository, never()).insertAll(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Checkout sold out by another instance - throws and gives the units back")
+    void checkout_databaseShort_throwsAndRollsBack() {
+        givenStock(Map.of(BOOK_ID, 10));
+        when(stockReservationRepository.lockStock(Set.of(BOOK_ID)))
+                .thenReturn(Map.of(BOOK_ID, 10));
+        when(stockReservationRepository.sumReserved(Set.of(BOOK_ID)))
+                .thenReturn(Map.of(BOOK_ID, 12));
+
+        assertThatThrownBy(() -> inventoryService.checkout(USER_ID, ORDER_ID,
+                List.of(new StockLine(BOOK_ID, 3))))
+                .isInstanceOf(OutOfStockException.class);
+
+        assertThat(inventoryService.getStock(BOOK_ID))
+                .isEqualTo(new BookStockDto(BOOK_ID, 10, 0, 0));
+    }
+
+    @Test
+    @DisplayName("Reconcile - subtracts sold units from the books table")
+    void reconcile_soldReservations_subtractsFromStock() {
+        givenStock(Map.of(BOOK_ID, 10));
+        inventoryService.checkout(USER_ID, ORDER_ID, List.of(new StockLine(BOOK_ID, 3)));
+        StockReservation sold = reservation(BOOK_ID, 3, StockReservation.Status.COMMITTED);
+        when(stockReservationRepository.findCommittedBooks(5000)).thenReturn(List.of(BOOK_ID));
+        when(stockReservationRepository.lockCommitted(List.of(BOOK_ID), 5000))
+                .thenReturn(List.of(sold));
+
+        inventoryService.reconcile();
+
+        verify(stockReservationRepository).lockStock(List.of(BOOK_ID));
+        verify(stockReservationRepository).subtractStock(Map.of(BOOK_ID, 3));
+        verify(stockReservationRepository).deleteAll(List.of(sold.id()));
+        assertThat(inventoryService.getStock(BOOK_ID))
+                .isEqualTo(new BookStockDto(BOOK_ID, 7, 0, 0));
+    }
+
+    @Test
+    @DisplayName("Checkout on a shard - writes on main and undoes it when the order rolls back")
+    void checkout_userOnShard_writesOnMainAndUndoesRollback() {
+        givenStock(Map.of(BOOK_ID, 10));
+        when(stockJournal.append(any())).thenReturn(CompletableFuture.completedFuture(null));
+        inventoryService.hold(USER_ID, BOOK_ID, 2);
+        List<String> shards = new ArrayList<>();
+        doAnswer(invocation -> shards.add(ShardContext.current()))
+                .when(stockReservationRepository).insertAll(anyCollection());
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ShardContext.callOn("shard-1", () -> {
+                inventoryService.checkout(USER_ID, ORDER_ID,
+                        List.of(new StockLine(BOOK_ID, 3)));
+                TransactionSynchronizationManager.getSynchronizations().forEach(
+                        synchronization -> synchronization.afterCompletion(
+                                TransactionSynchronization.STATUS_ROLLED_BACK));
+                return null;
+            });
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(shards).containsExactly(ShardContext.MAIN, ShardContext.MAIN);
+        verify(transactionManager, times(2)).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior()
+                        == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<StockReservation>> written = ArgumentCaptor.forClass(
+                Collection.class);
+        verify(stockReservationRepository, times(2)).insertAll(written.capture());
+        assertThat(written.getAllValues().get(1)).singleElement()
+                .extracting(StockReservation::status).isEqualTo(StockReservation.Status.HELD);
+        assertThat(inventoryService.getStock(BOOK_ID))
+                .isEqualTo(new BookStockDto(BOOK_ID, 8, 2, 0));
+    }
+
+    @Test
+    @DisplayName("Release part of a hold - gives the units back and keeps a smaller hold")
+    void release_partOfHold_replacesHold() {
+        givenStock(Map.of(BOOK_ID, 10));
+        when(stockJournal.append(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(stockJournal.remove(any())).thenReturn(CompletableFuture.completedFuture(null));
+        inventoryService.hold(USER_ID, BOOK_ID, 3);
+
+        inventoryService.release(USER_ID, BOOK_ID, 2);
+
+        assertThat(inventoryService.getStock(BOOK_ID))
+                .isEqualTo(new BookStockDto(BOOK_ID, 9, 1, 0));
+        ArgumentCaptor<StockReservation> holds = ArgumentCaptor.forClass(StockReservation.class);
+        verify(stockJournal, times(2)).append(holds.capture());
+        assertThat(holds.getAllValues().get(1).quantity()).isEqualTo(1);
+        verify(stockJournal).remove(holds.getAllValues().get(0).id());
+    }
+
+    @Test
+    @DisplayName("Hold in a cart change that rolls back - is released again")
+    void hold_transactionRolledBack_releasesHold() {
+        givenStock(Map.of(BOOK_ID, 10));
+        when(stockJournal.append(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(stockJournal.remove(any())).thenReturn(CompletableFuture.completedFuture(null));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            inventoryService.hold(USER_ID, BOOK_ID, 4);
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(
+                            TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(inventoryService.getStock(BOOK_ID))
+                .isEqualTo(new BookStockDto(BOOK_ID, 10, 0, 0));
+        verify(stockJournal).remove(any());
+    }
+
+    @Test
+    @DisplayName("Set stock - writes the new level plus all reservations to books.stock")
+    void setStock_withReservations_addsThemToStock() {
+        givenStock(Map.of(BOOK_ID, 10));
+        inventoryService.checkout(USER_ID, ORDER_ID, List.of(new StockLine(BOOK_ID, 3)));
+        when(stockReservationRepository.lockStock(List.of(BOOK_ID)))
+                .thenReturn(Map.of(BOOK_ID, 10));
+        when(stockReservationRepository.sumReserved(List.of(BOOK_ID)))
+                .thenReturn(Map.of(BOOK_ID, 3));
+
+        BookStockDto actual = inventoryService.setStock(BOOK_ID, 5);
+
+        verify(stockReservationRepository).setStock(BOOK_ID, 8);
+        assertThat(actual).isEqualTo(new BookStockDto(BOOK_ID, 5, 0, 3));
+    }
+
+    @Test
+    @DisplayName("Set stock of a missing book - throws and keeps the counters")
+    void setStock_missingBook_throwsEntityNotFound() {
+        givenStock(Map.of(BOOK_ID, 10));
+
+        assertThatThrownBy(() -> inventoryService.setStock(OTHER_BOOK_ID, 5))
+                .isInstanceOf(EntityNotFoundException.class);
+        verify(stockReservationRepository, never()).setStock(any(), anyInt());
+        assertThat(inventoryService.getStock(OTHER_BOOK_ID).available()).isNull();
+    }
+
+    @Test
+    @DisplayName("Refresh - takes levels written by other instances")
+    void refresh_levelsChanged_adjustsCounters() {
+        givenStock(Map.of(BOOK_ID, 10));
+        when(stockReservationRepository.findLevels()).thenReturn(List.of(
+                new BookStockDto(BOOK_ID, 6, 1, 3),
+                new BookStockDto(OTHER_BOOK_ID, 4, 0, 0)));
+
+        inventoryService.refresh();
+
+        assertThat(inventoryService.getStock(BOOK_ID))
+                .isEqualTo(new BookStockDto(BOOK_ID, 6, 1, 3));
+        assertThat(inventoryService.getStock(OTHER_BOOK_ID))
+                .isEqualTo(new BookStockDto(OTHER_BOOK_ID, 4, 0, 0));
+    }
+
+    private void givenStock(Map<Long, Integer> stock) {
+        when(stockReservationRepository.findStock()).thenReturn(stock);
+        when(stockReservationRepository.findAll()).thenReturn(List.of());
+        inventoryService.recover();
+    }
+
+    private static StockReservation reservation(Long bookId, int quantity,
+                                                StockReservation.Status status) {
+        return new StockReservation(status + "-" + bookId, bookId, USER_ID, quantity, status,
+                status == StockReservation.Status.COMMITTED ? ORDER_ID : null,
+                status == StockReservation.Status.HELD
+                        ? LocalDateTime.now().plusMinutes(15) : null);
+    }
+}
@@ -0,0 +1,104 @@
+package com.marek.onlinebookstore.service.inventory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class StockCounterTest {
+    private static final int THREADS = 16;
+
+    @Test
+    @DisplayName("Concurrent takes - sells exactly the available units")
+    void tryTake_concurrentBuyers_neverOversells() throws Exception {
+        StockCounter counter = new StockCounter(10_000);
+
+        List<Integer> sold = runConcurrently(() -> {
+            int taken = 0;
+            while (counter.tryTake(1)) {
+                taken++;
+            }
+            return taken;
+        });
+
+        assertThat(sold.stream().mapToInt(Integer::intValue).sum()).isEqualTo(10_000);
+        assertThat(counter.available()).isZero();
+        assertThat(counter.tryTake(1)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Concurrent takes of several units - leaves no units unsold")
+    void tryTake_concurrentMultiUnitBuyers_sellsLastUnits() throws Exception {
+        StockCounter counter = new StockCounter(30_000);
+
+        List<Integer> sold = runConcurrently(() -> {
+            int taken = 0;
+            while (counter.tryTake(3)) {
+                taken += 3;
+            }
+            return taken;
+        });
+
+        assertThat(sold.stream().mapToInt(Integer::intValue).sum()).isEqualTo(30_000);
+        assertThat(counter.available()).isZero();
+    }
+
+    @Test
+    @DisplayName("Concurrent takes and gives - no unit is lost or created")
+    void tryTake_concurrentTakeAndGive_keepsUnits() throws Exception {
+        StockCounter counter = new StockCounter(100);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                if (counter.tryTake(3)) {
+                    counter.give(3);
+                }
+            }
+            return 0;
+        });
+
+        assertThat(counter.available()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Take more than available - fails and leaves the units in place")
+    void tryTake_notEnoughUnits_takesNothing() {
+        StockCounter counter = new StockCounter(5);
+
+        assertThat(counter.tryTake(6)).isFalse();
+        assertThat(counter.available()).isEqualTo(5);
+        assertThat(counter.tryTake(5)).isTrue();
+        assertThat(counter.drain()).isZero();
+    }
+
+    private static List<Integer> runConcurrently(Callable<Integer> task)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<Integer> results = new ArrayList<>();
+            for (Future<Integer> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.marek.onlinebookstore.service.order;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.marek.onlinebookstore.repository.order.OrderArchiveRepository;
+import com.marek.onlinebookstore.repository.shard.ShardContext;
+import com.marek.onlinebookstore.repository.shard.ShardDirectory;
+import com.marek.onlinebookstore.repository.shard.ShardExecutor;
+import com.marek.onlinebookstore.repository.shard.ShardRing;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class OrderArchiverTest {
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private OrderArchiveRepository orderArchiveRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ShardExecutor shardExecutor = new ShardExecutor(new ShardDirectory(
+            Set.of(ShardContext.MAIN), new ShardRing(List.of(ShardContext.MAIN), 1)));
+
+    @InjectMocks
+    private OrderArchiver orderArchiver;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(orderArchiver, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(orderArchiver, "completedAfter", Duration.ofDays(180));
+    }
+
+    @Test
+    @DisplayName("Archive - moves full batches until one comes back short")
+    void archive_fullBatches_keepsMovingUntilShortBatch() {
+        // Given
+        when(orderArchiveRepository.findCompletedOrders(any(LocalDateTime.class),
+                eq(BATCH_SIZE))).thenReturn(List.of(1L, 2L), List.of(3L));
+        when(orderArchiveRepository.findDeletedOrders(BATCH_SIZE)).thenReturn(List.of());
+        when(orderArchiveRepository.findDeletedItems(BATCH_SIZE)).thenReturn(List.of(9L));
+        when(orderArchiveRepository.archiveOrders(List.of(1L, 2L))).thenReturn(2);
+        when(orderArchiveRepository.archiveOrders(List.of(3L))).thenReturn(1);
+        when(orderArchiveRepository.archiveItems(List.of(9L))).thenReturn(1);
+
+        // When
+        orderArchiver.archive();
+
+        // Then
+        verify(orderArchiveRepository, times(2))
+                .findCompletedOrders(any(LocalDateTime.class), eq(BATCH_SIZE));
+        verify(orderArchiveRepository).archiveOrders(List.of());
+        verify(orderArchiveRepository).archiveItems(List.of(9L));
+        YearMonth nextMonth = YearMonth.now().plusMonths(1);
+        verify(orderArchiveRepository)
+                .addPartitions(OrderArchiveRepository.ORDERS_ARCHIVE, nextMonth);
+        verify(orderArchiveRepository)
+                .addPartitions(OrderArchiveRepository.ORDER_ITEMS_ARCHIVE, nextMonth);
+    }
+
+    @Test
+    @DisplayName("Drain - returns the number of rows moved and stops on an empty batch")
+    void drain_emptyBatch_stopsAtOnce() {
+        // When
+        int moved = orderArchiver.drain(limit -> List.of(), ids -> ids.size());
+
+        // Then
+        Assertions.assertEquals(0, moved);
+        verify(orderArchiveRepository, never()).archiveOrders(any());
+    }
+}
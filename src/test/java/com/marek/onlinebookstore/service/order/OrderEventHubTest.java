@@ -0,0 +1,104 @@
+package com.marek.onlinebookstore.service.order;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.marek.onlinebookstore.repository.order.OrderStreamRepository;
+import com.marek.onlinebookstore.repository.shard.ShardContext;
+import com.marek.onlinebookstore.repository.shard.ShardDirectory;
+import com.marek.onlinebookstore.repository.shard.ShardExecutor;
+import com.marek.onlinebookstore.repository.shard.ShardRing;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class OrderEventHubTest {
+    private static final Long USER_ID = 4L;
+    private static final Long OTHER_USER_ID = 5L;
+
+    private final OrderStreamRepository orderStreamRepository =
+            mock(OrderStreamRepository.class);
+    private final OrderEventHub orderEventHub = new OrderEventHub(orderStreamRepository,
+            new ShardExecutor(new ShardDirectory(Set.of(ShardContext.MAIN),
+                    new ShardRing(List.of(ShardContext.MAIN), 1))));
+
+    @AfterEach
+    void tearDown() {
+        orderEventHub.shutdown();
+    }
+
+    @Test
+    @DisplayName("Status change - is pushed only to the streams of the order owner")
+    void publish_statusChanged_sendsToOwner() throws Exception {
+        SseEmitter owner = mock(SseEmitter.class);
+        SseEmitter other = mock(SseEmitter.class);
+        orderEventHub.subscribe(USER_ID, owner);
+        orderEventHub.subscribe(OTHER_USER_ID, other);
+
+        orderEventHub.publish(event(1, USER_ID, OrderServiceImpl.ORDER_STATUS_CHANGED));
+
+        verify(owner, timeout(1000)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(other, never()).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    @DisplayName("Poll - sends events written by any instance once, though rows are read again")
+    void poll_overlappingReads_sendsEachEventOnce() throws Exception {
+        SseEmitter owner = mock(SseEmitter.class);
+        orderEventHub.subscribe(USER_ID, owner);
+        LocalDateTime start = LocalDateTime.now();
+        OrderStreamEvent placed = event(1, USER_ID, OrderServiceImpl.ORDER_PLACED);
+        when(orderStreamRepository.findNow()).thenReturn(start);
+        when(orderStreamRepository.findAfter(start, 1000)).thenReturn(List.of(placed),
+                List.of(placed, event(2, USER_ID, OrderServiceImpl.ORDER_STATUS_CHANGED)));
+
+        orderEventHub.poll();
+        orderEventHub.poll();
+
+        verify(owner, timeout(1000).times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(orderStreamRepository, times(1)).findNow();
+    }
+
+    @Test
+    @DisplayName("Slow stream - is closed once its buffer is full")
+    void publish_bufferFull_closesStream() throws Exception {
+        SseEmitter slow = mock(SseEmitter.class);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            blocked.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(slow).send(any(SseEmitter.SseEventBuilder.class));
+        orderEventHub.subscribe(USER_ID, slow);
+
+        orderEventHub.publish(event(0, USER_ID, OrderServiceImpl.ORDER_PLACED));
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i <= 33; i++) {
+            orderEventHub.publish(event(i, USER_ID, OrderServiceImpl.ORDER_STATUS_CHANGED));
+        }
+        release.countDown();
+
+        verify(slow).complete();
+        assertThat(orderEventHub.subscriberCount()).isZero();
+    }
+
+    private static OrderStreamEvent event(long id, Long userId, String type) {
+        return new OrderStreamEvent(id, userId, type,
+                "{\"orderId\":10,\"userId\":" + userId + ",\"status\":\"BOOK_DELIVERED\"}",
+                LocalDateTime.now());
+    }
+}
@@ -0,0 +1,151 @@
+package com.marek.onlinebookstore.service.order;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.marek.onlinebookstore.dto.order.OrderDto;
+import com.marek.onlinebookstore.dto.order.OrderRequestStatusDto;
+import com.marek.onlinebookstore.dto.order.PlacingOrderRequestDto;
+import com.marek.onlinebookstore.exception.EmptyShoppingCartException;
+import com.marek.onlinebookstore.exception.OutOfStockException;
+import com.marek.onlinebookstore.repository.order.CheckoutRepository;
+import com.marek.onlinebookstore.repository.order.OrderRequestRepository;
+import com.marek.onlinebookstore.repository.order.OrderRequestRepository.QueuedOrder;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class OrderRequestServiceImplTest {
+    private static final Long USER_ID = 6L;
+    private static final int WORKERS = 4;
+    private static final int PARTITION = 2;
+    private static final String SHIPPING_ADDRESS = "Krakow, Rynek 1";
+
+    @Mock
+    private OrderRequestRepository orderRequestRepository;
+
+    @Mock
+    private CheckoutRepository checkoutRepository;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private OrderRequestServiceImpl orderRequestService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(orderRequestService, "workerCount", WORKERS);
+        ReflectionTestUtils.setField(orderRequestService, "batchSize", 20);
+        orderRequestService.init();
+    }
+
+    @Test
+    @DisplayName("Enqueue with items in cart - stores the request and returns its status")
+    void enqueue_cartWithItems_queuesRequest() {
+        when(checkoutRepository.countCartLines(USER_ID)).thenReturn(2);
+        ArgumentCaptor<String> id = ArgumentCaptor.forClass(String.class);
+        when(orderRequestRepository.findStatus(anyString(), eq(USER_ID))).thenAnswer(
+                invocation -> Optional.of(new OrderRequestStatusDto(invocation.getArgument(0),
+                        "QUEUED", 0L, null, null, LocalDateTime.now(), null)));
+
+        OrderRequestStatusDto actual = orderRequestService.enqueue(USER_ID,
+                new PlacingOrderRequestDto(SHIPPING_ADDRESS));
+
+        verify(orderRequestRepository).insert(id.capture(), eq(USER_ID), eq(SHIPPING_ADDRESS));
+        assertThat(actual.id()).isEqualTo(id.getValue());
+        assertThat(actual.status()).isEqualTo("QUEUED");
+    }
+
+    @Test
+    @DisplayName("Enqueue with empty cart - rejects the request without queueing it")
+    void enqueue_emptyCart_throwsException() {
+        when(checkoutRepository.countCartLines(USER_ID)).thenReturn(0);
+
+        assertThatThrownBy(() -> orderRequestService.enqueue(USER_ID,
+                new PlacingOrderRequestDto(SHIPPING_ADDRESS)))
+                .isInstanceOf(EmptyShoppingCartException.class);
+        verifyNoInteractions(orderRequestRepository);
+    }
+
+    @Test
+    @DisplayName("Drain - places orders in queue order and records failures")
+    void drain_queuedRequests_completesAndFails() {
+        when(orderRequestRepository.findQueued(WORKERS, PARTITION, 20)).thenReturn(List.of(
+                new QueuedOrder(1, "first", USER_ID, SHIPPING_ADDRESS),
+                new QueuedOrder(2, "second", USER_ID, SHIPPING_ADDRESS)));
+        when(orderRequestRepository.claim(anyString())).thenReturn(true);
+        when(orderService.makeOrder(eq(USER_ID), any()))
+                .thenReturn(new OrderDto(100L, null, LocalDateTime.now(), null, "ORDER_PENDING"))
+                .thenThrow(new OutOfStockException("Not enough stock for book with id: 3"));
+
+        int actual = orderRequestService.drain(PARTITION);
+
+        assertThat(actual).isEqualTo(2);
+        verify(orderRequestRepository).complete("first", 100L);
+        verify(orderRequestRepository).fail("second", "Not enough stock for book with id: 3");
+    }
+
+    @Test
+    @DisplayName("Drain with transient failure - stops so later requests keep their order")
+    void drain_transientFailure_leavesRestQueued() {
+        when(orderRequestRepository.findQueued(WORKERS, PARTITION, 20)).thenReturn(List.of(
+                new QueuedOrder(1, "first", USER_ID, SHIPPING_ADDRESS),
+                new QueuedOrder(2, "second", USER_ID, SHIPPING_ADDRESS)));
+        when(orderRequestRepository.claim(anyString())).thenReturn(true);
+        when(orderService.makeOrder(eq(USER_ID), any()))
+                .thenThrow(new CannotAcquireLockException("Lock wait timeout exceeded"));
+
+        int actual = orderRequestService.drain(PARTITION);
+
+        assertThat(actual).isNegative();
+        verify(orderService).makeOrder(eq(USER_ID), any());
+        verify(orderRequestRepository, never()).fail(anyString(), any());
+        verify(orderRequestRepository, never()).complete(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Drain with request held elsewhere - stops without placing it again")
+    void drain_requestClaimedElsewhere_stops() {
+        when(orderRequestRepository.findQueued(WORKERS, PARTITION, 20)).thenReturn(List.of(
+                new QueuedOrder(1, "first", USER_ID, SHIPPING_ADDRESS),
+                new QueuedOrder(2, "second", USER_ID, SHIPPING_ADDRESS)));
+        when(orderRequestRepository.claim("first")).thenReturn(false);
+
+        int actual = orderRequestService.drain(PARTITION);
+
+        assertThat(actual).isZero();
+        verifyNoInteractions(orderService);
+        verify(orderRequestRepository, never()).fail(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Start workers with async orders off - starts no workers")
+    void startWorkers_disabled_startsNothing() {
+        orderRequestService.startWorkers();
+
+        assertThat(ReflectionTestUtils.getField(orderRequestService, "workers")).isNull();
+    }
+}
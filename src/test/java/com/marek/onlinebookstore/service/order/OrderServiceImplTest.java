@@ -0,0 +1,286 @@
+package com.marek.onlinebookstore.service.order;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.marek.onlinebookstore.dto.order.BulkOrderStatusRequestDto;
+import com.marek.onlinebookstore.dto.order.BulkOrderStatusResultDto;
+import com.marek.onlinebookstore.dto.order.OrderDto;
+import com.marek.onlinebookstore.dto.order.OrderEventDto;
+import com.marek.onlinebookstore.dto.order.OrderItemDto;
+import com.marek.onlinebookstore.dto.order.OrderTransitionDto;
+import com.marek.onlinebookstore.dto.order.PlacingOrderRequestDto;
+import com.marek.onlinebookstore.exception.EmptyShoppingCartException;
+import com.marek.onlinebookstore.exception.EntityNotFoundException;
+import com.marek.onlinebookstore.exception.InvalidCursorException;
+import com.marek.onlinebookstore.mapper.OrderMapper;
+import com.marek.onlinebookstore.model.Order;
+import com.marek.onlinebookstore.model.Status;
+import com.marek.onlinebookstore.model.User;
+import com.marek.onlinebookstore.repository.IdSequenceRepository;
+import com.marek.onlinebookstore.repository.KeysetCursor;
+import com.marek.onlinebookstore.repository.order.CheckoutRepository;
+import com.marek.onlinebookstore.repository.order.OrderHistoryRepository;
+import com.marek.onlinebookstore.repository.order.OrderRepository;
+import com.marek.onlinebookstore.repository.order.OrderTransitionRepository;
+import com.marek.onlinebookstore.repository.order.OrderTransitionRepository.LockedOrder;
+import com.marek.onlinebookstore.repository.shard.ShardContext;
+import com.marek.onlinebookstore.repository.shard.ShardDirectory;
+import com.marek.onlinebookstore.repository.shard.ShardExecutor;
+import com.marek.onlinebookstore.repository.shard.ShardRing;
+import com.marek.onlinebookstore.repository.user.UserRepository;
+import com.marek.onlinebookstore.service.inventory.InventoryService;
+import com.marek.onlinebookstore.service.inventory.StockLine;
+import com.marek.onlinebookstore.service.outbox.OutboxService;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceImplTest {
+    private static final Long USER_ID = 7L;
+    private static final Long ORDER_ID = 100L;
+    private static final long FIRST_ITEM_ID = 500L;
+    private static final String SHIPPING_ADDRESS = "Warszawa, Marszalkowska 1";
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderHistoryRepository orderHistoryRepository;
+
+    @Mock
+    private OrderTransitionRepository orderTransitionRepository;
+
+    @Mock
+    private CheckoutRepository checkoutRepository;
+
+    @Mock
+    private IdSequenceRepository idSequenceRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ShardExecutor shardExecutor = new ShardExecutor(new ShardDirectory(
+            Set.of(ShardContext.MAIN), new ShardRing(List.of(ShardContext.MAIN), 1)));
+
+    @InjectMocks
+    private OrderServiceImpl orderService;
+
+    @Test
+    @DisplayName("Make order from cart - copies lines, clears cart and returns items")
+    void makeOrder_cartWithItems_movesCartIntoOrder() {
+        // Given
+        User user = getUser();
+        BigDecimal total = new BigDecimal("54.97");
+        when(checkoutRepository.countCartLines(USER_ID)).thenReturn(2);
+        when(checkoutRepository.lockCart(USER_ID))
+                .thenReturn(new CheckoutRepository.CartSummary(2, total));
+        when(userRepository.getReferenceById(USER_ID)).thenReturn(user);
+        when(orderRepository.saveAndFlush(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(ORDER_ID);
+            return order;
+        });
+        List<StockLine> lines = List.of(new StockLine(1L, 2), new StockLine(2L, 1));
+        when(checkoutRepository.findCartLines(USER_ID)).thenReturn(lines);
+        when(idSequenceRepository.reserve("order_items", 2)).thenReturn(FIRST_ITEM_ID);
+        when(orderMapper.toDto(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            return new OrderDto(order.getId(), null, order.getOrderDate(), order.getTotal(),
+                    order.getStatus().name());
+        });
+        List<OrderItemDto> items = List.of(new OrderItemDto(FIRST_ITEM_ID, 1L, 2, "Dune"),
+                new OrderItemDto(FIRST_ITEM_ID + 1, 2L, 1, "Solaris"));
+        when(checkoutRepository.findOrderItems(ORDER_ID)).thenReturn(items);
+
+        // When
+        OrderDto actual = orderService.makeOrder(USER_ID,
+                new PlacingOrderRequestDto(SHIPPING_ADDRESS));
+
+        // Then
+        Assertions.assertEquals(ORDER_ID, actual.getId());
+        Assertions.assertEquals(total, actual.getTotal());
+        Assertions.assertEquals(Set.copyOf(items), actual.getOrderItems());
+        ArgumentCaptor<Order> savedOrder = ArgumentCaptor.forClass(Order.class);
+        verify(orderRepository).saveAndFlush(savedOrder.capture());
+        Assertions.assertEquals(user, savedOrder.getValue().getUser());
+        Assertions.assertEquals(Status.ORDER_PENDING, savedOrder.getValue().getStatus());
+        Assertions.assertEquals(SHIPPING_ADDRESS, savedOrder.getValue().getShippingAddress());
+        InOrder checkout = inOrder(inventoryService, checkoutRepository);
+        checkout.verify(checkoutRepository).copyCartToOrder(USER_ID, ORDER_ID, FIRST_ITEM_ID);
+        checkout.verify(checkoutRepository).clearCart(USER_ID);
+        checkout.verify(inventoryService).checkout(USER_ID, ORDER_ID, lines);
+        ArgumentCaptor<OrderEventDto> event = ArgumentCaptor.forClass(OrderEventDto.class);
+        verify(outboxService).append(eq("order"), eq(ORDER_ID),
+                eq(OrderServiceImpl.ORDER_PLACED), event.capture());
+        Assertions.assertEquals(USER_ID, event.getValue().userId());
+        Assertions.assertEquals(Set.copyOf(items), event.getValue().orderItems());
+    }
+
+    @Test
+    @DisplayName("Make order from empty cart - throws and saves nothing")
+    void makeOrder_emptyCart_throwsException() {
+        // Given
+        when(checkoutRepository.countCartLines(USER_ID)).thenReturn(0);
+
+        // When / Then
+        Assertions.assertThrows(EmptyShoppingCartException.class, () -> orderService.makeOrder(
+                USER_ID, new PlacingOrderRequestDto(SHIPPING_ADDRESS)));
+        verifyNoInteractions(orderRepository, idSequenceRepository, inventoryService,
+                outboxService);
+    }
+
+    @Test
+    @DisplayName("Order history by cursor - one query for orders, one for all of their items")
+    void getHistory_cursor_returnsPageWithItemsAndNextPosition() {
+        // Given
+        LocalDateTime newest = LocalDateTime.of(2024, 5, 2, 9, 30);
+        LocalDateTime older = newest.minusDays(1);
+        when(orderHistoryRepository.findPageBefore(USER_ID, null, null, 3)).thenReturn(
+                List.of(new OrderDto(12L, null, newest, BigDecimal.TEN, "ORDER_PENDING"),
+                        new OrderDto(11L, null, older, BigDecimal.ONE, "ORDER_COMPLETED"),
+                        new OrderDto(10L, null, older, BigDecimal.ONE, "ORDER_COMPLETED")));
+        Set<OrderItemDto> items = Set.of(new OrderItemDto(1L, 5L, 1, "Dune"));
+        when(orderHistoryRepository.findItems(List.of(12L, 11L)))
+                .thenReturn(Map.of(12L, items));
+
+        // When
+        Window<OrderDto> actual = orderService.getHistory(USER_ID, "", 2);
+
+        // Then
+        Assertions.assertEquals(List.of(12L, 11L),
+                actual.stream().map(OrderDto::getId).toList());
+        Assertions.assertTrue(actual.hasNext());
+        Assertions.assertEquals(items, actual.getContent().get(0).getOrderItems());
+        Assertions.assertEquals(Set.of(), actual.getContent().get(1).getOrderItems());
+        KeysetScrollPosition next = KeysetCursor.decode(KeysetCursor.nextCursor(actual),
+                Map.of("orderDate", LocalDateTime.class, "id", Long.class));
+        Assertions.assertEquals(Map.of("orderDate", older, "id", 11L), next.getKeys());
+    }
+
+    @Test
+    @DisplayName("Order history by cursor with keys of the wrong type - throws 400 exception")
+    void getHistory_cursorWithWrongKeyTypes_throwsException() {
+        // Given
+        String cursor = KeysetCursor.encode(ScrollPosition.forward(Map.of(
+                "orderDate", 5L, "id", LocalDateTime.of(2024, 5, 2, 9, 30))));
+
+        // When / Then
+        Assertions.assertThrows(InvalidCursorException.class,
+                () -> orderService.getHistory(USER_ID, cursor, 2));
+        verifyNoInteractions(orderHistoryRepository);
+    }
+
+    @Test
+    @DisplayName("Get missing item from order - throws EntityNotFoundException")
+    void getFromOrder_missingItem_throwsException() {
+        // Given
+        when(orderHistoryRepository.findItem(ORDER_ID, 1L)).thenReturn(Optional.empty());
+
+        // When / Then
+        Assertions.assertThrows(EntityNotFoundException.class,
+                () -> orderService.getFromOrder(ORDER_ID, 1L));
+    }
+
+    @Test
+    @DisplayName("Update statuses by ids - advances open orders and reports the rest")
+    void updateStatuses_ids_advancesOpenOrdersOnly() {
+        // Given
+        LocalDateTime orderDate = LocalDateTime.of(2024, 5, 1, 12, 0);
+        when(orderTransitionRepository.lock(List.of(1L, 2L, 3L, 4L))).thenReturn(List.of(
+                new LockedOrder(1L, USER_ID, Status.ORDER_PENDING, BigDecimal.TEN, orderDate),
+                new LockedOrder(2L, USER_ID, Status.ORDER_COMPLETED, BigDecimal.TEN,
+                        orderDate),
+                new LockedOrder(3L, USER_ID, Status.BOOK_DELIVERED, BigDecimal.TEN,
+                        orderDate)));
+        BulkOrderStatusRequestDto requestDto = new BulkOrderStatusRequestDto(
+                List.of(1L, 2L, 3L, 4L, 1L), null, null, null, null);
+
+        // When
+        BulkOrderStatusResultDto actual = orderService.updateStatuses(requestDto);
+
+        // Then
+        Assertions.assertEquals(2, actual.transitioned());
+        Assertions.assertEquals(2, actual.skipped());
+        Assertions.assertEquals(List.of(
+                new OrderTransitionDto(1L, OrderTransitionDto.Outcome.TRANSITIONED,
+                        "ORDER_PENDING", "BOOK_DELIVERED"),
+                new OrderTransitionDto(2L, OrderTransitionDto.Outcome.ALREADY_COMPLETED,
+                        "ORDER_COMPLETED", null),
+                new OrderTransitionDto(3L, OrderTransitionDto.Outcome.TRANSITIONED,
+                        "BOOK_DELIVERED", "ORDER_COMPLETED"),
+                new OrderTransitionDto(4L, OrderTransitionDto.Outcome.NOT_FOUND, null, null)),
+                actual.orders());
+        verify(orderTransitionRepository).advance(Set.of(1L, 3L));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Long, OrderEventDto>> events = ArgumentCaptor.forClass(Map.class);
+        verify(outboxService).appendAll(eq("order"), eq(OrderServiceImpl.ORDER_STATUS_CHANGED),
+                events.capture());
+        Assertions.assertEquals("BOOK_DELIVERED", events.getValue().get(1L).status());
+        Assertions.assertEquals("ORDER_COMPLETED", events.getValue().get(3L).status());
+    }
+
+    @Test
+    @DisplayName("Update statuses by ids - orders outside the filter are not touched")
+    void updateStatuses_idsNotMatchingStatus_skipsOrders() {
+        // Given
+        when(orderTransitionRepository.lock(List.of(1L))).thenReturn(List.of(new LockedOrder(
+                1L, USER_ID, Status.BOOK_DELIVERED, BigDecimal.TEN, LocalDateTime.now())));
+        BulkOrderStatusRequestDto requestDto = new BulkOrderStatusRequestDto(
+                List.of(1L), Status.ORDER_PENDING, null, null, null);
+
+        // When
+        BulkOrderStatusResultDto actual = orderService.updateStatuses(requestDto);
+
+        // Then
+        Assertions.assertEquals(0, actual.transitioned());
+        Assertions.assertEquals(OrderTransitionDto.Outcome.NOT_MATCHED,
+                actual.orders().get(0).outcome());
+        verify(orderTransitionRepository, never()).advance(any());
+        verify(outboxService, never()).appendAll(any(), any(), anyMap());
+    }
+
+    private static User getUser() {
+        User user = new User();
+        user.setId(USER_ID);
+        user.setEmail("reader@email.com");
+        return user;
+    }
+}
@@ -0,0 +1,118 @@
+package com.marek.onlinebookstore.service.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.marek.onlinebookstore.repository.outbox.OutboxRepository;
+import com.marek.onlinebookstore.repository.shard.ShardContext;
+import com.marek.onlinebookstore.repository.shard.ShardDirectory;
+import com.marek.onlinebookstore.repository.shard.ShardExecutor;
+import com.marek.onlinebookstore.repository.shard.ShardRing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private OutboxSink firstSink;
+
+    @Mock
+    private OutboxSink secondSink;
+
+    private MeterRegistry meterRegistry;
+    private OutboxDispatcher outboxDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboxDispatcher = new OutboxDispatcher(outboxRepository, List.of(firstSink, secondSink),
+                mock(PlatformTransactionManager.class), meterRegistry,
+                new ShardExecutor(new ShardDirectory(Set.of(ShardContext.MAIN),
+                        new ShardRing(List.of(ShardContext.MAIN), 1))));
+        ReflectionTestUtils.setField(outboxDispatcher, "batchSize", BATCH_SIZE);
+    }
+
+    @Test
+    @DisplayName("Dispatch batch - delivers to every sink, then deletes the rows")
+    void dispatchBatch_allSinksAccept_deletesEvents() throws Exception {
+        List<OutboxEvent> events = List.of(event(1, 0), event(2, 0));
+        when(outboxRepository.claim(any(), eq(BATCH_SIZE))).thenReturn(events);
+
+        int actual = outboxDispatcher.dispatchBatch();
+
+        assertThat(actual).isEqualTo(2);
+        verify(firstSink).deliver(events);
+        verify(secondSink).deliver(events);
+        verify(outboxRepository).deleteAll(events);
+        assertThat(meterRegistry.counter("outbox.events.delivered").count()).isEqualTo(2);
+        assertThat(meterRegistry.timer("outbox.delivery.lag").count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Dispatch batch with failing sink - keeps the rows and backs off")
+    void dispatchBatch_sinkFails_schedulesRetry() throws Exception {
+        List<OutboxEvent> events = List.of(event(1, 3));
+        when(outboxRepository.claim(any(), eq(BATCH_SIZE))).thenReturn(events);
+        when(firstSink.getName()).thenReturn("webhook");
+        doThrow(new IOException("Webhook answered 503")).when(firstSink).deliver(events);
+
+        int actual = outboxDispatcher.dispatchBatch();
+
+        assertThat(actual).isZero();
+        verifyNoInteractions(secondSink);
+        verify(outboxRepository, never()).deleteAll(anyCollection());
+        ArgumentCaptor<LocalDateTime> nextAttempt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxRepository).retryAll(eq(events), nextAttempt.capture(),
+                eq("webhook: Webhook answered 503"));
+        assertThat(nextAttempt.getValue()).isAfter(LocalDateTime.now().plusSeconds(7));
+        assertThat(meterRegistry.counter("outbox.events.failed").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Dispatch - keeps claiming while batches come back full")
+    void dispatch_fullBatches_drainsOutbox() throws Exception {
+        when(outboxRepository.claim(any(), eq(BATCH_SIZE)))
+                .thenReturn(List.of(event(1, 0), event(2, 0)))
+                .thenReturn(List.of(event(3, 0)));
+        when(outboxRepository.findOldestCreatedAt()).thenReturn(Optional.empty());
+
+        outboxDispatcher.dispatch();
+
+        verify(outboxRepository, times(2)).deleteAll(anyCollection());
+        verify(outboxRepository, never()).retryAll(anyCollection(), any(), anyString());
+    }
+
+    private static OutboxEvent event(long id, int attempts) {
+        return new OutboxEvent(id, "order", id, "ORDER_PLACED", "{\"orderId\":" + id + "}",
+                LocalDateTime.now().minusSeconds(1), attempts);
+    }
+}
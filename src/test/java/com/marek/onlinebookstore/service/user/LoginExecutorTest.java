@@ -0,0 +1,78 @@
+package com.marek.onlinebookstore.service.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.marek.onlinebookstore.exception.LoginRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+class LoginExecutorTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final LoginExecutor loginExecutor =
+            new LoginExecutor(meterRegistry, 1, 1, Duration.ofSeconds(5));
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        loginExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Execute - returns the login result and rethrows its failures")
+    void execute_login_returnsResultOrRethrows() {
+        assertThat(loginExecutor.execute(() -> "token")).isEqualTo("token");
+        assertThatThrownBy(() -> loginExecutor.execute(() -> {
+            throw new BadCredentialsException("Bad credentials");
+        })).isInstanceOf(BadCredentialsException.class);
+        assertThat(meterRegistry.get("security.login").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Execute with full queue - rejects the login right away")
+    void execute_fullQueue_throwsLoginRejectedException() throws Exception {
+        CompletableFuture.runAsync(() -> loginExecutor.execute(this::await));
+        CompletableFuture.runAsync(() -> loginExecutor.execute(this::await));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (loginExecutor.queueSize() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThatThrownBy(() -> loginExecutor.execute(() -> "token"))
+                .isInstanceOf(LoginRejectedException.class);
+        assertThat(meterRegistry.get("security.login.rejected").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("security.login.queue.size").gauge().value())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Execute slower than the timeout - rejects the login")
+    void execute_slowLogin_throwsLoginRejectedException() {
+        LoginExecutor impatient = new LoginExecutor(new SimpleMeterRegistry(), 1, 1,
+                Duration.ofMillis(50));
+        try {
+            assertThatThrownBy(() -> impatient.execute(this::await))
+                    .isInstanceOf(LoginRejectedException.class);
+        } finally {
+            impatient.shutdown();
+        }
+    }
+
+    private String await() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "token";
+    }
+}
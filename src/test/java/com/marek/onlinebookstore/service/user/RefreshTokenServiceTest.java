@@ -0,0 +1,102 @@
+package com.marek.onlinebookstore.service.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.marek.onlinebookstore.exception.InvalidRefreshTokenException;
+import com.marek.onlinebookstore.repository.token.RefreshTokenRepository;
+import com.marek.onlinebookstore.repository.token.RefreshTokenRepository.StoredRefreshToken;
+import com.marek.onlinebookstore.security.token.JwtUtil;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+    private static final Long USER_ID = 8L;
+    private static final long FAMILY_ID = 41L;
+    private static final String REFRESH_TOKEN = "refresh-token";
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @InjectMocks
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(refreshTokenService, "ttl", Duration.ofDays(30));
+    }
+
+    @Test
+    @DisplayName("Issue - starts a family and stores only the digest of the token")
+    void issue_user_storesDigestInNewFamily() {
+        when(refreshTokenRepository.insertFamily(eq(USER_ID), any())).thenReturn(FAMILY_ID);
+
+        String token = refreshTokenService.issue(USER_ID);
+
+        ArgumentCaptor<String> id = ArgumentCaptor.forClass(String.class);
+        verify(refreshTokenRepository).insert(id.capture(), eq(FAMILY_ID), any());
+        assertThat(id.getValue()).isEqualTo(JwtUtil.digest(token)).isNotEqualTo(token);
+    }
+
+    @Test
+    @DisplayName("Rotate unused token - uses it up and issues the next one of the family")
+    void rotate_unusedToken_issuesNextToken() {
+        String id = JwtUtil.digest(REFRESH_TOKEN);
+        when(refreshTokenRepository.find(id)).thenReturn(Optional.of(stored(false, false)));
+        when(refreshTokenRepository.markUsed(id)).thenReturn(true);
+
+        RefreshTokenService.Rotation actual = refreshTokenService.rotate(REFRESH_TOKEN);
+
+        assertThat(actual.userId()).isEqualTo(USER_ID);
+        assertThat(actual.refreshToken()).isNotEqualTo(REFRESH_TOKEN);
+        verify(refreshTokenRepository).insert(eq(JwtUtil.digest(actual.refreshToken())),
+                eq(FAMILY_ID), any());
+        verify(refreshTokenRepository, never()).revokeFamily(anyLong());
+    }
+
+    @Test
+    @DisplayName("Rotate used token - revokes the whole family")
+    void rotate_usedToken_revokesFamily() {
+        when(refreshTokenRepository.find(JwtUtil.digest(REFRESH_TOKEN)))
+                .thenReturn(Optional.of(stored(true, false)));
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(REFRESH_TOKEN))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        verify(refreshTokenRepository).revokeFamily(FAMILY_ID);
+        verify(refreshTokenRepository, never()).insert(anyString(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Rotate token of a revoked family - is rejected")
+    void rotate_revokedFamily_throwsException() {
+        when(refreshTokenRepository.find(JwtUtil.digest(REFRESH_TOKEN)))
+                .thenReturn(Optional.of(stored(false, true)));
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(REFRESH_TOKEN))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+        verify(refreshTokenRepository, never()).markUsed(anyString());
+    }
+
+    private static StoredRefreshToken stored(boolean used, boolean revoked) {
+        return new StoredRefreshToken(FAMILY_ID, USER_ID, used,
+                LocalDateTime.now().plusDays(1), revoked);
+    }
+}
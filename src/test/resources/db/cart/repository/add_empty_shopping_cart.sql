@@ -0,0 +1,5 @@
+INSERT INTO users (id, email, password, first_name, last_name, shipping_address, is_deleted)
+VALUES (1, 'okok@email.com', 'okok','First Name', 'Last Name', 'address', false);
+
+INSERT INTO shopping_carts (id, user_id, is_deleted)
+VALUES (1, 1, false);